@@ -2,6 +2,7 @@ plugins {
     java
     application
     id("com.gradleup.shadow") version "9.0.0-beta4"
+    id("org.graalvm.buildtools.native") version "0.10.3" apply false
 }
 
 group = "com.example"
@@ -17,12 +18,32 @@ java {
     }
 }
 
+// Local tooling that must not ship in the shadow jar or the native image: the upstream simulator
+// (src/simulator) and the load-test harness (src/loadtest). Both run with the main runtime classpath
+// so they log like the server; the harness also reuses the API DTOs.
+val simulatorSources: SourceSet = sourceSets.create("simulator") {
+    runtimeClasspath += sourceSets.main.get().output
+}
+val loadTestSources: SourceSet = sourceSets.create("loadtest") {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+for (tool in listOf("simulator", "loadtest")) {
+    configurations["${tool}Implementation"].extendsFrom(configurations.implementation.get())
+    configurations["${tool}RuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+}
+
+sourceSets.test {
+    compileClasspath += simulatorSources.output + loadTestSources.output
+    runtimeClasspath += simulatorSources.output + loadTestSources.output
+}
+
 dependencies {
     implementation("io.javalin:javalin:6.1.6")
     implementation("com.fasterxml.jackson.core:jackson-databind:2.17.2")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310:2.17.2")
     implementation("com.squareup.okhttp3:okhttp:4.12.0")
-    implementation("org.slf4j:slf4j-simple:2.0.13")
+    implementation("ch.qos.logback:logback-classic:1.5.8")
 
     testImplementation("org.junit.jupiter:junit-jupiter:5.11.0")
     testImplementation("io.javalin:javalin-testtools:6.1.6")
@@ -32,10 +53,50 @@ dependencies {
 
 application {
     mainClass.set("com.example.hpadventure.App")
+    applicationDefaultJvmArgs = listOf("-Djava.awt.headless=true")
 }
 
 tasks.test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+val benchmark by tasks.registering(Test::class) {
+    description = "Runs the @Tag(\"benchmark\") tests and prints their measurements."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging {
+        showStandardStreams = true
+    }
+    outputs.upToDateWhen { false }
+}
+
+// Local stand-in for OpenRouter, Anthropic, OpenAI images and ElevenLabs, for load and latency work:
+//   SIMULATOR_PORT=8089 ./gradlew simulator
+// then point OPENROUTER_BASE_URL, ANTHROPIC_BASE_URL, OPENAI_BASE_URL and ELEVENLABS_BASE_URL at
+// http://127.0.0.1:8089. Timing, sizes and failure rates come from the SIMULATOR_* variables (see SimulatorProfile).
+val simulator by tasks.registering(JavaExec::class) {
+    description = "Runs the upstream simulator in the foreground."
+    group = "application"
+    classpath = simulatorSources.runtimeClasspath
+    mainClass.set("com.example.hpadventure.simulator.UpstreamSimulator")
+    jvmArgs("-Djava.awt.headless=true")
+}
+
+// Climbs through concurrency steps against a running server (RATE_LIMIT_PER_MINUTE=0) and writes latency
+// percentiles, throughput, error rates and server memory/GC per step to build/loadtest/*.json:
+//   LOADTEST_TARGET=http://127.0.0.1:7070 LOADTEST_STEPS=1,10,50 LOADTEST_LABEL=main ./gradlew loadTest
+val loadTest by tasks.registering(JavaExec::class) {
+    description = "Runs the load test against LOADTEST_TARGET."
+    group = "verification"
+    classpath = loadTestSources.runtimeClasspath
+    mainClass.set("com.example.hpadventure.loadtest.LoadTest")
+    workingDir = projectDir
 }
 
 tasks.shadowJar {
@@ -44,3 +105,52 @@ tasks.shadowJar {
     archiveVersion.set("")
     mergeServiceFiles()
 }
+
+// AppCDS: a training run against a fake upstream records the classes loaded during startup and the
+// first story turn into build/libs/hp-adventure.jsa. Run the jar with
+// -XX:SharedArchiveFile=hp-adventure.jsa (same JDK, same jar path) to map them instead of loading them.
+val cdsArchive by tasks.registering(Exec::class) {
+    description = "Creates an AppCDS archive for the shadow jar from a training run."
+    group = "build"
+    dependsOn(tasks.shadowJar)
+    val jar = tasks.shadowJar.flatMap { it.archiveFile }
+    val archive = layout.buildDirectory.file("libs/hp-adventure.jsa")
+    val java = javaToolchains.launcherFor {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }.map { it.executablePath.asFile.absolutePath }
+    inputs.file(jar)
+    outputs.file(archive)
+    workingDir = layout.buildDirectory.dir("libs").get().asFile
+    environment("PORT", "0")
+    environment("RATE_LIMIT_PER_MINUTE", "0")
+    environment("OPENROUTER_API_KEY", "training")
+    environment("OPENROUTER_BASE_URL", "http://127.0.0.1:18089/api")
+    doFirst {
+        commandLine(
+            java.get(),
+            "-XX:ArchiveClassesAtExit=hp-adventure.jsa",
+            "-Djava.awt.headless=true",
+            "-cp", jar.get().asFile.name,
+            "com.example.hpadventure.StartupTraining"
+        )
+    }
+}
+
+// GraalVM native image, opt-in so regular builds do not need GraalVM:
+//   ./gradlew -Pnative nativeCompile   ->  build/native/nativeCompile/hp-adventure
+// Reflection/resource metadata for our records and static files lives in
+// src/main/resources/META-INF/native-image; library metadata comes from the GraalVM reachability repository.
+if (providers.gradleProperty("native").isPresent) {
+    apply(plugin = "org.graalvm.buildtools.native")
+    extensions.configure<org.graalvm.buildtools.gradle.dsl.GraalVMExtension> {
+        toolchainDetection.set(false)
+        metadataRepository {
+            enabled.set(true)
+        }
+        binaries.named("main") {
+            imageName.set("hp-adventure")
+            mainClass.set("com.example.hpadventure.App")
+            buildArgs.add("-Djava.awt.headless=true")
+        }
+    }
+}
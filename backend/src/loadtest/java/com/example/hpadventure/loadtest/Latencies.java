@@ -0,0 +1,58 @@
+package com.example.hpadventure.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Millisecond samples per measurement (time to first delta, to final text, ...), summarised into
+ * percentiles once a step is over. Samples are kept exactly; a step produces at most a few hundred
+ * thousand, which sort in milliseconds.
+ */
+final class Latencies {
+    private final Map<String, Samples> samples = new TreeMap<>();
+
+    synchronized void record(String name, long millis) {
+        samples.computeIfAbsent(name, key -> new Samples()).add(millis);
+    }
+
+    synchronized Map<String, Summary> summarise() {
+        Map<String, Summary> summaries = new TreeMap<>();
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+            summaries.put(entry.getKey(), entry.getValue().summary());
+        }
+        return summaries;
+    }
+
+    /** Nearest-rank percentiles, in milliseconds. */
+    record Summary(int count, long min, long p50, long p90, long p95, long p99, long max, long mean) {
+    }
+
+    private static final class Samples {
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        Summary summary() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            long sum = 0;
+            for (long value : sorted) {
+                sum += value;
+            }
+            return new Summary(size, sorted[0], percentile(sorted, 50), percentile(sorted, 90),
+                percentile(sorted, 95), percentile(sorted, 99), sorted[size - 1], sum / size);
+        }
+
+        private static long percentile(long[] sorted, int percent) {
+            int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+}
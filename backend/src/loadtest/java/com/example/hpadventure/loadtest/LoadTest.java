@@ -0,0 +1,160 @@
+package com.example.hpadventure.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Climbs through concurrency steps against a running server and writes what each step cost: latency
+ * percentiles for the first delta, the final text, the image and speech, turns and deltas per second,
+ * error rates by code, and the server's resident memory, heap, threads and GC from its {@code /metrics}.
+ *
+ * Run the server in its own JVM (with {@code RATE_LIMIT_PER_MINUTE=0}, else one IP is throttled), against
+ * the real providers or the {@code UpstreamSimulator}, then
+ * {@code ./gradlew loadTest}. Players persist across steps, so histories keep growing as the load rises.
+ * Results go to {@link LoadTestConfig#output()} as JSON, labelled with {@code LOADTEST_LABEL} for
+ * comparing builds.
+ */
+public final class LoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(3);
+    private static final ObjectMapper REPORT_MAPPER = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+        .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final LoadTestConfig config;
+    private final OkHttpClient client;
+    private final ObjectMapper mapper;
+    private final List<Player> players = new ArrayList<>();
+
+    LoadTest(LoadTestConfig config) {
+        this.config = config;
+        int maxPlayers = Collections.max(config.steps());
+        this.client = new OkHttpClient.Builder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .readTimeout(Duration.ofMinutes(2))
+            .connectionPool(new ConnectionPool(maxPlayers + 1, 5, TimeUnit.MINUTES))
+            .build();
+        this.mapper = new ObjectMapper();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadTestConfig config = LoadTestConfig.fromEnv();
+        logger.info("Load test starting: target={} steps={} stepSeconds={} label={}",
+            config.target(), config.steps(), config.stepLength().toSeconds(), config.label());
+        Report report = new LoadTest(config).run();
+        Path output = config.output().toAbsolutePath();
+        Files.createDirectories(output.getParent());
+        REPORT_MAPPER.writeValue(output.toFile(), report);
+        logger.info("Load test results written: path={}", output);
+    }
+
+    Report run() throws InterruptedException {
+        Instant startedAt = Instant.now();
+        List<StepRecorder.StepReport> steps = new ArrayList<>();
+        for (int concurrency : config.steps()) {
+            StepRecorder.StepReport step = runStep(concurrency);
+            steps.add(step);
+            log(step);
+        }
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+        return new Report(config.label(), config.target(), startedAt, config, steps);
+    }
+
+    private StepRecorder.StepReport runStep(int concurrency) throws InterruptedException {
+        while (players.size() < concurrency) {
+            players.add(new Player(players.size() + 1, client, mapper, config));
+        }
+        StepRecorder recorder = new StepRecorder();
+        long startedAt = System.nanoTime();
+        long recordingFrom = startedAt + config.warmup().toNanos();
+        long deadline = startedAt + config.stepLength().toNanos();
+
+        ServerSampler sampler = ServerSampler.start(client, config.target());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Player player : players.subList(0, concurrency)) {
+                executor.submit(() -> play(player, recorder, recordingFrom, deadline));
+            }
+            executor.shutdown();
+            long drainMillis = config.stepLength().plus(DRAIN_TIMEOUT).toMillis();
+            if (!executor.awaitTermination(drainMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("Load test step did not drain: players={}", concurrency);
+                executor.shutdownNow();
+            }
+        }
+        double seconds = Math.max(1e-3, (System.nanoTime() - recordingFrom) / 1e9);
+        return recorder.report(concurrency, seconds, sampler.finish());
+    }
+
+    private void play(Player player, StepRecorder recorder, long recordingFrom, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Spread the first requests over one think time instead of sending them all at once
+        sleepUntil(Math.min(deadline, System.nanoTime() + random.nextLong(config.thinkTime().toNanos() + 1)));
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            player.playTurn(System.nanoTime() >= recordingFrom ? recorder : StepRecorder.DISCARD, random);
+            long think = config.thinkTime().toNanos() / 2 + random.nextLong(config.thinkTime().toNanos() + 1);
+            sleepUntil(Math.min(deadline, System.nanoTime() + think));
+        }
+    }
+
+    private static void log(StepRecorder.StepReport step) {
+        Latencies.Summary firstDelta = step.latencies().get("stream.first_delta");
+        Latencies.Summary finalText = step.latencies().get("stream.final_text");
+        Latencies.Summary image = step.latencies().get("stream.image");
+        ServerSampler.Sample server = step.server();
+        logger.info("Load test step: players={} turns={} turnsPerSecond={} errorRate={} firstDeltaP50Ms={} "
+                + "firstDeltaP95Ms={} finalTextP95Ms={} imageP95Ms={} rssPeakMb={} gcMs={}",
+            step.players(), step.turns(), String.format("%.2f", step.turnsPerSecond()),
+            String.format("%.4f", step.errorRate()),
+            firstDelta == null ? null : firstDelta.p50(), firstDelta == null ? null : firstDelta.p95(),
+            finalText == null ? null : finalText.p95(), image == null ? null : image.p95(),
+            server.rssPeakBytes() == null ? null : server.rssPeakBytes() / (1024 * 1024), server.gcTimeMs());
+        if (!step.errors().isEmpty()) {
+            logger.info("Load test step errors: players={} errors={}", step.players(), step.errors());
+        }
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(remaining));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The whole run, as written to the results file.
+     */
+    record Report(
+        String label,
+        String target,
+        Instant startedAt,
+        LoadTestConfig config,
+        List<StepRecorder.StepReport> steps
+    ) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.hpadventure.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What a load test run does: which server it drives, the concurrency steps it climbs, how long each
+ * step lasts, how players behave and where the results go.
+ *
+ * @param target       base URL of the server under test
+ * @param steps        concurrent players per step, run in order
+ * @param stepLength   how long each step lasts; players finish the turn they are in
+ * @param warmup       time at the start of each step whose samples are discarded
+ * @param thinkTime    mean pause between a player's turns (uniform between half and one and a half of it)
+ * @param maxTurns     turns after which a player finishes the adventure and starts a new one
+ * @param streamWeight share of turns played over {@code /api/story/stream}
+ * @param storyWeight  share of turns played over {@code /api/story}
+ * @param ttsWeight    share of turns that also read the story aloud over {@code /api/tts}
+ * @param password     sent as {@code X-App-Password} when the server has {@code APP_PASSWORDS}, or null;
+ *                     left out of the results file
+ * @param label        name of the build under test, stored with the results for comparisons
+ * @param output       JSON file the results are written to
+ */
+public record LoadTestConfig(
+    String target,
+    List<Integer> steps,
+    Duration stepLength,
+    Duration warmup,
+    Duration thinkTime,
+    int maxTurns,
+    int streamWeight,
+    int storyWeight,
+    int ttsWeight,
+    @JsonIgnore String password,
+    String label,
+    Path output
+) {
+    public LoadTestConfig {
+        steps = List.copyOf(steps);
+        if (steps.isEmpty() || steps.stream().anyMatch(step -> step <= 0)) {
+            throw new IllegalArgumentException("steps must be positive player counts");
+        }
+        if (streamWeight < 0 || storyWeight < 0 || ttsWeight < 0 || streamWeight + storyWeight == 0) {
+            throw new IllegalArgumentException("stream and story weights must not both be zero");
+        }
+        if (warmup.compareTo(stepLength) >= 0) {
+            throw new IllegalArgumentException("warmup must be shorter than a step");
+        }
+    }
+
+    /**
+     * Defaults: {@code http://127.0.0.1:7070}, steps 1, 5, 10, 25, 50 of 60 s each with 10 s warm-up, 3 s
+     * think time, 12 turns per adventure, 80% streamed turns, 20% JSON turns, speech for 10% of turns.
+     * Overridden by {@code LOADTEST_TARGET}, {@code LOADTEST_STEPS} (comma-separated),
+     * {@code LOADTEST_STEP_SECONDS}, {@code LOADTEST_WARMUP_SECONDS}, {@code LOADTEST_THINK_MS},
+     * {@code LOADTEST_MAX_TURNS}, {@code LOADTEST_STREAM_WEIGHT}, {@code LOADTEST_STORY_WEIGHT},
+     * {@code LOADTEST_TTS_WEIGHT}, {@code LOADTEST_PASSWORD}, {@code LOADTEST_LABEL} and {@code LOADTEST_OUTPUT}.
+     */
+    public static LoadTestConfig fromEnv() {
+        String target = System.getenv().getOrDefault("LOADTEST_TARGET", "http://127.0.0.1:7070");
+        String label = System.getenv().getOrDefault("LOADTEST_LABEL", "unlabelled");
+        String output = System.getenv("LOADTEST_OUTPUT");
+        return new LoadTestConfig(
+            target.endsWith("/") ? target.substring(0, target.length() - 1) : target,
+            parseSteps(System.getenv("LOADTEST_STEPS"), List.of(1, 5, 10, 25, 50)),
+            Duration.ofSeconds(positiveOrDefault(System.getenv("LOADTEST_STEP_SECONDS"), 60)),
+            Duration.ofSeconds(nonNegativeOrDefault(System.getenv("LOADTEST_WARMUP_SECONDS"), 10)),
+            Duration.ofMillis(nonNegativeOrDefault(System.getenv("LOADTEST_THINK_MS"), 3000)),
+            positiveOrDefault(System.getenv("LOADTEST_MAX_TURNS"), 12),
+            nonNegativeOrDefault(System.getenv("LOADTEST_STREAM_WEIGHT"), 80),
+            nonNegativeOrDefault(System.getenv("LOADTEST_STORY_WEIGHT"), 20),
+            nonNegativeOrDefault(System.getenv("LOADTEST_TTS_WEIGHT"), 10),
+            blankToNull(System.getenv("LOADTEST_PASSWORD")),
+            label,
+            output == null || output.isBlank()
+                ? Path.of("build", "loadtest", label + "-" + Instant.now().getEpochSecond() + ".json")
+                : Path.of(output)
+        );
+    }
+
+    static List<Integer> parseSteps(String value, List<Integer> defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        List<Integer> steps = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                steps.add(Integer.parseInt(part.trim()));
+            }
+        }
+        return steps;
+    }
+
+    private static int positiveOrDefault(String value, int defaultValue) {
+        int parsed = nonNegativeOrDefault(value, defaultValue);
+        return parsed > 0 ? parsed : defaultValue;
+    }
+
+    private static int nonNegativeOrDefault(String value, int defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed >= 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
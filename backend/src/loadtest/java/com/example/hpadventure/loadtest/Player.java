@@ -0,0 +1,238 @@
+package com.example.hpadventure.loadtest;
+
+import com.example.hpadventure.api.Dtos;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * One simulated player, playing turns the way the frontend does: the full history of the current
+ * adventure with every request, usually one of the suggested actions, sometimes something typed, and
+ * a new adventure (with the old one in {@code completedAdventures}) after {@code maxTurns}.
+ *
+ * Not thread-safe; each player is driven by one thread at a time.
+ */
+final class Player {
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String[] HOUSES = {"Gryffindor", "Hufflepuff", "Ravenclaw", "Slytherin"};
+    private static final String OPENING_ACTION = "Ich beginne ein neues Abenteuer.";
+    private static final String[] TYPED_ACTIONS = {
+        "Ich schaue mich vorsichtig um.",
+        "Ich frage den nächsten Geist, was hier passiert ist.",
+        "Ich ziehe meinen Zauberstab und flüstere Lumos.",
+        "Ich folge den Geräuschen in den Gang hinein."
+    };
+    /** Share of turns where the player types instead of picking a suggested action, in percent. */
+    private static final int TYPED_PERCENT = 20;
+
+    private final OkHttpClient client;
+    private final ObjectMapper mapper;
+    private final LoadTestConfig config;
+    private final String name;
+    private final String house;
+    private final List<Dtos.CompletedAdventure> completedAdventures = new ArrayList<>();
+    private final List<Dtos.ChatMessage> history = new ArrayList<>();
+    private List<String> suggestedActions = List.of();
+    private String lastStoryText;
+    private String adventureStartedAt = Instant.now().toString();
+    private int turnsInAdventure;
+    private int totalTurns;
+
+    Player(int id, OkHttpClient client, ObjectMapper mapper, LoadTestConfig config) {
+        this.client = client;
+        this.mapper = mapper;
+        this.config = config;
+        this.name = "Lasttest " + id;
+        this.house = HOUSES[id % HOUSES.length];
+    }
+
+    /**
+     * Play one turn over the stream or JSON endpoint, then maybe have it read aloud.
+     */
+    void playTurn(StepRecorder recorder, Random random) {
+        String action = nextAction(random);
+        boolean stream = random.nextInt(config.streamWeight() + config.storyWeight()) < config.streamWeight();
+        JsonNode assistant = stream ? streamTurn(recorder, action) : jsonTurn(recorder, action);
+        if (assistant == null) {
+            return;
+        }
+        recorder.turn();
+        remember(action, assistant);
+        if (lastStoryText != null && random.nextInt(100) < config.ttsWeight()) {
+            speak(recorder, lastStoryText);
+        }
+    }
+
+    private JsonNode streamTurn(StepRecorder recorder, String action) {
+        recorder.request("stream");
+        long startedAt = System.nanoTime();
+        JsonNode assistant = null;
+        try (Response response = client.newCall(storyRequest("/api/story/stream", action)).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                recorder.error("stream", "http_" + response.code());
+                return null;
+            }
+            BufferedSource source = response.body().source();
+            boolean firstDelta = true;
+            String event = "message";
+            StringBuilder data = new StringBuilder();
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (line.startsWith("event:")) {
+                    event = line.substring("event:".length()).trim();
+                } else if (line.startsWith("data:")) {
+                    if (!data.isEmpty()) {
+                        data.append('\n');
+                    }
+                    data.append(line.substring("data:".length()).stripLeading());
+                } else if (line.isEmpty() && !data.isEmpty()) {
+                    switch (event) {
+                        case "delta" -> {
+                            if (firstDelta) {
+                                recorder.latency("stream.first_delta", startedAt);
+                                firstDelta = false;
+                            }
+                            recorder.delta();
+                        }
+                        case "final_text" -> {
+                            recorder.latency("stream.final_text", startedAt);
+                            assistant = mapper.readTree(data.toString()).path("assistant");
+                        }
+                        case "image_preview" -> recorder.latency("stream.image_preview", startedAt);
+                        case "image" -> recorder.latency("stream.image", startedAt);
+                        case "image_error" -> recorder.error("image", errorCode(data.toString()));
+                        case "error" -> recorder.error("stream", errorCode(data.toString()));
+                        default -> {
+                        }
+                    }
+                    event = "message";
+                    data.setLength(0);
+                }
+            }
+            recorder.latency("stream.complete", startedAt);
+            return assistant;
+        } catch (IOException e) {
+            recorder.error("stream", failure(e));
+            return assistant;
+        }
+    }
+
+    private JsonNode jsonTurn(StepRecorder recorder, String action) {
+        recorder.request("story");
+        long startedAt = System.nanoTime();
+        try (Response response = client.newCall(storyRequest("/api/story", action)).execute()) {
+            String body = response.body() == null ? "" : response.body().string();
+            if (!response.isSuccessful()) {
+                recorder.error("story", body.isEmpty() ? "http_" + response.code() : errorCode(body));
+                return null;
+            }
+            recorder.latency("story.response", startedAt);
+            return mapper.readTree(body).path("assistant");
+        } catch (IOException e) {
+            recorder.error("story", failure(e));
+            return null;
+        }
+    }
+
+    private void speak(StepRecorder recorder, String text) {
+        recorder.request("tts");
+        long startedAt = System.nanoTime();
+        try {
+            Request request = authorised(new Request.Builder().url(config.target() + "/api/tts"))
+                .post(RequestBody.create(mapper.writeValueAsBytes(new Dtos.TtsRequest(text)), JSON))
+                .build();
+            try (Response response = client.newCall(request).execute()) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    recorder.error("tts", "http_" + response.code());
+                    return;
+                }
+                byte[] buffer = new byte[8192];
+                boolean first = true;
+                try (InputStream audio = response.body().byteStream()) {
+                    while (audio.read(buffer) != -1) {
+                        if (first) {
+                            recorder.latency("tts.first_byte", startedAt);
+                            first = false;
+                        }
+                    }
+                }
+                recorder.latency("tts.complete", startedAt);
+            }
+        } catch (IOException e) {
+            recorder.error("tts", failure(e));
+        }
+    }
+
+    private Request storyRequest(String path, String action) throws IOException {
+        Dtos.StoryRequest body = new Dtos.StoryRequest(
+            new Dtos.Player(name, house, List.copyOf(completedAdventures),
+                new Dtos.Stats(completedAdventures.size(), totalTurns)),
+            new Dtos.CurrentAdventure(null, adventureStartedAt),
+            List.copyOf(history),
+            action
+        );
+        return authorised(new Request.Builder().url(config.target() + path))
+            .post(RequestBody.create(mapper.writeValueAsBytes(body), JSON))
+            .build();
+    }
+
+    private Request.Builder authorised(Request.Builder builder) {
+        return config.password() == null ? builder : builder.header("X-App-Password", config.password());
+    }
+
+    private String nextAction(Random random) {
+        if (history.isEmpty()) {
+            return OPENING_ACTION;
+        }
+        if (suggestedActions.isEmpty() || random.nextInt(100) < TYPED_PERCENT) {
+            return TYPED_ACTIONS[random.nextInt(TYPED_ACTIONS.length)];
+        }
+        return suggestedActions.get(random.nextInt(suggestedActions.size()));
+    }
+
+    private void remember(String action, JsonNode assistant) {
+        String storyText = assistant.path("storyText").asText("");
+        List<String> actions = new ArrayList<>();
+        assistant.path("suggestedActions").forEach(option -> actions.add(option.asText()));
+        history.add(new Dtos.ChatMessage("user", action));
+        history.add(new Dtos.ChatMessage("assistant", storyText));
+        suggestedActions = actions;
+        lastStoryText = storyText.isBlank() ? null : storyText;
+        turnsInAdventure++;
+        totalTurns++;
+        if (turnsInAdventure >= config.maxTurns() || assistant.path("adventure").path("completed").asBoolean()) {
+            completedAdventures.add(new Dtos.CompletedAdventure("Abenteuer " + (completedAdventures.size() + 1),
+                "Ein Lasttest-Abenteuer mit " + turnsInAdventure + " Zügen.", Instant.now().toString()));
+            history.clear();
+            suggestedActions = List.of();
+            adventureStartedAt = Instant.now().toString();
+            turnsInAdventure = 0;
+        }
+    }
+
+    private String errorCode(String body) {
+        try {
+            String code = mapper.readTree(body).path("error").path("code").asText("");
+            return code.isEmpty() ? "unknown" : code;
+        } catch (IOException e) {
+            return "unparseable";
+        }
+    }
+
+    private static String failure(IOException e) {
+        return e instanceof InterruptedIOException ? "timeout" : "io";
+    }
+}
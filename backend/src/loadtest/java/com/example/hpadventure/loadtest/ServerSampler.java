@@ -0,0 +1,160 @@
+package com.example.hpadventure.loadtest;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Polls the server's {@code /metrics} once a second during a step and keeps the peaks of resident
+ * memory, heap and threads, plus how much collecting the step caused. Every figure is null when the
+ * server could not be scraped (an older build, or a proxy in front of it).
+ */
+final class ServerSampler implements AutoCloseable {
+    private static final long INTERVAL_MS = 1000;
+
+    private final OkHttpClient client;
+    private final Request request;
+    private final Map<String, Long> first;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private Long rssPeak;
+    private Long heapPeak;
+    private Long threadsPeak;
+    private Map<String, Long> last;
+
+    private ServerSampler(OkHttpClient client, String target) {
+        this.client = client;
+        this.request = new Request.Builder().url(target + "/metrics").get().build();
+        this.first = scrape();
+        if (first != null) {
+            observe(first);
+        }
+        this.thread = Thread.ofVirtual().name("loadtest-sampler").start(this::run);
+    }
+
+    static ServerSampler start(OkHttpClient client, String target) {
+        return new ServerSampler(client, target);
+    }
+
+    /**
+     * Stop polling and take one last sample.
+     */
+    Sample finish() {
+        close();
+        Map<String, Long> end = scrape();
+        synchronized (this) {
+            if (end != null) {
+                observe(end);
+            }
+            return new Sample(
+                end == null ? null : end.get("process_resident_memory_bytes"),
+                rssPeak,
+                heapPeak,
+                threadsPeak,
+                difference(end, "jvm_gc_collections"),
+                difference(end, "jvm_gc_time_ms")
+            );
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gauge and counter values from a Prometheus text scrape, labelled series summed per name.
+     */
+    static Map<String, Long> parse(String scrape) {
+        Map<String, Long> values = new HashMap<>();
+        for (String line : scrape.split("\n")) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            int space = line.lastIndexOf(' ');
+            int brace = line.indexOf('{');
+            String name = line.substring(0, brace >= 0 && brace < space ? brace : space);
+            try {
+                values.merge(name, Long.parseLong(line.substring(space + 1).trim()), Long::sum);
+            } catch (NumberFormatException e) {
+                // not one of ours, skip it
+            }
+        }
+        return values;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Map<String, Long> values = scrape();
+            if (values != null) {
+                synchronized (this) {
+                    observe(values);
+                }
+            }
+        }
+    }
+
+    private void observe(Map<String, Long> values) {
+        rssPeak = max(rssPeak, values.get("process_resident_memory_bytes"));
+        heapPeak = max(heapPeak, values.get("jvm_heap_used_bytes"));
+        threadsPeak = max(threadsPeak, values.get("jvm_threads_live"));
+        last = values;
+    }
+
+    private Long difference(Map<String, Long> end, String name) {
+        Map<String, Long> latest = end != null ? end : last;
+        if (first == null || latest == null || !first.containsKey(name) || !latest.containsKey(name)) {
+            return null;
+        }
+        return latest.get(name) - first.get(name);
+    }
+
+    private Map<String, Long> scrape() {
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                return null;
+            }
+            return parse(response.body().string());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Long max(Long current, Long value) {
+        if (value == null) {
+            return current;
+        }
+        return current == null ? value : Math.max(current, value);
+    }
+
+    /**
+     * @param rssBytes      resident memory at the end of the step
+     * @param rssPeakBytes  highest resident memory seen during the step
+     * @param gcCollections collections during the step, all collectors
+     * @param gcTimeMs      time spent collecting during the step
+     */
+    record Sample(
+        Long rssBytes,
+        Long rssPeakBytes,
+        Long heapPeakBytes,
+        Long threadsPeak,
+        Long gcCollections,
+        Long gcTimeMs
+    ) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.hpadventure.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Everything measured during one concurrency step. Players pick the recorder at the start of each turn:
+ * turns begun during warm-up go to {@link #DISCARD}, so a step's numbers only cover the steady state.
+ */
+final class StepRecorder {
+    static final StepRecorder DISCARD = new StepRecorder(false);
+
+    private final boolean enabled;
+    private final Latencies latencies = new Latencies();
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder deltas = new LongAdder();
+
+    StepRecorder() {
+        this(true);
+    }
+
+    private StepRecorder(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param name         e.g. {@code stream.first_delta}
+     * @param startedNanos the {@link System#nanoTime()} the request was sent at
+     */
+    void latency(String name, long startedNanos) {
+        if (enabled) {
+            latencies.record(name, (System.nanoTime() - startedNanos) / 1_000_000);
+        }
+    }
+
+    /**
+     * @param kind {@code stream}, {@code story} or {@code tts}
+     */
+    void request(String kind) {
+        count(requests, kind);
+    }
+
+    /**
+     * @param code the server's error code, {@code http_<status>}, {@code timeout} or {@code io}
+     */
+    void error(String kind, String code) {
+        count(errors, kind + ":" + code);
+    }
+
+    void turn() {
+        if (enabled) {
+            turns.increment();
+        }
+    }
+
+    void delta() {
+        if (enabled) {
+            deltas.increment();
+        }
+    }
+
+    StepReport report(int players, double seconds, ServerSampler.Sample server) {
+        Map<String, Long> requestCounts = totals(requests);
+        Map<String, Long> errorCounts = totals(errors);
+        long requestTotal = requestCounts.values().stream().mapToLong(Long::longValue).sum();
+        long errorTotal = errorCounts.values().stream().mapToLong(Long::longValue).sum();
+        return new StepReport(
+            players,
+            seconds,
+            turns.sum(),
+            turns.sum() / seconds,
+            deltas.sum() / seconds,
+            requestCounts,
+            errorCounts,
+            requestTotal == 0 ? 0 : (double) errorTotal / requestTotal,
+            latencies.summarise(),
+            server
+        );
+    }
+
+    private void count(Map<String, LongAdder> counters, String key) {
+        if (enabled) {
+            counters.computeIfAbsent(key, ignored -> new LongAdder()).increment();
+        }
+    }
+
+    private static Map<String, Long> totals(Map<String, LongAdder> counters) {
+        Map<String, Long> totals = new TreeMap<>();
+        counters.forEach((key, count) -> totals.put(key, count.sum()));
+        return totals;
+    }
+
+    /**
+     * One step's results, as written to the JSON report.
+     *
+     * @param turnsPerSecond  completed story turns per second
+     * @param deltasPerSecond streamed text deltas per second, a proxy for tokens
+     * @param errorRate       failed requests (and image failures) over requests sent
+     * @param latencies       per measurement, in milliseconds from sending the request
+     */
+    record StepReport(
+        int players,
+        double seconds,
+        long turns,
+        double turnsPerSecond,
+        double deltasPerSecond,
+        Map<String, Long> requests,
+        Map<String, Long> errors,
+        double errorRate,
+        Map<String, Latencies.Summary> latencies,
+        ServerSampler.Sample server
+    ) {
+    }
+}
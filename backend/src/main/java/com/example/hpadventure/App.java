@@ -1,26 +1,58 @@
 package com.example.hpadventure;
 
 import com.example.hpadventure.api.AuthRoutes;
+import com.example.hpadventure.api.CompressionFilter;
 import com.example.hpadventure.api.HealthRoutes;
+import com.example.hpadventure.api.ImageJobRoutes;
+import com.example.hpadventure.api.JfrRoutes;
+import com.example.hpadventure.api.MetricsRoutes;
+import com.example.hpadventure.api.RequestIds;
+import com.example.hpadventure.api.ResumableStreams;
+import com.example.hpadventure.api.StaticAssetRoutes;
+import com.example.hpadventure.api.StaticAssets;
 import com.example.hpadventure.api.StoryRoutes;
+import com.example.hpadventure.api.SummaryRoutes;
+import com.example.hpadventure.api.TraceRoutes;
 import com.example.hpadventure.api.TtsRoutes;
+import com.example.hpadventure.api.UsageRoutes;
 import com.example.hpadventure.config.RateLimiter;
+import com.example.hpadventure.jfr.FlightRecordings;
+import com.example.hpadventure.logging.LoggingConfigurator;
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.metrics.ProcessMetrics;
 import com.example.hpadventure.providers.ImageProvider;
 import com.example.hpadventure.providers.ImageProviderFactory;
+import com.example.hpadventure.providers.ImageTranscoder;
+import com.example.hpadventure.providers.RetryPolicy;
 import com.example.hpadventure.providers.SpeechProvider;
 import com.example.hpadventure.providers.SpeechProviderFactory;
 import com.example.hpadventure.providers.TextProvider;
 import com.example.hpadventure.providers.TextProviderFactory;
+import com.example.hpadventure.providers.UpstreamClients;
 import com.example.hpadventure.parsing.CompletionParser;
 import com.example.hpadventure.parsing.MarkerCleaner;
 import com.example.hpadventure.parsing.OptionsParser;
 import com.example.hpadventure.parsing.SceneParser;
+import com.example.hpadventure.persistence.AdventureJournal;
+import com.example.hpadventure.services.ImageJobs;
+import com.example.hpadventure.services.ImagePreviews;
 import com.example.hpadventure.services.ImagePromptService;
+import com.example.hpadventure.services.OpeningPool;
 import com.example.hpadventure.services.PromptBuilder;
+import com.example.hpadventure.services.Speculator;
 import com.example.hpadventure.services.StoryService;
+import com.example.hpadventure.services.StorySessionStore;
+import com.example.hpadventure.services.SummaryBatches;
 import com.example.hpadventure.services.SummaryService;
 import com.example.hpadventure.services.TtsService;
 import com.example.hpadventure.services.TitleService;
+import com.example.hpadventure.services.TurnJournal;
+import com.example.hpadventure.services.WorkScheduler;
+import com.example.hpadventure.tracing.OtlpFileExporter;
+import com.example.hpadventure.tracing.RecentTraces;
+import com.example.hpadventure.tracing.TraceExporter;
+import com.example.hpadventure.tracing.Tracer;
+import com.example.hpadventure.usage.UsageLedger;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -31,13 +63,32 @@ import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public final class App {
     private static final Logger logger = LoggerFactory.getLogger(App.class);
 
     public static void main(String[] args) {
+        start();
+    }
+
+    /**
+     * Build and start the server from environment configuration.
+     */
+    static Javalin start() {
+        // Never load a display/font backend, even if something pulls in java.awt
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
         logger.info("=".repeat(60));
         logger.info("HP Adventure Server starting...");
         logger.info("=".repeat(60));
@@ -48,16 +99,38 @@ public final class App {
             .registerModule(new JavaTimeModule())
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-        OkHttpClient httpClient = new OkHttpClient.Builder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .readTimeout(Duration.ofSeconds(60))
-            .callTimeout(Duration.ofSeconds(60))
-            .build();
+        Metrics metrics = new Metrics();
+        metrics.gauge("log_events_dropped", "Log events dropped because the async log queue was full",
+            LoggingConfigurator::droppedEvents);
+        ProcessMetrics.register(metrics);
+
+        // One pool and dispatcher per provider, so slow image/speech calls never starve text streams
+        // Transient upstream failures are retried with jitter, within a retry budget shared by all providers
+        OkHttpClient baseClient = UpstreamClients.base(RetryPolicy.fromEnv(metrics));
+        OkHttpClient textClient = UpstreamClients.forProvider(baseClient, "text",
+            UpstreamClients.PoolSettings.fromEnv("text", UpstreamClients.TEXT_DEFAULTS), metrics);
+        OkHttpClient imageClient = UpstreamClients.forProvider(baseClient, "image",
+            UpstreamClients.PoolSettings.fromEnv("image", UpstreamClients.IMAGE_DEFAULTS), metrics);
+        OkHttpClient speechClient = UpstreamClients.forProvider(baseClient, "speech",
+            UpstreamClients.PoolSettings.fromEnv("speech", UpstreamClients.SPEECH_DEFAULTS), metrics);
 
-        // Create providers via factories
-        TextProvider textProvider = TextProviderFactory.fromEnv(httpClient, mapper);
-        ImageProvider imageProvider = ImageProviderFactory.fromEnv(httpClient, mapper);
-        SpeechProvider speechProvider = SpeechProviderFactory.fromEnv(httpClient, mapper);
+        // Create providers via factories; image and speech are only built on first use
+        TextProvider textProvider = TextProviderFactory.fromEnv(textClient, mapper);
+        ImageProvider imageProvider = ImageProviderFactory.lazyFromEnv(imageClient, mapper);
+        SpeechProvider speechProvider = SpeechProviderFactory.lazyFromEnv(speechClient, mapper);
+
+        // Opt-in: downscale and re-encode generated images on a bounded CPU pool before sending them
+        ImageTranscoder imageTranscoder = ImageTranscoder.fromEnv(metrics);
+        if (imageTranscoder != null) {
+            imageProvider = imageTranscoder.wrap(imageProvider);
+        }
+
+        // Token usage per provider, model, call type and user; USAGE_PRICES prices providers that report no cost
+        UsageLedger usageLedger = new UsageLedger(
+            metrics,
+            UsageLedger.Price.parseTable(System.getenv("USAGE_PRICES")),
+            Clock.systemUTC()
+        );
 
         // Rate limiter
         Integer rateLimitPerMinute = parseIntOrNull(System.getenv("RATE_LIMIT_PER_MINUTE"));
@@ -77,6 +150,93 @@ public final class App {
         TitleService titleService = new TitleService(textProvider);
         SummaryService summaryService = new SummaryService(textProvider);
         ImagePromptService imagePromptService = new ImagePromptService();
+
+        // Optional local adventure journal (memory-mapped segments, no external database)
+        AdventureJournal journal = openJournal();
+
+        // Turns, then images, then background work: per-class caps, background deferred under load
+        WorkScheduler scheduler = new WorkScheduler(
+            metrics,
+            Map.of(
+                WorkScheduler.Priority.INTERACTIVE, schedulerLimits("INTERACTIVE", 64, 128),
+                WorkScheduler.Priority.NEAR_INTERACTIVE, schedulerLimits("NEAR_INTERACTIVE", 16, 64),
+                WorkScheduler.Priority.BACKGROUND, schedulerLimits("BACKGROUND", 2, 32)
+            ),
+            positiveOrDefault(parseIntOrNull(System.getenv("SCHEDULER_DEFER_AT_INTERACTIVE")), 4)
+        );
+
+        // Opt-in: pre-generate the suggested actions of each streamed turn, within a token budget
+        Speculator speculator = null;
+        if ("true".equalsIgnoreCase(System.getenv("SPECULATION_ENABLED"))) {
+            Integer ttlSeconds = parseIntOrNull(System.getenv("SPECULATION_TTL_SECONDS"));
+            Integer budget = parseIntOrNull(System.getenv("SPECULATION_TOKEN_BUDGET_PER_HOUR"));
+            Integer replayRate = parseIntOrNull(System.getenv("SPECULATION_REPLAY_CHARS_PER_SECOND"));
+            speculator = new Speculator(
+                textProvider,
+                metrics,
+                Clock.systemUTC(),
+                scheduler,
+                Duration.ofSeconds(ttlSeconds != null && ttlSeconds > 0 ? ttlSeconds : 300),
+                budget != null && budget >= 0 ? budget : 200_000,
+                replayRate != null && replayRate >= 0 ? replayRate : 400
+            );
+        }
+
+        // Opt-in: pre-generated opening turns per house, refilled as background work
+        OpeningPool openingPool = null;
+        if ("true".equalsIgnoreCase(System.getenv("OPENING_POOL_ENABLED"))) {
+            Integer depth = parseIntOrNull(System.getenv("OPENING_POOL_DEPTH"));
+            Integer refillSeconds = parseIntOrNull(System.getenv("OPENING_POOL_REFILL_SECONDS"));
+            Integer ttlMinutes = parseIntOrNull(System.getenv("OPENING_POOL_TTL_MINUTES"));
+            openingPool = new OpeningPool(
+                metrics,
+                Clock.systemUTC(),
+                List.of(System.getenv()
+                    .getOrDefault("OPENING_POOL_HOUSES", "Gryffindor,Hufflepuff,Ravenclaw,Slytherin")
+                    .split(",")),
+                depth != null && depth > 0 ? depth : 3,
+                Duration.ofSeconds(refillSeconds != null && refillSeconds > 0 ? refillSeconds : 30),
+                Duration.ofMinutes(ttlMinutes != null && ttlMinutes > 0 ? ttlMinutes : 360),
+                usageLedger
+            );
+        }
+
+        // Opt-in: POST /api/story answers before its image is rendered; clients fetch it as an image job
+        ImageJobs imageJobs = null;
+        if ("true".equalsIgnoreCase(System.getenv("IMAGE_JOBS_ENABLED"))) {
+            Integer ttlSeconds = parseIntOrNull(System.getenv("IMAGE_JOBS_TTL_SECONDS"));
+            imageJobs = new ImageJobs(
+                metrics,
+                Clock.systemUTC(),
+                positiveOrDefault(parseIntOrNull(System.getenv("IMAGE_JOBS_WORKERS")), 4),
+                positiveOrDefault(parseIntOrNull(System.getenv("IMAGE_JOBS_MAX_PENDING")), 64),
+                Duration.ofSeconds(ttlSeconds != null && ttlSeconds > 0 ? ttlSeconds : 600),
+                positiveOrDefault(parseIntOrNull(System.getenv("IMAGE_JOBS_MAX_STORED")), 128)
+            );
+        }
+
+        // Opt-in: POST /api/summaries/batch regenerates many adventure summaries as a resumable NDJSON job
+        SummaryBatches summaryBatches = null;
+        if ("true".equalsIgnoreCase(System.getenv("SUMMARY_BATCH_ENABLED"))) {
+            Integer ttlMinutes = parseIntOrNull(System.getenv("SUMMARY_BATCH_TTL_MINUTES"));
+            summaryBatches = new SummaryBatches(
+                summaryService,
+                metrics,
+                Clock.systemUTC(),
+                positiveOrDefault(parseIntOrNull(System.getenv("SUMMARY_BATCH_WORKERS")), 2),
+                positiveOrDefault(parseIntOrNull(System.getenv("SUMMARY_BATCH_PARALLELISM")), 4),
+                positiveOrDefault(parseIntOrNull(System.getenv("SUMMARY_BATCH_MAX_ITEMS")), 1000),
+                Duration.ofMinutes(ttlMinutes != null && ttlMinutes > 0 ? ttlMinutes : 60),
+                positiveOrDefault(parseIntOrNull(System.getenv("SUMMARY_BATCH_MAX_STORED")), 16)
+            );
+        }
+
+        // Streamed turns show a scene-coloured preview while their image renders (IMAGE_PREVIEW_ENABLED=false to skip)
+        ImagePreviews imagePreviews = new ImagePreviews(
+            metrics,
+            !"false".equalsIgnoreCase(System.getenv("IMAGE_PREVIEW_ENABLED"))
+        );
+
         StoryService storyService = new StoryService(
             textProvider,
             promptBuilder,
@@ -88,21 +248,88 @@ public final class App {
             summaryService,
             imagePromptService,
             imageProvider,
-            Clock.systemUTC()
+            Clock.systemUTC(),
+            StoryService.Options.DEFAULTS
+                .withJournal(journal)
+                .withScheduler(scheduler)
+                .withSpeculator(speculator)
+                .withOpeningPool(openingPool)
+                .withImageJobs(imageJobs)
+                .withImagePreviews(imagePreviews)
         );
+        if (openingPool != null) {
+            openingPool.start(storyService, scheduler);
+        }
         TtsService ttsService = new TtsService(speechProvider);
 
+        // Optional server-side sessions (clients may then send only session id + action)
+        StorySessionStore sessionStore = null;
+        if ("true".equalsIgnoreCase(System.getenv("STORY_SESSIONS_ENABLED"))) {
+            Integer ttlMinutes = parseIntOrNull(System.getenv("STORY_SESSION_TTL_MINUTES"));
+            Integer maxSessions = parseIntOrNull(System.getenv("STORY_SESSION_MAX"));
+            String logPath = System.getenv("STORY_SESSION_LOG");
+            sessionStore = new StorySessionStore(
+                Clock.systemUTC(),
+                Duration.ofMinutes(ttlMinutes != null && ttlMinutes > 0 ? ttlMinutes : 360),
+                maxSessions != null && maxSessions > 0 ? maxSessions : 10_000,
+                mapper,
+                logPath == null || logPath.isBlank() ? null : Path.of(logPath)
+            );
+        }
+
+        // Replay buffers so a client whose stream dropped can resume it instead of paying for a new turn
+        ResumableStreams resumableStreams = null;
+        if (!"false".equalsIgnoreCase(System.getenv("STREAM_RESUME_ENABLED"))) {
+            Integer ttlSeconds = parseIntOrNull(System.getenv("STREAM_RESUME_TTL_SECONDS"));
+            Integer maxMegabytes = parseIntOrNull(System.getenv("STREAM_RESUME_MAX_MB"));
+            resumableStreams = new ResumableStreams(
+                Clock.systemUTC(),
+                Duration.ofSeconds(ttlSeconds != null && ttlSeconds > 0 ? ttlSeconds : 120),
+                (maxMegabytes != null && maxMegabytes > 0 ? maxMegabytes : 32) * 1024L * 1024L
+            );
+            metrics.gauge("stream_resume_buffers", "Story streams that can currently be resumed",
+                resumableStreams::size);
+            metrics.gauge("stream_resume_buffered_bytes", "Approximate memory held by stream replay buffers",
+                resumableStreams::bufferedBytes);
+        }
+
         // Authentication
         String appPasswords = System.getenv("APP_PASSWORDS");
         AuthRoutes authRoutes = new AuthRoutes(appPasswords);
 
+        // Fingerprinted, precompressed assets if the frontend build produced a manifest
+        StaticAssets staticAssets = loadStaticAssets(mapper);
+
+        CompressionFilter compression = compressionFromEnv(metrics);
+
+        // Per-turn traces: slowest recent ones at /debug/traces/recent, optionally appended to TRACE_FILE
+        RecentTraces recentTraces = null;
+        List<TraceExporter> traceExporters = new ArrayList<>();
+        if (!"false".equalsIgnoreCase(System.getenv("TRACING_ENABLED"))) {
+            Integer recentSize = parseIntOrNull(System.getenv("TRACE_RECENT_SIZE"));
+            recentTraces = new RecentTraces(recentSize != null && recentSize > 0 ? recentSize : 100);
+            traceExporters.add(recentTraces);
+            OtlpFileExporter fileExporter = openTraceFile(mapper, metrics);
+            if (fileExporter != null) {
+                traceExporters.add(fileExporter);
+            }
+        }
+        Tracer tracer = new Tracer(traceExporters);
+
         Javalin app = Javalin.create(config -> {
             config.jsonMapper(new JavalinJackson(mapper, false));
-            config.staticFiles.add(staticFiles -> {
-                staticFiles.hostedPath = "/";
-                staticFiles.directory = "/public";
-                staticFiles.location = Location.CLASSPATH;
-            });
+            if (compression != null) {
+                compression.install(config);
+            } else {
+                config.http.disableCompression();
+            }
+            if (staticAssets == null) {
+                config.staticFiles.add(staticFiles -> {
+                    staticFiles.hostedPath = "/";
+                    staticFiles.directory = "/public";
+                    staticFiles.location = Location.CLASSPATH;
+                });
+            }
             config.spaRoot.addFile("/", "/public/index.html");
         });
 
@@ -120,7 +347,9 @@ public final class App {
             }
         });
 
+        RequestIds.register(app);
         HealthRoutes.register(app);
+        MetricsRoutes.register(app, metrics);
         authRoutes.register(app);
         
         // Apply auth middleware to protected routes
@@ -128,22 +357,181 @@ public final class App {
             app.before("/api/story", authRoutes.authMiddleware());
             app.before("/api/story/*", authRoutes.authMiddleware());
             app.before("/api/tts", authRoutes.authMiddleware());
+            app.before("/api/usage", authRoutes.authMiddleware());
+            app.before("/api/images/*", authRoutes.authMiddleware());
+            app.before("/api/summaries/*", authRoutes.authMiddleware());
+            app.before("/debug/*", authRoutes.authMiddleware());
         }
         
-        StoryRoutes.register(app, storyService, rateLimiter);
-        TtsRoutes.register(app, ttsService);
+        StoryRoutes.register(app, storyService, rateLimiter, StoryRoutes.Options.DEFAULTS
+            .withSessions(sessionStore)
+            .withTracer(tracer)
+            .withUsageLedger(usageLedger)
+            .withStreams(resumableStreams));
+        TtsRoutes.register(app, ttsService, tracer);
+        if (imageJobs != null) {
+            ImageJobRoutes.register(app, imageJobs);
+        }
+        if (summaryBatches != null) {
+            SummaryRoutes.register(app, summaryBatches, usageLedger);
+        }
+        UsageRoutes.register(app, usageLedger);
+        if (recentTraces != null) {
+            TraceRoutes.register(app, recentTraces);
+        }
+        // Remote profiling is opt-in and needs its own admin token, not a player password
+        boolean jfrEnabled = false;
+        if ("true".equalsIgnoreCase(System.getenv("JFR_ENDPOINT_ENABLED"))) {
+            String jfrAdminToken = System.getenv("JFR_ADMIN_TOKEN");
+            if (jfrAdminToken == null || jfrAdminToken.isBlank()) {
+                logger.warn("JFR_ENDPOINT_ENABLED is set but JFR_ADMIN_TOKEN is not - /debug/jfr stays disabled");
+            } else {
+                JfrRoutes.register(app, new FlightRecordings(), jfrAdminToken);
+                jfrEnabled = true;
+            }
+        }
+        if (staticAssets != null) {
+            StaticAssetRoutes.register(app, staticAssets);
+        }
 
         app.start(port);
+
+        boolean prewarm = !"false".equalsIgnoreCase(System.getenv("UPSTREAM_PREWARM"));
+        if (prewarm) {
+            UpstreamClients.prewarm(textClient, "text", TextProviderFactory.baseUrlFromEnv());
+            UpstreamClients.prewarm(imageClient, "image", ImageProviderFactory.baseUrlFromEnv());
+            UpstreamClients.prewarm(speechClient, "speech", SpeechProviderFactory.baseUrlFromEnv());
+        }
         
         logger.info("=".repeat(60));
         logger.info("HP Adventure Server started successfully");
         logger.info("Listening on port {}", port);
         logger.info("Rate limit: {} requests/minute {}", rateLimitPerMinute, rateLimitPerMinute > 0 ? "(enabled)" : "(disabled)");
         logger.info("Authentication: {}", authRoutes.isEnabled() ? "enabled" : "disabled");
+        logger.info("Story sessions: {}", sessionStore != null ? "enabled" : "disabled");
+        logger.info("Opening pool: {}", openingPool != null ? "enabled" : "disabled");
+        logger.info("Image transcoding: {}", imageTranscoder != null ? "enabled" : "disabled");
+        logger.info("Image previews: {}", imagePreviews.isEnabled() ? "enabled" : "disabled");
+        logger.info("Image jobs: {}", imageJobs != null ? "enabled" : "disabled");
+        logger.info("Summary batches: {}", summaryBatches != null ? "enabled" : "disabled");
+        logger.info("Speculation: {}", speculator != null ? "enabled" : "disabled");
+        logger.info("Stream resume: {}", resumableStreams != null ? "enabled" : "disabled");
+        logger.info("Adventure journal: {}", journal != null ? "enabled" : "disabled");
+        logger.info("Upstream prewarm: {}", prewarm ? "enabled" : "disabled");
+        logger.info("Response compression: {}", compression != null ? "gzip" : "disabled");
+        logger.info("Tracing: {}", recentTraces == null ? "disabled"
+            : traceExporters.size() > 1 ? "enabled (file " + System.getenv("TRACE_FILE") + ")" : "enabled (in memory)");
+        logger.info("JFR endpoint: {}", jfrEnabled ? "enabled (/debug/jfr)" : "disabled");
+        logger.info("Static assets: {}", staticAssets != null ? "precompressed (asset manifest)" : "classpath");
         logger.info("Text provider: {}", textProvider.getClass().getSimpleName());
-        logger.info("Image provider: {}", imageProvider.isEnabled() ? imageProvider.getClass().getSimpleName() : "disabled");
-        logger.info("Speech provider: {}", speechProvider.getClass().getSimpleName());
+        logger.info("Image provider: created on first use");
+        logger.info("Speech provider: created on first use");
+        logger.info("Ready in {} ms since JVM start", millisSinceJvmStart());
         logger.info("=".repeat(60));
+        return app;
+    }
+
+    private static long millisSinceJvmStart() {
+        return ProcessHandle.current().info().startInstant()
+            .map(started -> Duration.between(started, Instant.now()).toMillis())
+            .orElse(-1L);
+    }
+
+    private static CompressionFilter compressionFromEnv(Metrics metrics) {
+        String mode = System.getenv().getOrDefault("HTTP_COMPRESSION", "gzip").trim().toLowerCase(Locale.ROOT);
+        if (mode.equals("off") || mode.equals("none") || mode.equals("false")) {
+            return null;
+        }
+        if (!mode.equals("gzip")) {
+            // Brotli is only served for the precompressed static assets; the JDK has no brotli encoder
+            throw new IllegalStateException("HTTP_COMPRESSION must be gzip or off, got: " + mode);
+        }
+        Integer level = parseIntOrNull(System.getenv("HTTP_COMPRESSION_LEVEL"));
+        Integer minBytes = parseIntOrNull(System.getenv("HTTP_COMPRESSION_MIN_BYTES"));
+        return new CompressionFilter(
+            level != null && level >= 1 && level <= 9 ? level : 4,
+            minBytes != null && minBytes >= 0 ? minBytes : 1024,
+            metrics
+        );
+    }
+
+    private static OtlpFileExporter openTraceFile(ObjectMapper mapper, Metrics metrics) {
+        String traceFile = System.getenv("TRACE_FILE");
+        if (traceFile == null || traceFile.isBlank()) {
+            return null;
+        }
+        try {
+            OtlpFileExporter exporter = new OtlpFileExporter(mapper, Path.of(traceFile), "hp-adventure");
+            metrics.gauge("traces_dropped", "Traces not written to TRACE_FILE because the export queue was full",
+                exporter::droppedTraces);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    exporter.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close trace file: {}", e.getMessage());
+                }
+            }, "trace-file-close"));
+            return exporter;
+        } catch (IOException e) {
+            logger.error("Failed to open trace file {}: {}", traceFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private static StaticAssets loadStaticAssets(ObjectMapper mapper) {
+        try {
+            return StaticAssets.loadFromClasspath(mapper, "/public");
+        } catch (IOException e) {
+            logger.error("Failed to load asset manifest, serving plain static files: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static AdventureJournal openJournal() {
+        String directory = System.getenv("JOURNAL_DIR");
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        Integer segmentMb = parseIntOrNull(System.getenv("JOURNAL_SEGMENT_MB"));
+        Integer fsyncMs = parseIntOrNull(System.getenv("JOURNAL_FSYNC_MS"));
+        Integer compactMinutes = parseIntOrNull(System.getenv("JOURNAL_COMPACT_MINUTES"));
+        // Segments are mapped with int offsets, so cap them at 1 GiB rather than overflow
+        long segmentBytes = Math.min(segmentMb != null && segmentMb > 0 ? segmentMb : 16, 1024) * 1024L * 1024L;
+        try {
+            AdventureJournal journal = AdventureJournal.open(
+                Path.of(directory),
+                (int) segmentBytes,
+                Duration.ofMillis(fsyncMs != null && fsyncMs > 0 ? fsyncMs : 1000),
+                Duration.ofMinutes(compactMinutes != null && compactMinutes > 0 ? compactMinutes : 30)
+            );
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close adventure journal: {}", e.getMessage());
+                }
+            }, "adventure-journal-close"));
+            return journal;
+        } catch (IOException e) {
+            logger.error("Failed to open adventure journal in {}: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * {@code SCHEDULER_<CLASS>_MAX_RUNNING} and {@code SCHEDULER_<CLASS>_MAX_QUEUED}, or the defaults.
+     */
+    private static WorkScheduler.Limits schedulerLimits(String priority, int maxRunning, int maxQueued) {
+        Integer running = parseIntOrNull(System.getenv("SCHEDULER_" + priority + "_MAX_RUNNING"));
+        Integer queued = parseIntOrNull(System.getenv("SCHEDULER_" + priority + "_MAX_QUEUED"));
+        return new WorkScheduler.Limits(
+            positiveOrDefault(running, maxRunning),
+            queued != null && queued >= 0 ? queued : maxQueued
+        );
+    }
+
+    private static int positiveOrDefault(Integer value, int defaultValue) {
+        return value != null && value > 0 ? value : defaultValue;
     }
 
     private static Integer parseIntOrNull(String value) {
@@ -0,0 +1,113 @@
+package com.example.hpadventure;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.javalin.Javalin;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Training run for the AppCDS archive: boots the server against an in-process fake text upstream,
+ * exercises the health, story and streaming endpoints once, then exits so the JVM can dump every
+ * class it loaded ({@code -XX:ArchiveClassesAtExit}).
+ *
+ * Expects {@code OPENROUTER_API_KEY} and a loopback {@code OPENROUTER_BASE_URL} in the environment;
+ * the {@code cdsArchive} Gradle task and the Dockerfile set them.
+ */
+public final class StartupTraining {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTraining.class);
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private static final String STORY = "Der Gang ist still, nur eine Fackel flackert. Was tust du?\\n\\n"
+        + "[OPTION: Weitergehen]\\n[OPTION: Umkehren]\\n[SZENE: Dunkler Korridor mit Fackel]";
+    private static final String STORY_REQUEST = """
+        {"player":{"name":"Training","houseName":"Gryffindor","completedAdventures":[],"stats":{"adventuresCompleted":0,"totalTurns":1}},
+         "currentAdventure":{"title":null,"startedAt":"2026-01-01T00:00:00Z"},
+         "conversationHistory":[{"role":"user","content":"Start"},{"role":"assistant","content":"Du stehst vor dem Schloss."}],
+         "action":"Ich gehe hinein."}
+        """;
+
+    private StartupTraining() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI upstream = URI.create(System.getenv().getOrDefault("OPENROUTER_BASE_URL", ""));
+        if (!"127.0.0.1".equals(upstream.getHost()) && !"localhost".equals(upstream.getHost())) {
+            throw new IllegalStateException("OPENROUTER_BASE_URL must point at a loopback port for training");
+        }
+
+        HttpServer fakeUpstream = HttpServer.create(new InetSocketAddress(upstream.getHost(), upstream.getPort()), 0);
+        fakeUpstream.createContext(upstream.getPath() + "/v1/chat/completions", StartupTraining::handleCompletion);
+        fakeUpstream.start();
+
+        int exitCode = 0;
+        Javalin app = App.start();
+        try {
+            exercise(app.port());
+            logger.info("Training run completed");
+        } catch (IOException | RuntimeException e) {
+            logger.error("Training run failed: {}", e.getMessage(), e);
+            exitCode = 1;
+        } finally {
+            app.stop();
+            fakeUpstream.stop(0);
+        }
+        System.exit(exitCode);
+    }
+
+    private static void exercise(int port) throws IOException {
+        OkHttpClient client = new OkHttpClient.Builder()
+            .callTimeout(Duration.ofSeconds(30))
+            .build();
+        String base = "http://127.0.0.1:" + port;
+
+        expectOk(client, new Request.Builder().url(base + "/health").get().build());
+        expectOk(client, new Request.Builder().url(base + "/api/story")
+            .post(RequestBody.create(STORY_REQUEST, JSON)).build());
+        expectOk(client, new Request.Builder().url(base + "/api/story/stream")
+            .post(RequestBody.create(STORY_REQUEST, JSON)).build());
+
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    private static void expectOk(OkHttpClient client, Request request) throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (response.code() != 200) {
+                throw new IllegalStateException(request.url() + " returned " + response.code() + ": " + body);
+            }
+        }
+    }
+
+    private static void handleCompletion(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        boolean stream = body.replace(" ", "").contains("\"stream\":true");
+        byte[] payload;
+        if (stream) {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            payload = ("data: {\"choices\":[{\"delta\":{\"content\":\"" + STORY + "\"}}]}\n\n"
+                + "data: [DONE]\n\n").getBytes(StandardCharsets.UTF_8);
+        } else {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            payload = ("{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"" + STORY + "\"}}]}")
+                .getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.sendResponseHeaders(200, payload.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(payload);
+        }
+    }
+}
@@ -11,7 +11,12 @@ import java.util.Map;
 
 public final class AuthRoutes {
     private static final Logger logger = LoggerFactory.getLogger(AuthRoutes.class);
+    /** The per-request access line gets its own category so it can be sampled without hiding auth events. */
+    private static final String ACCESS_LOGGER = AuthRoutes.class.getName() + ".access";
+    private static final Logger accessLogger = LoggerFactory.getLogger(ACCESS_LOGGER);
     private static final String PASSWORD_HEADER = "X-App-Password";
+    /** Context attribute holding the authenticated user name, set by {@link #authMiddleware()}. */
+    public static final String USER_ATTRIBUTE = "authUser";
 
     private final Map<String, String> passwordToUser;
 
@@ -81,8 +86,8 @@ public final class AuthRoutes {
             }
 
             // Store user for logging
-            ctx.attribute("authUser", user);
-            logger.info("[AUTH] {}: {} {}", user, ctx.method(), ctx.path());
+            ctx.attribute(USER_ATTRIBUTE, user);
+            accessLogger.info("[AUTH] {}: {} {}", user, ctx.method(), ctx.path());
         };
     }
 
@@ -104,7 +109,7 @@ public final class AuthRoutes {
         String user = validatePassword(password);
 
         if (user == null) {
-            logger.info("[AUTH] Failed validation attempt from {}", ctx.ip());
+            logger.warn("[AUTH] Failed validation attempt from {}", ctx.ip());
             ctx.status(401).json(new Dtos.ErrorResponse(
                 new Dtos.ErrorResponse.Error("UNAUTHORIZED", "Ungültiges Passwort.", null)
             ));
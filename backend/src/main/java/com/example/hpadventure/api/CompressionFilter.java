@@ -0,0 +1,503 @@
+package com.example.hpadventure.api;
+
+import com.example.hpadventure.metrics.Metrics;
+import io.javalin.config.JavalinConfig;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip for dynamic responses, installed as a servlet filter in place of Javalin's own compression so
+ * that {@code text/event-stream} (and NDJSON) bodies are sync-flushed after every SSE event (or line) and
+ * the bytes saved are counted. Bodies that already carry a {@code Content-Encoding} (the precompressed static assets),
+ * image/audio/video bodies and bodies below the size threshold pass through untouched.
+ */
+public final class CompressionFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(CompressionFilter.class);
+    private static final String EVENT_STREAM = "text/event-stream";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final List<String> SKIPPED_TYPES = List.of(
+        "image/", "audio/", "video/", "application/zip", "application/gzip", "application/octet-stream"
+    );
+
+    private final int level;
+    private final int minBytes;
+    private final LongAdder compressedResponses;
+    private final LongAdder bytesIn;
+    private final LongAdder bytesOut;
+
+    /**
+     * @param level    deflate level 1-9; low levels keep time-to-first-byte down
+     * @param minBytes bodies shorter than this (when complete) are sent uncompressed
+     */
+    public CompressionFilter(int level, int minBytes, Metrics metrics) {
+        if (level < 1 || level > 9) {
+            throw new IllegalArgumentException("Compression level must be between 1 and 9");
+        }
+        this.level = level;
+        this.minBytes = Math.max(0, minBytes);
+        this.compressedResponses = metrics.counter("http_compressed_responses_total",
+            "Responses sent with Content-Encoding gzip by the compression filter");
+        this.bytesIn = metrics.counter("http_compression_bytes_in_total",
+            "Uncompressed body bytes written to compressed responses");
+        this.bytesOut = metrics.counter("http_compression_bytes_out_total",
+            "Gzip bytes sent for compressed responses");
+        metrics.gauge("http_compression_bytes_saved",
+            "Body bytes saved by response compression", () -> bytesIn.sum() - bytesOut.sum());
+    }
+
+    /**
+     * Disable Javalin's compression and add this filter in front of the Javalin servlet.
+     */
+    public void install(JavalinConfig config) {
+        config.http.disableCompression();
+        config.jetty.modifyServletContextHandler(handler -> {
+            FilterHolder holder = new FilterHolder(this);
+            holder.setName("compression");
+            holder.setAsyncSupported(true);
+            handler.addFilter(holder, "/*", EnumSet.of(DispatcherType.REQUEST));
+        });
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest httpRequest)
+            || !(response instanceof HttpServletResponse httpResponse)
+            || "HEAD".equalsIgnoreCase(httpRequest.getMethod())
+            || !StaticAssetRoutes.accepts(httpRequest.getHeader("Accept-Encoding"), "gzip")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        GzipResponse gzipResponse = new GzipResponse(httpResponse);
+        AsyncAwareRequest wrappedRequest = new AsyncAwareRequest(httpRequest, gzipResponse);
+        try {
+            chain.doFilter(wrappedRequest, gzipResponse);
+        } finally {
+            // Async responses (SSE) are finished when their AsyncContext completes
+            if (!wrappedRequest.isAsyncStarted()) {
+                gzipResponse.finish();
+            }
+        }
+    }
+
+    private static boolean isEventStream(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String lower = contentType.toLowerCase(Locale.ROOT);
+        return lower.startsWith(EVENT_STREAM) || lower.startsWith(NDJSON);
+    }
+
+    private static boolean isSkippedType(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        String lower = contentType.toLowerCase(Locale.ROOT);
+        for (String skipped : SKIPPED_TYPES) {
+            if (lower.startsWith(skipped)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum Mode { UNDECIDED, IDENTITY, GZIP }
+
+    /**
+     * Buffers the start of the body until it knows whether to compress: on reaching the size threshold,
+     * on the first write of an event stream, or otherwise when the body is flushed or finished.
+     */
+    private final class GzipResponse extends HttpServletResponseWrapper {
+        private final CompressingStream stream = new CompressingStream();
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        private GzipResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding == null ? StandardCharsets.ISO_8859_1 : Charset.forName(encoding);
+                writer = new PrintWriter(new OutputStreamWriter(stream, charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (stream.mode == Mode.IDENTITY) {
+                super.setContentLengthLong(length);
+            } else {
+                contentLength = length;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name) && value != null) {
+                setContentLengthLong(Long.parseLong(value.trim()));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name) && value != null) {
+                setContentLengthLong(Long.parseLong(value.trim()));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.flush();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            stream.discardPending();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            stream.discardPending();
+            contentLength = -1;
+            super.reset();
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.finish();
+        }
+
+        private boolean compressible() {
+            int status = getStatus();
+            return status >= 200 && status != 204 && status != 304
+                && !containsHeader("Content-Encoding")
+                && !isSkippedType(getContentType());
+        }
+
+        private final class CompressingStream extends ServletOutputStream {
+            private Mode mode = Mode.UNDECIDED;
+            private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+            private ServletOutputStream raw;
+            private LeveledGzipStream gzip;
+            private boolean finished;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (finished) {
+                    throw new IOException("Response body already finished");
+                }
+                if (mode == Mode.UNDECIDED) {
+                    if (!compressible()) {
+                        startIdentity();
+                    } else if (isEventStream(getContentType())) {
+                        startGzip();
+                    } else {
+                        pending.write(bytes, offset, length);
+                        if (pending.size() >= minBytes) {
+                            startGzip();
+                        }
+                        return;
+                    }
+                }
+                if (mode == Mode.GZIP) {
+                    gzip.write(bytes, offset, length);
+                    bytesIn.add(length);
+                } else {
+                    raw.write(bytes, offset, length);
+                }
+            }
+
+            /**
+             * Event streams are sync-flushed, so every SSE event reaches the client as soon as it is sent.
+             */
+            @Override
+            public void flush() throws IOException {
+                if (finished) {
+                    return;
+                }
+                if (mode == Mode.UNDECIDED) {
+                    if (compressible() && isEventStream(getContentType())) {
+                        startGzip();
+                    } else {
+                        startIdentity();
+                    }
+                }
+                if (mode == Mode.GZIP) {
+                    gzip.flush();
+                } else {
+                    raw.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+                GzipResponse.super.getOutputStream().close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return raw == null || raw.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                try {
+                    GzipResponse.super.getOutputStream().setWriteListener(listener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            private void finish() throws IOException {
+                if (finished) {
+                    return;
+                }
+                if (mode == Mode.UNDECIDED) {
+                    startIdentity();
+                }
+                finished = true;
+                if (mode == Mode.GZIP) {
+                    gzip.finishAndRelease();
+                }
+            }
+
+            private void discardPending() {
+                if (pending != null) {
+                    pending.reset();
+                }
+            }
+
+            private void startIdentity() throws IOException {
+                mode = Mode.IDENTITY;
+                if (contentLength >= 0) {
+                    GzipResponse.super.setContentLengthLong(contentLength);
+                }
+                raw = GzipResponse.super.getOutputStream();
+                if (pending.size() > 0) {
+                    pending.writeTo(raw);
+                }
+                pending = null;
+            }
+
+            private void startGzip() throws IOException {
+                mode = Mode.GZIP;
+                GzipResponse.super.setHeader("Content-Encoding", "gzip");
+                GzipResponse.super.addHeader("Vary", "Accept-Encoding");
+                String etag = GzipResponse.super.getHeader("ETag");
+                if (etag != null && !etag.startsWith("W/")) {
+                    // A strong validator must not be shared with the identity representation
+                    GzipResponse.super.setHeader("ETag", StaticAssetRoutes.variantEtag(etag, "gzip"));
+                }
+                compressedResponses.increment();
+                raw = GzipResponse.super.getOutputStream();
+                gzip = new LeveledGzipStream(new CountingStream(raw), level);
+                if (pending.size() > 0) {
+                    bytesIn.add(pending.size());
+                    pending.writeTo(gzip);
+                }
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Finishes the gzip body before the container completes an async (SSE) response.
+     */
+    private static final class AsyncAwareRequest extends HttpServletRequestWrapper {
+        private final GzipResponse response;
+        private AsyncContext asyncContext;
+
+        private AsyncAwareRequest(HttpServletRequest request, GzipResponse response) {
+            super(request);
+            this.response = response;
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            return startAsync(this, response);
+        }
+
+        @Override
+        public AsyncContext startAsync(ServletRequest request, ServletResponse servletResponse) {
+            asyncContext = new FinishingAsyncContext(super.startAsync(request, servletResponse), response);
+            return asyncContext;
+        }
+
+        @Override
+        public AsyncContext getAsyncContext() {
+            return asyncContext != null ? asyncContext : super.getAsyncContext();
+        }
+    }
+
+    private record FinishingAsyncContext(AsyncContext delegate, GzipResponse response) implements AsyncContext {
+        @Override
+        public void complete() {
+            try {
+                response.finish();
+            } catch (IOException e) {
+                logger.debug("Failed to finish compressed async response: {}", e.getMessage());
+            } finally {
+                delegate.complete();
+            }
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+            return delegate.getRequest();
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+            return delegate.getResponse();
+        }
+
+        @Override
+        public boolean hasOriginalRequestAndResponse() {
+            return delegate.hasOriginalRequestAndResponse();
+        }
+
+        @Override
+        public void dispatch() {
+            delegate.dispatch();
+        }
+
+        @Override
+        public void dispatch(String path) {
+            delegate.dispatch(path);
+        }
+
+        @Override
+        public void dispatch(ServletContext context, String path) {
+            delegate.dispatch(context, path);
+        }
+
+        @Override
+        public void start(Runnable run) {
+            delegate.start(run);
+        }
+
+        @Override
+        public void addListener(AsyncListener listener) {
+            delegate.addListener(listener);
+        }
+
+        @Override
+        public void addListener(AsyncListener listener, ServletRequest request, ServletResponse servletResponse) {
+            delegate.addListener(listener, request, servletResponse);
+        }
+
+        @Override
+        public <T extends AsyncListener> T createListener(Class<T> type) throws ServletException {
+            return delegate.createListener(type);
+        }
+
+        @Override
+        public void setTimeout(long timeout) {
+            delegate.setTimeout(timeout);
+        }
+
+        @Override
+        public long getTimeout() {
+            return delegate.getTimeout();
+        }
+    }
+
+    private static final class LeveledGzipStream extends GZIPOutputStream {
+        private LeveledGzipStream(OutputStream out, int level) throws IOException {
+            // syncFlush: flush() emits everything deflated so far instead of holding it back
+            super(out, 8192, true);
+            def.setLevel(level);
+        }
+
+        private void finishAndRelease() throws IOException {
+            try {
+                finish();
+            } finally {
+                def.end();
+            }
+        }
+    }
+
+    private final class CountingStream extends FilterOutputStream {
+        private CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytesOut.increment();
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            bytesOut.add(length);
+        }
+    }
+}
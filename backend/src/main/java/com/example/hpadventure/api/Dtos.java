@@ -10,8 +10,24 @@ public final class Dtos {
         Player player,
         CurrentAdventure currentAdventure,
         List<ChatMessage> conversationHistory,
-        String action
+        String action,
+        Session session
     ) {
+        public StoryRequest(
+            Player player,
+            CurrentAdventure currentAdventure,
+            List<ChatMessage> conversationHistory,
+            String action
+        ) {
+            this(player, currentAdventure, conversationHistory, action, null);
+        }
+    }
+
+    /**
+     * Server-side session reference. In requests, turn is the last turn the client acknowledged;
+     * in responses, it is the turn number the server just recorded.
+     */
+    public record Session(String id, Integer turn) {
     }
 
     public record TtsRequest(String text) {
@@ -37,7 +53,10 @@ public final class Dtos {
     public record ChatMessage(String role, String content) {
     }
 
-    public record StoryResponse(Assistant assistant) {
+    public record StoryResponse(Assistant assistant, Session session) {
+        public StoryResponse(Assistant assistant) {
+            this(assistant, null);
+        }
     }
 
     public record StreamDelta(String text) {
@@ -46,18 +65,87 @@ public final class Dtos {
     public record StreamImage(Image image) {
     }
 
+    public record StreamItem(Item item) {
+    }
+
+    /**
+     * @param imageJobId set instead of image when the illustration is still being rendered as an image job
+     * @param items      items handed to the player this turn, empty when none
+     */
     public record Assistant(
         String storyText,
         List<String> suggestedActions,
         Adventure adventure,
-        Image image
+        Image image,
+        String imageJobId,
+        List<Item> items
     ) {
+        public Assistant(String storyText, List<String> suggestedActions, Adventure adventure, Image image) {
+            this(storyText, suggestedActions, adventure, image, null, List.of());
+        }
+
+        public Assistant(
+            String storyText,
+            List<String> suggestedActions,
+            Adventure adventure,
+            Image image,
+            String imageJobId
+        ) {
+            this(storyText, suggestedActions, adventure, image, imageJobId, List.of());
+        }
+    }
+
+    /**
+     * An item the story handed the player, from a {@code [NEUER GEGENSTAND: ...]} marker.
+     *
+     * @param name        normalised, so the same item has the same name across turns
+     * @param description null when the story gave none
+     */
+    public record Item(String name, String description) {
     }
 
     public record Adventure(String title, boolean completed, String summary, String completedAt) {
     }
 
-    public record Image(String mimeType, String base64, String prompt) {
+    /**
+     * @param thumbnail base64 of a small JPEG of the image, for earlier turns, or null
+     */
+    public record Image(String mimeType, String base64, String prompt, String thumbnail) {
+        public Image(String mimeType, String base64, String prompt) {
+            this(mimeType, base64, prompt, null);
+        }
+    }
+
+    /**
+     * An image job: status is pending, done (with image) or failed (with error).
+     */
+    public record ImageJob(String id, String status, Image image, ErrorResponse.Error error) {
+    }
+
+    /**
+     * Body of {@code POST /api/summaries/batch}.
+     */
+    public record SummaryBatchRequest(List<SummaryBatchItem> items) {
+    }
+
+    /**
+     * @param id echoed with its result; defaults to the item's index
+     */
+    public record SummaryBatchItem(String id, List<ChatMessage> history) {
+    }
+
+    /**
+     * A summary batch job, the first and last line of its stream: status is running or done.
+     */
+    public record SummaryBatchJob(String jobId, String status, int total, int succeeded, int failed) {
+    }
+
+    /**
+     * One summary of a batch job (or its error), in the order they finished.
+     *
+     * @param seq 1-based position in the job's results; resume after the last one received
+     */
+    public record SummaryBatchResult(int seq, String id, String summary, ErrorResponse.Error error) {
     }
 
     public record ErrorResponse(Error error) {
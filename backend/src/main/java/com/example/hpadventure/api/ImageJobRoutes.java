@@ -0,0 +1,86 @@
+package com.example.hpadventure.api;
+
+import com.example.hpadventure.services.ImageJobs;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.sse.SseClient;
+import io.javalin.http.sse.SseHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+public final class ImageJobRoutes {
+    private static final Logger logger = LoggerFactory.getLogger(ImageJobRoutes.class);
+    private static final Duration MAX_WAIT = Duration.ofSeconds(25);
+    private static final Duration KEEP_ALIVE = Duration.ofSeconds(15);
+
+    private ImageJobRoutes() {
+    }
+
+    /**
+     * {@code GET /api/images/jobs/{id}?wait=N}: the image job, after waiting up to N seconds (at most 25,
+     * the default) for it to finish; 202 while it is still pending, 404 once it is unknown or expired.
+     *
+     * {@code GET /api/images/jobs/{id}/events}: the same as one SSE event, {@code image} or
+     * {@code image_error} like on the story stream, sent as soon as the job finishes.
+     */
+    public static void register(Javalin app, ImageJobs imageJobs) {
+        app.get("/api/images/jobs/{id}", ctx -> pollJob(ctx, RequestIds.of(ctx), imageJobs));
+        app.get("/api/images/jobs/{id}/events", new SseHandler(client ->
+            pushJob(client, RequestIds.of(client.ctx()), imageJobs)));
+    }
+
+    private static void pollJob(Context ctx, String requestId, ImageJobs imageJobs) throws InterruptedException {
+        Duration wait = MAX_WAIT;
+        String waitParam = ctx.queryParam("wait");
+        if (waitParam != null) {
+            try {
+                int seconds = Integer.parseInt(waitParam.trim());
+                wait = Duration.ofSeconds(Math.max(0, Math.min(seconds, MAX_WAIT.toSeconds())));
+            } catch (NumberFormatException e) {
+                ctx.status(400).json(errorResponse("INVALID_REQUEST", "wait must be a number", requestId));
+                return;
+            }
+        }
+        Dtos.ImageJob job = imageJobs.await(ctx.pathParam("id"), wait);
+        if (job == null) {
+            ctx.status(404).json(errorResponse("JOB_NOT_FOUND", "Image job is unknown or expired", requestId));
+            return;
+        }
+        ctx.status(ImageJobs.PENDING.equals(job.status()) ? 202 : 200).json(job);
+    }
+
+    private static void pushJob(SseClient client, String requestId, ImageJobs imageJobs) {
+        String id = client.ctx().pathParam("id");
+        try {
+            while (!client.terminated()) {
+                Dtos.ImageJob job = imageJobs.await(id, KEEP_ALIVE);
+                if (job == null) {
+                    client.sendEvent("image_error",
+                        errorResponse("JOB_NOT_FOUND", "Image job is unknown or expired", requestId));
+                    break;
+                }
+                if (ImageJobs.DONE.equals(job.status())) {
+                    client.sendEvent("image", new Dtos.StreamImage(job.image()));
+                    break;
+                }
+                if (ImageJobs.FAILED.equals(job.status())) {
+                    Dtos.ErrorResponse.Error error = job.error();
+                    client.sendEvent("image_error", errorResponse(error.code(), error.message(), requestId));
+                    break;
+                }
+                client.sendComment("keep-alive");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            logger.info("Image job events done requestId={} jobId={}", requestId, id);
+            client.close();
+        }
+    }
+
+    private static Dtos.ErrorResponse errorResponse(String code, String message, String requestId) {
+        return new Dtos.ErrorResponse(new Dtos.ErrorResponse.Error(code, message, requestId));
+    }
+}
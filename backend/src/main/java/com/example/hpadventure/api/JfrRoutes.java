@@ -0,0 +1,110 @@
+package com.example.hpadventure.api;
+
+import com.example.hpadventure.jfr.FlightRecordings;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * On-demand flight recordings:
+ * {@code POST /debug/jfr/start?seconds=60&settings=profile}, {@code GET /debug/jfr} for the status,
+ * and {@code POST /debug/jfr/stop}, which returns the {@code .jfr} file for JDK Mission Control.
+ * Every call needs the admin token in {@code X-Admin-Token}; player passwords are not enough.
+ */
+public final class JfrRoutes {
+    private static final Logger logger = LoggerFactory.getLogger(JfrRoutes.class);
+    private static final int DEFAULT_SECONDS = 60;
+    private static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    private JfrRoutes() {
+    }
+
+    public static void register(Javalin app, FlightRecordings recordings, String adminToken) {
+        if (adminToken == null || adminToken.isBlank()) {
+            throw new IllegalArgumentException("adminToken is required");
+        }
+        Handler requireAdmin = requireAdmin(adminToken);
+        app.before("/debug/jfr", requireAdmin);
+        app.before("/debug/jfr/*", requireAdmin);
+
+        app.get("/debug/jfr", ctx -> ctx.json(recordings.status()));
+
+        app.post("/debug/jfr/start", ctx -> {
+            Integer seconds = parsePositiveInt(ctx.queryParam("seconds"), DEFAULT_SECONDS);
+            if (seconds == null) {
+                ctx.status(400).json(errorResponse("INVALID_REQUEST", "seconds must be a positive number"));
+                return;
+            }
+            String settings = ctx.queryParam("settings") == null ? "profile" : ctx.queryParam("settings");
+            try {
+                FlightRecordings.Status status = recordings.start(Duration.ofSeconds(seconds), settings);
+                logger.info("JFR recording started: settings={} durationSeconds={}",
+                    settings, status.duration().toSeconds());
+                ctx.status(201).json(status);
+            } catch (IllegalStateException e) {
+                ctx.status(409).json(errorResponse("RECORDING_RUNNING", e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                ctx.status(400).json(errorResponse("INVALID_REQUEST", e.getMessage()));
+            }
+        });
+
+        app.post("/debug/jfr/stop", ctx -> {
+            Path file;
+            try {
+                file = recordings.stop();
+            } catch (IllegalStateException e) {
+                ctx.status(409).json(errorResponse("NO_RECORDING", e.getMessage()));
+                return;
+            }
+            logger.info("JFR recording stopped: bytes={}", Files.size(file));
+            sendRecording(ctx, file);
+        });
+    }
+
+    private static Handler requireAdmin(String adminToken) {
+        byte[] expected = adminToken.getBytes(StandardCharsets.UTF_8);
+        return ctx -> {
+            String token = ctx.header(ADMIN_TOKEN_HEADER);
+            if (token == null || !MessageDigest.isEqual(expected, token.getBytes(StandardCharsets.UTF_8))) {
+                logger.warn("JFR request rejected: path={} ip={}", ctx.path(), ctx.ip());
+                ctx.status(401).json(errorResponse("UNAUTHORIZED", "Admin token required"));
+                ctx.skipRemainingHandlers();
+            }
+        };
+    }
+
+    private static void sendRecording(Context ctx, Path file) throws IOException {
+        ctx.contentType("application/octet-stream");
+        ctx.header("Content-Disposition",
+            "attachment; filename=\"hp-adventure-" + Instant.now().getEpochSecond() + ".jfr\"");
+        // Javalin closes the stream once written, which deletes the temporary file
+        ctx.result(Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE));
+    }
+
+    private static Integer parsePositiveInt(String value, int defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Dtos.ErrorResponse errorResponse(String code, String message) {
+        return new Dtos.ErrorResponse(new Dtos.ErrorResponse.Error(code, message, null));
+    }
+}
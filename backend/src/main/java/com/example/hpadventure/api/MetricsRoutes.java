@@ -0,0 +1,15 @@
+package com.example.hpadventure.api;
+
+import com.example.hpadventure.metrics.Metrics;
+import io.javalin.Javalin;
+
+public final class MetricsRoutes {
+    private MetricsRoutes() {
+    }
+
+    public static void register(Javalin app, Metrics metrics) {
+        app.get("/metrics", ctx -> ctx
+            .contentType("text/plain; version=0.0.4; charset=utf-8")
+            .result(metrics.scrape()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.hpadventure.api;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.slf4j.MDC;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * One id per API request: echoed as {@code X-Request-Id}, returned in error bodies, and put into the
+ * logging MDC so every log line of the request (including provider logs) carries it.
+ */
+public final class RequestIds {
+    public static final String MDC_KEY = "requestId";
+    private static final String HEADER = "X-Request-Id";
+    private static final String ATTRIBUTE = "requestId";
+    private static final Pattern CLIENT_ID = Pattern.compile("[A-Za-z0-9._-]{8,64}");
+
+    private RequestIds() {
+    }
+
+    public static void register(Javalin app) {
+        app.before("/api/*", ctx -> MDC.put(MDC_KEY, of(ctx)));
+        app.after("/api/*", ctx -> MDC.remove(MDC_KEY));
+    }
+
+    /**
+     * @return the request's id, assigned on first call (a well-formed client {@code X-Request-Id} is kept)
+     */
+    static String of(Context ctx) {
+        String requestId = ctx.attribute(ATTRIBUTE);
+        if (requestId == null) {
+            String fromClient = ctx.header(HEADER);
+            requestId = fromClient != null && CLIENT_ID.matcher(fromClient).matches()
+                ? fromClient
+                : UUID.randomUUID().toString();
+            ctx.attribute(ATTRIBUTE, requestId);
+            ctx.header(HEADER, requestId);
+        }
+        return requestId;
+    }
+}
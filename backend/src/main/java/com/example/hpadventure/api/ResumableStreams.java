@@ -0,0 +1,244 @@
+package com.example.hpadventure.api;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived replay buffers for story streams, so a client whose SSE connection drops mid-turn can
+ * reconnect with {@code Last-Event-ID} and receive the events it missed instead of starting a new turn.
+ *
+ * Every stream keeps its events, already serialized, in order; event ids are {@code <streamId>:<seq>}.
+ * A stream expires {@code ttl} after its last event. When all buffers together exceed {@code maxBytes},
+ * the oldest streams (finished ones first) are evicted and can no longer be resumed.
+ */
+public final class ResumableStreams {
+    private static final Duration SWEEP_INTERVAL = Duration.ofSeconds(30);
+    // Rough per-event overhead beyond the UTF-16 payload: the Event record, the list slot, the strings
+    private static final int EVENT_OVERHEAD_BYTES = 96;
+
+    private final Clock clock;
+    private final Duration ttl;
+    private final long maxBytes;
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private volatile Instant lastSweep;
+
+    public ResumableStreams(Clock clock, Duration ttl, long maxBytes) {
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.ttl = ttl;
+        this.maxBytes = maxBytes;
+        this.lastSweep = clock.instant();
+    }
+
+    /**
+     * Start buffering a new stream.
+     */
+    Stream open() {
+        sweepIfDue();
+        Stream stream = new Stream(this, UUID.randomUUID().toString(), clock.instant());
+        streams.put(stream.id, stream);
+        return stream;
+    }
+
+    /**
+     * @return the stream, or null if it is unknown, expired or evicted
+     */
+    Stream get(String id) {
+        sweepIfDue();
+        return id == null ? null : streams.get(id);
+    }
+
+    public int size() {
+        return streams.size();
+    }
+
+    public long bufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * Split a {@code Last-Event-ID} of the form {@code <streamId>:<seq>}.
+     *
+     * @return null if the id is missing or malformed
+     */
+    static Position parseEventId(String lastEventId) {
+        if (lastEventId == null) {
+            return null;
+        }
+        int separator = lastEventId.lastIndexOf(':');
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            int seq = Integer.parseInt(lastEventId.substring(separator + 1).trim());
+            return seq < 0 ? null : new Position(lastEventId.substring(0, separator).trim(), seq);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void added(long bytes) {
+        if (bufferedBytes.addAndGet(bytes) > maxBytes) {
+            evictOldest();
+        }
+    }
+
+    private synchronized void evictOldest() {
+        while (bufferedBytes.get() > maxBytes) {
+            Stream oldest = null;
+            for (Stream stream : streams.values()) {
+                if (oldest == null || evictsBefore(stream, oldest)) {
+                    oldest = stream;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            remove(oldest);
+        }
+    }
+
+    private static boolean evictsBefore(Stream candidate, Stream current) {
+        if (candidate.isFinished() != current.isFinished()) {
+            return candidate.isFinished();
+        }
+        return candidate.createdAt.isBefore(current.createdAt);
+    }
+
+    private void sweepIfDue() {
+        Instant now = clock.instant();
+        if (Duration.between(lastSweep, now).compareTo(SWEEP_INTERVAL) < 0) {
+            return;
+        }
+        lastSweep = now;
+        Instant cutoff = now.minus(ttl);
+        for (Stream stream : streams.values()) {
+            if (stream.lastEventAt().isBefore(cutoff)) {
+                remove(stream);
+            }
+        }
+    }
+
+    private void remove(Stream stream) {
+        if (streams.remove(stream.id, stream)) {
+            bufferedBytes.addAndGet(-stream.evict());
+        }
+    }
+
+    record Position(String streamId, int seq) {
+    }
+
+    record Event(int seq, String name, String data) {
+    }
+
+    /**
+     * One turn's events. Appends come from the generating thread; any number of resumed clients may wait
+     * for new events at the same time.
+     */
+    static final class Stream {
+        private final ResumableStreams owner;
+        final String id;
+        private final Instant createdAt;
+        private final List<Event> events = new ArrayList<>();
+        private Instant lastEventAt;
+        private int lastSeq;
+        private long bytes;
+        private boolean finished;
+        private boolean evicted;
+
+        private Stream(ResumableStreams owner, String id, Instant createdAt) {
+            this.owner = owner;
+            this.id = id;
+            this.createdAt = createdAt;
+            this.lastEventAt = createdAt;
+        }
+
+        /**
+         * Buffer an event; once evicted, sequence numbers still advance but nothing is kept.
+         *
+         * @return the event id to send it with
+         */
+        String append(String name, String data) {
+            long size = EVENT_OVERHEAD_BYTES + 2L * (name.length() + data.length());
+            int seq;
+            synchronized (this) {
+                seq = ++lastSeq;
+                if (evicted) {
+                    return eventId(seq);
+                }
+                events.add(new Event(seq, name, data));
+                bytes += size;
+                lastEventAt = owner.clock.instant();
+                notifyAll();
+            }
+            owner.added(size);
+            return eventId(seq);
+        }
+
+        synchronized void finish() {
+            finished = true;
+            lastEventAt = owner.clock.instant();
+            notifyAll();
+        }
+
+        synchronized boolean isFinished() {
+            return finished;
+        }
+
+        /**
+         * Wait up to {@code timeout} for events after {@code seq}.
+         *
+         * @return the events after {@code seq}, empty if the stream finished or the wait timed out,
+         *         or null if the stream was evicted and the missing events are gone
+         */
+        synchronized List<Event> eventsAfter(int seq, Duration timeout) throws InterruptedException {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (true) {
+                if (evicted) {
+                    return null;
+                }
+                if (lastSeq > seq) {
+                    // seq numbers are dense from 1, so the index of seq + 1 is seq
+                    return List.copyOf(events.subList(Math.max(0, seq), events.size()));
+                }
+                long remaining = deadline - System.nanoTime();
+                if (finished || remaining <= 0) {
+                    return List.of();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+
+        String eventId(int seq) {
+            return id + ":" + seq;
+        }
+
+        private synchronized Instant lastEventAt() {
+            return lastEventAt;
+        }
+
+        private synchronized long evict() {
+            long released = bytes;
+            evicted = true;
+            events.clear();
+            bytes = 0;
+            notifyAll();
+            return released;
+        }
+    }
+}
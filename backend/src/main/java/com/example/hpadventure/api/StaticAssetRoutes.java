@@ -0,0 +1,117 @@
+package com.example.hpadventure.api;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+
+import java.util.Locale;
+
+/**
+ * Serves {@link StaticAssets} from memory with {@code Accept-Encoding} negotiation,
+ * ETags and long-lived caching for fingerprinted files.
+ */
+public final class StaticAssetRoutes {
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+
+    private StaticAssetRoutes() {
+    }
+
+    /**
+     * Register after all other GET routes: {@code /{asset}} would otherwise shadow them.
+     */
+    public static void register(Javalin app, StaticAssets assets) {
+        app.get("/", ctx -> serve(ctx, assets.find("index.html")));
+        app.get("/{asset}", ctx -> serve(ctx, assets.find(ctx.pathParam("asset"))));
+    }
+
+    private static void serve(Context ctx, StaticAssets.Asset asset) {
+        if (asset == null) {
+            ctx.status(404);
+            return;
+        }
+
+        String acceptEncoding = ctx.header("Accept-Encoding");
+        String encoding = null;
+        byte[] body = asset.identity();
+        if (asset.brotli() != null && accepts(acceptEncoding, "br")) {
+            encoding = "br";
+            body = asset.brotli();
+        } else if (asset.gzip() != null && accepts(acceptEncoding, "gzip")) {
+            encoding = "gzip";
+            body = asset.gzip();
+        }
+
+        // Each encoding is a different representation, so it gets its own strong validator
+        String etag = variantEtag(asset.etag(), encoding);
+        ctx.header("ETag", etag);
+        ctx.header("Cache-Control", asset.immutable() ? IMMUTABLE : REVALIDATE);
+        ctx.header("Vary", "Accept-Encoding");
+        if (matches(ctx.header("If-None-Match"), etag)) {
+            ctx.status(304);
+            return;
+        }
+
+        ctx.contentType(asset.contentType());
+        if (encoding != null) {
+            ctx.header("Content-Encoding", encoding);
+        }
+        ctx.result(body);
+    }
+
+    /**
+     * {@code "<hash>"} for the identity representation, {@code "<hash>-<encoding>"} for a compressed one.
+     */
+    static String variantEtag(String etag, String encoding) {
+        if (encoding == null) {
+            return etag;
+        }
+        if (etag.length() >= 2 && etag.endsWith("\"")) {
+            return etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+        }
+        return etag + "-" + encoding;
+    }
+
+    /**
+     * Weak comparison of an {@code If-None-Match} list against one entity tag, as RFC 9110 asks for.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if ((tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (!tokens[0].trim().toLowerCase(Locale.ROOT).equals(coding)) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.hpadventure.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The fingerprinted, precompressed frontend assets listed in {@code asset-manifest.json}
+ * (written by {@code frontend/fingerprint.mjs}), held in memory with their brotli/gzip variants.
+ */
+public final class StaticAssets {
+    static final String MANIFEST = "asset-manifest.json";
+
+    private final Map<String, Asset> assets;
+
+    private StaticAssets(Map<String, Asset> assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * Load every asset listed in the manifest under the classpath directory {@code root}.
+     *
+     * @return the assets, or null if the directory has no manifest (unprocessed dev build)
+     */
+    public static StaticAssets loadFromClasspath(ObjectMapper mapper, String root) throws IOException {
+        byte[] manifestBytes = readResource(root + "/" + MANIFEST);
+        if (manifestBytes == null) {
+            return null;
+        }
+        Manifest manifest = mapper.readValue(manifestBytes, Manifest.class);
+
+        Map<String, Asset> assets = new HashMap<>();
+        for (Map.Entry<String, FileEntry> entry : manifest.files().entrySet()) {
+            String name = entry.getKey();
+            FileEntry file = entry.getValue();
+            byte[] identity = readResource(root + "/" + name);
+            if (identity == null) {
+                throw new IOException("Asset listed in manifest is missing: " + name);
+            }
+            List<String> encodings = file.encodings() == null ? List.of() : file.encodings();
+            byte[] brotli = encodings.contains("br") ? readResource(root + "/" + name + ".br") : null;
+            byte[] gzip = encodings.contains("gzip") ? readResource(root + "/" + name + ".gz") : null;
+            assets.put(name, new Asset(contentType(name), file.etag(), file.immutable(), identity, brotli, gzip));
+        }
+
+        // Unhashed names keep working (e.g. for an old cached index.html) but must be revalidated.
+        if (manifest.aliases() != null) {
+            for (Map.Entry<String, String> alias : manifest.aliases().entrySet()) {
+                Asset target = assets.get(alias.getValue());
+                if (target != null) {
+                    assets.put(alias.getKey(), target.revalidated());
+                }
+            }
+        }
+        return new StaticAssets(Map.copyOf(assets));
+    }
+
+    /**
+     * @return the asset for a file name (hashed or original), or null if unknown
+     */
+    public Asset find(String name) {
+        return name == null ? null : assets.get(name);
+    }
+
+    /**
+     * One asset in all stored encodings; {@code brotli} and {@code gzip} are null if not worth storing.
+     */
+    public record Asset(
+        String contentType,
+        String etag,
+        boolean immutable,
+        byte[] identity,
+        byte[] brotli,
+        byte[] gzip
+    ) {
+        private Asset revalidated() {
+            return new Asset(contentType, etag, false, identity, brotli, gzip);
+        }
+    }
+
+    private static byte[] readResource(String path) throws IOException {
+        try (InputStream in = StaticAssets.class.getResourceAsStream(path)) {
+            return in == null ? null : in.readAllBytes();
+        }
+    }
+
+    private static String contentType(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".html")) {
+            return "text/html; charset=utf-8";
+        }
+        if (lower.endsWith(".css")) {
+            return "text/css; charset=utf-8";
+        }
+        if (lower.endsWith(".js")) {
+            return "text/javascript; charset=utf-8";
+        }
+        if (lower.endsWith(".json")) {
+            return "application/json";
+        }
+        return "application/octet-stream";
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Manifest(Map<String, String> aliases, Map<String, FileEntry> files) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record FileEntry(String etag, boolean immutable, List<String> encodings) {
+    }
+}
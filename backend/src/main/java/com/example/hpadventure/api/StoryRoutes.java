@@ -1,133 +1,380 @@
 package com.example.hpadventure.api;
 
 import com.example.hpadventure.config.RateLimiter;
+import com.example.hpadventure.jfr.SseFlushEvent;
 import com.example.hpadventure.services.StoryHandler;
+import com.example.hpadventure.services.StorySessionException;
+import com.example.hpadventure.services.StorySessionStore;
 import com.example.hpadventure.services.StoryStreamHandler;
 import com.example.hpadventure.services.UpstreamException;
+import com.example.hpadventure.tracing.Span;
+import com.example.hpadventure.tracing.Tracer;
+import com.example.hpadventure.tracing.Tracing;
+import com.example.hpadventure.usage.Usage;
+import com.example.hpadventure.usage.UsageLedger;
 import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.sse.SseClient;
 import io.javalin.http.sse.SseHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
-import java.util.UUID;
+import java.time.Duration;
+import java.util.List;
 
 public final class StoryRoutes {
     private static final Logger logger = LoggerFactory.getLogger(StoryRoutes.class);
+    private static final Duration RESUME_KEEP_ALIVE = Duration.ofSeconds(15);
 
     private StoryRoutes() {
     }
 
     public static void register(Javalin app, StoryHandler storyHandler, RateLimiter rateLimiter) {
+        register(app, storyHandler, rateLimiter, Options.DEFAULTS);
+    }
+
+    public static void register(Javalin app, StoryHandler storyHandler, RateLimiter rateLimiter, Options options) {
+        StorySessionStore sessions = options.sessions();
+        Tracer tracer = options.tracer();
+        UsageLedger usageLedger = options.usageLedger();
+        ResumableStreams streams = options.streams();
         app.post("/api/story", ctx -> {
-            String requestId = UUID.randomUUID().toString();
-            ctx.header("X-Request-Id", requestId);
-            if (rateLimiter != null && !rateLimiter.allow(ctx.ip())) {
-                logger.warn("Story request rate limited requestId={} ip={}", requestId, ctx.ip());
-                ctx.status(429).json(errorResponse("RATE_LIMITED", "Zu viele Anfragen. Bitte warte kurz.", requestId));
-                return;
-            }
-            Dtos.StoryRequest request;
-            try {
-                request = ctx.bodyAsClass(Dtos.StoryRequest.class);
-            } catch (Exception e) {
-                logger.warn("Story request invalid body requestId={} ip={}", requestId, ctx.ip(), e);
-                ctx.status(400).json(errorResponse("INVALID_REQUEST", "Invalid JSON body", requestId));
-                return;
+            String requestId = RequestIds.of(ctx);
+            try (Span span = tracer.startTrace("story.turn");
+                 Usage.Scope usage = beginUsage(usageLedger, ctx)) {
+                span.attribute("requestId", requestId).attribute("route", "/api/story");
+                handleStory(ctx, requestId, storyHandler, rateLimiter, sessions);
+                span.attribute("http.status", ctx.statusCode());
             }
-            String action = request == null ? null : request.action();
-            int historySize = historySize(request);
-            int actionLength = safeLength(action);
+        });
 
-            logger.info("Story request received requestId={} ip={} history={} actionLength={}",
-                requestId, ctx.ip(), historySize, actionLength);
+        if (storyHandler instanceof StoryStreamHandler streamHandler) {
+            app.post("/api/story/stream", new SseHandler(client -> {
+                String requestId = RequestIds.of(client.ctx());
+                // The SSE consumer may run outside the request thread's before/after handlers
+                try (MDC.MDCCloseable ignored = MDC.putCloseable(RequestIds.MDC_KEY, requestId);
+                     Span span = tracer.startTrace("story.turn");
+                     Usage.Scope usage = beginUsage(usageLedger, client.ctx())) {
+                    span.attribute("requestId", requestId).attribute("route", "/api/story/stream");
+                    streamStory(client, requestId, streamHandler, rateLimiter, sessions, streams);
+                }
+            }));
+        }
 
-            if (action == null || action.isBlank()) {
-                logger.warn("Story request missing action requestId={} ip={}", requestId, ctx.ip());
-                ctx.status(400).json(errorResponse("INVALID_REQUEST", "action is required", requestId));
-                return;
-            }
+        if (streams != null) {
+            app.get("/api/story/stream/resume", new SseHandler(client -> {
+                String requestId = RequestIds.of(client.ctx());
+                try (MDC.MDCCloseable ignored = MDC.putCloseable(RequestIds.MDC_KEY, requestId);
+                     Span span = tracer.startTrace("story.resume")) {
+                    span.attribute("requestId", requestId).attribute("route", "/api/story/stream/resume");
+                    resumeStory(client, requestId, streams);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Optional collaborators of the story routes; {@link #DEFAULTS} has none of them.
+     *
+     * @param sessions    server-side session store, or null to require the full history on every request
+     * @param tracer      starts one trace per story turn
+     * @param usageLedger accounts upstream token usage to the authenticated user, or null
+     * @param streams     buffers stream events so dropped clients can resume with {@code Last-Event-ID},
+     *                    or null to disable {@code /api/story/stream/resume}
+     */
+    public record Options(
+        StorySessionStore sessions,
+        Tracer tracer,
+        UsageLedger usageLedger,
+        ResumableStreams streams
+    ) {
+        public static final Options DEFAULTS = new Options(null, Tracer.NOOP, null, null);
+
+        public Options {
+            tracer = tracer == null ? Tracer.NOOP : tracer;
+        }
+
+        public Options withSessions(StorySessionStore sessions) {
+            return new Options(sessions, tracer, usageLedger, streams);
+        }
+
+        public Options withTracer(Tracer tracer) {
+            return new Options(sessions, tracer, usageLedger, streams);
+        }
+
+        public Options withUsageLedger(UsageLedger usageLedger) {
+            return new Options(sessions, tracer, usageLedger, streams);
+        }
+
+        public Options withStreams(ResumableStreams streams) {
+            return new Options(sessions, tracer, usageLedger, streams);
+        }
+    }
+
+    private static Usage.Scope beginUsage(UsageLedger usageLedger, Context ctx) {
+        return usageLedger == null ? Usage.Scope.NOOP : Usage.begin(usageLedger, ctx.attribute(AuthRoutes.USER_ATTRIBUTE));
+    }
+
+    private static void handleStory(
+        Context ctx,
+        String requestId,
+        StoryHandler storyHandler,
+        RateLimiter rateLimiter,
+        StorySessionStore sessions
+    ) {
+        if (rateLimiter != null && !rateLimiter.allow(ctx.ip())) {
+            logger.warn("Story request rate limited requestId={} ip={}", requestId, ctx.ip());
+            ctx.status(429).json(errorResponse("RATE_LIMITED", "Zu viele Anfragen. Bitte warte kurz.", requestId));
+            return;
+        }
+        Dtos.StoryRequest request;
+        try {
+            request = ctx.bodyAsClass(Dtos.StoryRequest.class);
+        } catch (Exception e) {
+            logger.warn("Story request invalid body requestId={} ip={}", requestId, ctx.ip(), e);
+            ctx.status(400).json(errorResponse("INVALID_REQUEST", "Invalid JSON body", requestId));
+            return;
+        }
+        String action = request == null ? null : request.action();
+        int historySize = historySize(request);
+        int actionLength = safeLength(action);
+
+        logger.info("Story request received requestId={} ip={} history={} actionLength={}",
+            requestId, ctx.ip(), historySize, actionLength);
+
+        if (action == null || action.isBlank()) {
+            logger.warn("Story request missing action requestId={} ip={}", requestId, ctx.ip());
+            ctx.status(400).json(errorResponse("INVALID_REQUEST", "action is required", requestId));
+            return;
+        }
+
+        StorySessionStore.Resolved resolved;
+        try {
+            resolved = resolveSession(sessions, request);
+        } catch (StorySessionException e) {
+            logger.info("Story request session rejected requestId={} code={}", requestId, e.code());
+            ctx.status(e.status()).json(errorResponse(e.code(), e.getMessage(), requestId));
+            return;
+        }
+
+        try {
+            Dtos.Assistant assistant = storyHandler.nextTurn(resolved.request());
+            Dtos.Session session = sessions == null ? null : sessions.record(resolved, assistant);
+            ctx.json(new Dtos.StoryResponse(assistant, session));
+        } catch (StorySessionException e) {
+            logger.info("Story request session rejected requestId={} code={}", requestId, e.code());
+            ctx.status(e.status()).json(errorResponse(e.code(), e.getMessage(), requestId));
+        } catch (UpstreamException e) {
+            logger.warn("Story request upstream failure requestId={} code={} status={} message={}",
+                requestId, e.code(), e.status(), e.getMessage());
+            Tracing.current().error(e);
+            int status = e.status() >= 400 ? e.status() : 502;
+            ctx.status(status).json(errorResponse(e.code(), "Upstream error: " + e.getMessage(), requestId));
+        } catch (Exception e) {
+            logger.error("Story request unexpected failure requestId={}", requestId, e);
+            Tracing.current().error(e);
+            ctx.status(500).json(errorResponse("INTERNAL_ERROR", "Unexpected server error", requestId));
+        }
+    }
+
+    private static void streamStory(
+        SseClient client,
+        String requestId,
+        StoryStreamHandler streamHandler,
+        RateLimiter rateLimiter,
+        StorySessionStore sessions,
+        ResumableStreams streams
+    ) {
+        if (rateLimiter != null && !rateLimiter.allow(client.ctx().ip())) {
+            logger.warn("Story stream request rate limited requestId={} ip={}", requestId, client.ctx().ip());
+            send(client, requestId, "error", errorResponse("RATE_LIMITED", "Zu viele Anfragen. Bitte warte kurz.", requestId));
+            client.close();
+            return;
+        }
+        Dtos.StoryRequest request;
+        try {
+            request = client.ctx().bodyAsClass(Dtos.StoryRequest.class);
+        } catch (Exception e) {
+            logger.warn("Story stream request invalid body requestId={} ip={}", requestId, client.ctx().ip(), e);
+            send(client, requestId, "error", errorResponse("INVALID_REQUEST", "Invalid JSON body", requestId));
+            client.close();
+            return;
+        }
+        String action = request == null ? null : request.action();
+        int historySize = historySize(request);
+        int actionLength = safeLength(action);
+
+        logger.info("Story stream request received requestId={} ip={} history={} actionLength={}",
+            requestId, client.ctx().ip(), historySize, actionLength);
+
+        if (action == null || action.isBlank()) {
+            logger.warn("Story stream request missing action requestId={} ip={}", requestId, client.ctx().ip());
+            send(client, requestId, "error", errorResponse("INVALID_REQUEST", "action is required", requestId));
+            client.close();
+            return;
+        }
+
+        StorySessionStore.Resolved resolved;
+        try {
+            resolved = resolveSession(sessions, request);
+        } catch (StorySessionException e) {
+            logger.info("Story stream request session rejected requestId={} code={}", requestId, e.code());
+            send(client, requestId, "error", errorResponse(e.code(), e.getMessage(), requestId));
+            client.close();
+            return;
+        }
+
+        // Keep buffering after the client is gone, so it can still resume until the turn is done
+        ResumableStreams.Stream stream = streams == null ? null : streams.open();
+        try {
+            StoryStreamHandler.StreamResult result = streamHandler.streamTurn(resolved.request(), delta -> {
+                if (delta == null || delta.isEmpty()) {
+                    return;
+                }
+                send(client, stream, requestId, "delta", new Dtos.StreamDelta(delta));
+            }, item -> send(client, stream, requestId, "item", new Dtos.StreamItem(item)));
+            Dtos.Session session = sessions == null ? null : sessions.record(resolved, result.assistant());
+            send(client, stream, requestId, "final_text", new Dtos.StoryResponse(result.assistant(), session));
 
             try {
-                Dtos.Assistant assistant = storyHandler.nextTurn(request);
-                ctx.json(new Dtos.StoryResponse(assistant));
+                Dtos.Image image = streamHandler.generateImage(result.imagePrompt(),
+                    preview -> send(client, stream, requestId, "image_preview", new Dtos.StreamImage(preview)));
+                send(client, stream, requestId, "image", new Dtos.StreamImage(image));
             } catch (UpstreamException e) {
-                logger.warn("Story request upstream failure requestId={} code={} status={} message={}",
+                logger.warn("Story image request upstream failure requestId={} code={} status={} message={}",
                     requestId, e.code(), e.status(), e.getMessage());
-                int status = e.status() >= 400 ? e.status() : 502;
-                ctx.status(status).json(errorResponse(e.code(), "Upstream error: " + e.getMessage(), requestId));
+                Tracing.current().error(e);
+                send(client, stream, requestId, "image_error",
+                    errorResponse(e.code(), "Illustration konnte nicht geladen werden.", requestId));
             } catch (Exception e) {
-                logger.error("Story request unexpected failure requestId={}", requestId, e);
-                ctx.status(500).json(errorResponse("INTERNAL_ERROR", "Unexpected server error", requestId));
+                logger.error("Story image request unexpected failure requestId={}", requestId, e);
+                Tracing.current().error(e);
+                send(client, stream, requestId, "image_error",
+                    errorResponse("INTERNAL_ERROR", "Illustration konnte nicht geladen werden.", requestId));
             }
-        });
+        } catch (StorySessionException e) {
+            logger.info("Story stream request session rejected requestId={} code={}", requestId, e.code());
+            send(client, stream, requestId, "error", errorResponse(e.code(), e.getMessage(), requestId));
+        } catch (UpstreamException e) {
+            logger.warn("Story stream request upstream failure requestId={} code={} status={} message={}",
+                requestId, e.code(), e.status(), e.getMessage());
+            Tracing.current().error(e);
+            send(client, stream, requestId, "error", errorResponse(e.code(), "Upstream error: " + e.getMessage(), requestId));
+        } catch (Exception e) {
+            logger.error("Story stream request unexpected failure requestId={}", requestId, e);
+            Tracing.current().error(e);
+            send(client, stream, requestId, "error", errorResponse("INTERNAL_ERROR", "Unexpected server error", requestId));
+        } finally {
+            if (stream != null) {
+                stream.finish();
+            }
+            client.close();
+        }
+    }
 
-        if (storyHandler instanceof StoryStreamHandler streamHandler) {
-            app.post("/api/story/stream", new SseHandler(client -> {
-                String requestId = UUID.randomUUID().toString();
-                client.ctx().header("X-Request-Id", requestId);
-                if (rateLimiter != null && !rateLimiter.allow(client.ctx().ip())) {
-                    logger.warn("Story stream request rate limited requestId={} ip={}", requestId, client.ctx().ip());
-                    client.sendEvent("error", errorResponse("RATE_LIMITED", "Zu viele Anfragen. Bitte warte kurz.", requestId));
-                    client.close();
-                    return;
+    /**
+     * Replay the events after {@code Last-Event-ID} ({@code <streamId>:<seq>}), then follow the stream
+     * until its turn is done or the client goes away again.
+     */
+    private static void resumeStory(SseClient client, String requestId, ResumableStreams streams) {
+        String lastEventId = client.ctx().header("Last-Event-ID");
+        ResumableStreams.Position position = ResumableStreams.parseEventId(lastEventId);
+        ResumableStreams.Stream stream = position == null ? null : streams.get(position.streamId());
+        if (stream == null) {
+            logger.info("Story stream resume rejected requestId={} lastEventId={}", requestId, lastEventId);
+            send(client, requestId, "error", errorResponse("STREAM_NOT_FOUND",
+                "Stream is unknown or expired, please retry the turn", requestId));
+            client.close();
+            return;
+        }
+        logger.info("Story stream resumed requestId={} streamId={} afterSeq={}", requestId, stream.id, position.seq());
+
+        int seq = position.seq();
+        int replayed = 0;
+        try {
+            while (!client.terminated()) {
+                List<ResumableStreams.Event> events = stream.eventsAfter(seq, RESUME_KEEP_ALIVE);
+                if (events == null) {
+                    send(client, requestId, "error", errorResponse("STREAM_NOT_FOUND",
+                        "Stream was evicted, please retry the turn", requestId));
+                    break;
                 }
-                Dtos.StoryRequest request;
-                try {
-                    request = client.ctx().bodyAsClass(Dtos.StoryRequest.class);
-                } catch (Exception e) {
-                    logger.warn("Story stream request invalid body requestId={} ip={}", requestId, client.ctx().ip(), e);
-                    client.sendEvent("error", errorResponse("INVALID_REQUEST", "Invalid JSON body", requestId));
-                    client.close();
-                    return;
+                for (ResumableStreams.Event event : events) {
+                    sendRaw(client, requestId, event.name(), event.data(), stream.eventId(event.seq()));
+                    seq = event.seq();
+                    replayed += 1;
+                }
+                if (events.isEmpty()) {
+                    if (stream.isFinished()) {
+                        break;
+                    }
+                    client.sendComment("keep-alive");
                 }
-                String action = request == null ? null : request.action();
-                int historySize = historySize(request);
-                int actionLength = safeLength(action);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            logger.info("Story stream resume done requestId={} streamId={} events={}", requestId, stream.id, replayed);
+            client.close();
+        }
+    }
 
-                logger.info("Story stream request received requestId={} ip={} history={} actionLength={}",
-                    requestId, client.ctx().ip(), historySize, actionLength);
+    private static void send(SseClient client, String requestId, String event, Object data) {
+        send(client, null, requestId, event, data);
+    }
 
-                if (action == null || action.isBlank()) {
-                    logger.warn("Story stream request missing action requestId={} ip={}", requestId, client.ctx().ip());
-                    client.sendEvent("error", errorResponse("INVALID_REQUEST", "action is required", requestId));
-                    client.close();
-                    return;
-                }
+    /**
+     * Send one SSE event, buffered in {@code stream} (if any) under a resumable event id.
+     */
+    private static void send(
+        SseClient client,
+        ResumableStreams.Stream stream,
+        String requestId,
+        String event,
+        Object data
+    ) {
+        if (stream == null) {
+            sendRaw(client, requestId, event, data, null);
+            return;
+        }
+        String json = client.ctx().jsonMapper().toJsonString(data, data.getClass());
+        sendRaw(client, requestId, event, json, stream.append(event, json));
+    }
 
-                try {
-                    StoryStreamHandler.StreamResult result = streamHandler.streamTurn(request, delta -> {
-                        if (delta == null || delta.isEmpty()) {
-                            return;
-                        }
-                        client.sendEvent("delta", new Dtos.StreamDelta(delta));
-                    });
-                    client.sendEvent("final_text", new Dtos.StoryResponse(result.assistant()));
-
-                    try {
-                        Dtos.Image image = streamHandler.generateImage(result.imagePrompt());
-                        client.sendEvent("image", new Dtos.StreamImage(image));
-                    } catch (UpstreamException e) {
-                        logger.warn("Story image request upstream failure requestId={} code={} status={} message={}",
-                            requestId, e.code(), e.status(), e.getMessage());
-                        client.sendEvent("image_error",
-                            errorResponse(e.code(), "Illustration konnte nicht geladen werden.", requestId));
-                    } catch (Exception e) {
-                        logger.error("Story image request unexpected failure requestId={}", requestId, e);
-                        client.sendEvent("image_error",
-                            errorResponse("INTERNAL_ERROR", "Illustration konnte nicht geladen werden.", requestId));
-                    }
-                } catch (UpstreamException e) {
-                    logger.warn("Story stream request upstream failure requestId={} code={} status={} message={}",
-                        requestId, e.code(), e.status(), e.getMessage());
-                    client.sendEvent("error", errorResponse(e.code(), "Upstream error: " + e.getMessage(), requestId));
-                } catch (Exception e) {
-                    logger.error("Story stream request unexpected failure requestId={}", requestId, e);
-                    client.sendEvent("error", errorResponse("INTERNAL_ERROR", "Unexpected server error", requestId));
-                } finally {
-                    client.close();
-                }
-            }));
+    /**
+     * Send one SSE event, traced as an {@code sse.flush} span and a JFR {@link SseFlushEvent}
+     * (the write blocks on a slow client). Strings are sent as is.
+     */
+    private static void sendRaw(SseClient client, String requestId, String event, Object data, String id) {
+        SseFlushEvent flushEvent = new SseFlushEvent();
+        flushEvent.begin();
+        try (Span span = Tracing.start("sse.flush")) {
+            span.attribute("event", event);
+            if (id == null) {
+                client.sendEvent(event, data);
+            } else {
+                client.sendEvent(event, data, id);
+            }
+        } finally {
+            if (flushEvent.shouldCommit()) {
+                flushEvent.event = event;
+                flushEvent.requestId = requestId;
+                flushEvent.commit();
+            }
+        }
+    }
+
+    private static StorySessionStore.Resolved resolveSession(StorySessionStore sessions, Dtos.StoryRequest request) {
+        if (sessions != null) {
+            return sessions.resolve(request);
+        }
+        boolean sessionOnly = request.session() != null && request.session().id() != null
+            && (request.conversationHistory() == null || request.conversationHistory().isEmpty());
+        if (sessionOnly) {
+            throw new StorySessionException("SESSION_NOT_FOUND", 409, "Server-side sessions are disabled");
         }
+        return new StorySessionStore.Resolved(null, request);
     }
 
     private static int historySize(Dtos.StoryRequest request) {
@@ -0,0 +1,147 @@
+package com.example.hpadventure.api;
+
+import com.example.hpadventure.services.SummaryBatches;
+import com.example.hpadventure.services.UpstreamException;
+import com.example.hpadventure.usage.Usage;
+import com.example.hpadventure.usage.UsageLedger;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+public final class SummaryRoutes {
+    private static final Logger logger = LoggerFactory.getLogger(SummaryRoutes.class);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final Duration KEEP_ALIVE = Duration.ofSeconds(15);
+    private static final byte[] NEWLINE = {'\n'};
+
+    private SummaryRoutes() {
+    }
+
+    /**
+     * {@code POST /api/summaries/batch} with a {@link Dtos.SummaryBatchRequest}: starts a summary batch job
+     * and streams it as NDJSON: the job ({@link Dtos.SummaryBatchJob}, running), one
+     * {@link Dtos.SummaryBatchResult} per history as soon as it is summarised, then the job again once it
+     * is done. Blank lines are keep-alives. The job carries on if the client disconnects.
+     *
+     * {@code GET /api/summaries/batch/{id}?after=N}: the same stream for a running or finished job,
+     * resuming after result {@code seq} N (default 0); 404 once the job is unknown or expired.
+     *
+     * @param usageLedger accounts the summaries' token usage to the authenticated user, or null
+     */
+    public static void register(Javalin app, SummaryBatches batches, UsageLedger usageLedger) {
+        app.post("/api/summaries/batch", ctx -> {
+            String requestId = RequestIds.of(ctx);
+            try (Usage.Scope usage = usageLedger == null
+                ? Usage.Scope.NOOP
+                : Usage.begin(usageLedger, ctx.attribute(AuthRoutes.USER_ATTRIBUTE))) {
+                startBatch(ctx, requestId, batches);
+            }
+        });
+        app.get("/api/summaries/batch/{id}", ctx -> resumeBatch(ctx, RequestIds.of(ctx), batches));
+    }
+
+    private static void startBatch(Context ctx, String requestId, SummaryBatches batches) throws InterruptedException {
+        Dtos.SummaryBatchRequest request;
+        try {
+            request = ctx.bodyAsClass(Dtos.SummaryBatchRequest.class);
+        } catch (Exception e) {
+            logger.warn("Summary batch request invalid body requestId={} ip={}", requestId, ctx.ip(), e);
+            ctx.status(400).json(errorResponse("INVALID_REQUEST", "Invalid JSON body", requestId));
+            return;
+        }
+        List<Dtos.SummaryBatchItem> items = request == null ? null : request.items();
+        if (items == null || items.isEmpty()) {
+            ctx.status(400).json(errorResponse("INVALID_REQUEST", "items are required", requestId));
+            return;
+        }
+        if (items.size() > batches.maxItems()) {
+            ctx.status(400).json(errorResponse("INVALID_REQUEST",
+                "At most " + batches.maxItems() + " items per batch", requestId));
+            return;
+        }
+
+        SummaryBatches.Job job;
+        try {
+            job = batches.submit(items);
+        } catch (UpstreamException e) {
+            logger.warn("Summary batch request rejected requestId={} code={}", requestId, e.code());
+            ctx.status(e.status()).json(errorResponse(e.code(), e.getMessage(), requestId));
+            return;
+        }
+        logger.info("Summary batch request started requestId={} ip={} jobId={} items={}",
+            requestId, ctx.ip(), job.id(), items.size());
+        streamJob(ctx, requestId, job, 0);
+    }
+
+    private static void resumeBatch(Context ctx, String requestId, SummaryBatches batches)
+        throws InterruptedException {
+        int after = 0;
+        String afterParam = ctx.queryParam("after");
+        if (afterParam != null) {
+            try {
+                after = Math.max(0, Integer.parseInt(afterParam.trim()));
+            } catch (NumberFormatException e) {
+                ctx.status(400).json(errorResponse("INVALID_REQUEST", "after must be a number", requestId));
+                return;
+            }
+        }
+        SummaryBatches.Job job = batches.get(ctx.pathParam("id"));
+        if (job == null) {
+            ctx.status(404).json(errorResponse("JOB_NOT_FOUND", "Summary batch is unknown or expired", requestId));
+            return;
+        }
+        logger.info("Summary batch request resumed requestId={} ip={} jobId={} after={}",
+            requestId, ctx.ip(), job.id(), after);
+        streamJob(ctx, requestId, job, after);
+    }
+
+    private static void streamJob(Context ctx, String requestId, SummaryBatches.Job job, int after)
+        throws InterruptedException {
+        ctx.status(200);
+        ctx.contentType(NDJSON);
+        ctx.header("Cache-Control", "no-cache");
+        int seq = after;
+        try {
+            OutputStream out = ctx.outputStream();
+            writeLine(ctx, out, job.snapshot());
+            while (true) {
+                // Once a job is done no results follow, so an empty wait after that means the end
+                boolean done = job.isDone();
+                List<Dtos.SummaryBatchResult> results = job.resultsAfter(seq, KEEP_ALIVE);
+                for (Dtos.SummaryBatchResult result : results) {
+                    writeLine(ctx, out, result);
+                    seq = result.seq();
+                }
+                if (results.isEmpty() && done) {
+                    break;
+                }
+                if (results.isEmpty() && !job.isDone()) {
+                    out.write(NEWLINE);
+                    out.flush();
+                }
+            }
+            writeLine(ctx, out, job.snapshot());
+        } catch (IOException e) {
+            // The job carries on; the client can resume from the last seq it received
+            logger.info("Summary batch client gone requestId={} jobId={} seq={}", requestId, job.id(), seq);
+        }
+    }
+
+    private static void writeLine(Context ctx, OutputStream out, Object value) throws IOException {
+        String json = ctx.jsonMapper().toJsonString(value, value.getClass());
+        out.write(json.getBytes(StandardCharsets.UTF_8));
+        out.write(NEWLINE);
+        out.flush();
+    }
+
+    private static Dtos.ErrorResponse errorResponse(String code, String message, String requestId) {
+        return new Dtos.ErrorResponse(new Dtos.ErrorResponse.Error(code, message, requestId));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.hpadventure.api;
+
+import com.example.hpadventure.tracing.FinishedTrace;
+import com.example.hpadventure.tracing.RecentTraces;
+import io.javalin.Javalin;
+
+public final class TraceRoutes {
+    private static final int DEFAULT_LIMIT = 10;
+
+    private TraceRoutes() {
+    }
+
+    /**
+     * {@code GET /debug/traces/recent?limit=N}: the slowest retained traces as text waterfalls.
+     */
+    public static void register(Javalin app, RecentTraces recentTraces) {
+        app.get("/debug/traces/recent", ctx -> {
+            int limit = DEFAULT_LIMIT;
+            String limitParam = ctx.queryParam("limit");
+            if (limitParam != null) {
+                try {
+                    limit = Math.max(1, Integer.parseInt(limitParam.trim()));
+                } catch (NumberFormatException e) {
+                    ctx.status(400).result("limit must be a number");
+                    return;
+                }
+            }
+            StringBuilder out = new StringBuilder();
+            for (FinishedTrace trace : recentTraces.slowest(limit)) {
+                out.append(RecentTraces.waterfall(trace)).append('\n');
+            }
+            ctx.contentType("text/plain; charset=utf-8").result(out.toString());
+        });
+    }
+}
@@ -2,14 +2,17 @@ package com.example.hpadventure.api;
 
 import com.example.hpadventure.services.TtsHandler;
 import com.example.hpadventure.services.UpstreamException;
+import com.example.hpadventure.tracing.Span;
+import com.example.hpadventure.tracing.Tracer;
+import com.example.hpadventure.tracing.Tracing;
 import io.javalin.Javalin;
+import io.javalin.http.Context;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.UUID;
 
 public final class TtsRoutes {
     private static final Logger logger = LoggerFactory.getLogger(TtsRoutes.class);
@@ -18,53 +21,65 @@ public final class TtsRoutes {
     }
 
     public static void register(Javalin app, TtsHandler ttsHandler) {
+        register(app, ttsHandler, Tracer.NOOP);
+    }
+
+    public static void register(Javalin app, TtsHandler ttsHandler, Tracer tracer) {
         app.post("/api/tts", ctx -> {
-            String requestId = UUID.randomUUID().toString();
-            ctx.header("X-Request-Id", requestId);
-
-            Dtos.TtsRequest request;
-            try {
-                request = ctx.bodyAsClass(Dtos.TtsRequest.class);
-            } catch (Exception e) {
-                logger.warn("TTS request invalid body requestId={} ip={}", requestId, ctx.ip(), e);
-                ctx.status(400).json(errorResponse("INVALID_REQUEST", "Invalid JSON body", requestId));
-                return;
+            String requestId = RequestIds.of(ctx);
+            try (Span span = tracer.startTrace("tts.request")) {
+                span.attribute("requestId", requestId).attribute("route", "/api/tts");
+                handleTts(ctx, requestId, ttsHandler);
+                span.attribute("http.status", ctx.statusCode());
             }
+        });
+    }
 
-            String text = request == null ? null : request.text();
-            int textLength = safeLength(text);
-            logger.info("TTS request received requestId={} ip={} textLength={}", requestId, ctx.ip(), textLength);
+    private static void handleTts(Context ctx, String requestId, TtsHandler ttsHandler) {
+        Dtos.TtsRequest request;
+        try {
+            request = ctx.bodyAsClass(Dtos.TtsRequest.class);
+        } catch (Exception e) {
+            logger.warn("TTS request invalid body requestId={} ip={}", requestId, ctx.ip(), e);
+            ctx.status(400).json(errorResponse("INVALID_REQUEST", "Invalid JSON body", requestId));
+            return;
+        }
 
-            if (text == null || text.isBlank()) {
-                logger.warn("TTS request missing text requestId={} ip={}", requestId, ctx.ip());
-                ctx.status(400).json(errorResponse("INVALID_REQUEST", "text is required", requestId));
-                return;
-            }
+        String text = request == null ? null : request.text();
+        int textLength = safeLength(text);
+        logger.info("TTS request received requestId={} ip={} textLength={}", requestId, ctx.ip(), textLength);
 
-            try {
-                ctx.contentType("audio/mpeg");
-                ctx.status(200);
-                long startedAt = System.nanoTime();
-                CountingOutputStream outputStream = new CountingOutputStream(ctx.outputStream());
-                ttsHandler.stream(text, outputStream);
-                outputStream.flush();
-                long durationMs = (System.nanoTime() - startedAt) / 1_000_000;
-                logger.info("TTS request completed requestId={} ip={} bytes={} durationMs={}",
-                    requestId, ctx.ip(), outputStream.bytesWritten(), durationMs);
-            } catch (UpstreamException e) {
-                logger.warn("TTS request upstream failure requestId={} code={} status={} message={}",
-                    requestId, e.code(), e.status(), e.getMessage());
-                if (!ctx.res().isCommitted()) {
-                    int status = e.status() >= 400 ? e.status() : 502;
-                    ctx.status(status).json(errorResponse(e.code(), "Upstream error: " + e.getMessage(), requestId));
-                }
-            } catch (Exception e) {
-                logger.error("TTS request unexpected failure requestId={}", requestId, e);
-                if (!ctx.res().isCommitted()) {
-                    ctx.status(500).json(errorResponse("INTERNAL_ERROR", "Unexpected server error", requestId));
-                }
+        if (text == null || text.isBlank()) {
+            logger.warn("TTS request missing text requestId={} ip={}", requestId, ctx.ip());
+            ctx.status(400).json(errorResponse("INVALID_REQUEST", "text is required", requestId));
+            return;
+        }
+
+        try {
+            ctx.contentType("audio/mpeg");
+            ctx.status(200);
+            long startedAt = System.nanoTime();
+            CountingOutputStream outputStream = new CountingOutputStream(ctx.outputStream());
+            ttsHandler.stream(text, outputStream);
+            outputStream.flush();
+            long durationMs = (System.nanoTime() - startedAt) / 1_000_000;
+            logger.info("TTS request completed requestId={} ip={} bytes={} durationMs={}",
+                requestId, ctx.ip(), outputStream.bytesWritten(), durationMs);
+        } catch (UpstreamException e) {
+            logger.warn("TTS request upstream failure requestId={} code={} status={} message={}",
+                requestId, e.code(), e.status(), e.getMessage());
+            Tracing.current().error(e);
+            if (!ctx.res().isCommitted()) {
+                int status = e.status() >= 400 ? e.status() : 502;
+                ctx.status(status).json(errorResponse(e.code(), "Upstream error: " + e.getMessage(), requestId));
             }
-        });
+        } catch (Exception e) {
+            logger.error("TTS request unexpected failure requestId={}", requestId, e);
+            Tracing.current().error(e);
+            if (!ctx.res().isCommitted()) {
+                ctx.status(500).json(errorResponse("INTERNAL_ERROR", "Unexpected server error", requestId));
+            }
+        }
     }
 
     private static int safeLength(String value) {
@@ -0,0 +1,17 @@
+package com.example.hpadventure.api;
+
+import com.example.hpadventure.usage.UsageLedger;
+import io.javalin.Javalin;
+
+public final class UsageRoutes {
+    private UsageRoutes() {
+    }
+
+    /**
+     * {@code GET /api/usage}: upstream token and cost totals since startup, overall, per call type,
+     * per user and per provider/model/call type/user.
+     */
+    public static void register(Javalin app, UsageLedger usageLedger) {
+        app.get("/api/usage", ctx -> ctx.json(usageLedger.summary()));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.hpadventure.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * At most one on-demand flight recording, bounded in duration and size, so it can be started on a
+ * production server without filling the disk. The built-in settings include allocation and lock
+ * profiling; the application events ({@code hpadventure.*}) are enabled in either. The initial
+ * environment and system properties are never recorded, since they hold the API keys and passwords.
+ */
+public final class FlightRecordings {
+    public static final Duration MAX_DURATION = Duration.ofMinutes(10);
+    static final long MAX_SIZE_BYTES = 256L * 1024 * 1024;
+    static final Set<String> SETTINGS = Set.of("default", "profile");
+    static final Set<String> SECRET_EVENTS = Set.of("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty");
+
+    private Recording recording;
+    private String settings;
+
+    /**
+     * @param duration stops the recording automatically; capped at {@link #MAX_DURATION}
+     * @param settings {@code default} (about 1% overhead) or {@code profile} (more detail, about 2%)
+     * @throws IllegalStateException    if a recording is already running
+     * @throws IllegalArgumentException for unknown settings or a non-positive duration
+     */
+    public synchronized Status start(Duration duration, String settings) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        if (!SETTINGS.contains(settings)) {
+            throw new IllegalArgumentException("settings must be one of " + SETTINGS);
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        closeQuietly();
+
+        Recording started = new Recording(withoutSecrets(Configuration.getConfiguration(settings)));
+        started.setName("hp-adventure-on-demand");
+        started.setToDisk(true);
+        started.setDuration(duration.compareTo(MAX_DURATION) > 0 ? MAX_DURATION : duration);
+        started.setMaxSize(MAX_SIZE_BYTES);
+        started.enable(StoryTurnEvent.class);
+        started.enable(UpstreamCallEvent.class);
+        started.enable(SseFlushEvent.class);
+        started.enable(ImagePayloadEvent.class);
+        started.start();
+        this.recording = started;
+        this.settings = settings;
+        return status();
+    }
+
+    /**
+     * Stop the recording (if still running) and dump it to a temporary file the caller must delete.
+     *
+     * @throws IllegalStateException if no recording was started
+     */
+    public synchronized Path stop() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording was started");
+        }
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            Path file = Files.createTempFile("hp-adventure-", ".jfr");
+            recording.dump(file);
+            return file;
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    public synchronized Status status() {
+        if (recording == null) {
+            return new Status("NONE", null, null, null, 0);
+        }
+        return new Status(
+            recording.getState().name(),
+            recording.getStartTime(),
+            recording.getDuration(),
+            settings,
+            recording.getSize()
+        );
+    }
+
+    static Map<String, String> withoutSecrets(Configuration configuration) {
+        Map<String, String> values = new HashMap<>(configuration.getSettings());
+        for (String event : SECRET_EVENTS) {
+            values.put(event + "#enabled", "false");
+        }
+        return values;
+    }
+
+    private void closeQuietly() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            settings = null;
+        }
+    }
+
+    public record Status(String state, Instant startedAt, Duration duration, String settings, long sizeBytes) {
+    }
+}
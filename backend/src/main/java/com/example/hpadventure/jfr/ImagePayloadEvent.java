@@ -0,0 +1,24 @@
+package com.example.hpadventure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One generated illustration; its base64 payload is the largest allocation of a story turn.
+ */
+@Name("hpadventure.ImagePayload")
+@Label("Image Payload")
+@Category({"HP Adventure", "Image"})
+@StackTrace(false)
+public final class ImagePayloadEvent extends Event {
+    @Label("MIME Type")
+    public String mimeType;
+
+    @Label("Base64 Size")
+    @DataAmount
+    public long base64Bytes;
+}
@@ -0,0 +1,22 @@
+package com.example.hpadventure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One server-sent event written to a story stream client; long ones point at slow clients.
+ */
+@Name("hpadventure.SseFlush")
+@Label("SSE Flush")
+@Category({"HP Adventure", "Story"})
+@StackTrace(false)
+public final class SseFlushEvent extends Event {
+    @Label("Event")
+    public String event;
+
+    @Label("Request Id")
+    public String requestId;
+}
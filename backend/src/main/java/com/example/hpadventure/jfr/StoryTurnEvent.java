@@ -0,0 +1,40 @@
+package com.example.hpadventure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One story turn, from building the prompt to the parsed assistant message.
+ */
+@Name("hpadventure.StoryTurn")
+@Label("Story Turn")
+@Category({"HP Adventure", "Story"})
+@StackTrace(false)
+public final class StoryTurnEvent extends Event {
+    @Label("History Size")
+    @Description("Messages in the conversation history sent with the request")
+    public int historySize;
+
+    @Label("Arc Step")
+    public int arcStep;
+
+    @Label("Streamed")
+    public boolean streamed;
+
+    @Label("Time To First Token")
+    @Description("From the start of the turn to the first text delta; -1 when not streamed or no text arrived")
+    @Timespan(Timespan.NANOSECONDS)
+    public long firstTokenNanos = -1;
+
+    @Label("Story Characters")
+    public int storyChars;
+
+    @Label("Completed")
+    @Description("The turn ended the adventure")
+    public boolean completed;
+}
@@ -0,0 +1,42 @@
+package com.example.hpadventure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One HTTP attempt against an upstream provider, until its response body is consumed or closed.
+ */
+@Name("hpadventure.UpstreamCall")
+@Label("Upstream Call")
+@Category({"HP Adventure", "Upstream"})
+@StackTrace(false)
+public final class UpstreamCallEvent extends Event {
+    @Label("Provider")
+    public String provider;
+
+    @Label("Model")
+    public String model;
+
+    @Label("Host")
+    public String host;
+
+    @Label("Status")
+    @Description("HTTP status, or -1 if the call failed before a response")
+    public int status = -1;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+
+    @Label("Retries")
+    @Description("Earlier attempts of the same provider call")
+    public int retries;
+
+    @Label("Error")
+    public String error;
+}
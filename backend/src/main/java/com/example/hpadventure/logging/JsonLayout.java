@@ -0,0 +1,78 @@
+package com.example.hpadventure.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.LayoutBase;
+import org.slf4j.event.KeyValuePair;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One JSON object per line: timestamp, level, logger, thread, message, then every MDC entry
+ * (e.g. {@code requestId}) and SLF4J key/value pair as a top-level field, and the stack trace if any.
+ */
+final class JsonLayout extends LayoutBase<ILoggingEvent> {
+    @Override
+    public String doLayout(ILoggingEvent event) {
+        StringBuilder out = new StringBuilder(256);
+        out.append("{\"ts\":\"").append(Instant.ofEpochMilli(event.getTimeStamp())).append('"');
+        field(out, "level", String.valueOf(event.getLevel()));
+        field(out, "logger", event.getLoggerName());
+        field(out, "thread", event.getThreadName());
+        field(out, "msg", event.getFormattedMessage());
+
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null) {
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                field(out, entry.getKey(), entry.getValue());
+            }
+        }
+        List<KeyValuePair> keyValuePairs = event.getKeyValuePairs();
+        if (keyValuePairs != null) {
+            for (KeyValuePair pair : keyValuePairs) {
+                field(out, pair.key, String.valueOf(pair.value));
+            }
+        }
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            field(out, "error", ThrowableProxyUtil.asString(throwable));
+        }
+        return out.append("}\n").toString();
+    }
+
+    private static void field(StringBuilder out, String name, String value) {
+        out.append(',');
+        quote(out, name);
+        out.append(':');
+        if (value == null) {
+            out.append("null");
+        } else {
+            quote(out, value);
+        }
+    }
+
+    static void quote(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.hpadventure.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.Configurator;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback setup, registered in {@code META-INF/services} so no XML is parsed at startup.
+ *
+ * Request threads only enqueue events: a bounded queue is drained by a single writer thread that
+ * prints JSON lines ({@code LOG_FORMAT=text} for a human-readable pattern). When the queue runs low,
+ * INFO and below are dropped first; when it is full, everything is dropped rather than blocking.
+ * High-volume INFO categories are sampled by {@link SamplingTurboFilter} before an event is even built.
+ *
+ * Environment: {@code LOG_FORMAT}, {@code LOG_LEVEL}, {@code LOG_QUEUE_SIZE}, {@code LOG_SAMPLE_RATES}.
+ */
+public final class LoggingConfigurator extends ContextAwareBase implements Configurator {
+    /** The per-request auth access line is by far the most frequent INFO log; other auth events are kept. */
+    static final String DEFAULT_SAMPLE_RATES = "com.example.hpadventure.api.AuthRoutes.access=0.1";
+    private static final int DEFAULT_QUEUE_SIZE = 8192;
+    private static final LongAdder DROPPED = new LongAdder();
+
+    @Override
+    public ExecutionStatus configure(LoggerContext context) {
+        ConsoleAppender<ILoggingEvent> console = new ConsoleAppender<>();
+        console.setContext(context);
+        console.setName("console");
+        console.setEncoder(encoder(context, System.getenv().getOrDefault("LOG_FORMAT", "json")));
+        console.start();
+
+        int queueSize = positiveIntOrDefault(System.getenv("LOG_QUEUE_SIZE"), DEFAULT_QUEUE_SIZE);
+        CountingAsyncAppender async = new CountingAsyncAppender();
+        async.setContext(context);
+        async.setName("async");
+        async.setQueueSize(queueSize);
+        async.setDiscardingThreshold(queueSize / 5);
+        async.setNeverBlock(true);
+        async.setIncludeCallerData(false);
+        async.addAppender(console);
+        async.start();
+
+        SamplingTurboFilter sampling = new SamplingTurboFilter(
+            SamplingTurboFilter.parseRates(System.getenv().getOrDefault("LOG_SAMPLE_RATES", DEFAULT_SAMPLE_RATES)));
+        sampling.setContext(context);
+        sampling.start();
+        context.addTurboFilter(sampling);
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.toLevel(System.getenv("LOG_LEVEL"), Level.INFO));
+        root.addAppender(async);
+
+        // Drain the queue on exit
+        Runtime.getRuntime().addShutdownHook(new Thread(context::stop, "logging-shutdown"));
+        return ExecutionStatus.DO_NOT_INVOKE_NEXT_IF_ANY;
+    }
+
+    /**
+     * @return log events dropped because the queue was (nearly) full, since startup
+     */
+    public static long droppedEvents() {
+        return DROPPED.sum();
+    }
+
+    private static Encoder<ILoggingEvent> encoder(LoggerContext context, String format) {
+        if ("text".equalsIgnoreCase(format)) {
+            PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+            encoder.setContext(context);
+            encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{20} - %msg%n");
+            encoder.start();
+            return encoder;
+        }
+        JsonLayout layout = new JsonLayout();
+        layout.setContext(context);
+        layout.start();
+        LayoutWrappingEncoder<ILoggingEvent> encoder = new LayoutWrappingEncoder<>();
+        encoder.setContext(context);
+        encoder.setLayout(layout);
+        encoder.setCharset(StandardCharsets.UTF_8);
+        encoder.start();
+        return encoder;
+    }
+
+    private static int positiveIntOrDefault(String value, int defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static final class CountingAsyncAppender extends AsyncAppender {
+        @Override
+        protected void append(ILoggingEvent event) {
+            int remaining = getRemainingCapacity();
+            if (remaining == 0 || (remaining < getDiscardingThreshold() && isDiscardable(event))) {
+                DROPPED.increment();
+            }
+            super.append(event);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.hpadventure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps only a fraction of the INFO and lower events of configured logger categories (longest
+ * matching logger-name prefix wins). WARN and ERROR are never sampled.
+ */
+final class SamplingTurboFilter extends TurboFilter {
+    private final Map<String, Double> rates;
+    private final Map<String, Double> rateByLogger = new ConcurrentHashMap<>();
+
+    SamplingTurboFilter(Map<String, Double> rates) {
+        this.rates = Map.copyOf(rates);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isXxxEnabled() checks, which must not be sampled
+        if (format == null || level == null || level.isGreaterOrEqual(Level.WARN) || rates.isEmpty()) {
+            return FilterReply.NEUTRAL;
+        }
+        double rate = rateByLogger.computeIfAbsent(logger.getName(), this::rateFor);
+        if (rate >= 1.0) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private double rateFor(String loggerName) {
+        String bestPrefix = null;
+        for (String prefix : rates.keySet()) {
+            boolean matches = loggerName.equals(prefix) || loggerName.startsWith(prefix + ".");
+            if (matches && (bestPrefix == null || prefix.length() > bestPrefix.length())) {
+                bestPrefix = prefix;
+            }
+        }
+        return bestPrefix == null ? 1.0 : rates.get(bestPrefix);
+    }
+
+    /**
+     * Parse {@code "logger.prefix=0.1,other.prefix=0.5"}; malformed entries are ignored.
+     */
+    static Map<String, Double> parseRates(String spec) {
+        Map<String, Double> rates = new LinkedHashMap<>();
+        if (spec == null) {
+            return rates;
+        }
+        for (String entry : spec.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                double rate = Double.parseDouble(entry.substring(separator + 1).trim());
+                rates.put(entry.substring(0, separator).trim(), Math.max(0.0, Math.min(1.0, rate)));
+            } catch (NumberFormatException e) {
+                // ignore this entry
+            }
+        }
+        return rates;
+    }
+}
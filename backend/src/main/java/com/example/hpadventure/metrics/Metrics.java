@@ -0,0 +1,91 @@
+package com.example.hpadventure.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process registry of counters and gauges, rendered in the Prometheus text format by
+ * {@link #scrape()}. Counters are {@link LongAdder}s, so incrementing them on hot paths is cheap.
+ */
+public final class Metrics {
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param labels alternating label names and values, e.g. {@code "provider", "openrouter"}
+     * @return the counter for this name and label set, created on first use
+     */
+    public LongAdder counter(String name, String help, String... labels) {
+        return family(name, help, "counter").series
+            .computeIfAbsent(labelString(labels), key -> Series.counter())
+            .adder;
+    }
+
+    /**
+     * Register a gauge read at scrape time. A later registration with the same labels replaces it.
+     */
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, "gauge").series.put(labelString(labels), new Series(null, value));
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            Family family = entry.getValue();
+            out.append("# HELP ").append(entry.getKey()).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(entry.getKey()).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Series> series : family.series.entrySet()) {
+                out.append(entry.getKey()).append(series.getKey()).append(' ')
+                    .append(series.getValue().value.getAsLong()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static String labelString(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            out.append(labels[i]).append("=\"")
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                .append('"');
+        }
+        return out.append('}').toString();
+    }
+
+    private static final class Family {
+        private final String help;
+        private final String type;
+        private final Map<String, Series> series = new ConcurrentSkipListMap<>();
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private record Series(LongAdder adder, LongSupplier value) {
+        private static Series counter() {
+            LongAdder adder = new LongAdder();
+            return new Series(adder, adder::sum);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.hpadventure.metrics;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Gauges for the process itself: resident memory, heap, threads and per-collector GC counts and time,
+ * so a load test (or a dashboard) can see what a traffic level costs the container.
+ */
+public final class ProcessMetrics {
+    private static final Path STATUS = Path.of("/proc/self/status");
+
+    private ProcessMetrics() {
+    }
+
+    public static void register(Metrics metrics) {
+        metrics.gauge("process_resident_memory_bytes", "Resident set size of the process, 0 where /proc is missing",
+            ProcessMetrics::residentBytes);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        metrics.gauge("jvm_heap_used_bytes", "Heap currently in use", () -> memory.getHeapMemoryUsage().getUsed());
+        metrics.gauge("jvm_heap_committed_bytes", "Heap reserved from the operating system",
+            () -> memory.getHeapMemoryUsage().getCommitted());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        metrics.gauge("jvm_threads_live", "Live platform threads", threads::getThreadCount);
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            metrics.gauge("jvm_gc_collections", "Collections since start, by collector",
+                gc::getCollectionCount, "gc", gc.getName());
+            metrics.gauge("jvm_gc_time_ms", "Time spent collecting since start, by collector",
+                gc::getCollectionTime, "gc", gc.getName());
+        }
+    }
+
+    /**
+     * {@code VmRSS} from {@code /proc/self/status}, in bytes; 0 when it cannot be read.
+     */
+    static long residentBytes() {
+        try {
+            List<String> lines = Files.readAllLines(STATUS);
+            for (String line : lines) {
+                if (line.startsWith("VmRSS:")) {
+                    String kilobytes = line.substring("VmRSS:".length()).replace("kB", "").trim();
+                    return Long.parseLong(kilobytes) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.hpadventure.parsing;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads {@code [NEUER GEGENSTAND: Name | Beschreibung]} markers into items. Names are normalised (whitespace,
+ * quotes, trailing punctuation) and interned case-insensitively, so "der Tarnumhang" and "Der Tarnumhang."
+ * from different turns come out as the same string and clients can dedup an inventory with plain equality.
+ */
+public final class ItemParser {
+    private static final String PREFIX = "NEUER GEGENSTAND:";
+    private static final Pattern ITEM_PATTERN = Pattern.compile("\\[NEUER GEGENSTAND:\\s*([^\\]]+)\\]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String TRIM_CHARS = ".,;:!?\"'„“”‚‘’«»*_";
+    private static final int MAX_INTERNED = 4096;
+
+    private final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>();
+
+    public List<Item> parse(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        List<Item> items = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        Matcher matcher = ITEM_PATTERN.matcher(text);
+        while (matcher.find()) {
+            Item item = parseContent(matcher.group(1));
+            if (item != null && seen.add(key(item.name()))) {
+                items.add(item);
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * The item in one marker's content as seen between the brackets, or null if it is not an item marker.
+     */
+    public Item parseMarker(String content) {
+        if (content == null) {
+            return null;
+        }
+        String trimmed = content.strip();
+        if (!trimmed.startsWith(PREFIX)) {
+            return null;
+        }
+        return parseContent(trimmed.substring(PREFIX.length()));
+    }
+
+    private Item parseContent(String content) {
+        int separator = content.indexOf('|');
+        String name = normalize(separator >= 0 ? content.substring(0, separator) : content);
+        if (name.isEmpty()) {
+            return null;
+        }
+        String description = separator >= 0 ? collapse(content.substring(separator + 1)) : "";
+        return new Item(intern(name), description.isEmpty() ? null : description);
+    }
+
+    private String intern(String name) {
+        String key = key(name);
+        String canonical = names.get(key);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (names.size() >= MAX_INTERNED) {
+            return name;
+        }
+        canonical = names.putIfAbsent(key, name);
+        return canonical != null ? canonical : name;
+    }
+
+    private static String normalize(String name) {
+        String collapsed = collapse(name);
+        int start = 0;
+        int end = collapsed.length();
+        while (start < end && TRIM_CHARS.indexOf(collapsed.charAt(start)) >= 0) {
+            start++;
+        }
+        while (end > start && TRIM_CHARS.indexOf(collapsed.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String trimmed = collapsed.substring(start, end).strip();
+        if (trimmed.isEmpty()) {
+            return trimmed;
+        }
+        return Character.toUpperCase(trimmed.charAt(0)) + trimmed.substring(1);
+    }
+
+    private static String collapse(String text) {
+        return WHITESPACE.matcher(text.strip()).replaceAll(" ");
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param description null when the marker has none
+     */
+    public record Item(String name, String description) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.hpadventure.parsing;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public final class StreamMarkerFilter {
     private static final List<String> MARKER_PREFIXES = List.of(
@@ -11,8 +12,21 @@ public final class StreamMarkerFilter {
     );
 
     private final StringBuilder buffer = new StringBuilder();
+    private final Consumer<String> onMarker;
     private boolean inCandidate = false;
 
+    public StreamMarkerFilter() {
+        this(marker -> {
+        });
+    }
+
+    /**
+     * @param onMarker called with the content of each complete marker (without brackets) as it is filtered out
+     */
+    public StreamMarkerFilter(Consumer<String> onMarker) {
+        this.onMarker = onMarker;
+    }
+
     public String apply(String delta) {
         if (delta == null || delta.isEmpty()) {
             return "";
@@ -31,6 +45,8 @@ public final class StreamMarkerFilter {
             } else if (current == ']') {
                 if (!isMarkerContent(buffer)) {
                     output.append('[').append(buffer).append(']');
+                } else {
+                    onMarker.accept(buffer.toString());
                 }
                 buffer.setLength(0);
                 inCandidate = false;
@@ -0,0 +1,419 @@
+package com.example.hpadventure.persistence;
+
+import com.example.hpadventure.services.TurnJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durable, append-only journal of story turns and completed adventures, stored locally in
+ * memory-mapped segment files (no external database).
+ *
+ * Appending is a memory copy into the active segment; pages are fsynced in batches by a
+ * background thread every {@code flushInterval}, so a crash can lose at most that window. On
+ * startup all segments are scanned to rebuild the player/adventure index and torn records are
+ * discarded. Compaction rewrites sealed segments without the turns of completed adventures,
+ * which are then represented by their summary record only.
+ *
+ * Compaction scans and copies outside the journal lock, into segments of its own, and takes the
+ * lock only to find the live records and to swap their pointers, so appends on the turn path never
+ * wait for its disk I/O. Moved records end up in newer segments, so file position says nothing
+ * about their order: turns are indexed by their turn number, and of two records for the same turn
+ * (a regenerated turn) the one recorded later wins.
+ */
+public final class AdventureJournal implements TurnJournal, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AdventureJournal.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final TreeMap<Long, JournalSegment> segments = new TreeMap<>();
+    private final Map<String, Map<String, AdventureIndex>> index = new HashMap<>();
+    private final List<JournalSegment> pendingForce = new ArrayList<>();
+    /** Held for a whole compaction, so runs never overlap; never taken while holding {@code this}. */
+    private final Object compactLock = new Object();
+    private final ScheduledExecutorService scheduler;
+    private JournalSegment active;
+    private boolean dirty;
+
+    private AdventureJournal(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adventure-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open (or create) the journal in {@code directory}, recovering existing segments.
+     *
+     * @param flushInterval   how often dirty pages are forced to disk
+     * @param compactInterval how often sealed segments are compacted, or null to compact only on demand
+     */
+    public static AdventureJournal open(Path directory, int segmentBytes, Duration flushInterval,
+                                        Duration compactInterval) throws IOException {
+        Objects.requireNonNull(directory, "directory");
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("segmentBytes must be at least 4096");
+        }
+        Files.createDirectories(directory);
+        AdventureJournal journal = new AdventureJournal(directory, segmentBytes);
+        journal.recover();
+
+        long flushMillis = flushInterval.toMillis();
+        journal.scheduler.scheduleWithFixedDelay(journal::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        if (compactInterval != null) {
+            long compactMillis = compactInterval.toMillis();
+            journal.scheduler.scheduleWithFixedDelay(journal::compactQuietly, compactMillis, compactMillis, TimeUnit.MILLISECONDS);
+        }
+        return journal;
+    }
+
+    @Override
+    public void record(TurnEntry entry) {
+        JournalRecord.Turn turn = new JournalRecord.Turn(
+            entry.playerId(),
+            entry.adventureId(),
+            entry.turn(),
+            entry.recordedAt(),
+            entry.action(),
+            entry.story(),
+            entry.options(),
+            entry.scene(),
+            entry.imageId()
+        );
+        try {
+            synchronized (this) {
+                Pointer pointer = append(JournalRecord.encode(turn));
+                adventure(turn.playerId(), turn.adventureId()).turns.put(turn.turn(),
+                    new Slot(pointer, turn.recordedAt()));
+
+                if (entry.adventure() != null && entry.adventure().completed()) {
+                    JournalRecord.Completed completed = new JournalRecord.Completed(
+                        entry.playerId(),
+                        entry.adventureId(),
+                        entry.turn(),
+                        entry.recordedAt(),
+                        entry.adventure().title(),
+                        entry.adventure().summary(),
+                        entry.adventure().completedAt()
+                    );
+                    AdventureIndex adventure = adventure(completed.playerId(), completed.adventureId());
+                    adventure.complete(new Slot(append(JournalRecord.encode(completed)), completed.recordedAt()),
+                        completed.turns());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Journal append failed: player={} adventure={} error={}",
+                entry.playerId(), entry.adventureId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Turns of an adventure that is still in progress (completed adventures keep only their summary).
+     */
+    public synchronized List<JournalRecord.Turn> turns(String playerId, String adventureId) {
+        AdventureIndex adventure = index.getOrDefault(playerId, Map.of()).get(adventureId);
+        if (adventure == null) {
+            return List.of();
+        }
+        List<JournalRecord.Turn> turns = new ArrayList<>(adventure.turns.size());
+        for (Slot slot : adventure.turns.values()) {
+            turns.add((JournalRecord.Turn) JournalRecord.decode(read(slot.pointer())));
+        }
+        return turns;
+    }
+
+    public synchronized List<JournalRecord.Completed> completedAdventures(String playerId) {
+        List<JournalRecord.Completed> completed = new ArrayList<>();
+        for (AdventureIndex adventure : index.getOrDefault(playerId, Map.of()).values()) {
+            if (adventure.completed != null) {
+                completed.add((JournalRecord.Completed) JournalRecord.decode(read(adventure.completed.pointer())));
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Rewrite every sealed segment that holds turns of completed adventures, keeping only live
+     * records, and delete the old segment files. Moved records are forced to disk before the
+     * segment they came from is deleted.
+     *
+     * @return number of segments reclaimed
+     */
+    public int compact() throws IOException {
+        synchronized (compactLock) {
+            List<JournalSegment> sealed;
+            synchronized (this) {
+                sealed = new ArrayList<>(segments.values());
+                sealed.remove(active);
+            }
+            int reclaimed = 0;
+            JournalSegment target = null;
+            for (JournalSegment segment : sealed) {
+                // Sealed segments never change, so scanning and decoding need no lock
+                List<Moved> records = new ArrayList<>();
+                segment.scan((offset, payload) ->
+                    records.add(new Moved(new Pointer(segment.id(), offset), payload, JournalRecord.decode(payload))));
+                List<Moved> live;
+                synchronized (this) {
+                    live = records.stream().filter(record -> isLive(record.from(), record.record())).toList();
+                }
+                if (live.size() == records.size()) {
+                    continue;
+                }
+
+                List<JournalSegment> written = new ArrayList<>();
+                List<Pointer> targets = new ArrayList<>(live.size());
+                for (Moved record : live) {
+                    int offset = target == null ? -1 : target.append(record.payload());
+                    if (offset < 0) {
+                        target = createCompactionSegment();
+                        offset = target.append(record.payload());
+                    }
+                    if (!written.contains(target)) {
+                        written.add(target);
+                    }
+                    targets.add(new Pointer(target.id(), offset));
+                }
+                for (JournalSegment copy : written) {
+                    copy.force();
+                }
+
+                synchronized (this) {
+                    for (int i = 0; i < live.size(); i++) {
+                        relocate(live.get(i).from(), targets.get(i), live.get(i).record());
+                    }
+                    segments.remove(segment.id());
+                    pendingForce.remove(segment);
+                }
+                segment.delete();
+                reclaimed += 1;
+            }
+            if (reclaimed > 0) {
+                int remaining;
+                synchronized (this) {
+                    remaining = segments.size();
+                }
+                logger.info("Journal compacted: segmentsReclaimed={} segments={}", reclaimed, remaining);
+            }
+            return reclaimed;
+        }
+    }
+
+    /**
+     * Force all dirty segments to disk.
+     */
+    public void flush() {
+        List<JournalSegment> toForce;
+        synchronized (this) {
+            if (!dirty && pendingForce.isEmpty()) {
+                return;
+            }
+            toForce = new ArrayList<>(pendingForce);
+            pendingForce.clear();
+            if (dirty && active != null) {
+                toForce.add(active);
+            }
+            dirty = false;
+        }
+        for (JournalSegment segment : toForce) {
+            try {
+                segment.force();
+            } catch (RuntimeException e) {
+                logger.warn("Journal fsync failed: segment={} error={}", segment.path(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        flush();
+        synchronized (this) {
+            for (JournalSegment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+            active = null;
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+        }
+
+        int records = 0;
+        for (Path file : files) {
+            long id = segmentId(file);
+            JournalSegment segment = JournalSegment.open(file, id, segmentBytes);
+            int[] count = {0};
+            boolean torn = segment.recover((offset, payload) -> {
+                indexRecord(new Pointer(id, offset), payload);
+                count[0] += 1;
+            });
+            if (torn) {
+                logger.warn("Journal recovered from torn write: segment={} validRecords={}", file, count[0]);
+            }
+            records += count[0];
+            segments.put(id, segment);
+            active = segment;
+        }
+        if (active == null) {
+            active = createSegment(1);
+        }
+        logger.info("Journal opened: directory={} segments={} records={}", directory, segments.size(), records);
+    }
+
+    private Pointer append(byte[] payload) throws IOException {
+        if (JournalSegment.HEADER_BYTES + payload.length > segmentBytes) {
+            throw new IOException("Journal record of " + payload.length + " bytes exceeds segment size");
+        }
+        int offset = active.append(payload);
+        if (offset < 0) {
+            pendingForce.add(active);
+            active = createSegment(segments.lastKey() + 1);
+            offset = active.append(payload);
+        }
+        dirty = true;
+        return new Pointer(active.id(), offset);
+    }
+
+    /**
+     * A fresh segment for compaction to copy into; registered now so its id is never reused.
+     */
+    private synchronized JournalSegment createCompactionSegment() throws IOException {
+        return createSegment(segments.lastKey() + 1);
+    }
+
+    private JournalSegment createSegment(long id) throws IOException {
+        Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        JournalSegment segment = JournalSegment.open(path, id, segmentBytes);
+        segment.recover((offset, payload) -> {
+        });
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void indexRecord(Pointer pointer, byte[] payload) {
+        Object record = JournalRecord.decode(payload);
+        if (record instanceof JournalRecord.Turn turn) {
+            AdventureIndex adventure = adventure(turn.playerId(), turn.adventureId());
+            Slot current = adventure.turns.get(turn.turn());
+            boolean superseded = current != null && current.recordedAt().isAfter(turn.recordedAt());
+            if (turn.turn() > adventure.completedTurns && !superseded) {
+                adventure.turns.put(turn.turn(), new Slot(pointer, turn.recordedAt()));
+            }
+        } else if (record instanceof JournalRecord.Completed completed) {
+            AdventureIndex adventure = adventure(completed.playerId(), completed.adventureId());
+            if (adventure.completed == null || !adventure.completed.recordedAt().isAfter(completed.recordedAt())) {
+                adventure.complete(new Slot(pointer, completed.recordedAt()), completed.turns());
+            }
+        }
+    }
+
+    private boolean isLive(Pointer pointer, Object record) {
+        if (record instanceof JournalRecord.Turn turn) {
+            AdventureIndex adventure = index.getOrDefault(turn.playerId(), Map.of()).get(turn.adventureId());
+            Slot slot = adventure == null ? null : adventure.turns.get(turn.turn());
+            return slot != null && pointer.equals(slot.pointer());
+        }
+        if (record instanceof JournalRecord.Completed completed) {
+            AdventureIndex adventure = index.getOrDefault(completed.playerId(), Map.of()).get(completed.adventureId());
+            return adventure != null && adventure.completed != null && pointer.equals(adventure.completed.pointer());
+        }
+        return false;
+    }
+
+    /**
+     * Point the index at the copy, unless the record was superseded while it was being copied.
+     */
+    private void relocate(Pointer from, Pointer to, Object record) {
+        if (!isLive(from, record)) {
+            return;
+        }
+        if (record instanceof JournalRecord.Turn turn) {
+            adventure(turn.playerId(), turn.adventureId()).turns.put(turn.turn(), new Slot(to, turn.recordedAt()));
+        } else if (record instanceof JournalRecord.Completed completed) {
+            adventure(completed.playerId(), completed.adventureId()).completed = new Slot(to, completed.recordedAt());
+        }
+    }
+
+    private byte[] read(Pointer pointer) {
+        JournalSegment segment = segments.get(pointer.segmentId());
+        if (segment == null) {
+            throw new UncheckedIOException(new IOException("Journal segment " + pointer.segmentId() + " is gone"));
+        }
+        return segment.read(pointer.offset());
+    }
+
+    private AdventureIndex adventure(String playerId, String adventureId) {
+        return index
+            .computeIfAbsent(playerId, key -> new LinkedHashMap<>())
+            .computeIfAbsent(adventureId, key -> new AdventureIndex());
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Journal compaction failed: {}", e.getMessage());
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private record Pointer(long segmentId, int offset) {
+    }
+
+    private record Slot(Pointer pointer, Instant recordedAt) {
+    }
+
+    private record Moved(Pointer from, byte[] payload, Object record) {
+    }
+
+    private static final class AdventureIndex {
+        private final TreeMap<Integer, Slot> turns = new TreeMap<>();
+        private Slot completed;
+        private int completedTurns = -1;
+
+        /**
+         * Mark the adventure completed after {@code turns} turns; turns up to that one are dropped.
+         */
+        private void complete(Slot completed, int turns) {
+            this.completed = completed;
+            this.completedTurns = turns;
+            this.turns.headMap(turns, true).clear();
+        }
+    }
+}
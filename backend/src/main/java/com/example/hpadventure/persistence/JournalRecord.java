@@ -0,0 +1,171 @@
+package com.example.hpadventure.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of journal payloads. Strings are written as an int byte length (-1 for null)
+ * followed by UTF-8 bytes; the first byte of every payload is the record type.
+ */
+public final class JournalRecord {
+    static final byte TYPE_TURN = 1;
+    static final byte TYPE_COMPLETED = 2;
+
+    private JournalRecord() {
+    }
+
+    /**
+     * A finished story turn.
+     */
+    public record Turn(
+        String playerId,
+        String adventureId,
+        int turn,
+        Instant recordedAt,
+        String action,
+        String story,
+        List<String> options,
+        String scene,
+        String imageId
+    ) {
+    }
+
+    /**
+     * Summary of a completed adventure; replaces its turns once the journal is compacted.
+     */
+    public record Completed(
+        String playerId,
+        String adventureId,
+        int turns,
+        Instant recordedAt,
+        String title,
+        String summary,
+        String completedAt
+    ) {
+    }
+
+    static byte[] encode(Turn turn) {
+        Writer writer = new Writer();
+        writer.writeByte(TYPE_TURN);
+        writer.writeString(turn.playerId());
+        writer.writeString(turn.adventureId());
+        writer.writeInt(turn.turn());
+        writer.writeLong(turn.recordedAt().toEpochMilli());
+        writer.writeString(turn.action());
+        writer.writeString(turn.story());
+        List<String> options = turn.options() == null ? List.of() : turn.options();
+        writer.writeInt(options.size());
+        for (String option : options) {
+            writer.writeString(option);
+        }
+        writer.writeString(turn.scene());
+        writer.writeString(turn.imageId());
+        return writer.toByteArray();
+    }
+
+    static byte[] encode(Completed completed) {
+        Writer writer = new Writer();
+        writer.writeByte(TYPE_COMPLETED);
+        writer.writeString(completed.playerId());
+        writer.writeString(completed.adventureId());
+        writer.writeInt(completed.turns());
+        writer.writeLong(completed.recordedAt().toEpochMilli());
+        writer.writeString(completed.title());
+        writer.writeString(completed.summary());
+        writer.writeString(completed.completedAt());
+        return writer.toByteArray();
+    }
+
+    /**
+     * @return a {@link Turn} or {@link Completed}
+     * @throws IllegalArgumentException if the payload type is unknown
+     */
+    static Object decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte type = buffer.get();
+        if (type == TYPE_TURN) {
+            String playerId = readString(buffer);
+            String adventureId = readString(buffer);
+            int turn = buffer.getInt();
+            Instant recordedAt = Instant.ofEpochMilli(buffer.getLong());
+            String action = readString(buffer);
+            String story = readString(buffer);
+            int optionCount = buffer.getInt();
+            List<String> options = new ArrayList<>(optionCount);
+            for (int i = 0; i < optionCount; i++) {
+                options.add(readString(buffer));
+            }
+            String scene = readString(buffer);
+            String imageId = readString(buffer);
+            return new Turn(playerId, adventureId, turn, recordedAt, action, story, List.copyOf(options), scene, imageId);
+        }
+        if (type == TYPE_COMPLETED) {
+            String playerId = readString(buffer);
+            String adventureId = readString(buffer);
+            int turns = buffer.getInt();
+            Instant recordedAt = Instant.ofEpochMilli(buffer.getLong());
+            return new Completed(playerId, adventureId, turns, recordedAt,
+                readString(buffer), readString(buffer), readString(buffer));
+        }
+        throw new IllegalArgumentException("Unknown journal record type " + type);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static final class Writer {
+        private ByteBuffer buffer = ByteBuffer.allocate(512);
+
+        private void writeByte(byte value) {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        private void writeInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        private void writeLong(long value) {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+
+        private byte[] toByteArray() {
+            byte[] bytes = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+}
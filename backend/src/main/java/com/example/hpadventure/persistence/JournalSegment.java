@@ -0,0 +1,166 @@
+package com.example.hpadventure.persistence;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * One fixed-size, memory-mapped journal file.
+ *
+ * Records are framed as {@code [int payloadLength][int crc32(payload)][payload]}. The file is
+ * zero-filled beyond the last record, so a zero length marks the end; a frame whose length runs
+ * past the segment or whose checksum does not match is a torn write from a crash.
+ */
+final class JournalSegment {
+    static final int HEADER_BYTES = 8;
+
+    private final long id;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int position;
+
+    private JournalSegment(long id, Path path, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    static JournalSegment open(Path path, long id, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int size = (int) Math.max(channel.size(), capacity);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return new JournalSegment(id, path, channel, buffer, size);
+    }
+
+    long id() {
+        return id;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int position() {
+        return position;
+    }
+
+    /**
+     * Scan all intact records from the start of the segment, positioning the segment for appends
+     * right after the last one. A torn tail is zeroed so later scans stop at the same place.
+     *
+     * @return true if a torn record was found and discarded
+     */
+    boolean recover(RecordVisitor visitor) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            byte[] payload = readPayload(offset);
+            if (payload == null) {
+                zero(offset, capacity);
+                position = offset;
+                return true;
+            }
+            visitor.visit(offset, payload);
+            offset += HEADER_BYTES + length;
+        }
+        position = offset;
+        return false;
+    }
+
+    /**
+     * Visit all intact records without touching the append position; safe on a sealed segment
+     * while other threads read from it.
+     */
+    void scan(RecordVisitor visitor) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(offset);
+            byte[] payload = length == 0 ? null : readPayload(offset);
+            if (payload == null) {
+                return;
+            }
+            visitor.visit(offset, payload);
+            offset += HEADER_BYTES + length;
+        }
+    }
+
+    /**
+     * @return the record offset, or -1 if the segment has no room left for it
+     */
+    int append(byte[] payload) {
+        int frameLength = HEADER_BYTES + payload.length;
+        if (position + frameLength > capacity) {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int offset = position;
+        buffer.put(offset + HEADER_BYTES, payload);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, payload.length);
+        position += frameLength;
+        return offset;
+    }
+
+    byte[] read(int offset) {
+        byte[] payload = readPayload(offset);
+        if (payload == null) {
+            throw new IllegalStateException("Corrupt journal record at " + path + "@" + offset);
+        }
+        return payload;
+    }
+
+    /**
+     * Flush written pages to disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private byte[] readPayload(int offset) {
+        int length = buffer.getInt(offset);
+        if (length <= 0 || length > capacity - offset - HEADER_BYTES) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+            return null;
+        }
+        return payload;
+    }
+
+    private void zero(int from, int to) {
+        for (int i = from; i < to; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(int offset, byte[] payload);
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.hpadventure.providers;
 
 import com.example.hpadventure.services.UpstreamException;
+import com.example.hpadventure.usage.TokenUsage;
+import com.example.hpadventure.usage.Usage;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -13,26 +16,59 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Consumer;
 
 final class AnthropicTextProvider implements TextProvider {
     private static final Logger logger = LoggerFactory.getLogger(AnthropicTextProvider.class);
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     private static final String VERSION_HEADER = "2023-06-01";
+    /** Message Batches are billed at half the standard price. */
+    private static final double BATCH_PRICE_FACTOR = 0.5;
+    private static final SseJsonReader.Path EVENT_TYPE = SseJsonReader.Path.of("type");
+    private static final SseJsonReader.Path DELTA_TYPE = SseJsonReader.Path.of("delta", "type");
+    private static final SseJsonReader.Path DELTA_TEXT = SseJsonReader.Path.of("delta", "text");
+    /** Prompt token counts arrive once in {@code message_start}, the output count in {@code message_delta}. */
+    private static final SseJsonReader.Path START_INPUT_TOKENS = SseJsonReader.Path.of("message", "usage", "input_tokens");
+    private static final SseJsonReader.Path START_CACHE_READ_TOKENS =
+        SseJsonReader.Path.of("message", "usage", "cache_read_input_tokens");
+    private static final SseJsonReader.Path START_CACHE_CREATION_TOKENS =
+        SseJsonReader.Path.of("message", "usage", "cache_creation_input_tokens");
+    private static final SseJsonReader.Path DELTA_OUTPUT_TOKENS = SseJsonReader.Path.of("usage", "output_tokens");
     private final OkHttpClient httpClient;
     private final ObjectMapper mapper;
     private final String apiKey;
     private final String model;
     private final String baseUrl;
+    private final Duration batchPollInterval;
 
     public AnthropicTextProvider(OkHttpClient httpClient, ObjectMapper mapper, String apiKey, String model, String baseUrl) {
+        this(httpClient, mapper, apiKey, model, baseUrl, null);
+    }
+
+    /**
+     * @param batchPollInterval how often to check on a submitted Message Batch, or null to send
+     *                          {@link #createMessages} requests one by one instead of as a batch
+     */
+    AnthropicTextProvider(
+        OkHttpClient httpClient,
+        ObjectMapper mapper,
+        String apiKey,
+        String model,
+        String baseUrl,
+        Duration batchPollInterval
+    ) {
         this.httpClient = Objects.requireNonNull(httpClient, "httpClient");
         this.mapper = Objects.requireNonNull(mapper, "mapper");
         this.apiKey = apiKey;
         this.model = Objects.requireNonNull(model, "model");
         this.baseUrl = Objects.requireNonNull(baseUrl, "baseUrl");
+        this.batchPollInterval = batchPollInterval;
     }
 
     @Override
@@ -58,6 +94,7 @@ final class AnthropicTextProvider implements TextProvider {
                 .addHeader("x-api-key", apiKey)
                 .addHeader("anthropic-version", VERSION_HEADER)
                 .post(RequestBody.create(payload, JSON))
+                .tag(UpstreamCall.class, new UpstreamCall("anthropic", model, 1))
                 .build();
 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -65,7 +102,7 @@ final class AnthropicTextProvider implements TextProvider {
                 logger.info("Anthropic response: status={} durationMs={}", response.code(), durationMs);
                 
                 if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "";
+                    String errorBody = ErrorBodies.read(response);
                     logger.warn("Anthropic error: status={} body={}", response.code(), errorBody);
                     throw new UpstreamException("ANTHROPIC_ERROR", response.code(), errorBody);
                 }
@@ -75,6 +112,9 @@ final class AnthropicTextProvider implements TextProvider {
                 }
 
                 CreateMessageResponse responseBody = mapper.readValue(response.body().bytes(), CreateMessageResponse.class);
+                if (responseBody.usage() != null) {
+                    Usage.record("anthropic", model, responseBody.usage().toTokenUsage());
+                }
                 return responseBody.text();
             }
         } catch (IOException e) {
@@ -115,6 +155,7 @@ final class AnthropicTextProvider implements TextProvider {
                 .addHeader("anthropic-version", VERSION_HEADER)
                 .addHeader("accept", "text/event-stream")
                 .post(RequestBody.create(payload, JSON))
+                .tag(UpstreamCall.class, new UpstreamCall("anthropic", model, 1))
                 .build();
 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -122,7 +163,7 @@ final class AnthropicTextProvider implements TextProvider {
                 logger.info("Anthropic stream response: status={} timeToFirstByteMs={}", response.code(), firstByteMs);
                 
                 if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "";
+                    String errorBody = ErrorBodies.read(response);
                     logger.warn("Anthropic stream error: status={} body={}", response.code(), errorBody);
                     throw new UpstreamException("ANTHROPIC_ERROR", response.code(), errorBody);
                 }
@@ -131,35 +172,43 @@ final class AnthropicTextProvider implements TextProvider {
                     throw new UpstreamException("ANTHROPIC_ERROR", response.code(), "Empty response body");
                 }
 
-                BufferedSource source = response.body().source();
-                while (true) {
-                    String line = source.readUtf8Line();
-                    if (line == null) {
-                        break;
-                    }
-                    if (line.isBlank() || !line.startsWith("data:")) {
-                        continue;
-                    }
-                    String data = line.substring(5).trim();
-                    if (data.isEmpty() || "[DONE]".equals(data)) {
-                        continue;
-                    }
-
-                    StreamEvent event = mapper.readValue(data, StreamEvent.class);
-                    if (event == null || !"content_block_delta".equals(event.type()) || event.delta() == null) {
-                        continue;
-                    }
-                    if (!"text_delta".equals(event.delta().type())) {
-                        continue;
-                    }
-                    String text = event.delta().text();
-                    if (text != null && !text.isEmpty()) {
-                        onDelta.accept(text);
+                ApiUsage usage = new ApiUsage(null, null, null, null);
+                try (SseJsonReader events = new SseJsonReader(
+                    mapper.getFactory(), response.body().source(), EVENT_TYPE, DELTA_TYPE, DELTA_TEXT,
+                    START_INPUT_TOKENS, START_CACHE_READ_TOKENS, START_CACHE_CREATION_TOKENS, DELTA_OUTPUT_TOKENS
+                )) {
+                    while (events.next()) {
+                        String eventType = events.value(EVENT_TYPE);
+                        if ("message_start".equals(eventType)) {
+                            usage = new ApiUsage(
+                                TokenUsage.count(events.value(START_INPUT_TOKENS)),
+                                usage.output_tokens(),
+                                TokenUsage.count(events.value(START_CACHE_READ_TOKENS)),
+                                TokenUsage.count(events.value(START_CACHE_CREATION_TOKENS))
+                            );
+                            continue;
+                        }
+                        if ("message_delta".equals(eventType) && events.value(DELTA_OUTPUT_TOKENS) != null) {
+                            // cumulative count, the last one wins
+                            usage = new ApiUsage(usage.input_tokens(), TokenUsage.count(events.value(DELTA_OUTPUT_TOKENS)),
+                                usage.cache_read_input_tokens(), usage.cache_creation_input_tokens());
+                            continue;
+                        }
+                        if (!"content_block_delta".equals(eventType)
+                            || !"text_delta".equals(events.value(DELTA_TYPE))) {
+                            continue;
+                        }
+                        String text = events.value(DELTA_TEXT);
+                        if (text != null && !text.isEmpty()) {
+                            onDelta.accept(text);
+                        }
                     }
                 }
-                
+
+                Usage.record("anthropic", model, usage.toTokenUsage());
                 long totalMs = (System.nanoTime() - startTime) / 1_000_000;
-                logger.info("Anthropic stream completed: totalDurationMs={}", totalMs);
+                logger.info("Anthropic stream completed: totalDurationMs={} inputTokens={} outputTokens={}",
+                    totalMs, usage.input_tokens(), usage.output_tokens());
             }
         } catch (IOException e) {
             long durationMs = (System.nanoTime() - startTime) / 1_000_000;
@@ -168,6 +217,145 @@ final class AnthropicTextProvider implements TextProvider {
         }
     }
 
+    /**
+     * With a batch poll interval, submits the requests as one Message Batch (half the price, results
+     * within 24 hours), polls until it has ended and then hands out the results as they are read.
+     * Requests the batch did not answer (errored, expired or canceled) are reported as failures.
+     */
+    @Override
+    public void createMessages(List<BatchRequest> requests, int parallelism, Consumer<BatchResult> onResult) {
+        if (batchPollInterval == null || requests.isEmpty()) {
+            TextProvider.super.createMessages(requests, parallelism, onResult);
+            return;
+        }
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new UpstreamException("MISSING_ANTHROPIC_API_KEY", 500, "ANTHROPIC_API_KEY is not set");
+        }
+
+        List<BatchEntry> entries = new ArrayList<>(requests.size());
+        for (BatchRequest request : requests) {
+            List<ApiMessage> apiMessages = request.messages().stream()
+                .map(m -> new ApiMessage(m.role(), m.content()))
+                .toList();
+            entries.add(new BatchEntry(request.id(),
+                new CreateMessageRequest(model, request.maxTokens(), systemFrom(request.systemPrompt()), apiMessages)));
+        }
+        long startTime = System.nanoTime();
+        MessageBatch batch = batchCall(new Request.Builder()
+            .url(baseUrl + "/v1/messages/batches")
+            .post(RequestBody.create(writeBatch(new CreateBatchRequest(entries)), JSON)));
+        logger.info("Anthropic batch submitted: batchId={} model={} requests={}", batch.id(), model, requests.size());
+
+        while (!"ended".equals(batch.processing_status())) {
+            try {
+                Thread.sleep(batchPollInterval);
+            } catch (InterruptedException e) {
+                // Cancel before restoring the flag: OkHttp fails every call made on an interrupted thread
+                cancelBatch(batch.id());
+                Thread.currentThread().interrupt();
+                return;
+            }
+            batch = batchCall(new Request.Builder().url(baseUrl + "/v1/messages/batches/" + batch.id()).get());
+        }
+
+        Set<String> answered = new HashSet<>();
+        readBatchResults(batch, result -> {
+            answered.add(result.id());
+            onResult.accept(result);
+        });
+        for (BatchRequest request : requests) {
+            if (!answered.contains(request.id())) {
+                onResult.accept(new BatchResult(request.id(), null,
+                    new UpstreamException("ANTHROPIC_ERROR", 502, "Batch returned no result")));
+            }
+        }
+        logger.info("Anthropic batch completed: batchId={} totalDurationMs={} results={}",
+            batch.id(), (System.nanoTime() - startTime) / 1_000_000, answered.size());
+    }
+
+    private void readBatchResults(MessageBatch batch, Consumer<BatchResult> onResult) {
+        if (batch.results_url() == null || batch.results_url().isBlank()) {
+            throw new UpstreamException("ANTHROPIC_ERROR", 502, "Batch ended without results_url");
+        }
+        Request request = batchRequest(new Request.Builder().url(batch.results_url()).get());
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                String errorBody = ErrorBodies.read(response);
+                logger.warn("Anthropic batch results error: status={} body={}", response.code(), errorBody);
+                throw new UpstreamException("ANTHROPIC_ERROR", response.code(), errorBody);
+            }
+            BufferedSource source = response.body().source();
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (!line.isBlank()) {
+                    onResult.accept(toBatchResult(mapper.readValue(line, BatchResultLine.class)));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Anthropic batch results failed: batchId={} error={}", batch.id(), e.getMessage());
+            throw new UpstreamException("ANTHROPIC_ERROR", 502, e.getMessage(), e);
+        }
+    }
+
+    private BatchResult toBatchResult(BatchResultLine line) {
+        BatchOutcome outcome = line.result();
+        String type = outcome == null ? null : outcome.type();
+        if ("succeeded".equals(type) && outcome.message() != null) {
+            if (outcome.message().usage() != null) {
+                Usage.record("anthropic", model, outcome.message().usage().toTokenUsage(), BATCH_PRICE_FACTOR);
+            }
+            return new BatchResult(line.custom_id(), outcome.message().text(), null);
+        }
+        String reason = type == null ? "missing result" : type;
+        if (outcome != null && outcome.error() != null) {
+            JsonNode error = outcome.error().has("error") ? outcome.error().path("error") : outcome.error();
+            reason = type + ": " + error.path("type").asText("") + " " + error.path("message").asText("");
+        }
+        return new BatchResult(line.custom_id(), null, new UpstreamException("ANTHROPIC_ERROR", 502, reason.trim()));
+    }
+
+    private void cancelBatch(String batchId) {
+        Request request = batchRequest(new Request.Builder()
+            .url(baseUrl + "/v1/messages/batches/" + batchId + "/cancel")
+            .post(RequestBody.create(new byte[0], JSON)));
+        try (Response response = httpClient.newCall(request).execute()) {
+            logger.info("Anthropic batch canceled: batchId={} status={}", batchId, response.code());
+        } catch (IOException e) {
+            logger.warn("Anthropic batch cancel failed: batchId={} error={}", batchId, e.getMessage());
+        }
+    }
+
+    private MessageBatch batchCall(Request.Builder builder) {
+        Request request = batchRequest(builder);
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                String errorBody = ErrorBodies.read(response);
+                logger.warn("Anthropic batch error: status={} body={}", response.code(), errorBody);
+                throw new UpstreamException("ANTHROPIC_ERROR", response.code(), errorBody);
+            }
+            return mapper.readValue(response.body().bytes(), MessageBatch.class);
+        } catch (IOException e) {
+            logger.error("Anthropic batch request failed: url={} error={}", request.url(), e.getMessage());
+            throw new UpstreamException("ANTHROPIC_ERROR", 502, e.getMessage(), e);
+        }
+    }
+
+    private Request batchRequest(Request.Builder builder) {
+        return builder
+            .addHeader("x-api-key", apiKey)
+            .addHeader("anthropic-version", VERSION_HEADER)
+            .tag(UpstreamCall.class, new UpstreamCall("anthropic", model, 1))
+            .build();
+    }
+
+    private byte[] writeBatch(CreateBatchRequest batch) {
+        try {
+            return mapper.writeValueAsBytes(batch);
+        } catch (IOException e) {
+            throw new UpstreamException("ANTHROPIC_ERROR", 500, e.getMessage(), e);
+        }
+    }
+
     // Internal API message (separate from interface Message to avoid leaking API details)
     private record ApiMessage(String role, String content) {
     }
@@ -188,7 +376,7 @@ final class AnthropicTextProvider implements TextProvider {
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record CreateMessageResponse(List<ContentBlock> content) {
+    private record CreateMessageResponse(List<ContentBlock> content, ApiUsage usage) {
         public String text() {
             if (content == null || content.isEmpty()) {
                 return "";
@@ -208,12 +396,49 @@ final class AnthropicTextProvider implements TextProvider {
     private record ContentBlock(String type, String text) {
     }
 
+    private record CreateBatchRequest(List<BatchEntry> requests) {
+    }
+
+    private record BatchEntry(String custom_id, CreateMessageRequest params) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record MessageBatch(String id, String processing_status, String results_url) {
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record StreamEvent(String type, StreamDelta delta) {
+    private record BatchResultLine(String custom_id, BatchOutcome result) {
     }
 
+    /**
+     * {@code type} is {@code succeeded}, {@code errored}, {@code canceled} or {@code expired}.
+     */
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record StreamDelta(String type, String text) {
+    private record BatchOutcome(String type, CreateMessageResponse message, JsonNode error) {
+    }
+
+    /**
+     * {@code input_tokens} excludes the prompt tokens read from or written to the prompt cache.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record ApiUsage(
+        Long input_tokens,
+        Long output_tokens,
+        Long cache_read_input_tokens,
+        Long cache_creation_input_tokens
+    ) {
+        TokenUsage toTokenUsage() {
+            if (input_tokens == null && output_tokens == null) {
+                return null;
+            }
+            long cacheRead = orZero(cache_read_input_tokens);
+            long input = orZero(input_tokens) + cacheRead + orZero(cache_creation_input_tokens);
+            return new TokenUsage(input, orZero(output_tokens), cacheRead, null);
+        }
+
+        private static long orZero(Long value) {
+            return value == null ? 0 : value;
+        }
     }
 
     private static List<SystemContent> systemFrom(String systemPrompt) {
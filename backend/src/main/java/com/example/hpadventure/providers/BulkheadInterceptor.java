@@ -0,0 +1,156 @@
+package com.example.hpadventure.providers;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the calls one provider client has in flight, in total and per upstream host. OkHttp's
+ * {@code Dispatcher} limits only apply to {@code enqueue()}, while the providers call {@code execute()}.
+ * A slot is held until the response body is consumed or closed, so a streamed completion counts for its
+ * whole duration. A caller waits for a slot until its call timeout runs out, then fails with an
+ * {@link InterruptedIOException}.
+ */
+final class BulkheadInterceptor implements Interceptor {
+    private final Semaphore total;
+    private final int maxRequestsPerHost;
+    private final Map<String, Semaphore> perHost = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    BulkheadInterceptor(int maxRequests, int maxRequestsPerHost) {
+        this.total = new Semaphore(maxRequests, true);
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    /** Calls currently waiting for a slot. */
+    int waitingCalls() {
+        return waiting.get();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Semaphore host = perHost.computeIfAbsent(request.url().host(),
+            ignored -> new Semaphore(maxRequestsPerHost, true));
+        long timeoutNanos = chain.call().timeout().timeoutNanos();
+        long deadline = timeoutNanos == 0 ? 0 : System.nanoTime() + timeoutNanos;
+
+        waiting.incrementAndGet();
+        try {
+            acquire(total, deadline);
+            try {
+                acquire(host, deadline);
+            } catch (IOException e) {
+                total.release();
+                throw e;
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+        Slot slot = new Slot(host);
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            slot.release();
+            throw e;
+        }
+        ResponseBody body = response.body();
+        if (body == null) {
+            slot.release();
+            return response;
+        }
+        return response.newBuilder().body(new SlotBody(body, slot)).build();
+    }
+
+    private static void acquire(Semaphore semaphore, long deadline) throws InterruptedIOException {
+        try {
+            if (deadline == 0) {
+                semaphore.acquire();
+            } else if (!semaphore.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new InterruptedIOException("Timed out waiting for an upstream slot");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an upstream slot");
+        }
+    }
+
+    private final class Slot {
+        private final Semaphore host;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot(Semaphore host) {
+            this.host = host;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                host.release();
+                total.release();
+            }
+        }
+    }
+
+    private static final class SlotBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        private SlotBody(ResponseBody delegate, Slot slot) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        slot.release();
+                        throw e;
+                    }
+                    if (read == -1) {
+                        slot.release();
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    slot.release();
+                    super.close();
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
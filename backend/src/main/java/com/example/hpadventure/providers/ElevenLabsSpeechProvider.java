@@ -74,6 +74,7 @@ final class ElevenLabsSpeechProvider implements SpeechProvider {
                 .addHeader("xi-api-key", apiKey)
                 .addHeader("Accept", "audio/mpeg")
                 .post(RequestBody.create(payload, JSON))
+                .tag(UpstreamCall.class, new UpstreamCall("elevenlabs", modelId, 1))
                 .build();
 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -81,7 +82,7 @@ final class ElevenLabsSpeechProvider implements SpeechProvider {
                 logger.info("ElevenLabs TTS response: status={} timeToFirstByteMs={}", response.code(), firstByteMs);
                 
                 if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "";
+                    String errorBody = ErrorBodies.read(response);
                     logger.warn("ElevenLabs TTS error: status={} body={}", response.code(), errorBody);
                     throw new UpstreamException("ELEVENLABS_ERROR", response.code(), errorBody);
                 }
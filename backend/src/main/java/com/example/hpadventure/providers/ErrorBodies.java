@@ -0,0 +1,28 @@
+package com.example.hpadventure.providers;
+
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads upstream error bodies for logs and {@code UpstreamException} messages, capped so an HTML error
+ * page or an echoed prompt is never read, logged or returned to the client in full.
+ */
+final class ErrorBodies {
+    static final int MAX_BYTES = 2048;
+
+    private ErrorBodies() {
+    }
+
+    static String read(Response response) throws IOException {
+        if (response.body() == null) {
+            return "";
+        }
+        byte[] bytes = response.peekBody(MAX_BYTES + 1L).bytes();
+        if (bytes.length <= MAX_BYTES) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new String(bytes, 0, MAX_BYTES, StandardCharsets.UTF_8) + "...[truncated]";
+    }
+}
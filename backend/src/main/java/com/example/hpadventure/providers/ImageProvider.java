@@ -22,7 +22,12 @@ public interface ImageProvider {
     
     /**
      * Result of image generation containing the image data.
+     *
+     * @param thumbnailBase64 a small JPEG of the same image, or null
      */
-    record ImageResult(String mimeType, String base64) {
+    record ImageResult(String mimeType, String base64, String thumbnailBase64) {
+        public ImageResult(String mimeType, String base64) {
+            this(mimeType, base64, null);
+        }
     }
 }
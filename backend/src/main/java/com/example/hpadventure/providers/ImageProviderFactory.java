@@ -5,6 +5,8 @@ import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.function.Supplier;
+
 /**
  * Factory for creating ImageProvider instances based on environment configuration.
  * 
@@ -30,6 +32,18 @@ public final class ImageProviderFactory {
      * Create an ImageProvider from environment variables.
      */
     public static ImageProvider fromEnv(OkHttpClient httpClient, ObjectMapper mapper) {
+        return fromEnv(httpClient, mapper, false);
+    }
+
+    /**
+     * Like {@link #fromEnv}, but the provider is only created on first use. The configuration is still
+     * checked here, so a missing key fails at boot rather than on a player's turn.
+     */
+    public static ImageProvider lazyFromEnv(OkHttpClient httpClient, ObjectMapper mapper) {
+        return fromEnv(httpClient, mapper, true);
+    }
+
+    private static ImageProvider fromEnv(OkHttpClient httpClient, ObjectMapper mapper, boolean lazy) {
         String imageProvider = System.getenv("IMAGE_PROVIDER");
 
         String openRouterApiKey = System.getenv("OPENROUTER_API_KEY");
@@ -44,12 +58,28 @@ public final class ImageProviderFactory {
         String openAiSize = System.getenv().getOrDefault("OPENAI_IMAGE_SIZE", DEFAULT_OPENAI_SIZE);
         Integer openAiCompression = parseIntOrDefault(System.getenv("OPENAI_IMAGE_COMPRESSION"), DEFAULT_OPENAI_COMPRESSION);
 
-        return create(
+        requireSelectedKey(imageProvider, openRouterApiKey, openAiApiKey);
+        Supplier<ImageProvider> provider = () -> create(
             httpClient, mapper,
             imageProvider,
             openRouterApiKey, openRouterModel, openRouterBaseUrl,
             openAiApiKey, openAiModel, openAiBaseUrl, openAiFormat, openAiCompression, openAiQuality, openAiSize
         );
+        return lazy ? new LazyImageProvider(provider) : provider.get();
+    }
+
+    /**
+     * @return the base URL of the provider {@link #fromEnv} picks (for connection pre-warming),
+     *         or null for the placeholder
+     */
+    public static String baseUrlFromEnv() {
+        String imageProvider = System.getenv("IMAGE_PROVIDER");
+        boolean openRouter = !isBlank(System.getenv("OPENROUTER_API_KEY"));
+        boolean openAi = !isBlank(System.getenv("OPENAI_API_KEY"));
+        if ("openai".equalsIgnoreCase(imageProvider) || (!"openrouter".equalsIgnoreCase(imageProvider) && !openRouter)) {
+            return openAi ? System.getenv().getOrDefault("OPENAI_BASE_URL", DEFAULT_OPENAI_BASE_URL) : null;
+        }
+        return openRouter ? System.getenv().getOrDefault("OPENROUTER_BASE_URL", DEFAULT_OPENROUTER_BASE_URL) : null;
     }
 
     /**
@@ -73,11 +103,10 @@ public final class ImageProviderFactory {
         String openAiQuality,
         String openAiSize
     ) {
+        requireSelectedKey(imageProvider, openRouterApiKey, openAiApiKey);
+
         // Explicit provider override
         if ("openai".equalsIgnoreCase(imageProvider)) {
-            if (openAiApiKey == null || openAiApiKey.isBlank()) {
-                throw new IllegalStateException("IMAGE_PROVIDER=openai but OPENAI_API_KEY is not set");
-            }
             logger.info("Using OpenAI for image generation (explicit, model={})", openAiModel);
             return new OpenAiImageProvider(
                 httpClient,
@@ -93,9 +122,6 @@ public final class ImageProviderFactory {
         }
 
         if ("openrouter".equalsIgnoreCase(imageProvider)) {
-            if (openRouterApiKey == null || openRouterApiKey.isBlank()) {
-                throw new IllegalStateException("IMAGE_PROVIDER=openrouter but OPENROUTER_API_KEY is not set");
-            }
             logger.info("Using OpenRouter for image generation (explicit, model={})", openRouterModel);
             return new OpenRouterImageProvider(
                 httpClient,
@@ -133,9 +159,27 @@ public final class ImageProviderFactory {
             );
         }
 
-        // Return placeholder provider that generates a static "no provider configured" image
+        // Return placeholder provider that serves a pre-rendered "no provider configured" image
         logger.warn("No image API key configured (OPENROUTER_API_KEY or OPENAI_API_KEY), using placeholder");
-        return new PlaceholderImageProvider();
+        return new PlaceholderImageProvider(
+            PlaceholderImageProvider.Variant.fromName(System.getenv("PLACEHOLDER_IMAGE_VARIANT"))
+        );
+    }
+
+    /**
+     * @throws IllegalStateException if IMAGE_PROVIDER names a provider whose API key is not set
+     */
+    private static void requireSelectedKey(String imageProvider, String openRouterApiKey, String openAiApiKey) {
+        if ("openai".equalsIgnoreCase(imageProvider) && isBlank(openAiApiKey)) {
+            throw new IllegalStateException("IMAGE_PROVIDER=openai but OPENAI_API_KEY is not set");
+        }
+        if ("openrouter".equalsIgnoreCase(imageProvider) && isBlank(openRouterApiKey)) {
+            throw new IllegalStateException("IMAGE_PROVIDER=openrouter but OPENROUTER_API_KEY is not set");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
     private static Integer parseIntOrDefault(String value, int defaultValue) {
@@ -0,0 +1,250 @@
+package com.example.hpadventure.providers;
+
+import com.example.hpadventure.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shrinks generated images before they go to the browser (and into its {@code localStorage}): decoded once,
+ * downscaled to fit {@code maxDimension}, re-encoded as JPEG at the highest quality that fits
+ * {@code targetBytes}, plus a small JPEG thumbnail for earlier turns.
+ *
+ * Encoding runs on its own small CPU pool with a bounded queue, so image work cannot take every core from
+ * request threads. When the queue is full, or the format cannot be decoded (ImageIO reads PNG and JPEG,
+ * not WebP), the image passes through unchanged; so does a re-encoding that would not be smaller.
+ */
+public final class ImageTranscoder {
+    private static final Logger logger = LoggerFactory.getLogger(ImageTranscoder.class);
+    private static final String MIME_TYPE = "image/jpeg";
+    private static final float MAX_QUALITY = 0.85f;
+    private static final float MIN_QUALITY = 0.45f;
+    private static final float QUALITY_STEP = 0.1f;
+    private static final float THUMBNAIL_QUALITY = 0.6f;
+    private static final int QUEUE_CAPACITY = 32;
+
+    private final Metrics metrics;
+    private final int maxDimension;
+    private final int targetBytes;
+    private final int thumbnailDimension;
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * @param threads            images encoded at the same time
+     * @param maxDimension       longest side of the delivered image, in pixels
+     * @param targetBytes        size the delivered image should fit in, if quality allows
+     * @param thumbnailDimension longest side of the thumbnail, in pixels
+     */
+    public ImageTranscoder(Metrics metrics, int threads, int maxDimension, int targetBytes, int thumbnailDimension) {
+        if (threads <= 0 || maxDimension <= 0 || targetBytes <= 0 || thumbnailDimension <= 0) {
+            throw new IllegalArgumentException("threads, dimensions and targetBytes must be positive");
+        }
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.maxDimension = maxDimension;
+        this.targetBytes = targetBytes;
+        this.thumbnailDimension = thumbnailDimension;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "image-transcode-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Defaults: 768 px, 150 KB, 128 px thumbnails, half the CPUs. Disabled unless
+     * {@code IMAGE_TRANSCODE_ENABLED=true}; overridden by {@code IMAGE_MAX_DIMENSION},
+     * {@code IMAGE_TARGET_KB}, {@code IMAGE_THUMBNAIL_DIMENSION} and {@code IMAGE_TRANSCODE_THREADS}.
+     *
+     * @return the transcoder, or null if disabled
+     */
+    public static ImageTranscoder fromEnv(Metrics metrics) {
+        if (!"true".equalsIgnoreCase(System.getenv("IMAGE_TRANSCODE_ENABLED"))) {
+            return null;
+        }
+        int defaultThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new ImageTranscoder(
+            metrics,
+            positiveOrDefault(System.getenv("IMAGE_TRANSCODE_THREADS"), defaultThreads),
+            positiveOrDefault(System.getenv("IMAGE_MAX_DIMENSION"), 768),
+            positiveOrDefault(System.getenv("IMAGE_TARGET_KB"), 150) * 1024,
+            positiveOrDefault(System.getenv("IMAGE_THUMBNAIL_DIMENSION"), 128)
+        );
+    }
+
+    /**
+     * @return {@code provider} with every enabled result transcoded
+     */
+    public ImageProvider wrap(ImageProvider provider) {
+        return new TranscodingImageProvider(provider, this);
+    }
+
+    /**
+     * Transcode {@code image} on the pool and wait for it; the original on any failure.
+     */
+    ImageProvider.ImageResult transcode(ImageProvider.ImageResult image) {
+        if (image == null || image.base64() == null || image.base64().isEmpty()) {
+            return image;
+        }
+        Future<ImageProvider.ImageResult> future;
+        try {
+            future = pool.submit(() -> encode(image));
+        } catch (RejectedExecutionException e) {
+            outcome("busy");
+            return image;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return image;
+        } catch (ExecutionException e) {
+            outcome("failed");
+            logger.warn("Image transcoding failed: mimeType={} error={}", image.mimeType(), e.getCause().toString());
+            return image;
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private ImageProvider.ImageResult encode(ImageProvider.ImageResult image) throws IOException {
+        long startedAt = System.nanoTime();
+        byte[] original = Base64.getDecoder().decode(image.base64());
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(original));
+        if (decoded == null) {
+            outcome("unsupported");
+            return image;
+        }
+        BufferedImage display = scale(decoded, maxDimension);
+        byte[] encoded = null;
+        for (float quality = MAX_QUALITY; quality >= MIN_QUALITY - 0.001f; quality -= QUALITY_STEP) {
+            encoded = jpeg(display, quality);
+            if (encoded.length <= targetBytes) {
+                break;
+            }
+        }
+        byte[] thumbnail = jpeg(scale(display, thumbnailDimension), THUMBNAIL_QUALITY);
+        String thumbnailBase64 = Base64.getEncoder().encodeToString(thumbnail);
+
+        boolean smaller = encoded.length < original.length;
+        long out = smaller ? encoded.length : original.length;
+        metrics.counter("image_transcode_bytes_in_total", "Bytes of generated images before transcoding")
+            .add(original.length);
+        metrics.counter("image_transcode_bytes_out_total", "Bytes of generated images after transcoding")
+            .add(out);
+        metrics.counter("image_transcode_ms_total", "Time spent decoding, scaling and encoding images")
+            .add((System.nanoTime() - startedAt) / 1_000_000);
+        outcome(smaller ? "transcoded" : "kept");
+        logger.info("Image transcoded: mimeType={} bytesIn={} bytesOut={} thumbnailBytes={} size={}x{}",
+            image.mimeType(), original.length, out, thumbnail.length, display.getWidth(), display.getHeight());
+        return smaller
+            ? new ImageProvider.ImageResult(MIME_TYPE, Base64.getEncoder().encodeToString(encoded), thumbnailBase64)
+            : new ImageProvider.ImageResult(image.mimeType(), image.base64(), thumbnailBase64);
+    }
+
+    /**
+     * Fit {@code source} into {@code dimension} on its longest side, as opaque RGB (JPEG has no alpha).
+     */
+    private static BufferedImage scale(BufferedImage source, int dimension) {
+        int longest = Math.max(source.getWidth(), source.getHeight());
+        double factor = longest > dimension ? (double) dimension / longest : 1.0;
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.BLACK, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] jpeg(BufferedImage image, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No JPEG writer available");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private void outcome(String result) {
+        metrics.counter("image_transcode_total", "Generated images passed through the transcoder", "result", result)
+            .increment();
+    }
+
+    private static int positiveOrDefault(String value, int defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Transcodes the results of an enabled provider; the placeholder's static image is left alone.
+     */
+    private static final class TranscodingImageProvider implements ImageProvider {
+        private final ImageProvider delegate;
+        private final ImageTranscoder transcoder;
+
+        private TranscodingImageProvider(ImageProvider delegate, ImageTranscoder transcoder) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+            this.transcoder = transcoder;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return delegate.isEnabled();
+        }
+
+        @Override
+        public ImageResult generateImage(String prompt) {
+            ImageResult result = delegate.generateImage(prompt);
+            return delegate.isEnabled() ? transcoder.transcode(result) : result;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.hpadventure.providers;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Defers creating the real ImageProvider (and loading its classes) until the first image is needed,
+ * keeping client construction off the startup path. The factory checks the configuration up front.
+ */
+final class LazyImageProvider implements ImageProvider {
+    private final Supplier<ImageProvider> factory;
+    private volatile ImageProvider delegate;
+
+    LazyImageProvider(Supplier<ImageProvider> factory) {
+        this.factory = Objects.requireNonNull(factory, "factory");
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return delegate().isEnabled();
+    }
+
+    @Override
+    public ImageResult generateImage(String prompt) {
+        return delegate().generateImage(prompt);
+    }
+
+    private ImageProvider delegate() {
+        ImageProvider current = delegate;
+        if (current == null) {
+            synchronized (this) {
+                current = delegate;
+                if (current == null) {
+                    current = factory.get();
+                    delegate = current;
+                }
+            }
+        }
+        return current;
+    }
+}
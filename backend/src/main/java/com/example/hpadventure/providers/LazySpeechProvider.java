@@ -0,0 +1,36 @@
+package com.example.hpadventure.providers;
+
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Defers creating the real SpeechProvider until the first TTS request.
+ */
+final class LazySpeechProvider implements SpeechProvider {
+    private final Supplier<SpeechProvider> factory;
+    private volatile SpeechProvider delegate;
+
+    LazySpeechProvider(Supplier<SpeechProvider> factory) {
+        this.factory = Objects.requireNonNull(factory, "factory");
+    }
+
+    @Override
+    public void streamSpeech(String text, OutputStream outputStream) {
+        delegate().streamSpeech(text, outputStream);
+    }
+
+    private SpeechProvider delegate() {
+        SpeechProvider current = delegate;
+        if (current == null) {
+            synchronized (this) {
+                current = delegate;
+                if (current == null) {
+                    current = factory.get();
+                    delegate = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -86,6 +86,7 @@ final class OpenAiImageProvider implements ImageProvider {
                 .url(url)
                 .addHeader("Authorization", "Bearer " + apiKey)
                 .post(RequestBody.create(payload, JSON))
+                .tag(UpstreamCall.class, new UpstreamCall("openai", model, 1))
                 .build();
 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -93,7 +94,7 @@ final class OpenAiImageProvider implements ImageProvider {
                 logger.info("OpenAI image response: status={} durationMs={}", response.code(), durationMs);
                 
                 if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "";
+                    String errorBody = ErrorBodies.read(response);
                     logger.warn("OpenAI image error: status={} body={}", response.code(), errorBody);
                     throw new UpstreamException("OPENAI_IMAGE_ERROR", response.code(), errorBody);
                 }
@@ -89,6 +89,7 @@ final class OpenRouterImageProvider implements ImageProvider {
                 .addHeader("HTTP-Referer", "https://hp-adventure.example.com")
                 .addHeader("X-Title", "HP Adventure")
                 .post(RequestBody.create(payload, JSON))
+                .tag(UpstreamCall.class, new UpstreamCall("openrouter", model, 1))
                 .build();
 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -96,7 +97,7 @@ final class OpenRouterImageProvider implements ImageProvider {
                 logger.info("OpenRouter image response: status={} durationMs={}", response.code(), durationMs);
                 
                 if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "";
+                    String errorBody = ErrorBodies.read(response);
                     logger.warn("OpenRouter image error: status={} body={}", response.code(), errorBody);
                     throw new UpstreamException("OPENROUTER_IMAGE_ERROR", response.code(), errorBody);
                 }
@@ -1,6 +1,8 @@
 package com.example.hpadventure.providers;
 
 import com.example.hpadventure.services.UpstreamException;
+import com.example.hpadventure.usage.TokenUsage;
+import com.example.hpadventure.usage.Usage;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,7 +11,6 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
-import okio.BufferedSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,11 +30,15 @@ final class OpenRouterTextProvider implements TextProvider {
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     private static final String DEFAULT_BASE_URL = "https://openrouter.ai/api";
     private static final String DEFAULT_MODEL = "xiaomi/mimo-v2-flash:free";
-    
-    /** Max retry attempts for transient upstream errors (5xx). */
-    private static final int MAX_RETRIES = 2;
-    /** Initial backoff delay in milliseconds. */
-    private static final long INITIAL_BACKOFF_MS = 500;
+    /** The only field of a streamed chunk we need: the text delta of the first choice. */
+    private static final SseJsonReader.Path DELTA_CONTENT = SseJsonReader.Path.of("choices", 0, "delta", "content");
+    /** With {@code usage.include}, the last streamed chunk carries the token counts and the cost. */
+    private static final SseJsonReader.Path USAGE_PROMPT_TOKENS = SseJsonReader.Path.of("usage", "prompt_tokens");
+    private static final SseJsonReader.Path USAGE_COMPLETION_TOKENS = SseJsonReader.Path.of("usage", "completion_tokens");
+    private static final SseJsonReader.Path USAGE_CACHED_TOKENS =
+        SseJsonReader.Path.of("usage", "prompt_tokens_details", "cached_tokens");
+    private static final SseJsonReader.Path USAGE_COST = SseJsonReader.Path.of("usage", "cost");
+    private static final UsageOption INCLUDE_USAGE = new UsageOption(true);
 
     private final OkHttpClient httpClient;
     private final ObjectMapper mapper;
@@ -66,70 +71,49 @@ final class OpenRouterTextProvider implements TextProvider {
         }
 
         List<ApiMessage> apiMessages = buildMessages(systemPrompt, messages);
-        ChatCompletionRequest requestBody = new ChatCompletionRequest(model, apiMessages, maxTokens, false);
+        ChatCompletionRequest requestBody = new ChatCompletionRequest(model, apiMessages, maxTokens, false, INCLUDE_USAGE);
 
         String url = baseUrl + "/v1/chat/completions";
         logger.info("OpenRouter text request: POST {} model={} maxTokens={} messagesCount={}",
             url, model, maxTokens, messages.size());
 
-        UpstreamException lastError = null;
-        for (int attempt = 0; attempt <= MAX_RETRIES; attempt++) {
-            if (attempt > 0) {
-                long backoffMs = INITIAL_BACKOFF_MS * (1L << (attempt - 1)); // exponential: 500ms, 1000ms
-                logger.info("OpenRouter text retry: attempt={} backoffMs={}", attempt + 1, backoffMs);
-                sleep(backoffMs);
-            }
-            
-            long startTime = System.nanoTime();
-            try {
-                byte[] payload = mapper.writeValueAsBytes(requestBody);
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("HTTP-Referer", "https://hp-adventure.example.com")
-                    .addHeader("X-Title", "HP Adventure")
-                    .post(RequestBody.create(payload, JSON))
-                    .build();
-
-                try (Response response = httpClient.newCall(request).execute()) {
-                    long durationMs = (System.nanoTime() - startTime) / 1_000_000;
-                    logger.info("OpenRouter text response: status={} durationMs={} attempt={}",
-                        response.code(), durationMs, attempt + 1);
-
-                    if (!response.isSuccessful()) {
-                        String errorBody = response.body() != null ? response.body().string() : "";
-                        logger.warn("OpenRouter text error: status={} body={} attempt={}",
-                            response.code(), errorBody, attempt + 1);
-                        lastError = new UpstreamException("OPENROUTER_ERROR", response.code(), errorBody);
-                        
-                        // Retry only on 5xx (server/upstream errors)
-                        if (response.code() >= 500 && attempt < MAX_RETRIES) {
-                            continue;
-                        }
-                        throw lastError;
-                    }
+        long startTime = System.nanoTime();
+        try {
+            byte[] payload = mapper.writeValueAsBytes(requestBody);
+            Request request = new Request.Builder()
+                .url(url)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("HTTP-Referer", "https://hp-adventure.example.com")
+                .addHeader("X-Title", "HP Adventure")
+                .post(RequestBody.create(payload, JSON))
+                .tag(UpstreamCall.class, new UpstreamCall("openrouter", model, 1))
+                .build();
+
+            try (Response response = httpClient.newCall(request).execute()) {
+                long durationMs = (System.nanoTime() - startTime) / 1_000_000;
+                logger.info("OpenRouter text response: status={} durationMs={}", response.code(), durationMs);
 
-                    if (response.body() == null) {
-                        throw new UpstreamException("OPENROUTER_ERROR", response.code(), "Empty response body");
-                    }
+                if (!response.isSuccessful()) {
+                    String errorBody = ErrorBodies.read(response);
+                    logger.warn("OpenRouter text error: status={} body={}", response.code(), errorBody);
+                    throw new UpstreamException("OPENROUTER_ERROR", response.code(), errorBody);
+                }
 
-                    ChatCompletionResponse responseBody = mapper.readValue(response.body().bytes(), ChatCompletionResponse.class);
-                    return responseBody.text();
+                if (response.body() == null) {
+                    throw new UpstreamException("OPENROUTER_ERROR", response.code(), "Empty response body");
                 }
-            } catch (IOException e) {
-                long durationMs = (System.nanoTime() - startTime) / 1_000_000;
-                logger.error("OpenRouter text request failed: durationMs={} error={} attempt={}",
-                    durationMs, e.getMessage(), attempt + 1);
-                lastError = new UpstreamException("OPENROUTER_ERROR", 502, e.getMessage(), e);
-                
-                // Retry on IO errors (network issues)
-                if (attempt < MAX_RETRIES) {
-                    continue;
+
+                ChatCompletionResponse responseBody = mapper.readValue(response.body().bytes(), ChatCompletionResponse.class);
+                if (responseBody.usage() != null) {
+                    Usage.record("openrouter", model, responseBody.usage().toTokenUsage());
                 }
+                return responseBody.text();
             }
+        } catch (IOException e) {
+            long durationMs = (System.nanoTime() - startTime) / 1_000_000;
+            logger.error("OpenRouter text request failed: durationMs={} error={}", durationMs, e.getMessage());
+            throw new UpstreamException("OPENROUTER_ERROR", 502, e.getMessage(), e);
         }
-        
-        throw lastError;
     }
 
     @Override
@@ -140,110 +124,69 @@ final class OpenRouterTextProvider implements TextProvider {
         Objects.requireNonNull(onDelta, "onDelta");
 
         List<ApiMessage> apiMessages = buildMessages(systemPrompt, messages);
-        ChatCompletionRequest requestBody = new ChatCompletionRequest(model, apiMessages, maxTokens, true);
+        ChatCompletionRequest requestBody = new ChatCompletionRequest(model, apiMessages, maxTokens, true, INCLUDE_USAGE);
 
         String url = baseUrl + "/v1/chat/completions";
         logger.info("OpenRouter text stream request: POST {} model={} maxTokens={} messagesCount={}",
             url, model, maxTokens, messages.size());
 
-        UpstreamException lastError = null;
-        for (int attempt = 0; attempt <= MAX_RETRIES; attempt++) {
-            if (attempt > 0) {
-                long backoffMs = INITIAL_BACKOFF_MS * (1L << (attempt - 1)); // exponential: 500ms, 1000ms
-                logger.info("OpenRouter text stream retry: attempt={} backoffMs={}", attempt + 1, backoffMs);
-                sleep(backoffMs);
-            }
-
-            long startTime = System.nanoTime();
-            try {
-                byte[] payload = mapper.writeValueAsBytes(requestBody);
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("HTTP-Referer", "https://hp-adventure.example.com")
-                    .addHeader("X-Title", "HP Adventure")
-                    .addHeader("Accept", "text/event-stream")
-                    .post(RequestBody.create(payload, JSON))
-                    .build();
-
-                try (Response response = httpClient.newCall(request).execute()) {
-                    long firstByteMs = (System.nanoTime() - startTime) / 1_000_000;
-                    logger.info("OpenRouter text stream response: status={} timeToFirstByteMs={} attempt={}",
-                        response.code(), firstByteMs, attempt + 1);
-
-                    if (!response.isSuccessful()) {
-                        String errorBody = response.body() != null ? response.body().string() : "";
-                        logger.warn("OpenRouter text stream error: status={} body={} attempt={}",
-                            response.code(), errorBody, attempt + 1);
-                        lastError = new UpstreamException("OPENROUTER_ERROR", response.code(), errorBody);
-                        
-                        // Retry only on 5xx (server/upstream errors)
-                        if (response.code() >= 500 && attempt < MAX_RETRIES) {
-                            continue;
-                        }
-                        throw lastError;
-                    }
-
-                    if (response.body() == null) {
-                        throw new UpstreamException("OPENROUTER_ERROR", response.code(), "Empty response body");
-                    }
+        long startTime = System.nanoTime();
+        try {
+            byte[] payload = mapper.writeValueAsBytes(requestBody);
+            Request request = new Request.Builder()
+                .url(url)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("HTTP-Referer", "https://hp-adventure.example.com")
+                .addHeader("X-Title", "HP Adventure")
+                .addHeader("Accept", "text/event-stream")
+                .post(RequestBody.create(payload, JSON))
+                .tag(UpstreamCall.class, new UpstreamCall("openrouter", model, 1))
+                .build();
+
+            try (Response response = httpClient.newCall(request).execute()) {
+                long firstByteMs = (System.nanoTime() - startTime) / 1_000_000;
+                logger.info("OpenRouter text stream response: status={} timeToFirstByteMs={}",
+                    response.code(), firstByteMs);
+
+                if (!response.isSuccessful()) {
+                    String errorBody = ErrorBodies.read(response);
+                    logger.warn("OpenRouter text stream error: status={} body={}", response.code(), errorBody);
+                    throw new UpstreamException("OPENROUTER_ERROR", response.code(), errorBody);
+                }
 
-                    BufferedSource source = response.body().source();
-                    while (true) {
-                        String line = source.readUtf8Line();
-                        if (line == null) {
-                            break;
-                        }
-                        if (line.isBlank() || !line.startsWith("data:")) {
-                            continue;
-                        }
-                        String data = line.substring(5).trim();
-                        if (data.isEmpty() || "[DONE]".equals(data)) {
-                            continue;
-                        }
+                if (response.body() == null) {
+                    throw new UpstreamException("OPENROUTER_ERROR", response.code(), "Empty response body");
+                }
 
-                        StreamChunk chunk = mapper.readValue(data, StreamChunk.class);
-                        if (chunk == null || chunk.choices() == null || chunk.choices().isEmpty()) {
-                            continue;
-                        }
-                        StreamChoice choice = chunk.choices().get(0);
-                        if (choice == null || choice.delta() == null) {
-                            continue;
-                        }
-                        String content = choice.delta().content();
+                TokenUsage usage = null;
+                try (SseJsonReader events = new SseJsonReader(mapper.getFactory(), response.body().source(),
+                    DELTA_CONTENT, USAGE_PROMPT_TOKENS, USAGE_COMPLETION_TOKENS, USAGE_CACHED_TOKENS, USAGE_COST)) {
+                    while (events.next()) {
+                        String content = events.value(DELTA_CONTENT);
                         if (content != null && !content.isEmpty()) {
                             onDelta.accept(content);
                         }
+                        TokenUsage reported = TokenUsage.parse(
+                            events.value(USAGE_PROMPT_TOKENS),
+                            events.value(USAGE_COMPLETION_TOKENS),
+                            events.value(USAGE_CACHED_TOKENS),
+                            events.value(USAGE_COST)
+                        );
+                        if (reported != null) {
+                            usage = reported;
+                        }
                     }
-
-                    long totalMs = (System.nanoTime() - startTime) / 1_000_000;
-                    logger.info("OpenRouter text stream completed: totalDurationMs={}", totalMs);
-                    return; // Success - exit the retry loop
-                }
-            } catch (IOException e) {
-                long durationMs = (System.nanoTime() - startTime) / 1_000_000;
-                logger.error("OpenRouter text stream request failed: durationMs={} error={} attempt={}",
-                    durationMs, e.getMessage(), attempt + 1);
-                lastError = new UpstreamException("OPENROUTER_ERROR", 502, e.getMessage(), e);
-                
-                // Retry on IO errors (network issues)
-                if (attempt < MAX_RETRIES) {
-                    continue;
                 }
-            }
-        }
-        
-        throw lastError;
-    }
 
-    /**
-     * Sleep for the specified duration, swallowing InterruptedException.
-     */
-    private void sleep(long millis) {
-        try {
-            Thread.sleep(millis);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+                Usage.record("openrouter", model, usage);
+                long totalMs = (System.nanoTime() - startTime) / 1_000_000;
+                logger.info("OpenRouter text stream completed: totalDurationMs={} inputTokens={} outputTokens={}",
+                    totalMs, usage == null ? null : usage.inputTokens(), usage == null ? null : usage.outputTokens());
+            }
+        } catch (IOException e) {
+            long durationMs = (System.nanoTime() - startTime) / 1_000_000;
+            logger.error("OpenRouter text stream request failed: durationMs={} error={}", durationMs, e.getMessage());
+            throw new UpstreamException("OPENROUTER_ERROR", 502, e.getMessage(), e);
         }
     }
 
@@ -267,16 +210,20 @@ final class OpenRouterTextProvider implements TextProvider {
         String model,
         List<ApiMessage> messages,
         int max_tokens,
-        boolean stream
+        boolean stream,
+        UsageOption usage
     ) {
     }
 
     private record ApiMessage(String role, String content) {
     }
 
+    private record UsageOption(boolean include) {
+    }
+
     // Response DTOs (non-streaming)
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record ChatCompletionResponse(List<Choice> choices) {
+    private record ChatCompletionResponse(List<Choice> choices, ApiUsage usage) {
         public String text() {
             if (choices == null || choices.isEmpty()) {
                 return "";
@@ -297,16 +244,30 @@ final class OpenRouterTextProvider implements TextProvider {
     private record ResponseMessage(String role, String content) {
     }
 
-    // Streaming DTOs
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private record StreamChunk(List<StreamChoice> choices) {
-    }
-
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record StreamChoice(StreamDelta delta) {
+    private record ApiUsage(
+        Long prompt_tokens,
+        Long completion_tokens,
+        PromptTokensDetails prompt_tokens_details,
+        Double cost
+    ) {
+        TokenUsage toTokenUsage() {
+            if (prompt_tokens == null && completion_tokens == null) {
+                return null;
+            }
+            long cached = prompt_tokens_details == null || prompt_tokens_details.cached_tokens() == null
+                ? 0
+                : prompt_tokens_details.cached_tokens();
+            return new TokenUsage(
+                prompt_tokens == null ? 0 : prompt_tokens,
+                completion_tokens == null ? 0 : completion_tokens,
+                cached,
+                cost
+            );
+        }
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record StreamDelta(String content) {
+    private record PromptTokensDetails(Long cached_tokens) {
     }
 }
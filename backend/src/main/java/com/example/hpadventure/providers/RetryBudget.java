@@ -0,0 +1,55 @@
+package com.example.hpadventure.providers;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that caps retries to a fraction of upstream traffic, shared by all providers: every
+ * first attempt deposits {@code ratio} tokens, every retry withdraws one. When a whole upstream is
+ * failing the bucket drains and requests fail fast instead of multiplying the load (retry storm).
+ */
+public final class RetryBudget {
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    /**
+     * @param ratio      retries allowed per first attempt, e.g. 0.1 for 10%
+     * @param maxRetries bucket size; also the burst of retries allowed from a cold start
+     */
+    public RetryBudget(double ratio, int maxRetries) {
+        if (ratio < 0 || maxRetries < 0) {
+            throw new IllegalArgumentException("ratio and maxRetries must not be negative");
+        }
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.capacity = maxRetries * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    void onRequest() {
+        balance.accumulateAndGet(depositPerRequest, (current, deposit) -> Math.min(capacity, current + deposit));
+    }
+
+    /**
+     * @return true if a retry may be made; the token is then spent
+     */
+    boolean tryAcquireRetry() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return whole retries currently available
+     */
+    public long available() {
+        return balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.hpadventure.providers;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+
+/**
+ * Retries upstream calls according to a {@link RetryPolicy}. Retries happen before a response is
+ * handed to the provider, so a streamed body is never replayed, and never past the call timeout.
+ * An I/O failure is only retried if the request cannot have reached the upstream (see
+ * {@link RetryPolicy#isRetryableFailure}), so a generation is never paid for twice. The wait is a
+ * plain {@link Thread#sleep} on the calling thread, for story turns a platform Jetty request thread,
+ * which is why it is capped by the policy's maximum delay and the call timeout.
+ */
+final class RetryInterceptor implements Interceptor {
+    private static final Logger logger = LoggerFactory.getLogger(RetryInterceptor.class);
+
+    private final RetryPolicy policy;
+
+    RetryInterceptor(RetryPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        UpstreamCall call = request.tag(UpstreamCall.class);
+        String provider = call == null ? request.url().host() : call.provider();
+        long startedAt = System.nanoTime();
+        Duration delay = Duration.ZERO;
+        policy.onRequest();
+
+        for (int attempt = 1; ; attempt++) {
+            Request attemptRequest = attempt == 1 || call == null
+                ? request
+                : request.newBuilder()
+                    .tag(UpstreamCall.class, new UpstreamCall(call.provider(), call.model(), attempt))
+                    .build();
+            Response response;
+            try {
+                response = chain.proceed(attemptRequest);
+            } catch (IOException e) {
+                if (chain.call().isCanceled() || attempt > policy.maxRetries()
+                    || !RetryPolicy.isRetryableFailure(attemptRequest, e)) {
+                    throw e;
+                }
+                delay = policy.nextDelay(delay);
+                if (!fitsCallTimeout(chain, startedAt, delay) || !policy.acquireRetry(provider, "io")) {
+                    throw e;
+                }
+                logger.info("Upstream retry: provider={} attempt={} reason=io error={} delayMs={}",
+                    provider, attempt + 1, e.getMessage(), delay.toMillis());
+                sleep(delay);
+                continue;
+            }
+
+            int status = response.code();
+            if (!RetryPolicy.isRetryableStatus(status) || attempt > policy.maxRetries()) {
+                return response;
+            }
+            Duration requested = policy.retryAfter(response.header("Retry-After"));
+            if (requested != null && requested.compareTo(policy.maxDelay()) > 0) {
+                // The upstream asked for a longer pause than a waiting player should sit through
+                return response;
+            }
+            delay = requested != null ? requested : policy.nextDelay(delay);
+            if (!fitsCallTimeout(chain, startedAt, delay) || !policy.acquireRetry(provider, String.valueOf(status))) {
+                return response;
+            }
+            logger.info("Upstream retry: provider={} attempt={} reason={} retryAfter={} delayMs={}",
+                provider, attempt + 1, status, requested != null, delay.toMillis());
+            response.close();
+            sleep(delay);
+        }
+    }
+
+    private static boolean fitsCallTimeout(Chain chain, long startedAt, Duration delay) {
+        long callTimeoutNanos = chain.call().timeout().timeoutNanos();
+        if (callTimeoutNanos == 0) {
+            return true;
+        }
+        return System.nanoTime() - startedAt + delay.toNanos() < callTimeoutNanos;
+    }
+
+    private static void sleep(Duration delay) throws InterruptedIOException {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+}
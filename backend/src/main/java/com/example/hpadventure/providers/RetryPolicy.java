@@ -0,0 +1,162 @@
+package com.example.hpadventure.providers;
+
+import com.example.hpadventure.metrics.Metrics;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how long to wait before retrying an upstream call: transient statuses and I/O errors
+ * that cannot have reached the upstream, decorrelated-jitter backoff, {@code Retry-After} honoured
+ * up to {@link #maxDelay()}, and a shared {@link RetryBudget}. Applied to every provider by the base client's retry interceptor.
+ */
+public final class RetryPolicy {
+    /** 529 is Anthropic's "overloaded". */
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(408, 429, 500, 502, 503, 504, 529);
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final int maxRetries;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final RetryBudget budget;
+    private final Metrics metrics;
+    private final Clock clock;
+
+    public RetryPolicy(
+        int maxRetries,
+        Duration baseDelay,
+        Duration maxDelay,
+        RetryBudget budget,
+        Metrics metrics,
+        Clock clock
+    ) {
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.budget = budget;
+        this.metrics = metrics;
+        this.clock = clock;
+        metrics.gauge("upstream_retry_budget_available", "Retries currently allowed by the shared retry budget",
+            budget::available);
+    }
+
+    /**
+     * Defaults: 2 retries, 250 ms base delay, 4 s maximum delay, retries capped at 10% of traffic.
+     * Overridden by {@code UPSTREAM_RETRY_MAX}, {@code UPSTREAM_RETRY_BASE_MS}, {@code UPSTREAM_RETRY_MAX_DELAY_MS}
+     * and {@code UPSTREAM_RETRY_BUDGET_PERCENT}.
+     */
+    public static RetryPolicy fromEnv(Metrics metrics) {
+        int maxRetries = intOrDefault(System.getenv("UPSTREAM_RETRY_MAX"), 2);
+        int baseMs = intOrDefault(System.getenv("UPSTREAM_RETRY_BASE_MS"), 250);
+        int maxDelayMs = intOrDefault(System.getenv("UPSTREAM_RETRY_MAX_DELAY_MS"), 4000);
+        int budgetPercent = intOrDefault(System.getenv("UPSTREAM_RETRY_BUDGET_PERCENT"), 10);
+        return new RetryPolicy(
+            maxRetries,
+            Duration.ofMillis(baseMs),
+            Duration.ofMillis(Math.max(baseMs, maxDelayMs)),
+            new RetryBudget(budgetPercent / 100.0, Math.max(10, maxRetries)),
+            metrics,
+            Clock.systemUTC()
+        );
+    }
+
+    public int maxRetries() {
+        return maxRetries;
+    }
+
+    public Duration maxDelay() {
+        return maxDelay;
+    }
+
+    static boolean isRetryableStatus(int status) {
+        return RETRYABLE_STATUSES.contains(status);
+    }
+
+    /**
+     * An I/O failure is safe to retry if the method is idempotent, or if the connection was never
+     * made, so the request cannot have reached the upstream. A timeout or reset after a POST was
+     * sent may already have started a billed generation.
+     */
+    static boolean isRetryableFailure(Request request, IOException error) {
+        if (IDEMPOTENT_METHODS.contains(request.method())) {
+            return true;
+        }
+        return error instanceof ConnectException
+            || error instanceof UnknownHostException
+            || error instanceof NoRouteToHostException;
+    }
+
+    /**
+     * Decorrelated jitter: a random delay between the base delay and three times the previous one,
+     * capped at the maximum delay.
+     */
+    Duration nextDelay(Duration previous) {
+        long base = baseDelay.toMillis();
+        long upper = Math.min(maxDelay.toMillis(), Math.max(base, previous.toMillis() * 3));
+        long millis = upper <= base ? base : ThreadLocalRandom.current().nextLong(base, upper + 1);
+        return Duration.ofMillis(millis);
+    }
+
+    /**
+     * @return the delay requested by a {@code Retry-After} header (seconds or HTTP date), or null
+     */
+    Duration retryAfter(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        String value = header.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            // not delta-seconds, try an HTTP date
+        }
+        try {
+            Instant at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            Duration delay = Duration.between(Instant.now(clock), at);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    void onRequest() {
+        budget.onRequest();
+    }
+
+    /**
+     * Spend a retry token; counts the retry (or its refusal) in {@code upstream_retries_total}.
+     */
+    boolean acquireRetry(String provider, String reason) {
+        if (!budget.tryAcquireRetry()) {
+            metrics.counter("upstream_retries_denied_total", "Upstream retries refused by the retry budget",
+                "provider", provider).increment();
+            return false;
+        }
+        metrics.counter("upstream_retries_total", "Upstream retries by reason",
+            "provider", provider, "reason", reason).increment();
+        return true;
+    }
+
+    private static int intOrDefault(String value, int defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed >= 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.hpadventure.providers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.function.Supplier;
+
 /**
  * Factory for creating SpeechProvider instances based on environment configuration.
  */
@@ -22,6 +25,18 @@ public final class SpeechProviderFactory {
      * Create a SpeechProvider from environment variables.
      */
     public static SpeechProvider fromEnv(OkHttpClient httpClient, ObjectMapper mapper) {
+        return fromEnv(httpClient, mapper, false);
+    }
+
+    /**
+     * Like {@link #fromEnv}, but the provider is only created on first use. The configuration is still
+     * checked and reported here, at boot.
+     */
+    public static SpeechProvider lazyFromEnv(OkHttpClient httpClient, ObjectMapper mapper) {
+        return fromEnv(httpClient, mapper, true);
+    }
+
+    private static SpeechProvider fromEnv(OkHttpClient httpClient, ObjectMapper mapper, boolean lazy) {
         String apiKey = System.getenv("ELEVENLABS_API_KEY");
         String voiceId = System.getenv().getOrDefault("ELEVENLABS_VOICE_ID", DEFAULT_ELEVENLABS_VOICE_ID);
         String model = System.getenv().getOrDefault("ELEVENLABS_MODEL", DEFAULT_ELEVENLABS_MODEL);
@@ -29,7 +44,21 @@ public final class SpeechProviderFactory {
         String outputFormat = System.getenv("ELEVENLABS_OUTPUT_FORMAT");
         Integer optimizeLatency = parseIntOrNull(System.getenv("ELEVENLABS_OPTIMIZE_STREAMING_LATENCY"));
 
-        return create(httpClient, mapper, apiKey, voiceId, model, baseUrl, outputFormat, optimizeLatency);
+        checkConfig(apiKey, voiceId, baseUrl);
+        Supplier<SpeechProvider> provider =
+            () -> build(httpClient, mapper, apiKey, voiceId, model, baseUrl, outputFormat, optimizeLatency);
+        return lazy ? new LazySpeechProvider(provider) : provider.get();
+    }
+
+    /**
+     * @return the ElevenLabs base URL (for connection pre-warming), or null if no API key is set
+     */
+    public static String baseUrlFromEnv() {
+        String apiKey = System.getenv("ELEVENLABS_API_KEY");
+        if (apiKey == null || apiKey.isBlank()) {
+            return null;
+        }
+        return System.getenv().getOrDefault("ELEVENLABS_BASE_URL", DEFAULT_ELEVENLABS_BASE_URL);
     }
 
     /**
@@ -45,12 +74,36 @@ public final class SpeechProviderFactory {
         String outputFormat,
         Integer optimizeLatency
     ) {
+        checkConfig(apiKey, voiceId, baseUrl != null ? baseUrl : DEFAULT_ELEVENLABS_BASE_URL);
+        return build(httpClient, mapper, apiKey, voiceId, model, baseUrl, outputFormat, optimizeLatency);
+    }
+
+    /**
+     * Log which speech setup is in use.
+     *
+     * @throws IllegalStateException if {@code baseUrl} is not an http(s) URL
+     */
+    private static void checkConfig(String apiKey, String voiceId, String baseUrl) {
+        if (HttpUrl.parse(baseUrl) == null) {
+            throw new IllegalStateException("ELEVENLABS_BASE_URL is not a valid URL: " + baseUrl);
+        }
         if (apiKey != null && !apiKey.isBlank()) {
             logger.info("Using ElevenLabs for speech (voiceId={})", voiceId);
         } else {
             logger.warn("No speech API key configured (ELEVENLABS_API_KEY)");
         }
+    }
 
+    private static SpeechProvider build(
+        OkHttpClient httpClient,
+        ObjectMapper mapper,
+        String apiKey,
+        String voiceId,
+        String model,
+        String baseUrl,
+        String outputFormat,
+        Integer optimizeLatency
+    ) {
         return new ElevenLabsSpeechProvider(
             httpClient,
             mapper,
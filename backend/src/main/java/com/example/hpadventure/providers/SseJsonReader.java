@@ -0,0 +1,227 @@
+package com.example.hpadventure.providers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import okio.BufferedSource;
+import okio.ByteString;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reads the JSON {@code data:} payloads of a server-sent event stream straight from an upstream
+ * response body.
+ *
+ * Instead of materializing each line as a String and data-binding it into chunk records, every
+ * payload is copied into a reusable byte buffer and fed to a single non-blocking Jackson parser
+ * that lives for the whole stream. Only scalar values at the requested {@link Path}s are kept;
+ * everything else in the event is skipped token by token.
+ *
+ * Usage:
+ * <pre>
+ * SseJsonReader events = new SseJsonReader(factory, source, DELTA_CONTENT);
+ * while (events.next()) {
+ *     String content = events.value(DELTA_CONTENT);
+ * }
+ * </pre>
+ */
+final class SseJsonReader implements Closeable {
+    private static final ByteString DATA_PREFIX = ByteString.encodeUtf8("data:");
+    private static final byte[] DONE = {'[', 'D', 'O', 'N', 'E', ']'};
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final BufferedSource source;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Path[] paths;
+    private final String[] values;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+    SseJsonReader(JsonFactory factory, BufferedSource source, Path... paths) throws IOException {
+        Objects.requireNonNull(factory, "factory");
+        this.source = Objects.requireNonNull(source, "source");
+        this.paths = paths.clone();
+        this.values = new String[paths.length];
+        this.parser = factory.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Advance to the next JSON data event.
+     *
+     * @return false once the stream is exhausted
+     * @throws JsonParseException if an event payload is not a complete JSON value
+     */
+    boolean next() throws IOException {
+        while (true) {
+            int length = readDataPayload();
+            if (length < 0) {
+                return false;
+            }
+            int start = 0;
+            int end = length;
+            while (start < end && isWhitespace(buffer[start])) {
+                start++;
+            }
+            while (end > start && isWhitespace(buffer[end - 1])) {
+                end--;
+            }
+            if (start == end || isDone(start, end)) {
+                continue;
+            }
+            parseEvent(start, end);
+            return true;
+        }
+    }
+
+    /**
+     * The scalar value found at {@code path} in the current event, or null if the event had none.
+     */
+    String value(Path path) {
+        for (int i = 0; i < paths.length; i++) {
+            if (paths[i] == path) {
+                return values[i];
+            }
+        }
+        throw new IllegalArgumentException("Path was not registered with this reader: " + path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        feeder.endOfInput();
+        parser.close();
+    }
+
+    /**
+     * Copy the payload of the next {@code data:} line into {@link #buffer}, skipping comments,
+     * event names and other fields.
+     *
+     * @return payload length in bytes, or -1 at end of stream
+     */
+    private int readDataPayload() throws IOException {
+        while (true) {
+            long newline = source.indexOf((byte) '\n');
+            long lineLength;
+            if (newline >= 0) {
+                lineLength = newline + 1;
+            } else if (source.exhausted()) {
+                return -1;
+            } else {
+                lineLength = source.getBuffer().size();
+            }
+
+            if (lineLength < DATA_PREFIX.size() || !source.rangeEquals(0, DATA_PREFIX)) {
+                source.skip(lineLength);
+                continue;
+            }
+
+            source.skip(DATA_PREFIX.size());
+            int payloadLength = Math.toIntExact(lineLength - DATA_PREFIX.size());
+            ensureCapacity(payloadLength);
+            int read = 0;
+            while (read < payloadLength) {
+                int count = source.read(buffer, read, payloadLength - read);
+                if (count < 0) {
+                    break;
+                }
+                read += count;
+            }
+            return read;
+        }
+    }
+
+    private void parseEvent(int start, int end) throws IOException {
+        Arrays.fill(values, null);
+        feeder.feedInput(buffer, start, end);
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (!token.isScalarValue() || token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            JsonStreamContext context = parser.getParsingContext();
+            for (int i = 0; i < paths.length; i++) {
+                if (paths[i].matches(context)) {
+                    values[i] = parser.getText();
+                }
+            }
+        }
+
+        if (!parser.getParsingContext().inRoot()) {
+            throw new JsonParseException(parser, "Incomplete JSON value in SSE data event");
+        }
+    }
+
+    private boolean isDone(int start, int end) {
+        if (end - start != DONE.length) {
+            return false;
+        }
+        for (int i = 0; i < DONE.length; i++) {
+            if (buffer[start + i] != DONE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer.length < length) {
+            buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    /**
+     * Location of a scalar inside an event, e.g. {@code Path.of("choices", 0, "delta", "content")}.
+     * Segments are object field names (String) or array indexes (Integer).
+     */
+    static final class Path {
+        private final Object[] segments;
+
+        private Path(Object[] segments) {
+            this.segments = segments;
+        }
+
+        static Path of(Object... segments) {
+            for (Object segment : segments) {
+                if (!(segment instanceof String) && !(segment instanceof Integer)) {
+                    throw new IllegalArgumentException("Path segments must be field names or array indexes");
+                }
+            }
+            return new Path(segments.clone());
+        }
+
+        private boolean matches(JsonStreamContext context) {
+            JsonStreamContext current = context;
+            for (int i = segments.length - 1; i >= 0; i--) {
+                if (current == null) {
+                    return false;
+                }
+                Object segment = segments[i];
+                if (segment instanceof String name) {
+                    if (!current.inObject() || !name.equals(current.getCurrentName())) {
+                        return false;
+                    }
+                } else if (!current.inArray() || current.getCurrentIndex() != (Integer) segment) {
+                    return false;
+                }
+                current = current.getParent();
+            }
+            return current != null && current.inRoot();
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(segments);
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.example.hpadventure.providers;
 
+import com.example.hpadventure.services.UpstreamException;
+import com.example.hpadventure.usage.Usage;
+
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 
 /**
@@ -31,9 +37,63 @@ public interface TextProvider {
      */
     void streamMessage(String systemPrompt, List<Message> messages, int maxTokens, Consumer<String> onDelta);
 
+    /**
+     * Create independent messages, handing each outcome to onResult as soon as it is known, in any order
+     * and possibly from several threads at once. This default sends them through
+     * {@link #createMessage}, at most {@code parallelism} at a time; providers with a batch API may
+     * submit them upstream in one batch instead, which is cheaper but can take much longer.
+     *
+     * Failures are reported per request through {@link BatchResult#error()}. Returns once every
+     * request has its outcome, or early if the calling thread is interrupted.
+     *
+     * @param parallelism requests in flight at most; ignored by upstream batches
+     */
+    default void createMessages(List<BatchRequest> requests, int parallelism, Consumer<BatchResult> onResult) {
+        Semaphore slots = new Semaphore(Math.max(1, parallelism));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (BatchRequest request : requests) {
+                try {
+                    slots.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    executor.shutdownNow();
+                    return;
+                }
+                executor.execute(Usage.propagate(() -> {
+                    try {
+                        String text = createMessage(request.systemPrompt(), request.messages(), request.maxTokens());
+                        onResult.accept(new BatchResult(request.id(), text, null));
+                    } catch (UpstreamException e) {
+                        onResult.accept(new BatchResult(request.id(), null, e));
+                    } catch (RuntimeException e) {
+                        // Anything else is this item's failure too, not a reason to drop its result
+                        onResult.accept(new BatchResult(request.id(), null,
+                            new UpstreamException("INTERNAL_ERROR", 500, e.toString(), e)));
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+        }
+    }
+
     /**
      * A message in the conversation.
      */
     record Message(String role, String content) {
     }
+
+    /**
+     * One request of {@link #createMessages}.
+     *
+     * @param id identifies the result; letters, digits, {@code -} and {@code _}, at most 64 characters
+     */
+    record BatchRequest(String id, String systemPrompt, List<Message> messages, int maxTokens) {
+    }
+
+    /**
+     * The outcome of one {@link BatchRequest}: its text, or the error it failed with.
+     */
+    record BatchResult(String id, String text, UpstreamException error) {
+    }
 }
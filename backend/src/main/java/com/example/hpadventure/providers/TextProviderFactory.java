@@ -5,6 +5,8 @@ import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+
 /**
  * Factory for creating TextProvider instances based on environment configuration.
  * Priority: OPENROUTER_API_KEY > ANTHROPIC_API_KEY
@@ -16,6 +18,7 @@ public final class TextProviderFactory {
     private static final String DEFAULT_OPENROUTER_MODEL = "xiaomi/mimo-v2-flash:free";
     private static final String DEFAULT_ANTHROPIC_BASE_URL = "https://api.anthropic.com";
     private static final String DEFAULT_ANTHROPIC_MODEL = "claude-sonnet-4-5";
+    private static final int DEFAULT_ANTHROPIC_BATCH_POLL_SECONDS = 30;
 
     private TextProviderFactory() {
     }
@@ -31,14 +34,33 @@ public final class TextProviderFactory {
         String anthropicApiKey = System.getenv("ANTHROPIC_API_KEY");
         String anthropicBaseUrl = System.getenv().getOrDefault("ANTHROPIC_BASE_URL", DEFAULT_ANTHROPIC_BASE_URL);
         String anthropicModel = System.getenv().getOrDefault("ANTHROPIC_MODEL", DEFAULT_ANTHROPIC_MODEL);
+        // Opt-in: bulk calls (batch summaries) go through the Message Batches API
+        Duration anthropicBatchPollInterval = null;
+        if ("true".equalsIgnoreCase(System.getenv("ANTHROPIC_BATCH_API"))) {
+            anthropicBatchPollInterval = Duration.ofSeconds(
+                positiveOrDefault(System.getenv("ANTHROPIC_BATCH_POLL_SECONDS"), DEFAULT_ANTHROPIC_BATCH_POLL_SECONDS));
+        }
 
         return create(
             httpClient, mapper,
             openRouterApiKey, openRouterModel, openRouterBaseUrl,
-            anthropicApiKey, anthropicModel, anthropicBaseUrl
+            anthropicApiKey, anthropicModel, anthropicBaseUrl, anthropicBatchPollInterval
         );
     }
 
+    /**
+     * @return the base URL of the provider {@link #fromEnv} picks (for connection pre-warming), or null
+     */
+    public static String baseUrlFromEnv() {
+        if (!isBlank(System.getenv("OPENROUTER_API_KEY"))) {
+            return System.getenv().getOrDefault("OPENROUTER_BASE_URL", DEFAULT_OPENROUTER_BASE_URL);
+        }
+        if (!isBlank(System.getenv("ANTHROPIC_API_KEY"))) {
+            return System.getenv().getOrDefault("ANTHROPIC_BASE_URL", DEFAULT_ANTHROPIC_BASE_URL);
+        }
+        return null;
+    }
+
     /**
      * Create a TextProvider with explicit configuration.
      * Priority: OpenRouter > Anthropic
@@ -52,6 +74,27 @@ public final class TextProviderFactory {
         String anthropicApiKey,
         String anthropicModel,
         String anthropicBaseUrl
+    ) {
+        return create(httpClient, mapper, openRouterApiKey, openRouterModel, openRouterBaseUrl,
+            anthropicApiKey, anthropicModel, anthropicBaseUrl, null);
+    }
+
+    /**
+     * Like {@link #create(OkHttpClient, ObjectMapper, String, String, String, String, String, String)}.
+     *
+     * @param anthropicBatchPollInterval with Anthropic, send {@link TextProvider#createMessages} as a Message
+     *                                   Batch polled at this interval; null sends them one by one
+     */
+    public static TextProvider create(
+        OkHttpClient httpClient,
+        ObjectMapper mapper,
+        String openRouterApiKey,
+        String openRouterModel,
+        String openRouterBaseUrl,
+        String anthropicApiKey,
+        String anthropicModel,
+        String anthropicBaseUrl,
+        Duration anthropicBatchPollInterval
     ) {
         // Prefer OpenRouter if configured
         if (openRouterApiKey != null && !openRouterApiKey.isBlank()) {
@@ -67,13 +110,15 @@ public final class TextProviderFactory {
 
         // Fall back to Anthropic
         if (anthropicApiKey != null && !anthropicApiKey.isBlank()) {
-            logger.info("Using Anthropic for text generation (model={})", anthropicModel);
+            logger.info("Using Anthropic for text generation (model={}, batches={})",
+                anthropicModel, anthropicBatchPollInterval != null);
             return new AnthropicTextProvider(
                 httpClient,
                 mapper,
                 anthropicApiKey,
                 anthropicModel,
-                anthropicBaseUrl
+                anthropicBaseUrl,
+                anthropicBatchPollInterval
             );
         }
 
@@ -82,4 +127,20 @@ public final class TextProviderFactory {
             "No text API key configured. Set OPENROUTER_API_KEY or ANTHROPIC_API_KEY environment variable."
         );
     }
+
+    private static int positiveOrDefault(String value, int defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
 }
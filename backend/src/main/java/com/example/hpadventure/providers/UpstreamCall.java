@@ -0,0 +1,9 @@
+package com.example.hpadventure.providers;
+
+/**
+ * Request tag describing one upstream attempt, read by {@link UpstreamCallInterceptor}.
+ *
+ * @param attempt 1-based attempt number within the provider's retry loop
+ */
+record UpstreamCall(String provider, String model, int attempt) {
+}
@@ -0,0 +1,162 @@
+package com.example.hpadventure.providers;
+
+import com.example.hpadventure.jfr.UpstreamCallEvent;
+import com.example.hpadventure.tracing.Span;
+import com.example.hpadventure.tracing.Tracing;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+
+/**
+ * Records every upstream call as a child of the caller's current trace span and as a JFR
+ * {@link UpstreamCallEvent}. Both stay open until the response body is consumed or closed, so a
+ * streamed completion is measured end to end, not just to the response headers. With no trace and
+ * no flight recording the call passes through untouched.
+ */
+final class UpstreamCallInterceptor implements Interceptor {
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        UpstreamCall call = request.tag(UpstreamCall.class);
+        Span span = Tracing.startDetached(call == null ? "upstream" : "upstream." + call.provider());
+        UpstreamCallEvent event = new UpstreamCallEvent();
+        boolean recordEvent = event.isEnabled();
+        if (!span.isRecording() && !recordEvent) {
+            return chain.proceed(request);
+        }
+        CallRecord record = new CallRecord(span, recordEvent ? event : null);
+        record.begin(request, call);
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            record.failed(e);
+            record.end(0);
+            throw e;
+        }
+        record.responded(response);
+        ResponseBody body = response.body();
+        if (body == null) {
+            record.end(0);
+            return response;
+        }
+        return response.newBuilder().body(new RecordedBody(body, record)).build();
+    }
+
+    private static final class CallRecord {
+        private final Span span;
+        private final UpstreamCallEvent event;
+        private boolean ended;
+
+        private CallRecord(Span span, UpstreamCallEvent event) {
+            this.span = span;
+            this.event = event;
+        }
+
+        private void begin(Request request, UpstreamCall call) {
+            String host = request.url().host();
+            span.attribute("http.method", request.method()).attribute("server.address", host);
+            if (call != null) {
+                span.attribute("model", call.model()).attribute("attempt", call.attempt());
+            }
+            if (event != null) {
+                event.begin();
+                event.host = host;
+                if (call != null) {
+                    event.provider = call.provider();
+                    event.model = call.model();
+                    event.retries = call.attempt() - 1;
+                }
+            }
+        }
+
+        private void responded(Response response) {
+            span.attribute("http.status", response.code()).attribute("protocol", response.protocol().toString());
+            if (!response.isSuccessful()) {
+                span.error("HTTP " + response.code());
+            }
+            if (event != null) {
+                event.status = response.code();
+            }
+        }
+
+        private void failed(Exception e) {
+            span.error(e);
+            if (event != null) {
+                event.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+        }
+
+        private synchronized void end(long bytesRead) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            span.attribute("response.bytes", bytesRead).close();
+            if (event != null) {
+                event.responseBytes = bytesRead;
+                event.commit();
+            }
+        }
+    }
+
+    private static final class RecordedBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        private RecordedBody(ResponseBody delegate, CallRecord record) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                private long bytesRead;
+
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        record.failed(e);
+                        record.end(bytesRead);
+                        throw e;
+                    }
+                    if (read == -1) {
+                        record.end(bytesRead);
+                    } else {
+                        bytesRead += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    record.end(bytesRead);
+                    super.close();
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.hpadventure.providers;
+
+import com.example.hpadventure.metrics.Metrics;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OkHttp clients for the upstream providers. Every provider gets its own connection pool and dispatcher,
+ * derived from one shared base client, so slow image or speech calls never take connections (or HTTP/2
+ * streams on a shared connection) away from latency-sensitive text streams.
+ */
+public final class UpstreamClients {
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamClients.class);
+
+    public static final PoolSettings TEXT_DEFAULTS = new PoolSettings(8, Duration.ofMinutes(5), 64, 32);
+    public static final PoolSettings IMAGE_DEFAULTS = new PoolSettings(4, Duration.ofMinutes(5), 32, 8);
+    public static final PoolSettings SPEECH_DEFAULTS = new PoolSettings(4, Duration.ofMinutes(5), 32, 8);
+
+    private UpstreamClients() {
+    }
+
+    /**
+     * The shared base without retries, see {@link #base(RetryPolicy)}.
+     */
+    public static OkHttpClient base() {
+        return base(null);
+    }
+
+    /**
+     * The shared base: timeouts, HTTP/2 (negotiated via ALPN, HTTP/1.1 otherwise), TCP keep-alive on
+     * every socket and HTTP/2 pings so idle pooled connections survive NAT and load-balancer timeouts.
+     * Transient failures are retried per {@code retryPolicy} (null for none), and every attempt is
+     * recorded as a trace span and a JFR event (see {@link UpstreamCallInterceptor}).
+     */
+    public static OkHttpClient base(RetryPolicy retryPolicy) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .readTimeout(Duration.ofSeconds(60))
+            .callTimeout(Duration.ofSeconds(60))
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .socketFactory(new KeepAliveSocketFactory(SocketFactory.getDefault()))
+            .pingInterval(Duration.ofSeconds(30))
+            .retryOnConnectionFailure(true);
+        if (retryPolicy != null) {
+            builder.addInterceptor(new RetryInterceptor(retryPolicy));
+        }
+        return builder
+            .addInterceptor(new UpstreamCallInterceptor())
+            .build();
+    }
+
+    /**
+     * Derive a client with its own pool, dispatcher and {@link BulkheadInterceptor}, and export their
+     * utilization as {@code upstream_pool_*} / {@code upstream_dispatcher_*} / {@code upstream_bulkhead_*}
+     * gauges labelled {@code client=name}. The request limits bind synchronous calls through the bulkhead
+     * and the async prewarm through the dispatcher.
+     */
+    public static OkHttpClient forProvider(OkHttpClient base, String name, PoolSettings settings, Metrics metrics) {
+        ConnectionPool pool = new ConnectionPool(
+            settings.maxIdleConnections(), settings.keepAlive().toMillis(), TimeUnit.MILLISECONDS);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(settings.maxRequests());
+        dispatcher.setMaxRequestsPerHost(settings.maxRequestsPerHost());
+        BulkheadInterceptor bulkhead = new BulkheadInterceptor(settings.maxRequests(), settings.maxRequestsPerHost());
+
+        metrics.gauge("upstream_pool_connections", "Open upstream connections",
+            pool::connectionCount, "client", name);
+        metrics.gauge("upstream_pool_idle_connections", "Idle upstream connections",
+            pool::idleConnectionCount, "client", name);
+        metrics.gauge("upstream_dispatcher_running_calls", "Upstream calls in flight",
+            dispatcher::runningCallsCount, "client", name);
+        metrics.gauge("upstream_dispatcher_queued_calls", "Async upstream calls waiting for a per-host slot",
+            dispatcher::queuedCallsCount, "client", name);
+        metrics.gauge("upstream_bulkhead_waiting_calls", "Upstream calls waiting for a request slot",
+            bulkhead::waitingCalls, "client", name);
+
+        return base.newBuilder()
+            .connectionPool(pool)
+            .dispatcher(dispatcher)
+            .addInterceptor(bulkhead)
+            .build();
+    }
+
+    /**
+     * Open a pooled connection to the upstream's origin in the background (DNS, TCP, TLS and ALPN), so
+     * the first real call does not pay for it. Failures are only logged.
+     */
+    public static void prewarm(OkHttpClient client, String name, String baseUrl) {
+        HttpUrl url = baseUrl == null ? null : HttpUrl.parse(baseUrl);
+        if (url == null) {
+            return;
+        }
+        Request request = new Request.Builder()
+            .url(url.newBuilder().encodedPath("/").build())
+            .head()
+            .build();
+        long startTime = System.nanoTime();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                logger.warn("Upstream prewarm failed: client={} host={} error={}", name, url.host(), e.getMessage());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    logger.info("Upstream prewarm done: client={} host={} protocol={} durationMs={}",
+                        name, url.host(), response.protocol(), (System.nanoTime() - startTime) / 1_000_000);
+                }
+            }
+        });
+    }
+
+    /**
+     * Pool and dispatcher limits for one provider client.
+     *
+     * @param maxRequests caps the client's calls in flight
+     * @param maxRequestsPerHost caps the client's calls in flight to one host
+     */
+    public record PoolSettings(int maxIdleConnections, Duration keepAlive, int maxRequests, int maxRequestsPerHost) {
+        /**
+         * Override the defaults from {@code UPSTREAM_<NAME>_MAX_IDLE}, {@code UPSTREAM_<NAME>_KEEP_ALIVE_SECONDS},
+         * {@code UPSTREAM_<NAME>_MAX_REQUESTS} and {@code UPSTREAM_<NAME>_MAX_REQUESTS_PER_HOST}.
+         */
+        public static PoolSettings fromEnv(String name, PoolSettings defaults) {
+            String prefix = "UPSTREAM_" + name.toUpperCase(Locale.ROOT) + "_";
+            return new PoolSettings(
+                positiveIntOrDefault(System.getenv(prefix + "MAX_IDLE"), defaults.maxIdleConnections()),
+                Duration.ofSeconds(positiveIntOrDefault(
+                    System.getenv(prefix + "KEEP_ALIVE_SECONDS"), (int) defaults.keepAlive().toSeconds())),
+                positiveIntOrDefault(System.getenv(prefix + "MAX_REQUESTS"), defaults.maxRequests()),
+                positiveIntOrDefault(System.getenv(prefix + "MAX_REQUESTS_PER_HOST"), defaults.maxRequestsPerHost())
+            );
+        }
+
+        private static int positiveIntOrDefault(String value, int defaultValue) {
+            if (value == null || value.isBlank()) {
+                return defaultValue;
+            }
+            try {
+                int parsed = Integer.parseInt(value.trim());
+                return parsed > 0 ? parsed : defaultValue;
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+    }
+
+    private static final class KeepAliveSocketFactory extends SocketFactory {
+        private final SocketFactory delegate;
+
+        private KeepAliveSocketFactory(SocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return configure(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return configure(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+            throws IOException {
+            return configure(delegate.createSocket(address, port, localAddress, localPort));
+        }
+
+        private static Socket configure(Socket socket) throws SocketException {
+            socket.setKeepAlive(true);
+            socket.setTcpNoDelay(true);
+            return socket;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.usage.Usage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Illustrations rendered off the request thread: {@link StoryService#nextTurn} answers with the story and
+ * an image job id, and clients fetch the image from the job when it is done.
+ *
+ * Jobs run on a small worker pool with a bounded queue. A job for a prompt that already has an unexpired
+ * job (queued, running or done) is not started again; the existing job is returned. Finished jobs keep
+ * their image for {@code ttl}; beyond {@code maxStored} jobs, the oldest finished ones are dropped early.
+ */
+public final class ImageJobs {
+    private static final Logger logger = LoggerFactory.getLogger(ImageJobs.class);
+    private static final String FAILURE_MESSAGE = "Illustration konnte nicht geladen werden.";
+
+    public static final String PENDING = "pending";
+    public static final String DONE = "done";
+    public static final String FAILED = "failed";
+
+    private final Metrics metrics;
+    private final Clock clock;
+    private final Duration ttl;
+    private final int maxStored;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, Job> jobsById = new LinkedHashMap<>();
+    private final Map<String, Job> jobsByPrompt = new LinkedHashMap<>();
+
+    /**
+     * @param workers    images rendered at the same time
+     * @param maxPending jobs waiting for a worker before new ones are rejected
+     * @param maxStored  jobs (with their images) kept at most
+     */
+    public ImageJobs(Metrics metrics, Clock clock, int workers, int maxPending, Duration ttl, int maxStored) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("maxPending must be positive");
+        }
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        if (maxStored <= 0) {
+            throw new IllegalArgumentException("maxStored must be positive");
+        }
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.ttl = ttl;
+        this.maxStored = maxStored;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxPending), runnable -> {
+                Thread thread = new Thread(runnable, "image-job-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        metrics.gauge("image_jobs_stored", "Image jobs queued, running or holding a finished image", this::size);
+        metrics.gauge("image_jobs_queued", "Image jobs waiting for a worker", () -> this.workers.getQueue().size());
+    }
+
+    /**
+     * Render {@code prompt} with {@code renderer} on a worker, or join the unexpired job for the same prompt.
+     *
+     * @throws UpstreamException OVERLOADED if the job queue is full
+     */
+    Job submit(String prompt, Function<String, Dtos.Image> renderer) {
+        String key = prompt == null ? "" : prompt;
+        Job job;
+        synchronized (this) {
+            sweep();
+            Job existing = jobsByPrompt.get(key);
+            if (existing != null && !existing.isFailed()) {
+                metrics.counter("image_jobs_submitted_total", "Image jobs requested", "result", "deduplicated")
+                    .increment();
+                return existing;
+            }
+            job = new Job(UUID.randomUUID().toString(), clock.instant());
+            try {
+                workers.execute(Usage.propagate("image", () -> job.run(renderer, prompt)));
+            } catch (RejectedExecutionException e) {
+                metrics.counter("image_jobs_submitted_total", "Image jobs requested", "result", "rejected")
+                    .increment();
+                throw new UpstreamException("OVERLOADED", 503, "Image job queue is full");
+            }
+            jobsById.put(job.id, job);
+            jobsByPrompt.put(key, job);
+            evictOverflow();
+        }
+        metrics.counter("image_jobs_submitted_total", "Image jobs requested", "result", "started").increment();
+        return job;
+    }
+
+    /**
+     * Wait up to {@code maxWait} for job {@code id} to finish.
+     *
+     * @return the job as it is after the wait (still pending if it did not finish), or null if it is
+     *     unknown or expired
+     */
+    public Dtos.ImageJob await(String id, Duration maxWait) throws InterruptedException {
+        Job job;
+        synchronized (this) {
+            sweep();
+            job = id == null ? null : jobsById.get(id);
+        }
+        if (job == null) {
+            return null;
+        }
+        try {
+            job.result.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Reported through the snapshot
+        }
+        return job.snapshot();
+    }
+
+    public synchronized int size() {
+        return jobsById.size();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void sweep() {
+        Instant cutoff = clock.instant().minus(ttl);
+        Iterator<Job> jobs = jobsById.values().iterator();
+        while (jobs.hasNext()) {
+            Job job = jobs.next();
+            if (job.finishedAt != null && job.finishedAt.isBefore(cutoff)) {
+                jobs.remove();
+                jobsByPrompt.values().remove(job);
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Job> jobs = jobsById.values().iterator();
+        while (jobsById.size() > maxStored && jobs.hasNext()) {
+            Job job = jobs.next();
+            if (job.finishedAt != null) {
+                jobs.remove();
+                jobsByPrompt.values().remove(job);
+            }
+        }
+    }
+
+    /**
+     * One image being rendered, or its outcome.
+     */
+    final class Job {
+        private final String id;
+        private final Instant createdAt;
+        private final CompletableFuture<Dtos.Image> result = new CompletableFuture<>();
+        private volatile Instant finishedAt;
+        private volatile Dtos.ErrorResponse.Error error;
+
+        private Job(String id, Instant createdAt) {
+            this.id = id;
+            this.createdAt = createdAt;
+        }
+
+        String id() {
+            return id;
+        }
+
+        private void run(Function<String, Dtos.Image> renderer, String prompt) {
+            String outcome = DONE;
+            try {
+                result.complete(Objects.requireNonNull(renderer.apply(prompt), "image"));
+            } catch (UpstreamException e) {
+                outcome = FAILED;
+                fail(new Dtos.ErrorResponse.Error(e.code(), FAILURE_MESSAGE, null), e);
+                logger.warn("Image job failed: jobId={} code={} status={} message={}",
+                    id, e.code(), e.status(), e.getMessage());
+            } catch (RuntimeException e) {
+                outcome = FAILED;
+                fail(new Dtos.ErrorResponse.Error("INTERNAL_ERROR", FAILURE_MESSAGE, null), e);
+                logger.error("Image job failed unexpectedly: jobId={}", id, e);
+            } finally {
+                finishedAt = clock.instant();
+                metrics.counter("image_jobs_completed_total", "Image jobs finished", "result", outcome).increment();
+                metrics.counter("image_jobs_duration_ms_total", "Time from image job creation to its outcome")
+                    .add(Duration.between(createdAt, finishedAt).toMillis());
+            }
+        }
+
+        private void fail(Dtos.ErrorResponse.Error error, RuntimeException cause) {
+            this.error = error;
+            result.completeExceptionally(cause);
+        }
+
+        private boolean isFailed() {
+            return error != null;
+        }
+
+        private Dtos.ImageJob snapshot() {
+            if (error != null) {
+                return new Dtos.ImageJob(id, FAILED, null, error);
+            }
+            Dtos.Image image = result.getNow(null);
+            return image == null
+                ? new Dtos.ImageJob(id, PENDING, null, null)
+                : new Dtos.ImageJob(id, DONE, image, null);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.metrics.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Instant stand-ins for illustrations that are still rendering: a small blurred SVG whose palette is
+ * picked from the scene's keywords (night, fire, forest, water, snow, else castle stone) and whose
+ * shapes are placed by a hash of the scene, so the same scene always gets the same preview.
+ *
+ * Also measures time-to-first-pixel: from the moment a turn's image is requested (its text is complete
+ * and the frame is empty) until the preview or, without one, the full image is there.
+ */
+public final class ImagePreviews {
+    private static final String SCENE_MARKER = "Szene: ";
+    private static final int SIZE = 256;
+    private static final List<Palette> PALETTES = List.of(
+        new Palette(List.of("nacht", "dunkel", "kerker", "schatten", "mond", "stern"),
+            "#0b1026", "#1e2a5a", "#c9d6ff"),
+        new Palette(List.of("feuer", "fackel", "kerze", "kamin", "flamme", "drache", "abend"),
+            "#2a0f05", "#a23b0c", "#ffcf6e"),
+        new Palette(List.of("wald", "baum", "wiese", "garten", "gewächshaus", "pflanze"),
+            "#0c1f10", "#2f5d34", "#b8d99a"),
+        new Palette(List.of("see", "wasser", "meer", "regen", "fluss", "brunnen"),
+            "#061a26", "#1f5f7a", "#a6e1f0"),
+        new Palette(List.of("schnee", "eis", "winter", "frost"),
+            "#27323d", "#8aa4b8", "#f2f7fb")
+    );
+    private static final Palette STONE = new Palette(List.of(), "#1a1424", "#5b4a6e", "#e8c98a");
+
+    private final Metrics metrics;
+    private final boolean enabled;
+
+    /**
+     * @param enabled whether previews are sent; time-to-first-pixel is measured either way
+     */
+    public ImagePreviews(Metrics metrics, boolean enabled) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the preview for the scene of {@code imagePrompt}, as an {@code image/svg+xml} image
+     */
+    Dtos.Image render(String imagePrompt) {
+        String scene = sceneOf(imagePrompt);
+        Palette palette = paletteFor(scene);
+        int hash = scene.hashCode();
+
+        StringBuilder svg = new StringBuilder(640);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ").append(SIZE).append(' ').append(SIZE)
+            .append("\" width=\"").append(SIZE).append("\" height=\"").append(SIZE).append("\">")
+            .append("<defs><linearGradient id=\"sky\" x1=\"0\" y1=\"0\" x2=\"0\" y2=\"1\">")
+            .append("<stop offset=\"0\" stop-color=\"").append(palette.dark()).append("\"/>")
+            .append("<stop offset=\"1\" stop-color=\"").append(palette.mid()).append("\"/>")
+            .append("</linearGradient><filter id=\"soft\"><feGaussianBlur stdDeviation=\"18\"/></filter></defs>")
+            .append("<rect width=\"").append(SIZE).append("\" height=\"").append(SIZE)
+            .append("\" fill=\"url(#sky)\"/>")
+            .append("<g filter=\"url(#soft)\">");
+        for (int i = 0; i < 3; i++) {
+            int bits = Integer.rotateLeft(hash, i * 11);
+            int cx = 32 + Math.floorMod(bits, SIZE - 64);
+            int cy = 32 + Math.floorMod(bits >>> 8, SIZE - 96);
+            int r = 28 + Math.floorMod(bits >>> 16, 40);
+            svg.append("<circle cx=\"").append(cx).append("\" cy=\"").append(cy).append("\" r=\"").append(r)
+                .append("\" fill=\"").append(palette.light()).append("\" opacity=\"0.")
+                .append(3 + i * 2).append("\"/>");
+        }
+        int horizon = 150 + Math.floorMod(hash >>> 4, 60);
+        svg.append("<rect y=\"").append(horizon).append("\" width=\"").append(SIZE).append("\" height=\"")
+            .append(SIZE - horizon).append("\" fill=\"").append(palette.dark()).append("\" opacity=\"0.8\"/>")
+            .append("</g></svg>");
+
+        String base64 = Base64.getEncoder().encodeToString(svg.toString().getBytes(StandardCharsets.UTF_8));
+        return new Dtos.Image("image/svg+xml", base64, imagePrompt);
+    }
+
+    /**
+     * Record the time from {@code startedNanos} (a {@link System#nanoTime()}) to the first image shown.
+     *
+     * @param source {@code preview}, or {@code image} when the full image came first
+     */
+    void firstPixel(long startedNanos, String source) {
+        long millis = (System.nanoTime() - startedNanos) / 1_000_000;
+        metrics.counter("image_first_pixel_total", "Turn images shown, by what was shown first",
+            "source", source).increment();
+        metrics.counter("image_first_pixel_ms_total", "Time from a turn's image request to its first image",
+            "source", source).add(millis);
+    }
+
+    private static String sceneOf(String imagePrompt) {
+        if (imagePrompt == null) {
+            return "";
+        }
+        int marker = imagePrompt.lastIndexOf(SCENE_MARKER);
+        String scene = marker < 0 ? imagePrompt : imagePrompt.substring(marker + SCENE_MARKER.length());
+        return scene.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The first palette with a keyword that starts a word of the scene ("eis" matches "eisig", not "reise").
+     */
+    private static Palette paletteFor(String scene) {
+        String[] words = scene.split("[^\\p{L}]+");
+        for (Palette palette : PALETTES) {
+            for (String keyword : palette.keywords()) {
+                for (String word : words) {
+                    if (word.startsWith(keyword)) {
+                        return palette;
+                    }
+                }
+            }
+        }
+        return STONE;
+    }
+
+    private record Palette(List<String> keywords, String dark, String mid, String light) {
+    }
+}
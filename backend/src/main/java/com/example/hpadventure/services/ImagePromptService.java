@@ -1,5 +1,10 @@
 package com.example.hpadventure.services;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
 public final class ImagePromptService {
     private static final String STYLE_PREFIX =
         "Stimmungsvolle, detailreiche Fantasy-Illustration im Stil klassischer Buchkunst. "
@@ -8,6 +13,7 @@ public final class ImagePromptService {
             + "Zeige nur Landschaften, Orte, Gegenstände oder Gegner/Kreaturen/Tiere. Szene: ";
 
     private static final int FALLBACK_LIMIT = 220;
+    private static final int IMAGE_ID_BYTES = 12;
 
     public String buildPrompt(String scene, String storyText) {
         String cleanedScene = safeTrim(scene);
@@ -20,6 +26,22 @@ public final class ImagePromptService {
         return STYLE_PREFIX + cleanedScene.trim();
     }
 
+    /**
+     * Stable id for the image generated from {@code prompt}, so stored turns can refer to it without
+     * keeping the image bytes.
+     */
+    public String imageId(String prompt) {
+        if (prompt == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(prompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, IMAGE_ID_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private String fallbackScene(String storyText) {
         if (storyText == null || storyText.isBlank()) {
             return null;
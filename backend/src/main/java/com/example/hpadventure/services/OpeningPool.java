@@ -0,0 +1,259 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.usage.Usage;
+import com.example.hpadventure.usage.UsageLedger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Pre-generated opening turns ("start" with no history) per house, so a new adventure can begin
+ * without waiting for the text and image upstreams.
+ *
+ * Only players without completed adventures are served: the opening prompt of returning players
+ * quotes their own past adventures, which a shared opening cannot. Openings are generated without a
+ * player name (the story is told in the second person anyway), so any player of the house can get one.
+ *
+ * A background filler tops the emptiest house up by one opening per refill interval, as background
+ * work of the {@link WorkScheduler}. The image of a served opening is held until {@link StoryService} asks for
+ * it by its image prompt.
+ */
+public final class OpeningPool {
+    private static final Logger logger = LoggerFactory.getLogger(OpeningPool.class);
+    private static final int MAX_CLAIMED_IMAGES = 64;
+
+    private final Metrics metrics;
+    private final Clock clock;
+    private final int depth;
+    private final Duration refillInterval;
+    private final Duration ttl;
+    private final UsageLedger usageLedger;
+    private final Map<String, Deque<Opening>> pools = new LinkedHashMap<>();
+    private final Map<String, String> houseNames = new LinkedHashMap<>();
+    private final Map<String, Dtos.Image> claimedImages = new ConcurrentHashMap<>();
+    private ScheduledExecutorService filler;
+
+    /**
+     * @param houses      house names to keep openings for, matched case-insensitively
+     * @param depth       openings to keep per house
+     * @param usageLedger accounts the filler's upstream calls, or null
+     */
+    public OpeningPool(
+        Metrics metrics,
+        Clock clock,
+        List<String> houses,
+        int depth,
+        Duration refillInterval,
+        Duration ttl,
+        UsageLedger usageLedger
+    ) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth must be positive");
+        }
+        if (refillInterval == null || refillInterval.isZero() || refillInterval.isNegative()) {
+            throw new IllegalArgumentException("refillInterval must be positive");
+        }
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.depth = depth;
+        this.refillInterval = refillInterval;
+        this.ttl = ttl;
+        this.usageLedger = usageLedger;
+        for (String house : houses) {
+            String key = normalize(house);
+            if (key.isEmpty() || pools.containsKey(key)) {
+                continue;
+            }
+            Deque<Opening> pool = new ArrayDeque<>();
+            pools.put(key, pool);
+            houseNames.put(key, house.trim());
+            metrics.gauge("opening_pool_size", "Pre-generated opening turns ready to serve",
+                () -> sizeOf(pool), "house", key);
+        }
+    }
+
+    /**
+     * Start the background filler: every refill interval, one opening is queued as background work in
+     * {@code scheduler} and generated with {@code storyService}, unless interactive load defers it.
+     */
+    public synchronized void start(StoryService storyService, WorkScheduler scheduler) {
+        if (filler != null || pools.isEmpty()) {
+            return;
+        }
+        filler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "opening-pool-filler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicBoolean pending = new AtomicBoolean();
+        long intervalMillis = refillInterval.toMillis();
+        filler.scheduleWithFixedDelay(() -> {
+            if (emptiestHouse() == null || !pending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                scheduler.submit(WorkScheduler.Priority.BACKGROUND, "opening-pool", () -> {
+                    try {
+                        refillOnce(storyService::generateOpening, () -> !scheduler.underPressure());
+                    } finally {
+                        pending.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pending.set(false);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (filler != null) {
+            filler.shutdownNow();
+            filler = null;
+        }
+    }
+
+    /**
+     * Whether {@code request} is an opening this pool could serve.
+     */
+    static boolean isOpening(Dtos.StoryRequest request) {
+        boolean noHistory = request.conversationHistory() == null || request.conversationHistory().isEmpty();
+        boolean returningPlayer = request.player() != null && request.player().completedAdventures() != null
+            && !request.player().completedAdventures().isEmpty();
+        return noHistory && !returningPlayer && request.action() != null
+            && "start".equalsIgnoreCase(request.action().trim());
+    }
+
+    /**
+     * @return a fresh opening for the player's house, or null if none is ready
+     */
+    Opening take(Dtos.StoryRequest request) {
+        if (!isOpening(request) || request.player() == null) {
+            return null;
+        }
+        Deque<Opening> pool = pools.get(normalize(request.player().houseName()));
+        if (pool == null) {
+            return null;
+        }
+        Opening opening = poll(pool);
+        metrics.counter("opening_pool_requests_total", "Opening turns requested from a pooled house",
+            "result", opening == null ? "miss" : "hit").increment();
+        if (opening != null && opening.image() != null) {
+            if (claimedImages.size() >= MAX_CLAIMED_IMAGES) {
+                claimedImages.clear();
+            }
+            claimedImages.put(opening.imagePrompt(), opening.image());
+        }
+        return opening;
+    }
+
+    /**
+     * Whether a served opening's image for this image prompt is waiting to be taken.
+     */
+    boolean hasImage(String imagePrompt) {
+        return imagePrompt != null && claimedImages.containsKey(imagePrompt);
+    }
+
+    /**
+     * @return the image of a served opening with this image prompt, at most once
+     */
+    Dtos.Image takeImage(String imagePrompt) {
+        return imagePrompt == null ? null : claimedImages.remove(imagePrompt);
+    }
+
+    /**
+     * Generate one opening for the emptiest house, if {@code idle} says there is room for it.
+     */
+    void refillOnce(Function<String, Opening> generator, BooleanSupplier idle) {
+        if (!idle.getAsBoolean()) {
+            return;
+        }
+        String house = emptiestHouse();
+        if (house == null) {
+            return;
+        }
+        try (Usage.Scope ignored = usageLedger == null
+            ? Usage.Scope.NOOP
+            : Usage.begin(usageLedger, "opening-pool");
+             Usage.Scope callType = Usage.callType("opening")) {
+            Opening opening = generator.apply(houseNames.get(house));
+            Deque<Opening> pool = pools.get(house);
+            synchronized (pool) {
+                pool.addLast(opening);
+            }
+            metrics.counter("opening_pool_generated_total", "Opening turns generated for the pool").increment();
+            logger.info("Opening pool refilled: house={} size={}", house, sizeOf(pool));
+        } catch (RuntimeException e) {
+            metrics.counter("opening_pool_failures_total", "Opening turns the filler failed to generate").increment();
+            logger.warn("Opening pool refill failed: house={} error={}", house, e.getMessage());
+        }
+    }
+
+    private String emptiestHouse() {
+        String emptiest = null;
+        int emptiestSize = depth;
+        for (Map.Entry<String, Deque<Opening>> entry : pools.entrySet()) {
+            int size = sizeOf(entry.getValue());
+            if (size < emptiestSize) {
+                emptiest = entry.getKey();
+                emptiestSize = size;
+            }
+        }
+        return emptiest;
+    }
+
+    private Opening poll(Deque<Opening> pool) {
+        Instant cutoff = clock.instant().minus(ttl);
+        synchronized (pool) {
+            Opening opening;
+            while ((opening = pool.pollFirst()) != null) {
+                if (!opening.createdAt().isBefore(cutoff)) {
+                    return opening;
+                }
+            }
+            return null;
+        }
+    }
+
+    private int sizeOf(Deque<Opening> pool) {
+        Instant cutoff = clock.instant().minus(ttl);
+        synchronized (pool) {
+            pool.removeIf(opening -> opening.createdAt().isBefore(cutoff));
+            return pool.size();
+        }
+    }
+
+    private static String normalize(String house) {
+        return house == null ? "" : house.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One pre-generated opening: the raw completion as the model wrote it, and its illustration.
+     *
+     * @param image the generated image, or null if image generation failed
+     */
+    public record Opening(String rawStory, String imagePrompt, Dtos.Image image, Instant createdAt) {
+    }
+}
@@ -55,6 +55,11 @@ public final class PromptBuilder {
         prompt.append("7. Es kann Gefahren, Rätsel, Begegnungen und Schätze geben\n");
         prompt.append("8. Führe Konsequenzen für Entscheidungen ein\n\n");
 
+        prompt.append("GEGENSTÄNDE & INVENTAR:\n");
+        prompt.append("- Wenn der Spieler einen besonderen Gegenstand findet oder erhält, markiere ihn mit [NEUER GEGENSTAND: Name | Beschreibung]\n");
+        prompt.append("- Beispiel: [NEUER GEGENSTAND: Unsichtbarkeitsumhang | Ein silbrig schimmernder Umhang der unsichtbar macht]\n");
+        prompt.append("- Gib nur wirklich besondere, magische oder story-relevante Gegenstände\n\n");
+
         prompt.append("ABENTEUER-STRUKTUR:\n");
         prompt.append("- Ein Abenteuer sollte nach etwa 10-20 Zügen zu einem befriedigenden Ende kommen\n");
         prompt.append("- Führe die Geschichte auf ein Finale zu (Rätsel gelöst, Gefahr gebannt, Schatz gefunden)\n");
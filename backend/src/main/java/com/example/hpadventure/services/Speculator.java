@@ -0,0 +1,374 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.providers.TextProvider;
+import com.example.hpadventure.usage.Usage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Speculative pre-generation of the suggested actions: once a turn's options are known, the story for
+ * each option is generated in the background, so a player who clicks one gets it without the text latency.
+ *
+ * Branches of one turn form a group, keyed by a hash of the next turn's prompt without the action. A
+ * request that matches a branch takes it and cancels its siblings; any other request for the group
+ * cancels all of them. Groups expire after {@code ttl}.
+ *
+ * Branches run as {@link WorkScheduler.Priority#BACKGROUND} work, so they are capped and deferred while
+ * interactive turns are busy. Every branch reserves its worst-case token cost against an hourly budget;
+ * branches that do not fit (or find the background queue full) are skipped, and branches cancelled before
+ * they start give their reservation back. Token counts are estimated from text length (about four
+ * characters per token).
+ */
+public final class Speculator {
+    private static final Logger logger = LoggerFactory.getLogger(Speculator.class);
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final Duration BUDGET_WINDOW = Duration.ofHours(1);
+    private static final Duration MAX_WAIT = Duration.ofSeconds(60);
+
+    private final TextProvider textProvider;
+    private final Metrics metrics;
+    private final Clock clock;
+    private final Duration ttl;
+    private final long tokenBudgetPerHour;
+    private final int replayCharsPerSecond;
+    private final WorkScheduler scheduler;
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+    private final Object budgetLock = new Object();
+    private long budgetUsed;
+    private Instant budgetWindowStart;
+
+    /**
+     * @param tokenBudgetPerHour   estimated input plus maximum output tokens speculation may spend per hour
+     * @param replayCharsPerSecond pace at which a hit is streamed to the client, 0 to send it at once
+     */
+    public Speculator(
+        TextProvider textProvider,
+        Metrics metrics,
+        Clock clock,
+        WorkScheduler scheduler,
+        Duration ttl,
+        long tokenBudgetPerHour,
+        int replayCharsPerSecond
+    ) {
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.textProvider = Objects.requireNonNull(textProvider, "textProvider");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+        this.ttl = ttl;
+        this.tokenBudgetPerHour = tokenBudgetPerHour;
+        this.replayCharsPerSecond = Math.max(0, replayCharsPerSecond);
+        this.budgetWindowStart = clock.instant();
+
+        metrics.gauge("speculation_branches", "Speculative branches cached or in flight", this::branchCount);
+    }
+
+    /**
+     * Start generating {@code branches} in the background, replacing an earlier group with the same key.
+     */
+    void speculate(String groupKey, List<Branch> branches, int maxTokens) {
+        sweepExpired();
+        Group group = new Group(clock.instant());
+        for (Branch branch : branches) {
+            String action = normalize(branch.action());
+            if (action.isEmpty() || group.entries.containsKey(action)) {
+                continue;
+            }
+            long inputTokens = estimateTokens(branch.systemPrompt()) + estimateTokens(branch.messages());
+            if (!reserveBudget(inputTokens + maxTokens)) {
+                metrics.counter("speculation_skipped_total", "Speculative branches not started", "reason", "budget")
+                    .increment();
+                continue;
+            }
+            Entry entry = new Entry(inputTokens, inputTokens + maxTokens);
+            try {
+                entry.future = scheduler.submit(WorkScheduler.Priority.BACKGROUND, Usage.currentUser(),
+                    Usage.propagate("speculative", () -> entry.generate(textProvider, branch, maxTokens)));
+            } catch (RejectedExecutionException e) {
+                releaseBudget(entry.reservedTokens);
+                metrics.counter("speculation_skipped_total", "Speculative branches not started", "reason", "busy")
+                    .increment();
+                continue;
+            }
+            group.entries.put(action, entry);
+            metrics.counter("speculation_started_total", "Speculative branches started").increment();
+        }
+        if (group.entries.isEmpty()) {
+            return;
+        }
+        Group previous = groups.put(groupKey, group);
+        if (previous != null) {
+            discard(previous, null);
+        }
+        logger.info("Speculation started: branches={} group={}", group.entries.size(), groupKey.substring(0, 12));
+    }
+
+    /**
+     * Take the branch speculated for {@code action} and cancel the rest of its group.
+     *
+     * @return the raw story of the branch, or null if there is none (or it did not finish in time)
+     */
+    String take(String groupKey, String action) {
+        Group group = groups.remove(groupKey);
+        if (group == null) {
+            return null;
+        }
+        Entry entry = group.entries.get(normalize(action));
+        // A branch still waiting for a thread is no faster than asking upstream now
+        boolean usable = entry != null && entry.started;
+        discard(group, usable ? entry : null);
+        if (!usable) {
+            metrics.counter("speculation_turns_total", "Turns that had speculative branches", "result", "miss")
+                .increment();
+            return null;
+        }
+        try {
+            String story = entry.await(MAX_WAIT);
+            metrics.counter("speculation_turns_total", "Turns that had speculative branches", "result", "hit")
+                .increment();
+            return story;
+        } catch (TimeoutException | ExecutionException | CancellationException e) {
+            logger.warn("Speculative branch unusable, generating instead: error={}", e.toString());
+            entry.cancel();
+            wasted(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entry.cancel();
+        }
+        metrics.counter("speculation_turns_total", "Turns that had speculative branches", "result", "miss")
+            .increment();
+        return null;
+    }
+
+    /**
+     * Stream a speculated story to {@code onDelta} word by word, paced like a live generation if configured.
+     */
+    void replay(String story, Consumer<String> onDelta) {
+        int start = 0;
+        boolean paced = replayCharsPerSecond > 0;
+        while (start < story.length()) {
+            int end = start;
+            while (end < story.length() && Character.isWhitespace(story.charAt(end))) {
+                end += 1;
+            }
+            while (end < story.length() && !Character.isWhitespace(story.charAt(end))) {
+                end += 1;
+            }
+            String chunk = story.substring(start, end);
+            onDelta.accept(chunk);
+            start = end;
+            if (paced && start < story.length()) {
+                try {
+                    Thread.sleep(Duration.ofMillis(chunk.length() * 1000L / replayCharsPerSecond));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    paced = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hash the prompt a turn is generated from, without its action, so every branch of a turn shares it.
+     */
+    static String groupKey(String systemPrompt, List<TextProvider.Message> messages) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(systemPrompt).getBytes(StandardCharsets.UTF_8));
+            for (TextProvider.Message message : messages) {
+                digest.update((byte) 0);
+                digest.update(String.valueOf(message.role()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(message.content()).trim().getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private int branchCount() {
+        int count = 0;
+        for (Group group : groups.values()) {
+            count += group.entries.size();
+        }
+        return count;
+    }
+
+    private boolean reserveBudget(long tokens) {
+        synchronized (budgetLock) {
+            Instant now = clock.instant();
+            if (Duration.between(budgetWindowStart, now).compareTo(BUDGET_WINDOW) >= 0) {
+                budgetWindowStart = now;
+                budgetUsed = 0;
+            }
+            if (budgetUsed + tokens > tokenBudgetPerHour) {
+                return false;
+            }
+            budgetUsed += tokens;
+            return true;
+        }
+    }
+
+    private void releaseBudget(long tokens) {
+        synchronized (budgetLock) {
+            budgetUsed = Math.max(0, budgetUsed - tokens);
+        }
+    }
+
+    private void sweepExpired() {
+        Instant cutoff = clock.instant().minus(ttl);
+        for (Map.Entry<String, Group> entry : groups.entrySet()) {
+            if (entry.getValue().createdAt.isBefore(cutoff) && groups.remove(entry.getKey(), entry.getValue())) {
+                discard(entry.getValue(), null);
+            }
+        }
+    }
+
+    /**
+     * Cancel every branch of {@code group} except {@code keep}, counting what they cost for nothing and
+     * refunding the reservations of those that never started.
+     */
+    private void discard(Group group, Entry keep) {
+        for (Entry entry : group.entries.values()) {
+            if (entry == keep) {
+                continue;
+            }
+            if (entry.withdraw()) {
+                releaseBudget(entry.reservedTokens);
+            }
+            if (entry.cancel()) {
+                metrics.counter("speculation_cancelled_total", "Speculative branches cancelled before finishing")
+                    .increment();
+            }
+            wasted(entry);
+        }
+    }
+
+    private void wasted(Entry entry) {
+        long tokens = entry.spentTokens();
+        if (tokens > 0) {
+            metrics.counter("speculation_wasted_tokens_total",
+                "Estimated tokens spent on speculative branches that were never used").add(tokens);
+        }
+    }
+
+    private static String normalize(String action) {
+        return action == null ? "" : action.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private static long estimateTokens(List<TextProvider.Message> messages) {
+        long tokens = 0;
+        for (TextProvider.Message message : messages) {
+            tokens += estimateTokens(message.content());
+        }
+        return tokens;
+    }
+
+    /**
+     * One suggested action with the prompt its turn would be generated from.
+     */
+    record Branch(String action, String systemPrompt, List<TextProvider.Message> messages) {
+    }
+
+    private static final class Group {
+        private final Instant createdAt;
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+        private Group(Instant createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Entry {
+        private final long inputTokens;
+        private final long reservedTokens;
+        private volatile Future<?> future;
+        private volatile boolean started;
+        private boolean withdrawn;
+        private volatile String story;
+
+        private Entry(long inputTokens, long reservedTokens) {
+            this.inputTokens = inputTokens;
+            this.reservedTokens = reservedTokens;
+        }
+
+        private void generate(TextProvider textProvider, Branch branch, int maxTokens) {
+            if (!start()) {
+                return;
+            }
+            story = textProvider.createMessage(branch.systemPrompt(), branch.messages(), maxTokens);
+        }
+
+        private synchronized boolean start() {
+            if (withdrawn) {
+                return false;
+            }
+            started = true;
+            return true;
+        }
+
+        /**
+         * Make sure the branch never calls upstream, unless it already has.
+         *
+         * @return true if it had not started (and now never will)
+         */
+        private synchronized boolean withdraw() {
+            if (started || withdrawn) {
+                return false;
+            }
+            withdrawn = true;
+            return true;
+        }
+
+        private String await(Duration timeout) throws InterruptedException, ExecutionException, TimeoutException {
+            future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return story;
+        }
+
+        /**
+         * @return true if the branch was still running or queued
+         */
+        private boolean cancel() {
+            return future.cancel(true);
+        }
+
+        /**
+         * Input tokens once the call was made, plus the output if it finished.
+         */
+        private long spentTokens() {
+            if (!started) {
+                return 0;
+            }
+            return inputTokens + estimateTokens(story);
+        }
+    }
+}
@@ -1,25 +1,39 @@
 package com.example.hpadventure.services;
 
 import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.jfr.ImagePayloadEvent;
+import com.example.hpadventure.jfr.StoryTurnEvent;
 import com.example.hpadventure.providers.ImageProvider;
 import com.example.hpadventure.providers.TextProvider;
 import com.example.hpadventure.parsing.CompletionParser;
+import com.example.hpadventure.parsing.ItemParser;
 import com.example.hpadventure.parsing.MarkdownSanitizer;
 import com.example.hpadventure.parsing.MarkerCleaner;
 import com.example.hpadventure.parsing.OptionsParser;
 import com.example.hpadventure.parsing.SceneParser;
 import com.example.hpadventure.parsing.StreamMarkerFilter;
 import com.example.hpadventure.services.StoryStreamHandler.StreamResult;
+import com.example.hpadventure.tracing.Span;
+import com.example.hpadventure.tracing.Tracing;
+import com.example.hpadventure.usage.Usage;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 
 public final class StoryService implements StoryHandler, StoryStreamHandler {
     private static final int STORY_MAX_TOKENS = 500;
     private static final int STORY_ARC_TOTAL_STEPS = 15;
+    private static final Duration ADMISSION_MAX_WAIT = Duration.ofSeconds(30);
+    private static final WorkScheduler.Permit NO_PERMIT = () -> {
+    };
 
     private final TextProvider textProvider;
     private final PromptBuilder promptBuilder;
@@ -27,11 +41,18 @@ public final class StoryService implements StoryHandler, StoryStreamHandler {
     private final OptionsParser optionsParser;
     private final SceneParser sceneParser;
     private final MarkerCleaner markerCleaner;
+    private final ItemParser itemParser = new ItemParser();
     private final TitleService titleService;
     private final SummaryService summaryService;
     private final ImagePromptService imagePromptService;
     private final ImageProvider imageProvider;
     private final Clock clock;
+    private final TurnJournal journal;
+    private final Speculator speculator;
+    private final OpeningPool openingPool;
+    private final WorkScheduler scheduler;
+    private final ImageJobs imageJobs;
+    private final ImagePreviews imagePreviews;
 
     public StoryService(
         TextProvider textProvider,
@@ -45,6 +66,24 @@ public final class StoryService implements StoryHandler, StoryStreamHandler {
         ImagePromptService imagePromptService,
         ImageProvider imageProvider,
         Clock clock
+    ) {
+        this(textProvider, promptBuilder, completionParser, optionsParser, sceneParser, markerCleaner,
+            titleService, summaryService, imagePromptService, imageProvider, clock, Options.DEFAULTS);
+    }
+
+    public StoryService(
+        TextProvider textProvider,
+        PromptBuilder promptBuilder,
+        CompletionParser completionParser,
+        OptionsParser optionsParser,
+        SceneParser sceneParser,
+        MarkerCleaner markerCleaner,
+        TitleService titleService,
+        SummaryService summaryService,
+        ImagePromptService imagePromptService,
+        ImageProvider imageProvider,
+        Clock clock,
+        Options options
     ) {
         this.textProvider = textProvider;
         this.promptBuilder = promptBuilder;
@@ -57,79 +96,342 @@ public final class StoryService implements StoryHandler, StoryStreamHandler {
         this.imagePromptService = imagePromptService;
         this.imageProvider = imageProvider;
         this.clock = clock;
+        this.journal = options.journal();
+        this.scheduler = options.scheduler();
+        this.speculator = options.speculator();
+        this.openingPool = options.openingPool();
+        this.imageJobs = options.imageJobs();
+        this.imagePreviews = options.imagePreviews();
+    }
+
+    /**
+     * Optional collaborators of the story service; {@link #DEFAULTS} has none of them.
+     *
+     * @param journal       records every finished turn
+     * @param scheduler     admits turns and images by priority, or null to run everything directly
+     * @param speculator    pre-generates the suggested actions of streamed turns, or null to disable
+     * @param openingPool   serves pre-generated opening turns, or null to always generate them
+     * @param imageJobs     renders the images of {@link #nextTurn} after it returns, or null to wait for them
+     * @param imagePreviews previews the images of streamed turns and measures their time-to-first-pixel, or null
+     */
+    public record Options(
+        TurnJournal journal,
+        WorkScheduler scheduler,
+        Speculator speculator,
+        OpeningPool openingPool,
+        ImageJobs imageJobs,
+        ImagePreviews imagePreviews
+    ) {
+        public static final Options DEFAULTS = new Options(TurnJournal.NOOP, null, null, null, null, null);
+
+        public Options {
+            journal = journal == null ? TurnJournal.NOOP : journal;
+        }
+
+        public Options withJournal(TurnJournal journal) {
+            return new Options(journal, scheduler, speculator, openingPool, imageJobs, imagePreviews);
+        }
+
+        public Options withScheduler(WorkScheduler scheduler) {
+            return new Options(journal, scheduler, speculator, openingPool, imageJobs, imagePreviews);
+        }
+
+        public Options withSpeculator(Speculator speculator) {
+            return new Options(journal, scheduler, speculator, openingPool, imageJobs, imagePreviews);
+        }
+
+        public Options withOpeningPool(OpeningPool openingPool) {
+            return new Options(journal, scheduler, speculator, openingPool, imageJobs, imagePreviews);
+        }
+
+        public Options withImageJobs(ImageJobs imageJobs) {
+            return new Options(journal, scheduler, speculator, openingPool, imageJobs, imagePreviews);
+        }
+
+        public Options withImagePreviews(ImagePreviews imagePreviews) {
+            return new Options(journal, scheduler, speculator, openingPool, imageJobs, imagePreviews);
+        }
     }
 
     public Dtos.Assistant nextTurn(Dtos.StoryRequest request) {
-        StoryContext context = buildStoryContext(request);
-        String rawStory = textProvider.createMessage(context.systemPrompt(), context.messages(), STORY_MAX_TOKENS);
-        StreamResult draft = buildAssistantDraft(request, context.history(), rawStory);
+        StoryTurnEvent event = new StoryTurnEvent();
+        StoryContext context;
+        String rawStory;
+        StreamResult draft;
+        try (WorkScheduler.Permit ignored = enter(WorkScheduler.Priority.INTERACTIVE)) {
+            event.begin();
+            context = buildStoryContext(request);
+            OpeningPool.Opening opening = openingPool == null ? null : openingPool.take(request);
+            try (Span span = Tracing.start("story.generate")) {
+                span.attribute("pooled", opening != null);
+                rawStory = opening != null
+                    ? opening.rawStory()
+                    : textProvider.createMessage(context.systemPrompt(), context.messages(), STORY_MAX_TOKENS);
+            }
+            draft = buildAssistantDraft(request, context.history(), rawStory);
+        }
+        if (imageJobs != null) {
+            commitTurnEvent(event, context, false, rawStory, draft.assistant());
+            return attachImageJob(draft.assistant(), draft.imagePrompt());
+        }
+        // The interactive permit is released first: the image waits for its own lane without holding one
         Dtos.Image image = generateImage(draft.imagePrompt());
+        commitTurnEvent(event, context, false, rawStory, draft.assistant());
         return attachImage(draft.assistant(), image);
     }
 
+    /**
+     * Hand the illustration to an image job; the turn is answered without an image if the job queue is full.
+     */
+    private Dtos.Assistant attachImageJob(Dtos.Assistant assistant, String imagePrompt) {
+        try {
+            ImageJobs.Job job = imageJobs.submit(imagePrompt, this::generateImage);
+            return new Dtos.Assistant(assistant.storyText(), assistant.suggestedActions(), assistant.adventure(),
+                null, job.id(), assistant.items());
+        } catch (UpstreamException e) {
+            Tracing.current().error(e);
+            return assistant;
+        }
+    }
+
     @Override
     public StreamResult streamTurn(Dtos.StoryRequest request, Consumer<String> onDelta) {
+        return streamTurn(request, onDelta, item -> {
+        });
+    }
+
+    @Override
+    public StreamResult streamTurn(Dtos.StoryRequest request, Consumer<String> onDelta, Consumer<Dtos.Item> onItem) {
+        try (WorkScheduler.Permit ignored = enter(WorkScheduler.Priority.INTERACTIVE)) {
+            return streamAdmittedTurn(request, onDelta, onItem);
+        }
+    }
+
+    private StreamResult streamAdmittedTurn(
+        Dtos.StoryRequest request,
+        Consumer<String> onDelta,
+        Consumer<Dtos.Item> onItem
+    ) {
+        StoryTurnEvent event = new StoryTurnEvent();
+        event.begin();
+        long startedAt = System.nanoTime();
         StoryContext context = buildStoryContext(request);
         StringBuilder rawStory = new StringBuilder();
-        StreamMarkerFilter markerFilter = new StreamMarkerFilter();
+        Set<String> streamedItems = new HashSet<>();
+        StreamMarkerFilter markerFilter = new StreamMarkerFilter(marker -> {
+            ItemParser.Item item = itemParser.parseMarker(marker);
+            if (item != null && streamedItems.add(item.name())) {
+                onItem.accept(toDto(item));
+            }
+        });
         MarkdownSanitizer markdownSanitizer = new MarkdownSanitizer();
-        textProvider.streamMessage(context.systemPrompt(), context.messages(), STORY_MAX_TOKENS, delta -> {
+        Consumer<String> onRawDelta = delta -> {
             if (delta == null || delta.isEmpty()) {
                 return;
             }
+            if (rawStory.isEmpty()) {
+                event.firstTokenNanos = System.nanoTime() - startedAt;
+            }
             rawStory.append(delta);
             String cleaned = markerFilter.apply(delta);
             String sanitized = markdownSanitizer.strip(cleaned);
             if (!sanitized.isEmpty()) {
                 onDelta.accept(sanitized);
             }
-        });
-        return buildAssistantDraft(request, context.history(), rawStory.toString());
+        };
+        OpeningPool.Opening opening = openingPool == null ? null : openingPool.take(request);
+        String speculated = opening == null ? takeSpeculation(context) : null;
+        try (Span span = Tracing.start("story.stream")) {
+            span.attribute("pooled", opening != null).attribute("speculated", speculated != null);
+            if (opening != null) {
+                onRawDelta.accept(opening.rawStory());
+            } else if (speculated != null) {
+                speculator.replay(speculated, onRawDelta);
+            } else {
+                textProvider.streamMessage(context.systemPrompt(), context.messages(), STORY_MAX_TOKENS, onRawDelta);
+            }
+            span.attribute("chars", rawStory.length());
+        }
+        StreamResult result = buildAssistantDraft(request, context.history(), rawStory.toString());
+        commitTurnEvent(event, context, true, rawStory, result.assistant());
+        speculate(request, context, result.assistant());
+        return result;
     }
 
     @Override
     public Dtos.Image generateImage(String imagePrompt) {
+        Dtos.Image pooled = openingPool == null ? null : openingPool.takeImage(imagePrompt);
+        if (pooled != null) {
+            return pooled;
+        }
+        try (WorkScheduler.Permit ignored = enter(WorkScheduler.Priority.NEAR_INTERACTIVE)) {
+            return renderImage(imagePrompt);
+        }
+    }
+
+    @Override
+    public Dtos.Image generateImage(String imagePrompt, Consumer<Dtos.Image> onPreview) {
+        if (imagePreviews == null) {
+            return generateImage(imagePrompt);
+        }
+        long startedAt = System.nanoTime();
+        boolean pooled = openingPool != null && openingPool.hasImage(imagePrompt);
+        boolean previewed = false;
+        if (imagePreviews.isEnabled() && !pooled && imageProvider.isEnabled()) {
+            onPreview.accept(imagePreviews.render(imagePrompt));
+            imagePreviews.firstPixel(startedAt, "preview");
+            previewed = true;
+        }
+        Dtos.Image image = generateImage(imagePrompt);
+        if (!previewed) {
+            imagePreviews.firstPixel(startedAt, "image");
+        }
+        return image;
+    }
+
+    private Dtos.Image renderImage(String imagePrompt) {
         if (!imageProvider.isEnabled()) {
             return new Dtos.Image("text/plain", "disabled", null);
         }
-        ImageProvider.ImageResult imageResult = imageProvider.generateImage(imagePrompt);
-        return new Dtos.Image(imageResult.mimeType(), imageResult.base64(), imagePrompt);
+        try (Span span = Tracing.start("image.generate")) {
+            ImageProvider.ImageResult imageResult = imageProvider.generateImage(imagePrompt);
+            span.attribute("mimeType", imageResult.mimeType());
+            ImagePayloadEvent event = new ImagePayloadEvent();
+            if (event.shouldCommit()) {
+                event.mimeType = imageResult.mimeType();
+                event.base64Bytes = imageResult.base64() == null ? 0 : imageResult.base64().length();
+                event.commit();
+            }
+            return new Dtos.Image(imageResult.mimeType(), imageResult.base64(), imagePrompt,
+                imageResult.thumbnailBase64());
+        }
+    }
+
+    /**
+     * The title is part of the turn and runs under the turn's permit. The story is already written by
+     * now, so a failed title leaves the adventure untitled and is tried again on the next turn.
+     */
+    private String generateTitle(List<String> assistantMessages) {
+        try {
+            return titleService.generateTitle(assistantMessages);
+        } catch (UpstreamException e) {
+            Tracing.current().error(e);
+            return null;
+        }
+    }
+
+    private WorkScheduler.Permit enter(WorkScheduler.Priority priority) {
+        if (scheduler == null) {
+            return NO_PERMIT;
+        }
+        try {
+            return scheduler.enter(priority, Usage.currentUser(), ADMISSION_MAX_WAIT);
+        } catch (RejectedExecutionException e) {
+            throw new UpstreamException("OVERLOADED", 503, e.getMessage());
+        }
+    }
+
+    /**
+     * Generate an opening turn for the {@link OpeningPool}: a nameless new player of {@code house}
+     * says "start". The image prompt is derived exactly as a served turn will derive it.
+     */
+    OpeningPool.Opening generateOpening(String house) {
+        Dtos.Player player = new Dtos.Player(null, house, List.of(), null);
+        String systemPrompt = promptBuilder.build(player, 1);
+        String rawStory = textProvider.createMessage(systemPrompt,
+            List.of(new TextProvider.Message("user", "start")), STORY_MAX_TOKENS);
+        String cleanStory = new MarkdownSanitizer().strip(markerCleaner.strip(rawStory));
+        String imagePrompt = imagePromptService.buildPrompt(sceneParser.parse(rawStory), cleanStory);
+        Dtos.Image image = null;
+        try {
+            image = renderImage(imagePrompt);
+        } catch (RuntimeException e) {
+            // The opening is still worth serving; its image is generated when it is served
+        }
+        return new OpeningPool.Opening(rawStory, imagePrompt, image, Instant.now(clock));
     }
 
     private StoryContext buildStoryContext(Dtos.StoryRequest request) {
-        List<Dtos.ChatMessage> history = request == null || request.conversationHistory() == null
-            ? List.of()
-            : request.conversationHistory();
-
-        List<TextProvider.Message> messages = new ArrayList<>();
-        for (Dtos.ChatMessage message : history) {
-            if (message == null || message.content() == null || message.content().isBlank()) {
-                continue;
+        try (Span span = Tracing.start("story.context")) {
+            List<Dtos.ChatMessage> history = request == null || request.conversationHistory() == null
+                ? List.of()
+                : request.conversationHistory();
+
+            List<TextProvider.Message> messages = new ArrayList<>();
+            for (Dtos.ChatMessage message : history) {
+                if (message == null || message.content() == null || message.content().isBlank()) {
+                    continue;
+                }
+                messages.add(new TextProvider.Message(message.role(), message.content()));
             }
-            messages.add(new TextProvider.Message(message.role(), message.content()));
+
+            String action = request.action().trim();
+            messages.add(new TextProvider.Message("user", action));
+            int arcStep = storyArcStep(history);
+            String systemPrompt = promptBuilder.build(request.player(), arcStep);
+            span.attribute("history", history.size()).attribute("arcStep", arcStep);
+
+            return new StoryContext(history, messages, systemPrompt, arcStep);
         }
+    }
 
-        String action = request.action().trim();
-        messages.add(new TextProvider.Message("user", action));
-        int arcStep = storyArcStep(history);
-        String systemPrompt = promptBuilder.build(request.player(), arcStep);
+    private String takeSpeculation(StoryContext context) {
+        if (speculator == null) {
+            return null;
+        }
+        List<TextProvider.Message> messages = context.messages();
+        String groupKey = Speculator.groupKey(context.systemPrompt(), messages.subList(0, messages.size() - 1));
+        return speculator.take(groupKey, messages.get(messages.size() - 1).content());
+    }
 
-        return new StoryContext(history, messages, systemPrompt);
+    /**
+     * Pre-generate the next turn for every suggested action, from the history the client will send.
+     */
+    private void speculate(Dtos.StoryRequest request, StoryContext context, Dtos.Assistant assistant) {
+        if (speculator == null || assistant.suggestedActions() == null || assistant.suggestedActions().isEmpty()
+            || (assistant.adventure() != null && assistant.adventure().completed())) {
+            return;
+        }
+        List<Dtos.ChatMessage> nextHistory = new ArrayList<>(context.history());
+        nextHistory.add(new Dtos.ChatMessage("user", request.action().trim()));
+        nextHistory.add(new Dtos.ChatMessage("assistant", assistant.storyText()));
+
+        String groupKey = null;
+        List<Speculator.Branch> branches = new ArrayList<>();
+        for (String action : assistant.suggestedActions()) {
+            StoryContext next = buildStoryContext(new Dtos.StoryRequest(
+                request.player(), request.currentAdventure(), nextHistory, action, request.session()));
+            List<TextProvider.Message> messages = next.messages();
+            if (groupKey == null) {
+                groupKey = Speculator.groupKey(next.systemPrompt(), messages.subList(0, messages.size() - 1));
+            }
+            branches.add(new Speculator.Branch(action, next.systemPrompt(), messages));
+        }
+        speculator.speculate(groupKey, branches, STORY_MAX_TOKENS);
     }
 
     private StreamResult buildAssistantDraft(Dtos.StoryRequest request, List<Dtos.ChatMessage> history, String rawStory) {
-        boolean completed = completionParser.isComplete(rawStory);
-        List<String> suggestedActions = optionsParser.parse(rawStory);
-        String scene = sceneParser.parse(rawStory);
-        MarkdownSanitizer markdownSanitizer = new MarkdownSanitizer();
-        String cleanStory = markdownSanitizer.strip(markerCleaner.strip(rawStory));
-        String imagePrompt = imagePromptService.buildPrompt(scene, cleanStory);
+        boolean completed;
+        List<String> suggestedActions;
+        List<Dtos.Item> items;
+        String scene;
+        String cleanStory;
+        String imagePrompt;
+        try (Span ignored = Tracing.start("story.parse")) {
+            completed = completionParser.isComplete(rawStory);
+            suggestedActions = optionsParser.parse(rawStory);
+            items = itemParser.parse(rawStory).stream().map(StoryService::toDto).toList();
+            scene = sceneParser.parse(rawStory);
+            MarkdownSanitizer markdownSanitizer = new MarkdownSanitizer();
+            cleanStory = markdownSanitizer.strip(markerCleaner.strip(rawStory));
+            imagePrompt = imagePromptService.buildPrompt(scene, cleanStory);
+        }
 
         Instant now = Instant.now(clock);
         String adventureTitle = request.currentAdventure() != null ? request.currentAdventure().title() : null;
         List<String> assistantMessages = collectAssistantMessages(history, cleanStory);
         if (adventureTitle == null && assistantMessages.size() >= 2) {
-            String generatedTitle = titleService.generateTitle(assistantMessages.subList(0, 2));
+            String generatedTitle = generateTitle(assistantMessages.subList(0, 2));
             if (generatedTitle != null && !generatedTitle.isBlank()) {
                 adventureTitle = generatedTitle;
             }
@@ -145,19 +447,70 @@ public final class StoryService implements StoryHandler, StoryStreamHandler {
         }
 
         Dtos.Adventure adventure = new Dtos.Adventure(adventureTitle, completed, summary, completedAt);
-        Dtos.Assistant assistant = new Dtos.Assistant(cleanStory, suggestedActions, adventure, null);
+        Dtos.Assistant assistant = new Dtos.Assistant(cleanStory, suggestedActions, adventure, null, null, items);
+        journal.record(new TurnJournal.TurnEntry(
+            playerId(request.player()),
+            adventureId(request.currentAdventure()),
+            assistantMessages.size(),
+            request.action().trim(),
+            cleanStory,
+            suggestedActions,
+            scene,
+            imagePromptService.imageId(imagePrompt),
+            adventure,
+            now
+        ));
         return new StreamResult(assistant, imagePrompt);
     }
 
+    private static void commitTurnEvent(
+        StoryTurnEvent event,
+        StoryContext context,
+        boolean streamed,
+        CharSequence rawStory,
+        Dtos.Assistant assistant
+    ) {
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.historySize = context.history().size();
+        event.arcStep = context.arcStep();
+        event.streamed = streamed;
+        event.storyChars = rawStory == null ? 0 : rawStory.length();
+        event.completed = assistant.adventure() != null && assistant.adventure().completed();
+        event.commit();
+    }
+
+    private String playerId(Dtos.Player player) {
+        if (player == null || player.name() == null || player.name().isBlank()) {
+            return "anonymous";
+        }
+        String house = player.houseName() == null ? "" : player.houseName().trim();
+        return player.name().trim().toLowerCase(Locale.ROOT) + "|" + house;
+    }
+
+    private String adventureId(Dtos.CurrentAdventure adventure) {
+        if (adventure == null || adventure.startedAt() == null || adventure.startedAt().isBlank()) {
+            return "unknown";
+        }
+        return adventure.startedAt();
+    }
+
     private Dtos.Assistant attachImage(Dtos.Assistant assistant, Dtos.Image image) {
         return new Dtos.Assistant(
             assistant.storyText(),
             assistant.suggestedActions(),
             assistant.adventure(),
-            image
+            image,
+            null,
+            assistant.items()
         );
     }
 
+    private static Dtos.Item toDto(ItemParser.Item item) {
+        return new Dtos.Item(item.name(), item.description());
+    }
+
     private List<String> collectAssistantMessages(List<Dtos.ChatMessage> history, String latestStory) {
         List<String> assistantMessages = new ArrayList<>();
         if (history != null) {
@@ -192,7 +545,8 @@ public final class StoryService implements StoryHandler, StoryStreamHandler {
     private record StoryContext(
         List<Dtos.ChatMessage> history,
         List<TextProvider.Message> messages,
-        String systemPrompt
+        String systemPrompt,
+        int arcStep
     ) {
     }
 }
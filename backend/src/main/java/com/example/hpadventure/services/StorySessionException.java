@@ -0,0 +1,20 @@
+package com.example.hpadventure.services;
+
+public final class StorySessionException extends RuntimeException {
+    private final String code;
+    private final int status;
+
+    public StorySessionException(String code, int status, String message) {
+        super(message);
+        this.code = code;
+        this.status = status;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public int status() {
+        return status;
+    }
+}
@@ -0,0 +1,435 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps adventure state on the server so clients can send only a session id, their action and
+ * the last turn they acknowledged instead of the full conversation history every turn.
+ *
+ * Requests without a session reference bypass the store entirely. A request with a session
+ * reference but no id (or one that still carries its full history) seeds a new session under an
+ * id the server mints, never one the client picks; later requests are rehydrated into a complete
+ * {@link Dtos.StoryRequest} for {@link StoryService}. A finished turn is only recorded if the
+ * session is still at the turn it was resolved against, so concurrent turns cannot both land.
+ *
+ * If a log file is configured, every change is appended as a JSON line. The log is replayed and
+ * compacted to one seed entry per live session on startup, and again on the sweep once more
+ * entries were appended than there are live sessions.
+ */
+public final class StorySessionStore {
+    private static final Logger logger = LoggerFactory.getLogger(StorySessionStore.class);
+    private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+    private final Clock clock;
+    private final Duration ttl;
+    private final int maxSessions;
+    private final ObjectMapper mapper;
+    private final Path logFile;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    /** Guards every session change together with its log entry, so compaction sees whole turns. */
+    private final Object lock = new Object();
+    private BufferedWriter logWriter;
+    private int appendedSinceCompaction;
+    private volatile Instant lastSweep;
+
+    public StorySessionStore(Clock clock, Duration ttl, int maxSessions, ObjectMapper mapper, Path logFile) {
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("maxSessions must be positive");
+        }
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.ttl = ttl;
+        this.maxSessions = maxSessions;
+        this.mapper = Objects.requireNonNull(mapper, "mapper");
+        this.logFile = logFile;
+        this.lastSweep = clock.instant();
+        if (logFile != null) {
+            replayAndCompact();
+        }
+    }
+
+    /**
+     * Resolve the request against its session.
+     *
+     * @throws StorySessionException if the session is unknown or cannot be rewound to the
+     *                               acknowledged turn; the client should resend its full history
+     */
+    public Resolved resolve(Dtos.StoryRequest request) {
+        Dtos.Session reference = request.session();
+        if (reference == null) {
+            return new Resolved(null, request);
+        }
+        sweepIfDue();
+
+        Instant now = clock.instant();
+        boolean hasHistory = request.conversationHistory() != null && !request.conversationHistory().isEmpty();
+        if (isBlank(reference.id()) || hasHistory) {
+            // A client-chosen id could replace someone else's session, so seeding always mints one
+            Session session = new Session(UUID.randomUUID().toString(), now);
+            session.seed(request.player(), request.currentAdventure(), request.conversationHistory(), 0);
+            synchronized (lock) {
+                putSession(session);
+                append(LogEntry.seed(session, now));
+            }
+            return new Resolved(session.id, request, session.turn());
+        }
+
+        Session session = sessions.get(reference.id());
+        if (session == null) {
+            throw new StorySessionException("SESSION_NOT_FOUND", 409, "Unknown or expired session");
+        }
+        synchronized (lock) {
+            int current = session.turn();
+            int acknowledged = reference.turn() == null ? current : reference.turn();
+            if (acknowledged > current || !session.canRewindTo(acknowledged)) {
+                throw new StorySessionException("SESSION_OUT_OF_SYNC", 409,
+                    "Session is at turn " + current + " but client acknowledged turn " + acknowledged);
+            }
+            if (acknowledged < current) {
+                session.rewindTo(acknowledged);
+                append(LogEntry.rewind(session.id, acknowledged, now));
+            }
+            session.lastAccess = now;
+
+            Dtos.StoryRequest rehydrated = new Dtos.StoryRequest(
+                session.mergePlayer(request.player()),
+                request.currentAdventure() != null ? request.currentAdventure() : session.currentAdventure,
+                List.copyOf(session.history),
+                request.action(),
+                reference
+            );
+            return new Resolved(session.id, rehydrated, acknowledged);
+        }
+    }
+
+    /**
+     * Record a finished turn.
+     *
+     * @return the session reference to hand back to the client, or null outside session mode
+     * @throws StorySessionException if another turn was recorded on the session since it was resolved;
+     *                               the client should resend from the turn it last saw
+     */
+    public Dtos.Session record(Resolved resolved, Dtos.Assistant assistant) {
+        if (resolved.sessionId() == null) {
+            return null;
+        }
+        Session session = sessions.get(resolved.sessionId());
+        if (session == null) {
+            return null;
+        }
+        Instant now = clock.instant();
+        String startedAt = resolved.request().currentAdventure() != null
+            ? resolved.request().currentAdventure().startedAt()
+            : null;
+        synchronized (lock) {
+            if (session.turn() != resolved.turn()) {
+                throw new StorySessionException("SESSION_OUT_OF_SYNC", 409,
+                    "Session moved to turn " + session.turn() + " while turn " + (resolved.turn() + 1) + " ran");
+            }
+            session.applyTurn(resolved.request().action(), assistant.storyText(), assistant.adventure(), startedAt, now);
+            append(LogEntry.turn(session.id, resolved.request().action(), assistant.storyText(),
+                assistant.adventure(), startedAt, now));
+            return new Dtos.Session(session.id, session.turn());
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void putSession(Session session) {
+        sessions.put(session.id, session);
+        if (sessions.size() > maxSessions) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    private void sweepIfDue() {
+        Instant now = clock.instant();
+        if (Duration.between(lastSweep, now).compareTo(SWEEP_INTERVAL) < 0) {
+            return;
+        }
+        synchronized (lock) {
+            if (Duration.between(lastSweep, now).compareTo(SWEEP_INTERVAL) < 0) {
+                return;
+            }
+            lastSweep = now;
+            Instant cutoff = now.minus(ttl);
+            sessions.values().removeIf(session -> session.lastAccess.isBefore(cutoff));
+            if (logWriter != null && appendedSinceCompaction > sessions.size()) {
+                try {
+                    compactLog();
+                } catch (IOException e) {
+                    logger.warn("Session log compaction failed: file={} error={}", logFile, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        while (sessions.size() > maxSessions) {
+            Session oldest = null;
+            for (Session session : sessions.values()) {
+                if (oldest == null || session.lastAccess.isBefore(oldest.lastAccess)) {
+                    oldest = session;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            sessions.remove(oldest.id);
+        }
+    }
+
+    private void append(LogEntry entry) {
+        if (logFile == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (logWriter == null) {
+                return;
+            }
+            try {
+                logWriter.write(mapper.writeValueAsString(entry));
+                logWriter.newLine();
+                logWriter.flush();
+                appendedSinceCompaction += 1;
+            } catch (IOException e) {
+                logger.warn("Session log append failed: file={} error={}", logFile, e.getMessage());
+            }
+        }
+    }
+
+    private void replayAndCompact() {
+        int entries = 0;
+        try {
+            if (Files.exists(logFile)) {
+                for (String line : Files.readAllLines(logFile, StandardCharsets.UTF_8)) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        apply(mapper.readValue(line, LogEntry.class));
+                        entries += 1;
+                    } catch (IOException | RuntimeException e) {
+                        logger.warn("Skipping unreadable session log entry: {}", e.getMessage());
+                    }
+                }
+            }
+
+            Instant cutoff = clock.instant().minus(ttl);
+            sessions.values().removeIf(session -> session.lastAccess.isBefore(cutoff));
+            evictLeastRecentlyUsed();
+            compactLog();
+            logger.info("Session log replayed: file={} entries={} sessions={}", logFile, entries, sessions.size());
+        } catch (IOException e) {
+            logger.warn("Session log unavailable, continuing in memory only: file={} error={}", logFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite the log as one seed entry per live session. Callers hold {@link #lock} (or are the constructor).
+     */
+    private void compactLog() throws IOException {
+        Path compacted = logFile.resolveSibling(logFile.getFileName() + ".compact");
+        try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (Session session : sessions.values()) {
+                writer.write(mapper.writeValueAsString(LogEntry.seed(session, session.lastAccess)));
+                writer.newLine();
+            }
+        }
+        Files.move(compacted, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (logWriter != null) {
+            logWriter.close();
+        }
+        logWriter = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        appendedSinceCompaction = 0;
+    }
+
+    private void apply(LogEntry entry) {
+        Instant at = entry.at() != null ? Instant.parse(entry.at()) : clock.instant();
+        switch (entry.op()) {
+            case "seed" -> {
+                Session session = new Session(entry.id(), at);
+                session.seed(entry.player(), entry.currentAdventure(), entry.history(),
+                    entry.turn() == null ? 0 : entry.turn());
+                sessions.put(session.id, session);
+            }
+            case "turn" -> {
+                Session session = sessions.get(entry.id());
+                if (session != null) {
+                    session.applyTurn(entry.action(), entry.story(), entry.adventure(), entry.startedAt(), at);
+                }
+            }
+            case "rewind" -> {
+                Session session = sessions.get(entry.id());
+                if (session != null && entry.turn() != null && session.canRewindTo(entry.turn())) {
+                    session.rewindTo(entry.turn());
+                    session.lastAccess = at;
+                }
+            }
+            default -> logger.warn("Unknown session log op={}", entry.op());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * A request as StoryService should see it, plus the session it belongs to (null outside session mode)
+     * and the session turn it was resolved against.
+     */
+    public record Resolved(String sessionId, Dtos.StoryRequest request, int turn) {
+        public Resolved(String sessionId, Dtos.StoryRequest request) {
+            this(sessionId, request, 0);
+        }
+    }
+
+    private static final class Session {
+        private final String id;
+        private final List<Dtos.ChatMessage> history = new ArrayList<>();
+        private Dtos.Player player;
+        private Dtos.CurrentAdventure currentAdventure;
+        /** Turns completed before the first message in {@link #history} (earlier, finished adventures). */
+        private int baseTurn;
+        private Instant lastAccess;
+
+        private Session(String id, Instant lastAccess) {
+            this.id = id;
+            this.lastAccess = lastAccess;
+        }
+
+        private void seed(Dtos.Player player, Dtos.CurrentAdventure currentAdventure,
+                          List<Dtos.ChatMessage> history, int baseTurn) {
+            this.player = player;
+            this.currentAdventure = currentAdventure;
+            this.history.clear();
+            if (history != null) {
+                for (Dtos.ChatMessage message : history) {
+                    if (message != null && message.content() != null && !message.content().isBlank()) {
+                        this.history.add(message);
+                    }
+                }
+            }
+            this.baseTurn = baseTurn;
+        }
+
+        private int turn() {
+            int turns = baseTurn;
+            for (Dtos.ChatMessage message : history) {
+                if ("assistant".equals(message.role())) {
+                    turns += 1;
+                }
+            }
+            return turns;
+        }
+
+        private boolean canRewindTo(int turn) {
+            return turn >= baseTurn;
+        }
+
+        /**
+         * Drop turns the client never acknowledged, including the user messages that led to them.
+         */
+        private void rewindTo(int turn) {
+            int toDrop = turn() - turn;
+            while (toDrop > 0 && !history.isEmpty()) {
+                Dtos.ChatMessage removed = history.remove(history.size() - 1);
+                if ("assistant".equals(removed.role())) {
+                    toDrop -= 1;
+                }
+            }
+            while (!history.isEmpty() && !"assistant".equals(history.get(history.size() - 1).role())) {
+                history.remove(history.size() - 1);
+            }
+        }
+
+        private void applyTurn(String action, String story, Dtos.Adventure adventure, String startedAt, Instant now) {
+            history.add(new Dtos.ChatMessage("user", action == null ? "" : action.trim()));
+            history.add(new Dtos.ChatMessage("assistant", story == null ? "" : story));
+            lastAccess = now;
+
+            String title = adventure != null ? adventure.title() : null;
+            String started = startedAt != null ? startedAt : now.toString();
+            currentAdventure = new Dtos.CurrentAdventure(title, started);
+
+            if (adventure != null && adventure.completed()) {
+                List<Dtos.CompletedAdventure> completed = new ArrayList<>();
+                if (player != null && player.completedAdventures() != null) {
+                    completed.addAll(player.completedAdventures());
+                }
+                completed.add(new Dtos.CompletedAdventure(title, adventure.summary(), adventure.completedAt()));
+                player = player == null
+                    ? new Dtos.Player(null, null, completed, null)
+                    : new Dtos.Player(player.name(), player.houseName(), completed, player.stats());
+                baseTurn = turn();
+                history.clear();
+                currentAdventure = null;
+            }
+        }
+
+        private Dtos.Player mergePlayer(Dtos.Player update) {
+            if (update == null) {
+                return player;
+            }
+            if (update.completedAdventures() == null && player != null) {
+                return new Dtos.Player(update.name(), update.houseName(), player.completedAdventures(), update.stats());
+            }
+            return update;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record LogEntry(
+        String op,
+        String id,
+        String at,
+        Integer turn,
+        Dtos.Player player,
+        Dtos.CurrentAdventure currentAdventure,
+        List<Dtos.ChatMessage> history,
+        String action,
+        String story,
+        Dtos.Adventure adventure,
+        String startedAt
+    ) {
+        private static LogEntry seed(Session session, Instant at) {
+            return new LogEntry("seed", session.id, at.toString(), session.baseTurn, session.player,
+                session.currentAdventure, List.copyOf(session.history), null, null, null, null);
+        }
+
+        private static LogEntry rewind(String id, int turn, Instant at) {
+            return new LogEntry("rewind", id, at.toString(), turn, null, null, null, null, null, null, null);
+        }
+
+        private static LogEntry turn(String id, String action, String story, Dtos.Adventure adventure,
+                                     String startedAt, Instant at) {
+            return new LogEntry("turn", id, at.toString(), null, null, null, null, action, story, adventure, startedAt);
+        }
+    }
+}
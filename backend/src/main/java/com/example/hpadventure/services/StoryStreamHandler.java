@@ -7,8 +7,23 @@ import java.util.function.Consumer;
 public interface StoryStreamHandler {
     StreamResult streamTurn(Dtos.StoryRequest request, Consumer<String> onDelta);
 
+    /**
+     * Like {@link #streamTurn(Dtos.StoryRequest, Consumer)}, handing each item to {@code onItem} as soon as its
+     * marker has streamed. The items also end up in the result's assistant.
+     */
+    default StreamResult streamTurn(Dtos.StoryRequest request, Consumer<String> onDelta, Consumer<Dtos.Item> onItem) {
+        return streamTurn(request, onDelta);
+    }
+
     Dtos.Image generateImage(String imagePrompt);
 
+    /**
+     * Like {@link #generateImage(String)}, handing a quick preview to {@code onPreview} first if there is one.
+     */
+    default Dtos.Image generateImage(String imagePrompt, Consumer<Dtos.Image> onPreview) {
+        return generateImage(imagePrompt);
+    }
+
     record StreamResult(Dtos.Assistant assistant, String imagePrompt) {
     }
 }
@@ -0,0 +1,308 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.providers.TextProvider;
+import com.example.hpadventure.usage.Usage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk summary jobs, for regenerating the summaries of many completed adventures at once (after a change
+ * to the summary prompt, or when migrating players). A job runs its histories through
+ * {@link SummaryService#generateSummaries}, at most {@code parallelism} calls at a time, and keeps every
+ * result in the order it finished, so clients can follow a job and resume it after a dropped connection.
+ *
+ * Jobs run on a small worker pool with a bounded queue. Finished jobs keep their results for {@code ttl};
+ * beyond {@code maxStored} jobs, the oldest finished ones are dropped early.
+ */
+public final class SummaryBatches {
+    private static final Logger logger = LoggerFactory.getLogger(SummaryBatches.class);
+    private static final String FAILURE_MESSAGE = "Zusammenfassung konnte nicht erstellt werden.";
+
+    public static final String RUNNING = "running";
+    public static final String DONE = "done";
+
+    private final SummaryService summaryService;
+    private final Metrics metrics;
+    private final Clock clock;
+    private final int parallelism;
+    private final int maxItems;
+    private final Duration ttl;
+    private final int maxStored;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, Job> jobsById = new LinkedHashMap<>();
+
+    /**
+     * @param workers     jobs running at the same time; as many more may wait for a worker
+     * @param parallelism summaries of one job generated at the same time
+     * @param maxItems    histories accepted per job
+     * @param maxStored   jobs (with their results) kept at most
+     */
+    public SummaryBatches(
+        SummaryService summaryService,
+        Metrics metrics,
+        Clock clock,
+        int workers,
+        int parallelism,
+        int maxItems,
+        Duration ttl,
+        int maxStored
+    ) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("maxItems must be positive");
+        }
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        if (maxStored <= 0) {
+            throw new IllegalArgumentException("maxStored must be positive");
+        }
+        this.summaryService = Objects.requireNonNull(summaryService, "summaryService");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.parallelism = parallelism;
+        this.maxItems = maxItems;
+        this.ttl = ttl;
+        this.maxStored = maxStored;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workers), runnable -> {
+                Thread thread = new Thread(runnable, "summary-batch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        metrics.gauge("summary_batch_jobs_stored", "Summary batch jobs queued, running or holding results", this::size);
+    }
+
+    public int maxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Summarise {@code items} in a new job.
+     *
+     * @throws UpstreamException OVERLOADED if the job queue is full
+     */
+    public Job submit(List<Dtos.SummaryBatchItem> items) {
+        List<String> ids = new ArrayList<>(items.size());
+        List<List<Dtos.ChatMessage>> histories = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Dtos.SummaryBatchItem item = items.get(i);
+            boolean hasId = item != null && item.id() != null && !item.id().isBlank();
+            ids.add(hasId ? item.id() : String.valueOf(i));
+            histories.add(item == null ? null : item.history());
+        }
+        Job job;
+        synchronized (this) {
+            sweep();
+            job = new Job(UUID.randomUUID().toString(), clock.instant(), ids);
+            try {
+                workers.execute(Usage.propagate("summary", () -> job.run(histories)));
+            } catch (RejectedExecutionException e) {
+                metrics.counter("summary_batch_jobs_submitted_total", "Summary batch jobs requested",
+                    "result", "rejected").increment();
+                throw new UpstreamException("OVERLOADED", 503, "Summary batch queue is full");
+            }
+            jobsById.put(job.id, job);
+            evictOverflow();
+        }
+        metrics.counter("summary_batch_jobs_submitted_total", "Summary batch jobs requested", "result", "started")
+            .increment();
+        logger.info("Summary batch submitted: jobId={} items={}", job.id, items.size());
+        return job;
+    }
+
+    /**
+     * @return the job, or null if it is unknown or expired
+     */
+    public Job get(String id) {
+        synchronized (this) {
+            sweep();
+            return id == null ? null : jobsById.get(id);
+        }
+    }
+
+    public synchronized int size() {
+        return jobsById.size();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void sweep() {
+        Instant cutoff = clock.instant().minus(ttl);
+        Iterator<Job> jobs = jobsById.values().iterator();
+        while (jobs.hasNext()) {
+            Instant finishedAt = jobs.next().finishedAt();
+            if (finishedAt != null && finishedAt.isBefore(cutoff)) {
+                jobs.remove();
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Job> jobs = jobsById.values().iterator();
+        while (jobsById.size() > maxStored && jobs.hasNext()) {
+            if (jobs.next().finishedAt() != null) {
+                jobs.remove();
+            }
+        }
+    }
+
+    /**
+     * One batch of summaries being generated, and the results so far. Results arrive from the generating
+     * threads; any number of clients may wait for new ones at the same time.
+     */
+    public final class Job {
+        private final String id;
+        private final Instant createdAt;
+        private final List<String> ids;
+        private final boolean[] reported;
+        private final List<Dtos.SummaryBatchResult> results = new ArrayList<>();
+        private int succeeded;
+        private int failed;
+        private Instant finishedAt;
+
+        private Job(String id, Instant createdAt, List<String> ids) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.ids = ids;
+            this.reported = new boolean[ids.size()];
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public synchronized Dtos.SummaryBatchJob snapshot() {
+            return new Dtos.SummaryBatchJob(id, finishedAt == null ? RUNNING : DONE, ids.size(), succeeded, failed);
+        }
+
+        /**
+         * Wait up to {@code timeout} for results after {@code seq}.
+         *
+         * @return the results after {@code seq}, empty if the job is done or the wait timed out
+         */
+        public synchronized List<Dtos.SummaryBatchResult> resultsAfter(int seq, Duration timeout)
+            throws InterruptedException {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (true) {
+                if (results.size() > seq) {
+                    // seq numbers are dense from 1, so the index of seq + 1 is seq
+                    return List.copyOf(results.subList(Math.max(0, seq), results.size()));
+                }
+                long remaining = deadline - System.nanoTime();
+                if (finishedAt != null || remaining <= 0) {
+                    return List.of();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+
+        public synchronized boolean isDone() {
+            return finishedAt != null;
+        }
+
+        private synchronized Instant finishedAt() {
+            return finishedAt;
+        }
+
+        private void run(List<List<Dtos.ChatMessage>> histories) {
+            try {
+                summaryService.generateSummaries(histories, parallelism, this::add);
+            } catch (UpstreamException e) {
+                logger.warn("Summary batch failed: jobId={} code={} status={} message={}",
+                    id, e.code(), e.status(), e.getMessage());
+                failRemaining(e.code());
+            } catch (RuntimeException e) {
+                logger.error("Summary batch failed unexpectedly: jobId={}", id, e);
+                failRemaining("INTERNAL_ERROR");
+            } finally {
+                failRemaining("INTERRUPTED");
+                Dtos.SummaryBatchJob done = finish();
+                long durationMs = Duration.between(createdAt, clock.instant()).toMillis();
+                metrics.counter("summary_batch_jobs_duration_ms_total", "Time from summary batch creation to its end")
+                    .add(durationMs);
+                logger.info("Summary batch done: jobId={} succeeded={} failed={} durationMs={}",
+                    id, done.succeeded(), done.failed(), durationMs);
+            }
+        }
+
+        private void add(TextProvider.BatchResult result) {
+            int index = parseIndex(result.id());
+            if (result.error() != null) {
+                logger.warn("Summary batch item failed: jobId={} index={} code={} status={} message={}",
+                    id, index, result.error().code(), result.error().status(), result.error().getMessage());
+                record(index, null, result.error().code());
+            } else {
+                record(index, result.text(), null);
+            }
+        }
+
+        private synchronized void record(int index, String summary, String errorCode) {
+            if (index < 0 || index >= reported.length || reported[index]) {
+                return;
+            }
+            reported[index] = true;
+            Dtos.ErrorResponse.Error error = errorCode == null
+                ? null
+                : new Dtos.ErrorResponse.Error(errorCode, FAILURE_MESSAGE, null);
+            results.add(new Dtos.SummaryBatchResult(results.size() + 1, ids.get(index), summary, error));
+            if (error == null) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+            metrics.counter("summary_batch_items_total", "Summaries finished by batch jobs",
+                "result", error == null ? "done" : "failed").increment();
+            notifyAll();
+        }
+
+        private synchronized void failRemaining(String errorCode) {
+            for (int i = 0; i < reported.length; i++) {
+                if (!reported[i]) {
+                    record(i, null, errorCode);
+                }
+            }
+        }
+
+        private synchronized Dtos.SummaryBatchJob finish() {
+            finishedAt = clock.instant();
+            notifyAll();
+            return snapshot();
+        }
+
+        private static int parseIndex(String id) {
+            try {
+                return Integer.parseInt(id);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
@@ -2,8 +2,13 @@ package com.example.hpadventure.services;
 
 import com.example.hpadventure.api.Dtos;
 import com.example.hpadventure.providers.TextProvider;
+import com.example.hpadventure.tracing.Span;
+import com.example.hpadventure.tracing.Tracing;
+import com.example.hpadventure.usage.Usage;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public final class SummaryService {
     private static final String SUMMARY_PROMPT = "Du bist ein Assistent der Text-Adventure Zusammenfassungen erstellt.\n\n"
@@ -13,6 +18,7 @@ public final class SummaryService {
         + "- Wie es endete\n\n"
         + "Schreibe auf Deutsch, in der dritten Person, vergangene Zeit.\n"
         + "Halte es kurz und prägnant (max 50 Wörter).";
+    private static final int MAX_TOKENS = 200;
 
     private final TextProvider textProvider;
 
@@ -25,6 +31,47 @@ public final class SummaryService {
             return null;
         }
 
+        try (Span ignored = Tracing.start("summary.generate"); Usage.Scope scope = Usage.callType("summary")) {
+            String response = textProvider.createMessage(SUMMARY_PROMPT, summaryMessages(conversationHistory),
+                MAX_TOKENS);
+            return response == null ? null : response.trim();
+        }
+    }
+
+    /**
+     * Summarise many adventures at once, at most {@code parallelism} calls at a time (or as one provider-side
+     * batch, if the provider has one). Each outcome goes to {@code onResult} as soon as it is known, in any
+     * order and possibly from several threads; its id is the index into {@code histories}, and an empty
+     * history gets a null summary without a call.
+     */
+    public void generateSummaries(
+        List<List<Dtos.ChatMessage>> histories,
+        int parallelism,
+        Consumer<TextProvider.BatchResult> onResult
+    ) {
+        List<TextProvider.BatchRequest> requests = new ArrayList<>();
+        for (int i = 0; i < histories.size(); i++) {
+            List<Dtos.ChatMessage> history = histories.get(i);
+            if (history == null || history.isEmpty()) {
+                onResult.accept(new TextProvider.BatchResult(String.valueOf(i), null, null));
+            } else {
+                requests.add(new TextProvider.BatchRequest(String.valueOf(i), SUMMARY_PROMPT, summaryMessages(history),
+                    MAX_TOKENS));
+            }
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        try (Span span = Tracing.start("summary.batch"); Usage.Scope scope = Usage.callType("summary")) {
+            span.attribute("requests", requests.size());
+            textProvider.createMessages(requests, parallelism, result -> onResult.accept(result.text() == null
+                ? result
+                : new TextProvider.BatchResult(result.id(), result.text().trim(), null)));
+        }
+    }
+
+    private static List<TextProvider.Message> summaryMessages(List<Dtos.ChatMessage> conversationHistory) {
         StringBuilder storyContent = new StringBuilder();
         for (Dtos.ChatMessage message : conversationHistory) {
             if (message == null) {
@@ -35,7 +82,6 @@ public final class SummaryService {
         }
 
         String prompt = "Fasse dieses Abenteuer zusammen:\n\n" + storyContent;
-        String response = textProvider.createMessage(SUMMARY_PROMPT, List.of(new TextProvider.Message("user", prompt)), 200);
-        return response == null ? null : response.trim();
+        return List.of(new TextProvider.Message("user", prompt));
     }
 }
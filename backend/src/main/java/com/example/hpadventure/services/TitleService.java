@@ -1,6 +1,9 @@
 package com.example.hpadventure.services;
 
 import com.example.hpadventure.providers.TextProvider;
+import com.example.hpadventure.tracing.Span;
+import com.example.hpadventure.tracing.Tracing;
+import com.example.hpadventure.usage.Usage;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -58,8 +61,10 @@ public final class TitleService {
 
         String joined = String.join("\n", assistantMessages);
         String prompt = TITLE_PROMPT + joined;
-        String response = textProvider.createMessage(null, List.of(new TextProvider.Message("user", prompt)), 50);
-        return sanitizeTitle(response);
+        try (Span ignored = Tracing.start("title.generate"); Usage.Scope scope = Usage.callType("title")) {
+            String response = textProvider.createMessage(null, List.of(new TextProvider.Message("user", prompt)), 50);
+            return sanitizeTitle(response);
+        }
     }
 
     private static String sanitizeTitle(String response) {
@@ -1,6 +1,8 @@
 package com.example.hpadventure.services;
 
 import com.example.hpadventure.providers.SpeechProvider;
+import com.example.hpadventure.tracing.Span;
+import com.example.hpadventure.tracing.Tracing;
 
 import java.io.OutputStream;
 import java.util.Objects;
@@ -14,6 +16,9 @@ public final class TtsService implements TtsHandler {
 
     @Override
     public void stream(String text, OutputStream outputStream) {
-        speechProvider.streamSpeech(text, outputStream);
+        try (Span span = Tracing.start("tts.stream")) {
+            span.attribute("textLength", text == null ? 0 : text.length());
+            speechProvider.streamSpeech(text, outputStream);
+        }
     }
 }
@@ -0,0 +1,32 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Receives every finished story turn for durable storage.
+ * Implementations must be cheap enough to call on the turn path.
+ */
+@FunctionalInterface
+public interface TurnJournal {
+    TurnJournal NOOP = entry -> {
+    };
+
+    void record(TurnEntry entry);
+
+    record TurnEntry(
+        String playerId,
+        String adventureId,
+        int turn,
+        String action,
+        String story,
+        List<String> options,
+        String scene,
+        String imageId,
+        Dtos.Adventure adventure,
+        Instant recordedAt
+    ) {
+    }
+}
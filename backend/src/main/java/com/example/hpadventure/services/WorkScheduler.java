@@ -0,0 +1,352 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for everything that calls an upstream, in three priority classes:
+ * {@link Priority#INTERACTIVE} story turns, {@link Priority#NEAR_INTERACTIVE} work a player is waiting
+ * on right after a turn (images) and {@link Priority#BACKGROUND} work nobody waits on yet
+ * (speculation, pool refills).
+ *
+ * Each class has its own concurrency cap and a bounded queue. Interactive and near-interactive work
+ * runs on the caller's thread once it holds a {@link Permit}; background work is {@link #submit submitted}
+ * and runs on low-priority scheduler threads. Waiting work of a class is granted round-robin across
+ * users, so one player's burst cannot starve the others.
+ *
+ * Background work is deferred (left queued, never interrupted) while the interactive class is under
+ * pressure: at least {@code deferAtInteractive} turns running or queued, or any interactive or
+ * near-interactive work queued.
+ */
+public final class WorkScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(WorkScheduler.class);
+    private static final Duration DEFERRED_RECHECK = Duration.ofSeconds(1);
+
+    public enum Priority {
+        INTERACTIVE(Thread.NORM_PRIORITY),
+        NEAR_INTERACTIVE(Thread.NORM_PRIORITY),
+        BACKGROUND(Thread.MIN_PRIORITY);
+
+        private final int threadPriority;
+
+        Priority(int threadPriority) {
+            this.threadPriority = threadPriority;
+        }
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Metrics metrics;
+    private final int deferAtInteractive;
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+    private final ExecutorService workers;
+    private final ScheduledExecutorService recheck;
+
+    /**
+     * @param deferAtInteractive running plus queued interactive turns at which background work waits
+     */
+    public WorkScheduler(Metrics metrics, Map<Priority, Limits> limits, int deferAtInteractive) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.deferAtInteractive = Math.max(1, deferAtInteractive);
+        for (Priority priority : Priority.values()) {
+            Limits lane = limits.get(priority);
+            if (lane == null) {
+                throw new IllegalArgumentException("Missing limits for " + priority);
+            }
+            lanes.put(priority, new Lane(priority, lane));
+            metrics.gauge("scheduler_running", "Work holding a scheduler slot",
+                () -> running(priority), "class", priority.label());
+            metrics.gauge("scheduler_queued", "Work waiting for a scheduler slot",
+                () -> queued(priority), "class", priority.label());
+        }
+        metrics.gauge("scheduler_background_deferred", "1 while background work is held back for interactive load",
+            () -> underPressure() && queued(Priority.BACKGROUND) > 0 ? 1 : 0);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.recheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-recheck");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Interactive load also drops without a release here (e.g. a queued turn timing out)
+        long recheckMillis = DEFERRED_RECHECK.toMillis();
+        recheck.scheduleWithFixedDelay(this::dispatch, recheckMillis, recheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wait up to {@code maxWait} for a slot in {@code priority}, to run work on the calling thread.
+     *
+     * @throws RejectedExecutionException if the class queue is full, the wait timed out or was interrupted
+     */
+    public Permit enter(Priority priority, String user, Duration maxWait) {
+        Lane lane = lanes.get(priority);
+        Ticket ticket = new Ticket(user, null);
+        synchronized (this) {
+            if (lane.running < lane.limits.maxRunning() && lane.isEmpty()) {
+                lane.running += 1;
+                admitted(lane, ticket);
+                return permit(lane);
+            }
+            enqueue(lane, ticket);
+        }
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        synchronized (this) {
+            try {
+                while (!ticket.granted) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new RejectedExecutionException(
+                            "Timed out waiting for a " + priority.label() + " slot");
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+                return permit(lane);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted waiting for a " + priority.label() + " slot");
+            } finally {
+                if (!ticket.granted) {
+                    lane.remove(ticket);
+                    metrics.counter("scheduler_rejected_total", "Work turned away by the scheduler",
+                        "class", priority.label(), "reason", "timeout").increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue {@code task} to run on a scheduler thread. Cancelling the returned future skips it if still
+     * queued and interrupts it if running.
+     *
+     * @throws RejectedExecutionException if the class queue is full
+     */
+    public Future<?> submit(Priority priority, String user, Runnable task) {
+        Lane lane = lanes.get(priority);
+        FutureTask<Void> future = new FutureTask<>(() -> {
+            Thread thread = Thread.currentThread();
+            thread.setPriority(priority.threadPriority);
+            try {
+                task.run();
+            } finally {
+                thread.setPriority(Thread.NORM_PRIORITY);
+            }
+        }, null);
+        synchronized (this) {
+            enqueue(lane, new Ticket(user, future));
+        }
+        dispatch();
+        return future;
+    }
+
+    /**
+     * Whether background work is being held back right now.
+     */
+    public synchronized boolean underPressure() {
+        Lane interactive = lanes.get(Priority.INTERACTIVE);
+        return interactive.running + interactive.size >= deferAtInteractive
+            || interactive.size > 0
+            || lanes.get(Priority.NEAR_INTERACTIVE).size > 0;
+    }
+
+    public synchronized int running(Priority priority) {
+        return lanes.get(priority).running;
+    }
+
+    public synchronized int queued(Priority priority) {
+        return lanes.get(priority).size;
+    }
+
+    public void shutdown() {
+        recheck.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void enqueue(Lane lane, Ticket ticket) {
+        if (lane.size >= lane.limits.maxQueued()) {
+            metrics.counter("scheduler_rejected_total", "Work turned away by the scheduler",
+                "class", lane.priority.label(), "reason", "queue_full").increment();
+            throw new RejectedExecutionException("The " + lane.priority.label() + " queue is full");
+        }
+        lane.add(ticket);
+    }
+
+    private Permit permit(Lane lane) {
+        AtomicInteger released = new AtomicInteger();
+        return () -> {
+            if (released.getAndIncrement() == 0) {
+                release(lane);
+            }
+        };
+    }
+
+    private void release(Lane lane) {
+        synchronized (this) {
+            lane.running -= 1;
+        }
+        dispatch();
+    }
+
+    /**
+     * Grant freed slots, highest class first; background only while there is no interactive pressure.
+     */
+    private void dispatch() {
+        synchronized (this) {
+            for (Lane lane : lanes.values()) {
+                if (lane.priority == Priority.BACKGROUND && underPressure()) {
+                    continue;
+                }
+                while (lane.running < lane.limits.maxRunning()) {
+                    Ticket ticket = lane.poll();
+                    if (ticket == null) {
+                        break;
+                    }
+                    if (ticket.task != null && ticket.task.isCancelled()) {
+                        continue;
+                    }
+                    lane.running += 1;
+                    admitted(lane, ticket);
+                    if (ticket.task == null) {
+                        ticket.granted = true;
+                        notifyAll();
+                    } else {
+                        start(lane, ticket.task);
+                    }
+                }
+            }
+        }
+    }
+
+    private void start(Lane lane, FutureTask<Void> task) {
+        try {
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    release(lane);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            lane.running -= 1;
+            task.cancel(false);
+            logger.warn("Scheduler stopped, dropping {} work", lane.priority.label());
+        }
+    }
+
+    private void admitted(Lane lane, Ticket ticket) {
+        String label = lane.priority.label();
+        metrics.counter("scheduler_admitted_total", "Work granted a scheduler slot", "class", label).increment();
+        metrics.counter("scheduler_queue_wait_ms_total", "Time admitted work spent waiting for a slot",
+            "class", label).add((System.nanoTime() - ticket.enqueuedNanos) / 1_000_000);
+    }
+
+    /**
+     * Limits of one priority class.
+     */
+    public record Limits(int maxRunning, int maxQueued) {
+        public Limits {
+            if (maxRunning <= 0) {
+                throw new IllegalArgumentException("maxRunning must be positive");
+            }
+            if (maxQueued < 0) {
+                throw new IllegalArgumentException("maxQueued must not be negative");
+            }
+        }
+    }
+
+    /**
+     * A held slot; closing it (more than once is fine) lets the next waiting work in.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Ticket {
+        private final String user;
+        private final FutureTask<Void> task;
+        private final long enqueuedNanos = System.nanoTime();
+        private boolean granted;
+
+        private Ticket(String user, FutureTask<Void> task) {
+            this.user = user == null ? "" : user;
+            this.task = task;
+        }
+    }
+
+    /**
+     * One class's slots and its waiting work, one FIFO per user, served round-robin.
+     */
+    private static final class Lane {
+        private final Priority priority;
+        private final Limits limits;
+        private final LinkedHashMap<String, ArrayDeque<Ticket>> byUser = new LinkedHashMap<>();
+        private int running;
+        private int size;
+
+        private Lane(Priority priority, Limits limits) {
+            this.priority = priority;
+            this.limits = limits;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void add(Ticket ticket) {
+            byUser.computeIfAbsent(ticket.user, user -> new ArrayDeque<>()).addLast(ticket);
+            size += 1;
+        }
+
+        private Ticket poll() {
+            Iterator<Map.Entry<String, ArrayDeque<Ticket>>> users = byUser.entrySet().iterator();
+            if (!users.hasNext()) {
+                return null;
+            }
+            Map.Entry<String, ArrayDeque<Ticket>> next = users.next();
+            users.remove();
+            Ticket ticket = next.getValue().pollFirst();
+            if (!next.getValue().isEmpty()) {
+                // Back of the line until every other waiting user had a turn
+                byUser.put(next.getKey(), next.getValue());
+            }
+            size -= 1;
+            return ticket;
+        }
+
+        private void remove(Ticket ticket) {
+            ArrayDeque<Ticket> tickets = byUser.get(ticket.user);
+            if (tickets != null && tickets.remove(ticket)) {
+                size -= 1;
+                if (tickets.isEmpty()) {
+                    byUser.remove(ticket.user);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.hpadventure.tracing;
+
+import java.util.List;
+
+/**
+ * A completed trace as handed to {@link TraceExporter}s; spans are ordered by start time, root first.
+ *
+ * @param droppedSpans spans not recorded because the trace hit its span limit
+ */
+public record FinishedTrace(String traceId, List<Span.SpanData> spans, int droppedSpans) {
+    public Span.SpanData root() {
+        return spans.get(0);
+    }
+
+    public long durationNanos() {
+        return root().durationNanos();
+    }
+}
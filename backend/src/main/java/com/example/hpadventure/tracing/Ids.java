@@ -0,0 +1,23 @@
+package com.example.hpadventure.tracing;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * W3C/OTLP-sized ids: 16 bytes for traces, 8 bytes for spans, as lowercase hex.
+ */
+final class Ids {
+    private static final HexFormat HEX = HexFormat.of();
+
+    private Ids() {
+    }
+
+    static String traceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return HEX.toHexDigits(random.nextLong()) + HEX.toHexDigits(random.nextLong());
+    }
+
+    static String spanId() {
+        return HEX.toHexDigits(ThreadLocalRandom.current().nextLong());
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.hpadventure.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends every trace as one OTLP/JSON {@code ExportTraceServiceRequest} per line, the format the
+ * OpenTelemetry collector's {@code otlpjsonfile} receiver reads. Writes happen on a single background
+ * thread; when its queue is full, traces are dropped instead of slowing requests down.
+ */
+public final class OtlpFileExporter implements TraceExporter, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(OtlpFileExporter.class);
+    private static final int QUEUE_SIZE = 1024;
+    private static final int STATUS_CODE_ERROR = 2;
+    private static final int SPAN_KIND_INTERNAL = 1;
+
+    private final ObjectMapper mapper;
+    private final String serviceName;
+    private final BufferedWriter writer;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder dropped = new LongAdder();
+
+    public OtlpFileExporter(ObjectMapper mapper, Path file, String serviceName) throws IOException {
+        this.mapper = mapper;
+        this.serviceName = serviceName;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_SIZE),
+            runnable -> {
+                Thread thread = new Thread(runnable, "trace-export");
+                thread.setDaemon(true);
+                return thread;
+            },
+            (runnable, pool) -> dropped.increment());
+    }
+
+    @Override
+    public void export(FinishedTrace trace) {
+        executor.execute(() -> write(trace));
+    }
+
+    /**
+     * @return traces dropped because the export queue was full, since startup
+     */
+    public long droppedTraces() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+    }
+
+    private void write(FinishedTrace trace) {
+        try {
+            writer.write(mapper.writeValueAsString(toOtlp(trace)));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            logger.warn("Trace file write failed: traceId={} error={}", trace.traceId(), e.getMessage());
+        }
+    }
+
+    Map<String, Object> toOtlp(FinishedTrace trace) {
+        List<Map<String, Object>> spans = new ArrayList<>(trace.spans().size());
+        for (Span.SpanData span : trace.spans()) {
+            Map<String, Object> otlpSpan = new LinkedHashMap<>();
+            otlpSpan.put("traceId", trace.traceId());
+            otlpSpan.put("spanId", span.spanId());
+            if (span.parentSpanId() != null) {
+                otlpSpan.put("parentSpanId", span.parentSpanId());
+            }
+            otlpSpan.put("name", span.name());
+            otlpSpan.put("kind", SPAN_KIND_INTERNAL);
+            // OTLP/JSON encodes 64-bit integers as strings
+            otlpSpan.put("startTimeUnixNano", Long.toString(span.startEpochNanos()));
+            otlpSpan.put("endTimeUnixNano", Long.toString(span.startEpochNanos() + span.durationNanos()));
+            List<Map<String, Object>> attributes = new ArrayList<>();
+            for (Map.Entry<String, Object> attribute : span.attributes().entrySet()) {
+                attributes.add(attribute(attribute.getKey(), attribute.getValue()));
+            }
+            otlpSpan.put("attributes", attributes);
+            if (span.error() != null) {
+                otlpSpan.put("status", Map.of("code", STATUS_CODE_ERROR, "message", span.error()));
+            }
+            spans.add(otlpSpan);
+        }
+
+        Map<String, Object> scopeSpans = Map.of(
+            "scope", Map.of("name", "com.example.hpadventure"),
+            "spans", spans
+        );
+        Map<String, Object> resourceSpans = Map.of(
+            "resource", Map.of("attributes", List.of(attribute("service.name", serviceName))),
+            "scopeSpans", List.of(scopeSpans)
+        );
+        return Map.of("resourceSpans", List.of(resourceSpans));
+    }
+
+    private static Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> anyValue;
+        if (value instanceof Boolean bool) {
+            anyValue = Map.of("boolValue", bool);
+        } else if (value instanceof Integer || value instanceof Long) {
+            anyValue = Map.of("intValue", value.toString());
+        } else if (value instanceof Number number) {
+            anyValue = Map.of("doubleValue", number.doubleValue());
+        } else {
+            anyValue = Map.of("stringValue", String.valueOf(value));
+        }
+        return Map.of("key", key, "value", anyValue);
+    }
+}
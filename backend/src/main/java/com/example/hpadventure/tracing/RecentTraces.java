@@ -0,0 +1,94 @@
+package com.example.hpadventure.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-process collector that keeps the last {@code capacity} traces and renders them as text
+ * waterfalls for {@code /debug/traces/recent}.
+ */
+public final class RecentTraces implements TraceExporter {
+    static final int BAR_WIDTH = 40;
+
+    private final int capacity;
+    private final ArrayDeque<FinishedTrace> traces;
+
+    public RecentTraces(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.traces = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public synchronized void export(FinishedTrace trace) {
+        if (traces.size() == capacity) {
+            traces.removeFirst();
+        }
+        traces.addLast(trace);
+    }
+
+    /**
+     * @return up to {@code limit} retained traces, slowest first
+     */
+    public List<FinishedTrace> slowest(int limit) {
+        List<FinishedTrace> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(traces);
+        }
+        snapshot.sort(Comparator.comparingLong(FinishedTrace::durationNanos).reversed());
+        return snapshot.subList(0, Math.min(Math.max(limit, 0), snapshot.size()));
+    }
+
+    /**
+     * One line per span, indented by depth, with its offset, duration and a bar relative to the root:
+     * <pre>
+     * trace 4bf92f3577b34da6a3ce929d0e0e4736 story.turn 5234.1 ms
+     *      0.0 ms   5234.1 ms |########################################| story.turn requestId=...
+     *      1.2 ms   4980.0 ms | #####################################  |   upstream.call provider=openrouter
+     * </pre>
+     */
+    public static String waterfall(FinishedTrace trace) {
+        Span.SpanData root = trace.root();
+        long total = Math.max(root.durationNanos(), 1);
+        Map<String, Integer> depths = new HashMap<>();
+        StringBuilder out = new StringBuilder();
+        out.append("trace ").append(trace.traceId()).append(' ').append(root.name())
+            .append(' ').append(millis(root.durationNanos())).append(" ms");
+        if (trace.droppedSpans() > 0) {
+            out.append(" (").append(trace.droppedSpans()).append(" spans dropped)");
+        }
+        out.append('\n');
+
+        for (Span.SpanData span : trace.spans()) {
+            int depth = span.parentSpanId() == null ? 0 : depths.getOrDefault(span.parentSpanId(), 0) + 1;
+            depths.put(span.spanId(), depth);
+            long offset = Math.max(span.startEpochNanos() - root.startEpochNanos(), 0);
+
+            int barStart = (int) Math.min(BAR_WIDTH - 1, offset * BAR_WIDTH / total);
+            int barLength = (int) Math.max(1, Math.min(BAR_WIDTH - barStart, span.durationNanos() * BAR_WIDTH / total));
+            out.append(String.format(Locale.ROOT, "%9s ms %9s ms |", millis(offset), millis(span.durationNanos())));
+            out.append(" ".repeat(barStart)).append("#".repeat(barLength))
+                .append(" ".repeat(BAR_WIDTH - barStart - barLength)).append("| ");
+            out.append("  ".repeat(depth)).append(span.name());
+            for (Map.Entry<String, Object> attribute : span.attributes().entrySet()) {
+                out.append(' ').append(attribute.getKey()).append('=').append(attribute.getValue());
+            }
+            if (span.error() != null) {
+                out.append(" error=\"").append(span.error()).append('"');
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.hpadventure.tracing;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One timed operation of a trace. Roots come from {@link Tracer#startTrace}, children from
+ * {@link Tracing#start}; closing a span ends it and makes its parent current again.
+ * Outside a trace every span is a shared no-op, so instrumented code costs next to nothing there.
+ */
+public final class Span implements AutoCloseable {
+    static final Span NOOP = new Span(null, null, null, "noop", null, false);
+
+    private final Trace trace;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final Span previous;
+    private final boolean scoped;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private String error;
+    private long durationNanos = -1;
+
+    Span(Trace trace, String spanId, String parentSpanId, String name, Span previous, boolean scoped) {
+        this.trace = trace;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.previous = previous;
+        this.scoped = scoped;
+        Instant now = Instant.now();
+        this.startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        this.startNanos = System.nanoTime();
+    }
+
+    public boolean isRecording() {
+        return trace != null;
+    }
+
+    public String traceId() {
+        return trace == null ? null : trace.traceId();
+    }
+
+    public Span attribute(String key, Object value) {
+        if (trace != null && value != null) {
+            synchronized (this) {
+                attributes.put(key, value);
+            }
+        }
+        return this;
+    }
+
+    public Span error(Throwable throwable) {
+        return error(throwable.getClass().getSimpleName() + ": " + throwable.getMessage());
+    }
+
+    public Span error(String message) {
+        if (trace != null) {
+            synchronized (this) {
+                error = message;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * End the span. A root span hands its finished trace to the exporters.
+     */
+    @Override
+    public void close() {
+        if (trace == null) {
+            return;
+        }
+        synchronized (this) {
+            if (durationNanos >= 0) {
+                return;
+            }
+            durationNanos = System.nanoTime() - startNanos;
+        }
+        if (scoped && Tracing.currentOrNull() == this) {
+            Tracing.restore(previous);
+        }
+        if (parentSpanId == null) {
+            trace.finish();
+        }
+    }
+
+    Trace trace() {
+        return trace;
+    }
+
+    String spanId() {
+        return spanId;
+    }
+
+    synchronized SpanData snapshot() {
+        boolean finished = durationNanos >= 0;
+        Map<String, Object> copy = new LinkedHashMap<>(attributes);
+        if (!finished) {
+            copy.put("unfinished", true);
+        }
+        return new SpanData(
+            spanId,
+            parentSpanId,
+            name,
+            startEpochNanos,
+            finished ? durationNanos : System.nanoTime() - startNanos,
+            Map.copyOf(copy),
+            error
+        );
+    }
+
+    /**
+     * Immutable view of a span for exporters.
+     */
+    public record SpanData(
+        String spanId,
+        String parentSpanId,
+        String name,
+        long startEpochNanos,
+        long durationNanos,
+        Map<String, Object> attributes,
+        String error
+    ) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.hpadventure.tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The spans of one trace, collected until the root span ends.
+ */
+final class Trace {
+    /** Caps traces with very many children, e.g. one SSE flush span per streamed delta. */
+    static final int MAX_SPANS = 512;
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final List<Span> spans = new ArrayList<>();
+    private int droppedSpans;
+    private boolean finished;
+
+    Trace(Tracer tracer, String traceId) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+    }
+
+    String traceId() {
+        return traceId;
+    }
+
+    Span newSpan(String name, String parentSpanId, Span previous, boolean scoped) {
+        synchronized (this) {
+            if (finished || spans.size() >= MAX_SPANS) {
+                droppedSpans++;
+                return Span.NOOP;
+            }
+            Span span = new Span(this, Ids.spanId(), parentSpanId, name, previous, scoped);
+            spans.add(span);
+            return span;
+        }
+    }
+
+    void finish() {
+        List<Span> snapshot;
+        int dropped;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            snapshot = List.copyOf(spans);
+            dropped = droppedSpans;
+        }
+        List<Span.SpanData> data = new ArrayList<>(snapshot.size());
+        for (Span span : snapshot) {
+            data.add(span.snapshot());
+        }
+        data.sort(Comparator.comparingLong(Span.SpanData::startEpochNanos));
+        tracer.export(new FinishedTrace(traceId, List.copyOf(data), dropped));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.hpadventure.tracing;
+
+/**
+ * Receives every finished trace on the thread that ended its root span; must not block.
+ */
+@FunctionalInterface
+public interface TraceExporter {
+    void export(FinishedTrace trace);
+}
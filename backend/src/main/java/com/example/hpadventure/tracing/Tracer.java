@@ -0,0 +1,45 @@
+package com.example.hpadventure.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Starts root spans (one per story turn or TTS request) and hands finished traces to the exporters.
+ */
+public final class Tracer {
+    private static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+
+    /** Records nothing: every span it starts is a no-op. */
+    public static final Tracer NOOP = new Tracer(List.of());
+
+    private final List<TraceExporter> exporters;
+
+    public Tracer(List<TraceExporter> exporters) {
+        this.exporters = List.copyOf(exporters);
+    }
+
+    /**
+     * Start a new trace whose root span is current until closed.
+     */
+    public Span startTrace(String name) {
+        if (exporters.isEmpty()) {
+            return Span.NOOP;
+        }
+        Trace trace = new Trace(this, Ids.traceId());
+        Span root = trace.newSpan(name, null, Tracing.currentOrNull(), true);
+        Tracing.set(root);
+        return root;
+    }
+
+    void export(FinishedTrace trace) {
+        for (TraceExporter exporter : exporters) {
+            try {
+                exporter.export(trace);
+            } catch (RuntimeException e) {
+                logger.warn("Trace export failed: exporter={} error={}", exporter.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.hpadventure.tracing;
+
+/**
+ * The current span of the calling thread. Story turns run on one request thread from route to
+ * provider call, so services and providers open child spans here without a context parameter.
+ */
+public final class Tracing {
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private Tracing() {
+    }
+
+    /**
+     * @return the current span, or a no-op span outside a trace
+     */
+    public static Span current() {
+        Span span = CURRENT.get();
+        return span != null ? span : Span.NOOP;
+    }
+
+    /**
+     * Start a child of the current span and make it current until closed.
+     */
+    public static Span start(String name) {
+        Span parent = CURRENT.get();
+        if (parent == null || !parent.isRecording()) {
+            return Span.NOOP;
+        }
+        Span child = parent.trace().newSpan(name, parent.spanId(), parent, true);
+        if (child.isRecording()) {
+            CURRENT.set(child);
+        }
+        return child;
+    }
+
+    /**
+     * Start a child of the current span without making it current, for work that outlives the
+     * calling scope (e.g. a response body read later).
+     */
+    public static Span startDetached(String name) {
+        Span parent = CURRENT.get();
+        if (parent == null || !parent.isRecording()) {
+            return Span.NOOP;
+        }
+        return parent.trace().newSpan(name, parent.spanId(), null, false);
+    }
+
+    static Span currentOrNull() {
+        return CURRENT.get();
+    }
+
+    static void set(Span span) {
+        CURRENT.set(span);
+    }
+
+    static void restore(Span previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.hpadventure.usage;
+
+/**
+ * Token counts of one upstream text call, as reported by the provider.
+ *
+ * @param inputTokens       all prompt tokens, including cached ones
+ * @param cachedInputTokens prompt tokens served from the provider's prompt cache
+ * @param costUsd           cost reported by the provider, or null to price it from the configured table
+ */
+public record TokenUsage(long inputTokens, long outputTokens, long cachedInputTokens, Double costUsd) {
+    /**
+     * Parse the counts as read from JSON text; missing or malformed values count as 0.
+     *
+     * @return null if neither input nor output tokens were reported
+     */
+    public static TokenUsage parse(String inputTokens, String outputTokens, String cachedInputTokens, String costUsd) {
+        if (inputTokens == null && outputTokens == null) {
+            return null;
+        }
+        Double cost = null;
+        if (costUsd != null) {
+            try {
+                cost = Double.parseDouble(costUsd);
+            } catch (NumberFormatException e) {
+                // price it from the table instead
+            }
+        }
+        return new TokenUsage(count(inputTokens), count(outputTokens), count(cachedInputTokens), cost);
+    }
+
+    /**
+     * @return the token count in {@code value}, or 0 if missing or malformed
+     */
+    public static long count(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.hpadventure.usage;
+
+/**
+ * Who a text call is made for and why, on the calling thread. Routes open a scope with the ledger
+ * and the authenticated user, services narrow the call type (story, title, summary), and providers
+ * report what the upstream returned via {@link #record}, without any of it in their signatures.
+ */
+public final class Usage {
+    public static final String ANONYMOUS = "anonymous";
+
+    private static final ThreadLocal<State> CURRENT = new ThreadLocal<>();
+
+    private Usage() {
+    }
+
+    /**
+     * Start accounting for {@code user}; calls default to the {@code story} type.
+     */
+    public static Scope begin(UsageLedger ledger, String user) {
+        return push(new State(ledger, user == null || user.isBlank() ? ANONYMOUS : user, "story"));
+    }
+
+    /**
+     * Attribute the calls inside the returned scope to {@code callType}. No-op outside {@link #begin}.
+     */
+    public static Scope callType(String callType) {
+        State state = CURRENT.get();
+        if (state == null) {
+            return Scope.NOOP;
+        }
+        return push(new State(state.ledger(), state.user(), callType));
+    }
+
+    /**
+     * @return the user calls on this thread are accounted to, or {@link #ANONYMOUS} outside {@link #begin}
+     */
+    public static String currentUser() {
+        State state = CURRENT.get();
+        return state == null ? ANONYMOUS : state.user();
+    }
+
+    /**
+     * Wrap {@code task} to run on another thread with this thread's user, under {@code callType}.
+     * Outside {@link #begin} the task runs unaccounted.
+     */
+    public static Runnable propagate(String callType, Runnable task) {
+        State state = CURRENT.get();
+        if (state == null) {
+            return task;
+        }
+        State propagated = new State(state.ledger(), state.user(), callType);
+        return () -> {
+            try (Scope ignored = push(propagated)) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Wrap {@code task} to run on another thread with this thread's user and call type.
+     */
+    public static Runnable propagate(Runnable task) {
+        State state = CURRENT.get();
+        return state == null ? task : propagate(state.callType(), task);
+    }
+
+    /**
+     * Record one successful upstream call; ignored outside {@link #begin} or when usage is null.
+     */
+    public static void record(String provider, String model, TokenUsage usage) {
+        record(provider, model, usage, 1.0);
+    }
+
+    /**
+     * Record one successful upstream call billed at {@code priceFactor} times the model's table price.
+     */
+    public static void record(String provider, String model, TokenUsage usage, double priceFactor) {
+        State state = CURRENT.get();
+        if (state == null || usage == null) {
+            return;
+        }
+        state.ledger().record(new UsageLedger.Key(provider, model, state.callType(), state.user()), usage, priceFactor);
+    }
+
+    private static Scope push(State state) {
+        State previous = CURRENT.get();
+        CURRENT.set(state);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Restores the previous accounting context on close.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        Scope NOOP = () -> {
+        };
+
+        @Override
+        void close();
+    }
+
+    private record State(UsageLedger ledger, String user, String callType) {
+    }
+}
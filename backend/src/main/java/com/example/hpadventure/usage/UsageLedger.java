@@ -0,0 +1,190 @@
+package com.example.hpadventure.usage;
+
+import com.example.hpadventure.metrics.Metrics;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Token and cost totals per provider, model, call type and user. Every total is a {@link LongAdder}
+ * shared with the {@code upstream_token*} metrics, so recording never takes a lock.
+ */
+public final class UsageLedger {
+    private static final double MICROS_PER_USD = 1_000_000.0;
+
+    private final Metrics metrics;
+    private final Map<String, Price> prices;
+    private final Instant since;
+    private final Map<Key, Totals> totals = new ConcurrentHashMap<>();
+
+    /**
+     * @param prices USD per million tokens by model, used when the provider reports no cost
+     */
+    public UsageLedger(Metrics metrics, Map<String, Price> prices, Clock clock) {
+        this.metrics = metrics;
+        this.prices = Map.copyOf(prices);
+        this.since = Instant.now(clock);
+    }
+
+    void record(Key key, TokenUsage usage) {
+        record(key, usage, 1.0);
+    }
+
+    /**
+     * @param priceFactor applied to costs priced from the table, e.g. 0.5 for discounted batch calls;
+     *                    a cost the provider reports is taken as billed
+     */
+    void record(Key key, TokenUsage usage, double priceFactor) {
+        Totals entry = totals.computeIfAbsent(key, this::newTotals);
+        entry.calls.increment();
+        entry.inputTokens.add(usage.inputTokens());
+        entry.outputTokens.add(usage.outputTokens());
+        entry.cachedInputTokens.add(usage.cachedInputTokens());
+        Double cost = usage.costUsd();
+        if (cost == null) {
+            Price price = prices.get(key.model());
+            cost = price == null ? null : price.cost(usage.inputTokens(), usage.outputTokens()) * priceFactor;
+        }
+        if (cost != null) {
+            entry.costMicros.add(Math.round(cost * MICROS_PER_USD));
+        }
+    }
+
+    public Summary summary() {
+        List<Line> entries = new ArrayList<>();
+        for (Map.Entry<Key, Totals> entry : totals.entrySet()) {
+            Key key = entry.getKey();
+            entries.add(entry.getValue().line(key.provider(), key.model(), key.callType(), key.user()));
+        }
+        entries.sort(Comparator.comparingLong(Line::inputTokens).reversed());
+        return new Summary(
+            since,
+            total(entries, null, null),
+            group(entries, Line::callType, true),
+            group(entries, Line::user, false),
+            entries
+        );
+    }
+
+    private Totals newTotals(Key key) {
+        String[] labels = {"provider", key.provider(), "model", key.model(), "call", key.callType(), "user", key.user()};
+        return new Totals(
+            metrics.counter("upstream_token_calls_total", "Upstream text calls with reported token usage", labels),
+            metrics.counter("upstream_input_tokens_total", "Prompt tokens sent upstream", labels),
+            metrics.counter("upstream_output_tokens_total", "Completion tokens received from upstream", labels),
+            metrics.counter("upstream_cached_input_tokens_total", "Prompt tokens served from the provider cache", labels),
+            metrics.counter("upstream_cost_microdollars_total", "Upstream cost in millionths of a US dollar", labels)
+        );
+    }
+
+    private static List<Line> group(List<Line> entries, Function<Line, String> keyOf, boolean byCallType) {
+        Map<String, List<Line>> groups = new LinkedHashMap<>();
+        for (Line line : entries) {
+            groups.computeIfAbsent(keyOf.apply(line), key -> new ArrayList<>()).add(line);
+        }
+        List<Line> result = new ArrayList<>();
+        for (Map.Entry<String, List<Line>> group : groups.entrySet()) {
+            if (byCallType) {
+                result.add(total(group.getValue(), group.getKey(), null));
+            } else {
+                result.add(total(group.getValue(), null, group.getKey()));
+            }
+        }
+        result.sort(Comparator.comparingLong(Line::inputTokens).reversed());
+        return result;
+    }
+
+    private static Line total(List<Line> lines, String callType, String user) {
+        long calls = 0;
+        long input = 0;
+        long output = 0;
+        long cached = 0;
+        double cost = 0;
+        for (Line line : lines) {
+            calls += line.calls();
+            input += line.inputTokens();
+            output += line.outputTokens();
+            cached += line.cachedInputTokens();
+            cost += line.costUsd();
+        }
+        return new Line(null, null, callType, user, calls, input, output, cached, cost);
+    }
+
+    record Key(String provider, String model, String callType, String user) {
+    }
+
+    /**
+     * USD per million input and output tokens.
+     */
+    public record Price(double inputPerMillion, double outputPerMillion) {
+        double cost(long inputTokens, long outputTokens) {
+            return (inputTokens * inputPerMillion + outputTokens * outputPerMillion) / 1_000_000.0;
+        }
+
+        /**
+         * Parse {@code "model=0.8/4,other-model=3/15"}; malformed entries are ignored.
+         */
+        public static Map<String, Price> parseTable(String spec) {
+            Map<String, Price> prices = new LinkedHashMap<>();
+            if (spec == null) {
+                return prices;
+            }
+            for (String entry : spec.split(",")) {
+                int separator = entry.lastIndexOf('=');
+                int slash = entry.lastIndexOf('/');
+                if (separator <= 0 || slash < separator) {
+                    continue;
+                }
+                try {
+                    prices.put(entry.substring(0, separator).trim(), new Price(
+                        Double.parseDouble(entry.substring(separator + 1, slash).trim()),
+                        Double.parseDouble(entry.substring(slash + 1).trim())
+                    ));
+                } catch (NumberFormatException e) {
+                    // ignore this entry
+                }
+            }
+            return prices;
+        }
+    }
+
+    public record Summary(Instant since, Line total, List<Line> byCallType, List<Line> byUser, List<Line> entries) {
+    }
+
+    /**
+     * Totals for one key, or for a group of keys (dimensions not grouped on are null).
+     */
+    public record Line(
+        String provider,
+        String model,
+        String callType,
+        String user,
+        long calls,
+        long inputTokens,
+        long outputTokens,
+        long cachedInputTokens,
+        double costUsd
+    ) {
+    }
+
+    private record Totals(
+        LongAdder calls,
+        LongAdder inputTokens,
+        LongAdder outputTokens,
+        LongAdder cachedInputTokens,
+        LongAdder costMicros
+    ) {
+        Line line(String provider, String model, String callType, String user) {
+            return new Line(provider, model, callType, user, calls.sum(), inputTokens.sum(), outputTokens.sum(),
+                cachedInputTokens.sum(), costMicros.sum() / MICROS_PER_USD);
+        }
+    }
+}
@@ -5417,9 +5417,9 @@ var $author$project$Model$AssistantTurn = F4(
 		return {aH: adventureCompleted, aX: image, ax: storyText, bf: suggestedActions};
 	});
 var $elm$json$Json$Decode$bool = _Json_decodeBool;
-var $author$project$Model$ImageData = F3(
-	function (mimeType, base64, prompt) {
-		return {aL: base64, a$: mimeType, a5: prompt};
+var $author$project$Model$ImageData = F4(
+	function (mimeType, base64, prompt, thumbnail) {
+		return {aL: base64, a$: mimeType, a5: prompt, bn: thumbnail};
 	});
 var $elm$json$Json$Decode$field = _Json_decodeField;
 var $elm$json$Json$Decode$map3 = _Json_map3;
@@ -5433,15 +5433,17 @@ var $elm$json$Json$Decode$maybe = function (decoder) {
 			]));
 };
 var $elm$json$Json$Decode$string = _Json_decodeString;
-var $author$project$Codec$decodeImage = A4(
-	$elm$json$Json$Decode$map3,
+var $elm$json$Json$Decode$map4 = _Json_map4;
+var $author$project$Codec$decodeImage = A5(
+	$elm$json$Json$Decode$map4,
 	$author$project$Model$ImageData,
 	A2($elm$json$Json$Decode$field, 'mimeType', $elm$json$Json$Decode$string),
 	A2($elm$json$Json$Decode$field, 'base64', $elm$json$Json$Decode$string),
 	$elm$json$Json$Decode$maybe(
-		A2($elm$json$Json$Decode$field, 'prompt', $elm$json$Json$Decode$string)));
+		A2($elm$json$Json$Decode$field, 'prompt', $elm$json$Json$Decode$string)),
+	$elm$json$Json$Decode$maybe(
+		A2($elm$json$Json$Decode$field, 'thumbnail', $elm$json$Json$Decode$string)));
 var $elm$json$Json$Decode$list = _Json_decodeList;
-var $elm$json$Json$Decode$map4 = _Json_map4;
 var $author$project$Codec$decodeAssistant = A5(
 	$elm$json$Json$Decode$map4,
 	$author$project$Model$AssistantTurn,
@@ -5665,7 +5667,10 @@ var $author$project$Codec$encodeImage = function (image) {
 				$elm$json$Json$Encode$string(image.aL)),
 				_Utils_Tuple2(
 				'prompt',
-				A2($author$project$Codec$encodeMaybe, $elm$json$Json$Encode$string, image.a5))
+				A2($author$project$Codec$encodeMaybe, $elm$json$Json$Encode$string, image.a5)),
+				_Utils_Tuple2(
+				'thumbnail',
+				A2($author$project$Codec$encodeMaybe, $elm$json$Json$Encode$string, image.bn))
 			]));
 };
 var $elm$json$Json$Encode$list = F2(
@@ -6572,6 +6577,45 @@ var $author$project$Update$applyImageError = F3(
 			next,
 			save(next));
 	});
+var $elm$core$Maybe$map = F2(
+	function (f, maybe) {
+		if (!maybe.$) {
+			var value = maybe.a;
+			return $elm$core$Maybe$Just(
+				f(value));
+		} else {
+			return $elm$core$Maybe$Nothing;
+		}
+	});
+var $author$project$Update$toThumbnail = function (image) {
+	var _v0 = image.bn;
+	if (_v0.$ === 1) {
+		return image;
+	} else {
+		var thumbnail = _v0.a;
+		return _Utils_update(
+			image,
+			{aL: thumbnail, a$: 'image/jpeg', bn: $elm$core$Maybe$Nothing});
+	}
+};
+var $author$project$Update$compactTurnImage = function (turn) {
+	var _v0 = turn.T;
+	if (_v0.$ === 1) {
+		return turn;
+	} else {
+		var assistant = _v0.a;
+		return _Utils_update(
+			turn,
+			{
+				T: $elm$core$Maybe$Just(
+					_Utils_update(
+						assistant,
+						{
+							aX: A2($elm$core$Maybe$map, $author$project$Update$toThumbnail, assistant.aX)
+						}))
+			});
+	}
+};
 var $author$project$Update$updateLastTurnWithImage = F2(
 	function (image, adventure) {
 		var _v0 = $elm$core$List$reverse(adventure.bj);
@@ -6601,7 +6645,10 @@ var $author$project$Update$updateLastTurnWithImage = F2(
 				adventure,
 				{
 					bj: $elm$core$List$reverse(
-						A2($elm$core$List$cons, updatedTurn, rest))
+						A2(
+							$elm$core$List$cons,
+							updatedTurn,
+							A2($elm$core$List$map, $author$project$Update$compactTurnImage, rest)))
 				});
 		}
 	});
@@ -6624,6 +6671,23 @@ var $author$project$Update$applyStoryImage = F3(
 				save(next));
 		}
 	});
+var $author$project$Update$applyStoryImagePreview = F2(
+	function (image, state) {
+		var _v0 = state.X;
+		if (_v0.$ === 1) {
+			return _Utils_Tuple2(state, $elm$core$Platform$Cmd$none);
+		} else {
+			var adventure = _v0.a;
+			return _Utils_Tuple2(
+				_Utils_update(
+					state,
+					{
+						X: $elm$core$Maybe$Just(
+							A2($author$project$Update$updateLastTurnWithImage, image, adventure))
+					}),
+				$elm$core$Platform$Cmd$none);
+		}
+	});
 var $author$project$Update$updateLastTurnWithDelta = F2(
 	function (delta, adventure) {
 		var _v0 = $elm$core$List$reverse(adventure.bj);
@@ -6677,7 +6741,7 @@ var $author$project$Api$StreamDelta = function (a) {
 	return {$: 0, a: a};
 };
 var $author$project$Api$StreamError = function (a) {
-	return {$: 5, a: a};
+	return {$: 6, a: a};
 };
 var $author$project$Api$StreamFinal = function (a) {
 	return {$: 1, a: a};
@@ -6686,10 +6750,13 @@ var $author$project$Api$StreamFinalText = function (a) {
 	return {$: 2, a: a};
 };
 var $author$project$Api$StreamImage = function (a) {
-	return {$: 3, a: a};
+	return {$: 4, a: a};
 };
 var $author$project$Api$StreamImageError = function (a) {
-	return {$: 4, a: a};
+	return {$: 5, a: a};
+};
+var $author$project$Api$StreamImagePreview = function (a) {
+	return {$: 3, a: a};
 };
 var $elm$json$Json$Decode$andThen = _Json_andThen;
 var $author$project$Api$StoryResponse = function (assistant) {
@@ -6719,13 +6786,15 @@ var $author$project$Api$adventureDecoder = A5(
 	$elm$json$Json$Decode$maybe(
 		A2($elm$json$Json$Decode$field, 'completedAt', $elm$json$Json$Decode$string)));
 var $author$project$Api$defaultAdventure = {W: false, H: $elm$core$Maybe$Nothing, Q: $elm$core$Maybe$Nothing, G: $elm$core$Maybe$Nothing};
-var $author$project$Api$imageDecoder = A4(
-	$elm$json$Json$Decode$map3,
+var $author$project$Api$imageDecoder = A5(
+	$elm$json$Json$Decode$map4,
 	$author$project$Model$ImageData,
 	A2($elm$json$Json$Decode$field, 'mimeType', $elm$json$Json$Decode$string),
 	A2($elm$json$Json$Decode$field, 'base64', $elm$json$Json$Decode$string),
 	$elm$json$Json$Decode$maybe(
-		A2($elm$json$Json$Decode$field, 'prompt', $elm$json$Json$Decode$string)));
+		A2($elm$json$Json$Decode$field, 'prompt', $elm$json$Json$Decode$string)),
+	$elm$json$Json$Decode$maybe(
+		A2($elm$json$Json$Decode$field, 'thumbnail', $elm$json$Json$Decode$string)));
 var $author$project$Api$assistantDecoder = A5(
 	$elm$json$Json$Decode$map4,
 	$author$project$Api$Assistant,
@@ -6785,6 +6854,14 @@ var $author$project$Api$decodeStreamEvent = A2(
 					$elm$json$Json$Decode$map,
 					$author$project$Api$StreamFinalText,
 					A2($elm$json$Json$Decode$field, 'data', $author$project$Api$decodeStoryResponse));
+			case 'image_preview':
+				return A2(
+					$elm$json$Json$Decode$map,
+					$author$project$Api$StreamImagePreview,
+					A2(
+						$elm$json$Json$Decode$field,
+						'data',
+						A2($elm$json$Json$Decode$field, 'image', $author$project$Api$imageDecoder)));
 			case 'image':
 				return A2(
 					$elm$json$Json$Decode$map,
@@ -6837,8 +6914,11 @@ var $author$project$Update$handleStreamEvent = F4(
 					return A5($author$project$Update$applyStoryResponse, save, speakStory, false, response, state);
 				case 3:
 					var image = event.a;
-					return A3($author$project$Update$applyStoryImage, save, image, state);
+					return A2($author$project$Update$applyStoryImagePreview, image, state);
 				case 4:
+					var image = event.a;
+					return A3($author$project$Update$applyStoryImage, save, image, state);
+				case 5:
 					var message = event.a;
 					return A3($author$project$Update$applyImageError, save, message, state);
 				default:
@@ -1,5 +1,5 @@
-const CACHE_NAME = "hp-adventure-shell-v8";
-const APP_SHELL = ["/", "/index.html", "/styles.css", "/app.js", "/elm.js"];
+const CACHE_NAME = "hp-adventure-shell-v8-12c20fccfe";
+const APP_SHELL = ["/", "/index.html", "/styles.e1617885ca.css", "/app.db60cd453c.js", "/elm.d91f4547ec.js"];
 
 self.addEventListener("install", (event) => {
   event.waitUntil(
@@ -0,0 +1,145 @@
+package com.example.hpadventure.simulator;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * How the simulated upstreams behave: generation speed, latency distributions, payload sizes and
+ * injected failures. Latencies are log-normal, given by their median and 95th percentile, which is
+ * close to what the real providers show (a long right tail, never below zero).
+ *
+ * @param tokensPerSecond     text streamed per second once the first token is out
+ * @param outputTokens        tokens (roughly words) in every text completion
+ * @param firstTokenMedian    median time to the first token, or to the first audio byte
+ * @param firstTokenP95       95th percentile of that time
+ * @param imageMedian         median time to a generated image
+ * @param imageP95            95th percentile of that time
+ * @param imageBytes          approximate size of each generated PNG before base64
+ * @param audioBytesPerSecond speed at which speech audio is streamed
+ * @param rateLimitRate       fraction of requests answered with 429 and {@code Retry-After}
+ * @param errorRate           fraction of requests answered with the provider's overload status
+ */
+public record SimulatorProfile(
+    int tokensPerSecond,
+    int outputTokens,
+    Duration firstTokenMedian,
+    Duration firstTokenP95,
+    Duration imageMedian,
+    Duration imageP95,
+    int imageBytes,
+    int audioBytesPerSecond,
+    double rateLimitRate,
+    double errorRate
+) {
+    /** z-score of the 95th percentile of a standard normal distribution. */
+    private static final double Z_95 = 1.6449;
+
+    public SimulatorProfile {
+        if (tokensPerSecond <= 0 || outputTokens <= 0 || imageBytes <= 0 || audioBytesPerSecond <= 0) {
+            throw new IllegalArgumentException("rates, token counts and sizes must be positive");
+        }
+        if (rateLimitRate < 0 || errorRate < 0 || rateLimitRate + errorRate > 1) {
+            throw new IllegalArgumentException("rateLimitRate and errorRate must be fractions adding up to 1 at most");
+        }
+    }
+
+    /**
+     * Roughly a mid-sized model behind OpenRouter: 40 tokens/s, first token after 600 ms (p95 1.5 s),
+     * images after 8 s (p95 15 s) at 512 KB, speech at four times real time, no failures.
+     */
+    public static SimulatorProfile defaults() {
+        return new SimulatorProfile(40, 250, Duration.ofMillis(600), Duration.ofMillis(1500),
+            Duration.ofSeconds(8), Duration.ofSeconds(15), 512 * 1024, 64_000, 0, 0);
+    }
+
+    /**
+     * No waiting at all, for tests that only care about the protocol.
+     */
+    public static SimulatorProfile instant() {
+        return new SimulatorProfile(1_000_000, 40, Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO,
+            16 * 1024, 100_000_000, 0, 0);
+    }
+
+    /**
+     * {@link #defaults()} overridden by {@code SIMULATOR_TOKENS_PER_SECOND}, {@code SIMULATOR_OUTPUT_TOKENS},
+     * {@code SIMULATOR_TTFT_MEDIAN_MS}, {@code SIMULATOR_TTFT_P95_MS}, {@code SIMULATOR_IMAGE_MEDIAN_MS},
+     * {@code SIMULATOR_IMAGE_P95_MS}, {@code SIMULATOR_IMAGE_KB}, {@code SIMULATOR_AUDIO_BYTES_PER_SECOND},
+     * {@code SIMULATOR_RATE_LIMIT_PERCENT} and {@code SIMULATOR_ERROR_PERCENT}.
+     */
+    public static SimulatorProfile fromEnv() {
+        SimulatorProfile defaults = defaults();
+        return new SimulatorProfile(
+            positiveOrDefault(System.getenv("SIMULATOR_TOKENS_PER_SECOND"), defaults.tokensPerSecond()),
+            positiveOrDefault(System.getenv("SIMULATOR_OUTPUT_TOKENS"), defaults.outputTokens()),
+            millisOrDefault(System.getenv("SIMULATOR_TTFT_MEDIAN_MS"), defaults.firstTokenMedian()),
+            millisOrDefault(System.getenv("SIMULATOR_TTFT_P95_MS"), defaults.firstTokenP95()),
+            millisOrDefault(System.getenv("SIMULATOR_IMAGE_MEDIAN_MS"), defaults.imageMedian()),
+            millisOrDefault(System.getenv("SIMULATOR_IMAGE_P95_MS"), defaults.imageP95()),
+            positiveOrDefault(System.getenv("SIMULATOR_IMAGE_KB"), defaults.imageBytes() / 1024) * 1024,
+            positiveOrDefault(System.getenv("SIMULATOR_AUDIO_BYTES_PER_SECOND"), defaults.audioBytesPerSecond()),
+            percentOrZero(System.getenv("SIMULATOR_RATE_LIMIT_PERCENT")),
+            percentOrZero(System.getenv("SIMULATOR_ERROR_PERCENT"))
+        );
+    }
+
+    public SimulatorProfile withFailures(double rateLimitRate, double errorRate) {
+        return new SimulatorProfile(tokensPerSecond, outputTokens, firstTokenMedian, firstTokenP95,
+            imageMedian, imageP95, imageBytes, audioBytesPerSecond, rateLimitRate, errorRate);
+    }
+
+    Duration sampleFirstToken(Random random) {
+        return sample(random, firstTokenMedian, firstTokenP95);
+    }
+
+    Duration sampleImage(Random random) {
+        return sample(random, imageMedian, imageP95);
+    }
+
+    /**
+     * A log-normal draw with the given median and p95; just the median when p95 is not above it.
+     */
+    private static Duration sample(Random random, Duration median, Duration p95) {
+        long medianNanos = median.toNanos();
+        if (medianNanos <= 0 || p95.compareTo(median) <= 0) {
+            return median;
+        }
+        double sigma = Math.log((double) p95.toNanos() / medianNanos) / Z_95;
+        return Duration.ofNanos((long) (medianNanos * Math.exp(sigma * random.nextGaussian())));
+    }
+
+    private static int positiveOrDefault(String value, int defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static Duration millisOrDefault(String value, Duration defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return parsed >= 0 ? Duration.ofMillis(parsed) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static double percentOrZero(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            return parsed > 0 && parsed <= 100 ? parsed / 100 : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package com.example.hpadventure.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for every upstream the server talks to, speaking their wire protocols closely enough
+ * for the real providers to parse: OpenRouter chat completions (text, SSE streaming with a usage chunk,
+ * and images as data URLs), Anthropic {@code /v1/messages} (JSON, the event-typed SSE stream and
+ * Message Batches), OpenAI {@code /v1/images/generations} and the ElevenLabs
+ * {@code /v1/text-to-speech/{voice}/stream} MP3 stream. Timing, payload sizes and failures come from a
+ * {@link SimulatorProfile}.
+ *
+ * Everything is served from one base URL, so {@code OPENROUTER_BASE_URL}, {@code ANTHROPIC_BASE_URL},
+ * {@code OPENAI_BASE_URL} and {@code ELEVENLABS_BASE_URL} can all point at it. Any non-blank key is
+ * accepted; a missing key gets the provider's 401. Each request runs on its own virtual thread, so
+ * thousands of slow streams cost no more than their sockets.
+ *
+ * Start it in-process with {@link #start(int, SimulatorProfile)} or standalone with {@link #main}
+ * ({@code ./gradlew simulator}, port from {@code SIMULATOR_PORT}, profile from {@link SimulatorProfile#fromEnv()}).
+ */
+public final class UpstreamSimulator implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamSimulator.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int DEFAULT_PORT = 8089;
+    private static final int BACKLOG = 1024;
+    /** Rough characters per token, used to report prompt tokens from the request size. */
+    private static final int CHARS_PER_TOKEN = 4;
+    /** Spoken German runs at about 15 characters per second. */
+    private static final int SPOKEN_CHARS_PER_SECOND = 15;
+    /** One silent MPEG-1 Layer III frame at 128 kbit/s and 44.1 kHz: header plus zeroed side info and data. */
+    private static final int MP3_FRAME_BYTES = 417;
+    private static final int MP3_BYTES_PER_SECOND = 16_000;
+    private static final int AUDIO_CHUNK_FRAMES = 4;
+    private static final String TTS_PATH_PREFIX = "/v1/text-to-speech/";
+    private static final String BATCHES_PATH = "/v1/messages/batches";
+    private static final String[] WORDS = {
+        "Der", "Gang", "ist", "still", "und", "eine", "Fackel", "flackert", "an", "der", "kalten", "Wand",
+        "Irgendwo", "schlägt", "eine", "Tür", "die", "Portraits", "flüstern", "leise", "Peeves", "kichert",
+        "über", "dir", "während", "der", "Mond", "durch", "die", "hohen", "Fenster", "scheint", "Staub",
+        "tanzt", "im", "Licht", "deines", "Zauberstabs"
+    };
+    private static final String MARKERS = "\n\n[OPTION: Der Spur folgen]\n[OPTION: Umkehren]\n"
+        + "[OPTION: Lumos wirken]\n[SZENE: Dunkler Korridor mit flackernder Fackel]";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SimulatorProfile profile;
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+    private final Map<String, SimulatedBatch> batches = new ConcurrentHashMap<>();
+    private final AtomicLong batchIds = new AtomicLong();
+    private volatile byte[] png;
+
+    private UpstreamSimulator(HttpServer server, ExecutorService executor, SimulatorProfile profile) {
+        this.server = server;
+        this.executor = executor;
+        this.profile = profile;
+    }
+
+    /**
+     * Bind to {@code 127.0.0.1:port} (0 picks a free port) and start serving.
+     */
+    public static UpstreamSimulator start(int port, SimulatorProfile profile) throws IOException {
+        Objects.requireNonNull(profile, "profile");
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), BACKLOG);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        UpstreamSimulator simulator = new UpstreamSimulator(server, executor, profile);
+        server.createContext("/v1/chat/completions", simulator::handleOpenRouter);
+        server.createContext("/v1/messages", simulator::handleAnthropic);
+        server.createContext("/v1/images/generations", simulator::handleOpenAiImage);
+        server.createContext(TTS_PATH_PREFIX, simulator::handleElevenLabs);
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Upstream simulator listening: baseUrl={} profile={}", simulator.baseUrl(), profile);
+        return simulator;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String port = System.getenv("SIMULATOR_PORT");
+        int listenPort = port == null || port.isBlank() ? DEFAULT_PORT : Integer.parseInt(port.trim());
+        UpstreamSimulator simulator = start(listenPort, SimulatorProfile.fromEnv());
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close, "simulator-shutdown"));
+    }
+
+    /**
+     * The base URL for every provider, e.g. {@code http://127.0.0.1:8089}.
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @param upstream {@code openrouter}, {@code anthropic}, {@code openai} or {@code elevenlabs}
+     * @return requests received for that upstream, failed ones included
+     */
+    public long requestCount(String upstream) {
+        LongAdder count = requests.get(upstream);
+        return count == null ? 0 : count.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        logger.info("Upstream simulator stopped: requests={}", requests);
+    }
+
+    private void handleOpenRouter(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JsonNode request = begin(exchange, "openrouter", bearerKey(exchange));
+            if (request == null) {
+                return;
+            }
+            Random random = ThreadLocalRandom.current();
+            // The text provider always sends max_tokens, the image provider never does.
+            if (!request.has("max_tokens")) {
+                sleep(profile.sampleImage(random));
+                String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(png());
+                Map<String, Object> image = Map.of("type", "image_url", "image_url", Map.of("url", dataUrl));
+                Map<String, Object> message = Map.of("role", "assistant", "content", "", "images", List.of(image));
+                sendJson(exchange, 200, Map.of("id", "gen-sim", "choices", List.of(Map.of("message", message))));
+                return;
+            }
+
+            List<String> tokens = tokens(random);
+            Map<String, Object> usage = new LinkedHashMap<>();
+            usage.put("prompt_tokens", promptTokens(request));
+            usage.put("completion_tokens", tokens.size());
+            usage.put("prompt_tokens_details", Map.of("cached_tokens", 0));
+            usage.put("cost", 0.0);
+            if (!request.path("stream").asBoolean()) {
+                sleep(profile.sampleFirstToken(random).plus(generationTime(tokens.size())));
+                Map<String, Object> message = Map.of("role", "assistant", "content", String.join("", tokens));
+                sendJson(exchange, 200, Map.of("id", "gen-sim", "choices", List.of(Map.of("message", message)),
+                    "usage", usage));
+                return;
+            }
+
+            sleep(profile.sampleFirstToken(random));
+            OutputStream out = startStream(exchange);
+            long startedAt = System.nanoTime();
+            for (int i = 0; i < tokens.size(); i++) {
+                pace(startedAt, i);
+                Map<String, Object> delta = Map.of("delta", Map.of("content", tokens.get(i)));
+                writeData(out, Map.of("id", "gen-sim", "choices", List.of(delta)));
+            }
+            Map<String, Object> finish = new LinkedHashMap<>();
+            finish.put("delta", Map.of());
+            finish.put("finish_reason", "stop");
+            writeData(out, Map.of("id", "gen-sim", "choices", List.of(finish)));
+            writeData(out, Map.of("id", "gen-sim", "choices", List.of(), "usage", usage));
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    private void handleAnthropic(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals(BATCHES_PATH) || path.startsWith(BATCHES_PATH + "/")) {
+            handleAnthropicBatch(exchange);
+            return;
+        }
+        try (exchange) {
+            JsonNode request = begin(exchange, "anthropic", exchange.getRequestHeaders().getFirst("x-api-key"));
+            if (request == null) {
+                return;
+            }
+            Random random = ThreadLocalRandom.current();
+            List<String> tokens = tokens(random);
+            long promptTokens = promptTokens(request);
+            String model = request.path("model").asText("claude");
+            if (!request.path("stream").asBoolean()) {
+                sleep(profile.sampleFirstToken(random).plus(generationTime(tokens.size())));
+                Map<String, Object> message = new LinkedHashMap<>();
+                message.put("id", "msg_sim");
+                message.put("type", "message");
+                message.put("role", "assistant");
+                message.put("model", model);
+                message.put("content", List.of(Map.of("type", "text", "text", String.join("", tokens))));
+                message.put("stop_reason", "end_turn");
+                message.put("usage", Map.of("input_tokens", promptTokens, "output_tokens", tokens.size()));
+                sendJson(exchange, 200, message);
+                return;
+            }
+
+            sleep(profile.sampleFirstToken(random));
+            OutputStream out = startStream(exchange);
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("id", "msg_sim");
+            message.put("type", "message");
+            message.put("role", "assistant");
+            message.put("model", model);
+            message.put("content", List.of());
+            message.put("usage", Map.of("input_tokens", promptTokens, "output_tokens", 1,
+                "cache_read_input_tokens", 0, "cache_creation_input_tokens", 0));
+            writeEvent(out, "message_start", Map.of("type", "message_start", "message", message));
+            writeEvent(out, "content_block_start", Map.of("type", "content_block_start", "index", 0,
+                "content_block", Map.of("type", "text", "text", "")));
+            long startedAt = System.nanoTime();
+            for (int i = 0; i < tokens.size(); i++) {
+                pace(startedAt, i);
+                writeEvent(out, "content_block_delta", Map.of("type", "content_block_delta", "index", 0,
+                    "delta", Map.of("type", "text_delta", "text", tokens.get(i))));
+            }
+            writeEvent(out, "content_block_stop", Map.of("type", "content_block_stop", "index", 0));
+            writeEvent(out, "message_delta", Map.of("type", "message_delta",
+                "delta", Map.of("stop_reason", "end_turn"), "usage", Map.of("output_tokens", tokens.size())));
+            writeEvent(out, "message_stop", Map.of("type", "message_stop"));
+        }
+    }
+
+    /**
+     * Message Batches: create, poll, results (JSONL) and cancel. A batch ends after one first-token delay
+     * plus the generation time of one completion; each request fails on its own at the profile's error rate.
+     */
+    private void handleAnthropicBatch(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals(BATCHES_PATH)) {
+                JsonNode request = begin(exchange, "anthropic", exchange.getRequestHeaders().getFirst("x-api-key"));
+                if (request != null) {
+                    SimulatedBatch batch = createBatch(request.path("requests"));
+                    batches.put(batch.id(), batch);
+                    sendJson(exchange, 200, batchBody(batch));
+                }
+                return;
+            }
+            requests.computeIfAbsent("anthropic", ignored -> new LongAdder()).increment();
+            exchange.getRequestBody().readAllBytes();
+            String apiKey = exchange.getRequestHeaders().getFirst("x-api-key");
+            if (apiKey == null || apiKey.isBlank()) {
+                sendJson(exchange, 401, errorBody("anthropic", "authentication_error", "Missing API key"));
+                return;
+            }
+            String[] parts = path.substring(BATCHES_PATH.length() + 1).split("/");
+            SimulatedBatch batch = batches.get(parts[0]);
+            if (batch == null) {
+                sendJson(exchange, 404, errorBody("anthropic", "not_found_error", "Batch not found"));
+                return;
+            }
+            if (parts.length == 1) {
+                sendJson(exchange, 200, batchBody(batch));
+            } else if (parts[1].equals("results") && batch.hasEnded()) {
+                byte[] payload = String.join("\n", batch.results()).concat("\n").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/x-jsonl");
+                exchange.sendResponseHeaders(200, payload.length);
+                exchange.getResponseBody().write(payload);
+            } else if (parts[1].equals("cancel")) {
+                batches.remove(batch.id());
+                Map<String, Object> body = batchBody(batch);
+                body.put("processing_status", "canceling");
+                sendJson(exchange, 200, body);
+            } else {
+                sendJson(exchange, 404, errorBody("anthropic", "not_found_error", "Not found"));
+            }
+        }
+    }
+
+    private SimulatedBatch createBatch(JsonNode entries) throws IOException {
+        Random random = ThreadLocalRandom.current();
+        List<String> results = new ArrayList<>();
+        for (JsonNode entry : entries) {
+            Map<String, Object> result;
+            if (random.nextDouble() < profile.errorRate()) {
+                result = Map.of("type", "errored", "error", Map.of("type", "error",
+                    "error", Map.of("type", "overloaded_error", "message", "Upstream overloaded (simulated)")));
+            } else {
+                List<String> tokens = tokens(random);
+                Map<String, Object> message = new LinkedHashMap<>();
+                message.put("id", "msg_sim");
+                message.put("type", "message");
+                message.put("role", "assistant");
+                message.put("model", entry.path("params").path("model").asText("claude"));
+                message.put("content", List.of(Map.of("type", "text", "text", String.join("", tokens))));
+                message.put("stop_reason", "end_turn");
+                message.put("usage", Map.of("input_tokens", promptTokens(entry.path("params")),
+                    "output_tokens", tokens.size()));
+                result = Map.of("type", "succeeded", "message", message);
+            }
+            results.add(MAPPER.writeValueAsString(Map.of("custom_id", entry.path("custom_id").asText(""),
+                "result", result)));
+        }
+        Duration processing = profile.sampleFirstToken(random).plus(generationTime(profile.outputTokens()));
+        return new SimulatedBatch("msgbatch_sim" + batchIds.incrementAndGet(), System.nanoTime() + processing.toNanos(),
+            List.copyOf(results));
+    }
+
+    private Map<String, Object> batchBody(SimulatedBatch batch) {
+        boolean ended = batch.hasEnded();
+        int count = batch.results().size();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", batch.id());
+        body.put("type", "message_batch");
+        body.put("processing_status", ended ? "ended" : "in_progress");
+        body.put("request_counts", Map.of("processing", ended ? 0 : count, "succeeded", ended ? count : 0,
+            "errored", 0, "canceled", 0, "expired", 0));
+        body.put("results_url", ended ? baseUrl() + BATCHES_PATH + "/" + batch.id() + "/results" : null);
+        return body;
+    }
+
+    private void handleOpenAiImage(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JsonNode request = begin(exchange, "openai", bearerKey(exchange));
+            if (request == null) {
+                return;
+            }
+            sleep(profile.sampleImage(ThreadLocalRandom.current()));
+            sendJson(exchange, 200, Map.of(
+                "created", System.currentTimeMillis() / 1000,
+                "data", List.of(Map.of("b64_json", Base64.getEncoder().encodeToString(png())))
+            ));
+        }
+    }
+
+    private void handleElevenLabs(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestURI().getPath().endsWith("/stream")) {
+                sendJson(exchange, 404, Map.of("detail", Map.of("status", "not_found", "message", "Not found")));
+                return;
+            }
+            JsonNode request = begin(exchange, "elevenlabs", exchange.getRequestHeaders().getFirst("xi-api-key"));
+            if (request == null) {
+                return;
+            }
+            String text = request.path("text").asText("");
+            long audioBytes = Math.max(1, text.length()) * (long) MP3_BYTES_PER_SECOND / SPOKEN_CHARS_PER_SECOND;
+            int frames = (int) Math.max(1, audioBytes / MP3_FRAME_BYTES);
+            byte[] chunk = silentFrames(AUDIO_CHUNK_FRAMES);
+
+            sleep(profile.sampleFirstToken(ThreadLocalRandom.current()));
+            exchange.getResponseHeaders().set("Content-Type", "audio/mpeg");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            long startedAt = System.nanoTime();
+            long sent = 0;
+            for (int frame = 0; frame < frames; frame += AUDIO_CHUNK_FRAMES) {
+                sleepUntil(startedAt + sent * 1_000_000_000L / profile.audioBytesPerSecond());
+                int length = Math.min(AUDIO_CHUNK_FRAMES, frames - frame) * MP3_FRAME_BYTES;
+                out.write(chunk, 0, length);
+                out.flush();
+                sent += length;
+            }
+        }
+    }
+
+    /**
+     * Count the request, check its key, roll for injected failures and read its body.
+     *
+     * @return the request body, or null when an error response has already been sent
+     */
+    private JsonNode begin(HttpExchange exchange, String upstream, String apiKey) throws IOException {
+        requests.computeIfAbsent(upstream, ignored -> new LongAdder()).increment();
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, errorBody(upstream, "invalid_request_error", "Method not allowed"));
+            return null;
+        }
+        if (apiKey == null || apiKey.isBlank()) {
+            sendJson(exchange, 401, errorBody(upstream, "authentication_error", "Missing API key"));
+            return null;
+        }
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < profile.rateLimitRate()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendJson(exchange, 429, errorBody(upstream, "rate_limit_error", "Rate limit exceeded (simulated)"));
+            return null;
+        }
+        if (roll < profile.rateLimitRate() + profile.errorRate()) {
+            int status = "anthropic".equals(upstream) ? 529 : "openrouter".equals(upstream) ? 502 : 503;
+            sendJson(exchange, status, errorBody(upstream, "overloaded_error", "Upstream overloaded (simulated)"));
+            return null;
+        }
+        try {
+            return body.length == 0 ? MAPPER.createObjectNode() : MAPPER.readTree(body);
+        } catch (IOException e) {
+            sendJson(exchange, 400, errorBody(upstream, "invalid_request_error", "Malformed JSON"));
+            return null;
+        }
+    }
+
+    /**
+     * The error body each provider sends, in its own shape.
+     */
+    private static Map<String, Object> errorBody(String upstream, String type, String message) {
+        return switch (upstream) {
+            case "anthropic" -> Map.of("type", "error", "error", Map.of("type", type, "message", message));
+            case "elevenlabs" -> Map.of("detail", Map.of("status", type, "message", message));
+            case "openrouter" -> Map.of("error", Map.of("code", type, "message", message));
+            default -> Map.of("error", Map.of("type", type, "message", message));
+        };
+    }
+
+    /**
+     * The completion text, cut into word-sized tokens so markers arrive split across deltas as they do upstream.
+     */
+    private List<String> tokens(Random random) {
+        int markerTokens = MARKERS.split("(?<= )").length;
+        int words = Math.max(1, profile.outputTokens() - markerTokens);
+        List<String> tokens = new ArrayList<>(words + markerTokens);
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            boolean sentenceEnd = i == words - 1 || random.nextInt(12) == 0;
+            tokens.add((i == 0 ? "" : " ") + word + (sentenceEnd ? "." : ""));
+        }
+        for (String token : MARKERS.split("(?<= )")) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private Duration generationTime(int tokens) {
+        return Duration.ofNanos(tokens * 1_000_000_000L / profile.tokensPerSecond());
+    }
+
+    private void pace(long startedAt, int token) {
+        sleepUntil(startedAt + token * 1_000_000_000L / profile.tokensPerSecond());
+    }
+
+    private static long promptTokens(JsonNode request) {
+        return Math.max(1, request.toString().length() / CHARS_PER_TOKEN);
+    }
+
+    /**
+     * A noisy PNG of about {@link SimulatorProfile#imageBytes()}, built once; noise keeps PNG from
+     * compressing it, so the size holds.
+     */
+    private byte[] png() {
+        byte[] cached = png;
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (this) {
+            if (png == null) {
+                int side = Math.max(16, (int) Math.sqrt(profile.imageBytes() / 3.0));
+                BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+                Random random = new Random(side);
+                for (int y = 0; y < side; y++) {
+                    for (int x = 0; x < side; x++) {
+                        image.setRGB(x, y, random.nextInt(0x1000000));
+                    }
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream(profile.imageBytes() + 1024);
+                try {
+                    ImageIO.write(image, "png", out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                png = out.toByteArray();
+            }
+            return png;
+        }
+    }
+
+    private static byte[] silentFrames(int count) {
+        byte[] frames = new byte[count * MP3_FRAME_BYTES];
+        for (int i = 0; i < count; i++) {
+            int offset = i * MP3_FRAME_BYTES;
+            frames[offset] = (byte) 0xFF;
+            frames[offset + 1] = (byte) 0xFB;
+            frames[offset + 2] = (byte) 0x90;
+            frames[offset + 3] = (byte) 0x64;
+        }
+        return frames;
+    }
+
+    private static OutputStream startStream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        return exchange.getResponseBody();
+    }
+
+    private static void writeData(OutputStream out, Object data) throws IOException {
+        out.write(("data: " + MAPPER.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void writeEvent(OutputStream out, String event, Object data) throws IOException {
+        out.write(("event: " + event + "\ndata: " + MAPPER.writeValueAsString(data) + "\n\n")
+            .getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] payload = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, payload.length);
+        exchange.getResponseBody().write(payload);
+    }
+
+    private static String bearerKey(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        return authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+    }
+
+    private static void sleep(Duration duration) {
+        sleepUntil(System.nanoTime() + duration.toNanos());
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(remaining));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param results one JSONL line per request, served once the batch has ended
+     */
+    private record SimulatedBatch(String id, long endsAtNanos, List<String> results) {
+        boolean hasEnded() {
+            return System.nanoTime() - endsAtNanos >= 0;
+        }
+    }
+}
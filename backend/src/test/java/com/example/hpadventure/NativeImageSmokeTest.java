@@ -0,0 +1,93 @@
+package com.example.hpadventure;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Boots the native binary and the shadow jar against a local mock OpenRouter, plays one story turn
+ * on each and reports startup time and RSS side by side.
+ * Build first with {@code ./gradlew shadowJar -Pnative nativeCompile}.
+ */
+@Tag("smoke")
+final class NativeImageSmokeTest {
+    private static final Path BINARY = Path.of("build/native/nativeCompile/hp-adventure");
+    private static final Path JAR = Path.of("build/libs/hp-adventure.jar");
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final String STORY_REQUEST = """
+        {"player":{"name":"Smoke","houseName":"Hufflepuff","completedAdventures":[],"stats":{"adventuresCompleted":0,"totalTurns":0}},
+         "currentAdventure":null,"conversationHistory":[],"action":"Ich sehe mich um."}
+        """;
+    private static final String COMPLETION = """
+        {"choices":[{"message":{"role":"assistant","content":"Ein stiller Korridor.\\n[OPTION: Weiter]\\n[SZENE: Korridor]"}}]}
+        """;
+
+    @Test
+    void nativeBinaryServesStoryTurn() throws Exception {
+        assumeTrue(Files.isExecutable(BINARY), "Native binary not built; run ./gradlew -Pnative nativeCompile");
+
+        try (MockWebServer upstream = new MockWebServer()) {
+            upstream.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    return new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setBody(COMPLETION);
+                }
+            });
+            upstream.start();
+            Map<String, String> env = Map.of(
+                "OPENROUTER_API_KEY", "smoke",
+                "OPENROUTER_BASE_URL", upstream.url("/api").toString(),
+                "RATE_LIMIT_PER_MINUTE", "0"
+            );
+
+            Measurement nativeRun = run(List.of(BINARY.toAbsolutePath().toString()), env);
+            System.out.printf("native: startup %d ms, RSS after first turn %d KB%n", nativeRun.startupMs(), nativeRun.rssKb());
+
+            if (Files.exists(JAR)) {
+                Measurement jvmRun = run(List.of(ServerProcess.javaExecutable(), "-Djava.awt.headless=true",
+                    "-jar", JAR.toAbsolutePath().toString()), env);
+                System.out.printf("jvm:    startup %d ms, RSS after first turn %d KB%n", jvmRun.startupMs(), jvmRun.rssKb());
+            }
+        }
+    }
+
+    private static Measurement run(List<String> command, Map<String, String> env) throws Exception {
+        try (ServerProcess server = ServerProcess.start(command, env)) {
+            long startupMs = server.awaitHealthy();
+
+            OkHttpClient client = new OkHttpClient.Builder().callTimeout(Duration.ofSeconds(30)).build();
+            Request request = new Request.Builder()
+                .url(server.baseUrl() + "/api/story")
+                .post(RequestBody.create(STORY_REQUEST, JSON))
+                .build();
+            try (Response response = client.newCall(request).execute()) {
+                assertEquals(200, response.code());
+                assertTrue(response.body().string().contains("Ein stiller Korridor."));
+            }
+            return new Measurement(startupMs, server.rssKb());
+        }
+    }
+
+    private record Measurement(long startupMs, long rssKb) {
+    }
+}
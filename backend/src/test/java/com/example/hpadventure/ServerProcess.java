@@ -0,0 +1,115 @@
+package com.example.hpadventure;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A server launched as a separate process (shadow jar or native binary) on a free port,
+ * for startup measurements.
+ */
+final class ServerProcess implements AutoCloseable {
+    private static final long TIMEOUT_MS = 30_000;
+
+    private final Process process;
+    private final int port;
+    private final long startedNanos;
+
+    private ServerProcess(Process process, int port, long startedNanos) {
+        this.process = process;
+        this.port = port;
+        this.startedNanos = startedNanos;
+    }
+
+    static ServerProcess start(List<String> command, Map<String, String> env) throws IOException {
+        int port = freePort();
+        ProcessBuilder builder = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().putAll(env);
+        builder.environment().put("PORT", Integer.toString(port));
+        long started = System.nanoTime();
+        return new ServerProcess(builder.start(), port, started);
+    }
+
+    static String javaExecutable() {
+        return ProcessHandle.current().info().command().orElse("java");
+    }
+
+    int port() {
+        return port;
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    /**
+     * Poll {@code /health} until it answers 200.
+     *
+     * @return milliseconds from process launch to the first 200
+     */
+    long awaitHealthy() throws InterruptedException {
+        while (System.nanoTime() - startedNanos < TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS)) {
+            if (healthy()) {
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+            }
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Server exited with " + process.exitValue());
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Server did not become healthy within " + TIMEOUT_MS + " ms");
+    }
+
+    /**
+     * Resident set size from /proc (Linux only), or -1 if unavailable.
+     */
+    long rssKb() throws IOException {
+        Path status = Path.of("/proc", Long.toString(process.pid()), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private boolean healthy() {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) URI.create(baseUrl() + "/health").toURL().openConnection();
+            connection.setConnectTimeout(200);
+            connection.setReadTimeout(1000);
+            try {
+                return connection.getResponseCode() == 200;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.hpadventure;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures wall time from JVM launch to the first 200 from {@code /health} for the shadow jar,
+ * with and without the AppCDS archive. Run with {@code ./gradlew shadowJar cdsArchive benchmark}.
+ */
+@Tag("benchmark")
+final class StartupBenchmarkTest {
+    private static final Path JAR = Path.of("build/libs/hp-adventure.jar");
+    private static final Path ARCHIVE = Path.of("build/libs/hp-adventure.jsa");
+    private static final int RUNS = 5;
+    private static final Map<String, String> ENV = Map.of(
+        "OPENROUTER_API_KEY", "benchmark",
+        "OPENROUTER_BASE_URL", "http://127.0.0.1:9/api"
+    );
+
+    @Test
+    void timeToFirstHealthResponse() throws Exception {
+        assumeTrue(Files.exists(JAR), "Run ./gradlew shadowJar first");
+
+        System.out.printf("Startup to first /health 200: default %d ms (median of %d)%n", medianMillis(List.of()), RUNS);
+        if (Files.exists(ARCHIVE)) {
+            long withArchive = medianMillis(List.of("-XX:SharedArchiveFile=" + ARCHIVE.toAbsolutePath(), "-Xshare:auto"));
+            System.out.printf("Startup to first /health 200: AppCDS %d ms (median of %d)%n", withArchive, RUNS);
+        } else {
+            System.out.println("No AppCDS archive found; run ./gradlew cdsArchive to compare");
+        }
+    }
+
+    private static long medianMillis(List<String> jvmFlags) throws Exception {
+        List<Long> samples = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(ServerProcess.javaExecutable());
+            command.addAll(jvmFlags);
+            command.add("-Djava.awt.headless=true");
+            command.add("-jar");
+            command.add(JAR.toAbsolutePath().toString());
+            try (ServerProcess server = ServerProcess.start(command, ENV)) {
+                samples.add(server.awaitHealthy());
+            }
+        }
+        samples.sort(Long::compare);
+        return samples.get(samples.size() / 2);
+    }
+}
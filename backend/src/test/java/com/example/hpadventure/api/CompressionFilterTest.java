@@ -0,0 +1,118 @@
+package com.example.hpadventure.api;
+
+import com.example.hpadventure.metrics.Metrics;
+import io.javalin.Javalin;
+import io.javalin.http.sse.SseHandler;
+import io.javalin.testtools.JavalinTest;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class CompressionFilterTest {
+    private static final String LONG_TEXT = "Der Gang ist still, nur eine Fackel flackert. ".repeat(100);
+
+    @Test
+    void largeJsonIsGzipped_andBytesSavedAreCounted() throws Exception {
+        Metrics metrics = new Metrics();
+        Javalin app = buildApp(metrics);
+        app.get("/story", ctx -> ctx.json(Map.of("storyText", LONG_TEXT)));
+
+        JavalinTest.test(app, (server, client) -> {
+            try (Response response = client.request("/story", builder -> builder.header("Accept-Encoding", "gzip"))) {
+                assertEquals(200, response.code());
+                assertEquals("gzip", response.header("Content-Encoding"));
+                assertEquals("Accept-Encoding", response.header("Vary"));
+                assertTrue(gunzip(response.body().bytes()).contains(LONG_TEXT));
+            }
+        });
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("http_compressed_responses_total 1"));
+        assertFalse(scrape.contains("http_compression_bytes_saved 0\n"));
+    }
+
+    @Test
+    void gzippedBody_getsItsOwnStrongEtag() throws Exception {
+        Javalin app = buildApp(new Metrics());
+        app.get("/story", ctx -> ctx.header("ETag", "\"abc\"").result(LONG_TEXT));
+
+        JavalinTest.test(app, (server, client) -> {
+            try (Response response = client.request("/story", builder -> builder.header("Accept-Encoding", "gzip"))) {
+                assertEquals("gzip", response.header("Content-Encoding"));
+                assertEquals("\"abc-gzip\"", response.header("ETag"));
+            }
+            try (Response response = client.request("/story", builder -> builder.header("Accept-Encoding", "identity"))) {
+                assertEquals("\"abc\"", response.header("ETag"));
+            }
+        });
+    }
+
+    @Test
+    void smallBodies_images_andClientsWithoutGzip_areNotCompressed() throws Exception {
+        Javalin app = buildApp(new Metrics());
+        app.get("/small", ctx -> ctx.result("ok"));
+        app.get("/image", ctx -> ctx.contentType("image/png").result(LONG_TEXT.getBytes(StandardCharsets.UTF_8)));
+        app.get("/story", ctx -> ctx.result(LONG_TEXT));
+
+        JavalinTest.test(app, (server, client) -> {
+            try (Response response = client.request("/small", builder -> builder.header("Accept-Encoding", "gzip"))) {
+                assertNull(response.header("Content-Encoding"));
+                assertEquals("ok", response.body().string());
+            }
+            try (Response response = client.request("/image", builder -> builder.header("Accept-Encoding", "gzip"))) {
+                assertNull(response.header("Content-Encoding"));
+                assertEquals(LONG_TEXT.length(), response.body().bytes().length);
+            }
+            try (Response response = client.request("/story", builder -> builder.header("Accept-Encoding", "identity"))) {
+                assertNull(response.header("Content-Encoding"));
+                assertEquals(LONG_TEXT, response.body().string());
+            }
+        });
+    }
+
+    @Test
+    void eventStreamIsGzipped_evenWhenEventsAreSmall() throws Exception {
+        Javalin app = buildApp(new Metrics());
+        app.post("/stream", new SseHandler(client -> {
+            client.sendEvent("delta", "Du ");
+            client.sendEvent("delta", "stehst ");
+            client.sendEvent("delta", "im Gang.");
+            client.close();
+        }));
+
+        JavalinTest.test(app, (server, client) -> {
+            try (Response response = client.request("/stream", builder -> builder
+                .header("Accept-Encoding", "gzip")
+                .post(RequestBody.create("{}", MediaType.get("application/json"))))) {
+                assertEquals(200, response.code());
+                assertEquals("gzip", response.header("Content-Encoding"));
+                String body = gunzip(response.body().bytes());
+                assertTrue(body.contains("event: delta"));
+                assertTrue(body.contains("im Gang."));
+            }
+        });
+    }
+
+    private static Javalin buildApp(Metrics metrics) {
+        CompressionFilter filter = new CompressionFilter(4, 256, metrics);
+        return Javalin.create(filter::install);
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
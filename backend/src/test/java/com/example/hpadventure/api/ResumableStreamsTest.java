@@ -0,0 +1,126 @@
+package com.example.hpadventure.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ResumableStreamsTest {
+    private static final Duration NO_WAIT = Duration.ZERO;
+
+    @Test
+    void replaysOnlyTheEventsAfterTheLastEventId() throws Exception {
+        ResumableStreams streams = new ResumableStreams(new MutableClock(), Duration.ofMinutes(2), 1_000_000);
+        ResumableStreams.Stream stream = streams.open();
+
+        String first = stream.append("delta", "{\"delta\":\"Es war\"}");
+        stream.append("delta", "{\"delta\":\" einmal\"}");
+        stream.append("final_text", "{}");
+        stream.finish();
+
+        ResumableStreams.Position position = ResumableStreams.parseEventId(first);
+        assertNotNull(position);
+        List<ResumableStreams.Event> missed = streams.get(position.streamId()).eventsAfter(position.seq(), NO_WAIT);
+
+        assertEquals(List.of("delta", "final_text"), missed.stream().map(ResumableStreams.Event::name).toList());
+        assertEquals("{\"delta\":\" einmal\"}", missed.get(0).data());
+        assertEquals(List.of(), stream.eventsAfter(3, NO_WAIT));
+    }
+
+    @Test
+    void resumedClientReceivesEventsStillBeingGenerated() throws Exception {
+        ResumableStreams streams = new ResumableStreams(new MutableClock(), Duration.ofMinutes(2), 1_000_000);
+        ResumableStreams.Stream stream = streams.open();
+        stream.append("delta", "{\"delta\":\"a\"}");
+
+        CompletableFuture<List<ResumableStreams.Event>> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return stream.eventsAfter(1, Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        stream.append("delta", "{\"delta\":\"b\"}");
+
+        List<ResumableStreams.Event> events = waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(2, events.get(0).seq());
+    }
+
+    @Test
+    void parsesOnlyWellFormedEventIds() {
+        assertEquals(new ResumableStreams.Position("abc-1", 7), ResumableStreams.parseEventId("abc-1:7"));
+        assertNull(ResumableStreams.parseEventId(null));
+        assertNull(ResumableStreams.parseEventId("abc"));
+        assertNull(ResumableStreams.parseEventId(":3"));
+        assertNull(ResumableStreams.parseEventId("abc:x"));
+        assertNull(ResumableStreams.parseEventId("abc:-1"));
+    }
+
+    @Test
+    void evictsTheOldestFinishedStreamOverTheMemoryCap() throws Exception {
+        ResumableStreams streams = new ResumableStreams(new MutableClock(), Duration.ofMinutes(2), 2_000);
+        ResumableStreams.Stream finished = streams.open();
+        finished.append("final_text", "x".repeat(400));
+        finished.finish();
+        ResumableStreams.Stream live = streams.open();
+        live.append("delta", "y".repeat(400));
+
+        live.append("delta", "z".repeat(200));
+
+        assertNull(streams.get(finished.id));
+        assertNull(finished.eventsAfter(0, NO_WAIT));
+        assertNotNull(streams.get(live.id));
+        assertTrue(streams.bufferedBytes() <= 2_000);
+        assertEquals(2, live.eventsAfter(0, NO_WAIT).size());
+    }
+
+    @Test
+    void expiresStreamsAfterTheTtl() {
+        MutableClock clock = new MutableClock();
+        ResumableStreams streams = new ResumableStreams(clock, Duration.ofMinutes(2), 1_000_000);
+        ResumableStreams.Stream stream = streams.open();
+        stream.append("final_text", "{}");
+        stream.finish();
+
+        clock.advance(Duration.ofMinutes(1));
+        assertNotNull(streams.get(stream.id));
+
+        clock.advance(Duration.ofMinutes(2));
+        assertNull(streams.get(stream.id));
+        assertEquals(0, streams.bufferedBytes());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-03-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.hpadventure.api;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.testtools.JavalinTest;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class StaticAssetRoutesTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final Pattern HASHED_ELM = Pattern.compile("elm\\.[0-9a-f]{10}\\.js");
+
+    @Test
+    void indexIsServedPrecompressedAndRevalidated() throws Exception {
+        JavalinTest.test(buildApp(), (server, client) -> {
+            try (Response response = client.request("/", builder -> builder.header("Accept-Encoding", "gzip, deflate, br"))) {
+                assertEquals(200, response.code());
+                assertEquals("br", response.header("Content-Encoding"));
+                assertEquals("no-cache", response.header("Cache-Control"));
+                assertEquals("Accept-Encoding", response.header("Vary"));
+                assertNotNull(response.header("ETag"));
+            }
+        });
+    }
+
+    @Test
+    void fingerprintedAssetIsImmutable_andUnhashedAliasIsNot() throws Exception {
+        JavalinTest.test(buildApp(), (server, client) -> {
+            String hashedElm;
+            try (Response response = client.get("/")) {
+                Matcher matcher = HASHED_ELM.matcher(response.body().string());
+                assertTrue(matcher.find());
+                hashedElm = matcher.group();
+            }
+
+            try (Response response = client.request("/" + hashedElm, builder -> builder.header("Accept-Encoding", "gzip"))) {
+                assertEquals(200, response.code());
+                assertEquals("gzip", response.header("Content-Encoding"));
+                assertEquals("public, max-age=31536000, immutable", response.header("Cache-Control"));
+                assertTrue(response.header("Content-Type").startsWith("text/javascript"));
+            }
+            try (Response response = client.request("/elm.js", builder -> builder.header("Accept-Encoding", "identity"))) {
+                assertEquals(200, response.code());
+                assertNull(response.header("Content-Encoding"));
+                assertEquals("no-cache", response.header("Cache-Control"));
+            }
+        });
+    }
+
+    @Test
+    void matchingEtag_returnsNotModified() throws Exception {
+        JavalinTest.test(buildApp(), (server, client) -> {
+            String etag;
+            try (Response response = client.get("/sw.js")) {
+                etag = response.header("ETag");
+            }
+            try (Response response = client.request("/sw.js", builder -> builder.header("If-None-Match", etag))) {
+                assertEquals(304, response.code());
+            }
+            try (Response response = client.get("/missing.js")) {
+                assertEquals(404, response.code());
+            }
+        });
+    }
+
+    @Test
+    void eachEncodingHasItsOwnEtag_andOnlyThatOneRevalidates() throws Exception {
+        JavalinTest.test(buildApp(), (server, client) -> {
+            String brotliEtag;
+            try (Response response = client.request("/sw.js", builder -> builder.header("Accept-Encoding", "br"))) {
+                brotliEtag = response.header("ETag");
+            }
+            String identityEtag;
+            try (Response response = client.request("/sw.js",
+                builder -> builder.header("Accept-Encoding", "identity"))) {
+                identityEtag = response.header("ETag");
+            }
+            assertNotEquals(brotliEtag, identityEtag);
+
+            try (Response response = client.request("/sw.js", builder -> builder
+                .header("Accept-Encoding", "identity")
+                .header("If-None-Match", brotliEtag))) {
+                assertEquals(200, response.code());
+                assertNull(response.header("Content-Encoding"));
+            }
+            try (Response response = client.request("/sw.js", builder -> builder
+                .header("Accept-Encoding", "br")
+                .header("If-None-Match", identityEtag + ", " + brotliEtag))) {
+                assertEquals(304, response.code());
+            }
+        });
+    }
+
+    @Test
+    void variantEtags_areSuffixedInsideTheQuotes_andComparedWeakly() {
+        assertEquals("\"abc\"", StaticAssetRoutes.variantEtag("\"abc\"", null));
+        assertEquals("\"abc-br\"", StaticAssetRoutes.variantEtag("\"abc\"", "br"));
+        assertTrue(StaticAssetRoutes.matches("W/\"abc-br\"", "\"abc-br\""));
+        assertTrue(StaticAssetRoutes.matches("*", "\"abc\""));
+        assertFalse(StaticAssetRoutes.matches("\"abc-br\"", "\"abc\""));
+        assertFalse(StaticAssetRoutes.matches("\"abc\"", "\"abc-br\""));
+        assertFalse(StaticAssetRoutes.matches(null, "\"abc\""));
+    }
+
+    @Test
+    void acceptEncoding_honorsQualityZero() {
+        assertTrue(StaticAssetRoutes.accepts("gzip, deflate, br", "br"));
+        assertTrue(StaticAssetRoutes.accepts("br;q=0.5", "br"));
+        assertFalse(StaticAssetRoutes.accepts("br;q=0, gzip", "br"));
+        assertFalse(StaticAssetRoutes.accepts("gzip", "br"));
+        assertFalse(StaticAssetRoutes.accepts(null, "gzip"));
+    }
+
+    private static Javalin buildApp() throws Exception {
+        StaticAssets assets = StaticAssets.loadFromClasspath(MAPPER, "/public");
+        assertNotNull(assets);
+        Javalin app = Javalin.create();
+        StaticAssetRoutes.register(app, assets);
+        return app;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.hpadventure.api;
 
 import com.example.hpadventure.config.RateLimiter;
 import com.example.hpadventure.services.StoryHandler;
+import com.example.hpadventure.services.StorySessionStore;
 import com.example.hpadventure.services.UpstreamException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -16,6 +17,7 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -118,6 +120,69 @@ final class StoryRoutesTest {
         });
     }
 
+    @Test
+    void postStory_withSessionStore_returnsSessionAndRehydratesHistory() {
+        List<Dtos.StoryRequest> received = new ArrayList<>();
+        StoryHandler handler = request -> {
+            received.add(request);
+            return minimalAssistant();
+        };
+        StorySessionStore sessions = new StorySessionStore(
+            Clock.fixed(Instant.parse("2026-01-01T12:00:00Z"), ZoneOffset.UTC),
+            Duration.ofHours(1),
+            100,
+            MAPPER,
+            null
+        );
+
+        Javalin app = Javalin.create(config -> config.jsonMapper(new JavalinJackson(MAPPER, false)));
+        StoryRoutes.register(app, handler, null, StoryRoutes.Options.DEFAULTS.withSessions(sessions));
+
+        JavalinTest.test(app, (server, client) -> {
+            Dtos.Session session;
+            try (Response response = client.post("/api/story", withSession(sampleRequest("start"), new Dtos.Session(null, null)))) {
+                assertEquals(200, response.code());
+                session = readResponse(response, Dtos.StoryResponse.class).session();
+                assertNotNull(session.id());
+                assertEquals(1, session.turn());
+            }
+
+            Dtos.StoryRequest sessionOnly = new Dtos.StoryRequest(null, null, null, "weiter", session);
+            try (Response response = client.post("/api/story", sessionOnly)) {
+                assertEquals(200, response.code());
+                assertEquals(2, readResponse(response, Dtos.StoryResponse.class).session().turn());
+            }
+        });
+
+        assertEquals(2, received.size());
+        assertEquals(2, received.get(1).conversationHistory().size());
+        assertEquals("Hermine", received.get(1).player().name());
+    }
+
+    @Test
+    void postStory_sessionOnlyRequest_withoutStore_isRejected() {
+        Javalin app = buildApp(request -> minimalAssistant(), null);
+
+        JavalinTest.test(app, (server, client) -> {
+            Dtos.StoryRequest sessionOnly = new Dtos.StoryRequest(null, null, null, "weiter", new Dtos.Session("abc", 3));
+            try (Response response = client.post("/api/story", sessionOnly)) {
+                assertEquals(409, response.code());
+                Dtos.ErrorResponse error = readResponse(response, Dtos.ErrorResponse.class);
+                assertEquals("SESSION_NOT_FOUND", error.error().code());
+            }
+        });
+    }
+
+    private static Dtos.StoryRequest withSession(Dtos.StoryRequest request, Dtos.Session session) {
+        return new Dtos.StoryRequest(
+            request.player(),
+            request.currentAdventure(),
+            request.conversationHistory(),
+            request.action(),
+            session
+        );
+    }
+
     private static Dtos.Assistant minimalAssistant() {
         return new Dtos.Assistant(
             "Test",
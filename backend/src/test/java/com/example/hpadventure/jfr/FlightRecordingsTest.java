@@ -0,0 +1,86 @@
+package com.example.hpadventure.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class FlightRecordingsTest {
+    @Test
+    void recordsApplicationEvents_andDumpsThemOnStop() throws Exception {
+        FlightRecordings recordings = new FlightRecordings();
+        recordings.start(Duration.ofMinutes(1), "default");
+        assertEquals("RUNNING", recordings.status().state());
+
+        StoryTurnEvent event = new StoryTurnEvent();
+        event.begin();
+        event.historySize = 4;
+        event.arcStep = 3;
+        event.streamed = true;
+        event.commit();
+
+        Path file = recordings.stop();
+        try {
+            List<RecordedEvent> turns = RecordingFile.readAllEvents(file).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("hpadventure.StoryTurn"))
+                .toList();
+            assertEquals(1, turns.size());
+            assertEquals(4, turns.get(0).getInt("historySize"));
+            assertEquals(-1L, turns.get(0).getLong("firstTokenNanos"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        assertEquals("NONE", recordings.status().state());
+    }
+
+    @Test
+    void neverRecordsTheEnvironmentOrSystemProperties() throws Exception {
+        for (String settings : FlightRecordings.SETTINGS) {
+            FlightRecordings recordings = new FlightRecordings();
+            recordings.start(Duration.ofMinutes(1), settings);
+            Path file = recordings.stop();
+            try {
+                List<String> leaked = RecordingFile.readAllEvents(file).stream()
+                    .map(recorded -> recorded.getEventType().getName())
+                    .filter(FlightRecordings.SECRET_EVENTS::contains)
+                    .distinct()
+                    .toList();
+                assertEquals(List.of(), leaked, settings);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void onlyOneRecordingRunsAtATime() throws Exception {
+        FlightRecordings recordings = new FlightRecordings();
+        recordings.start(Duration.ofMinutes(1), "default");
+        try {
+            assertThrows(IllegalStateException.class, () -> recordings.start(Duration.ofMinutes(1), "default"));
+        } finally {
+            Files.deleteIfExists(recordings.stop());
+        }
+    }
+
+    @Test
+    void rejectsUnknownSettings_andCapsTheDuration() throws Exception {
+        FlightRecordings recordings = new FlightRecordings();
+        assertThrows(IllegalArgumentException.class, () -> recordings.start(Duration.ofMinutes(1), "custom.jfc"));
+        assertThrows(IllegalStateException.class, recordings::stop);
+
+        FlightRecordings.Status status = recordings.start(Duration.ofHours(2), "default");
+        try {
+            assertEquals(FlightRecordings.MAX_DURATION, status.duration());
+        } finally {
+            Files.deleteIfExists(recordings.stop());
+        }
+    }
+}
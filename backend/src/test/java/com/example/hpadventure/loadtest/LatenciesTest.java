@@ -0,0 +1,52 @@
+package com.example.hpadventure.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class LatenciesTest {
+    @Test
+    void summariesUseNearestRankPercentiles() {
+        Latencies latencies = new Latencies();
+        for (int millis = 100; millis >= 1; millis--) {
+            latencies.record("stream.first_delta", millis);
+        }
+        latencies.record("stream.image", 8000);
+
+        Map<String, Latencies.Summary> summaries = latencies.summarise();
+
+        assertEquals(new Latencies.Summary(100, 1, 50, 90, 95, 99, 100, 50), summaries.get("stream.first_delta"));
+        assertEquals(new Latencies.Summary(1, 8000, 8000, 8000, 8000, 8000, 8000, 8000),
+            summaries.get("stream.image"));
+    }
+
+    @Test
+    void discardingRecorderKeepsNothing() {
+        StepRecorder.DISCARD.request("stream");
+        StepRecorder.DISCARD.error("stream", "timeout");
+        StepRecorder.DISCARD.latency("stream.final_text", System.nanoTime());
+
+        StepRecorder.StepReport report = StepRecorder.DISCARD.report(1, 1.0, null);
+
+        assertTrue(report.requests().isEmpty());
+        assertTrue(report.errors().isEmpty());
+        assertTrue(report.latencies().isEmpty());
+    }
+
+    @Test
+    void errorRateCountsFailuresOverRequests() {
+        StepRecorder recorder = new StepRecorder();
+        for (int i = 0; i < 4; i++) {
+            recorder.request("stream");
+        }
+        recorder.error("stream", "OVERLOADED");
+
+        StepRecorder.StepReport report = recorder.report(4, 2.0, null);
+
+        assertEquals(0.25, report.errorRate());
+        assertEquals(Map.of("stream:OVERLOADED", 1L), report.errors());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.hpadventure.loadtest;
+
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.metrics.ProcessMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ServerSamplerTest {
+    @Test
+    void parseSumsLabelledSeriesPerName() {
+        Map<String, Long> values = ServerSampler.parse(String.join("\n",
+            "# HELP jvm_gc_time_ms Time spent collecting since start, by collector",
+            "# TYPE jvm_gc_time_ms gauge",
+            "jvm_gc_time_ms{gc=\"G1 Young Generation\"} 40",
+            "jvm_gc_time_ms{gc=\"G1 Old Generation\"} 2",
+            "process_resident_memory_bytes 123456789",
+            ""
+        ));
+
+        assertEquals(42L, values.get("jvm_gc_time_ms"));
+        assertEquals(123456789L, values.get("process_resident_memory_bytes"));
+    }
+
+    @Test
+    void processMetricsAreScrapedUnderTheNamesTheSamplerReads() {
+        Metrics metrics = new Metrics();
+        ProcessMetrics.register(metrics);
+
+        Map<String, Long> values = ServerSampler.parse(metrics.scrape());
+
+        assertTrue(values.get("jvm_heap_used_bytes") > 0);
+        assertTrue(values.get("jvm_threads_live") > 0);
+        assertTrue(values.containsKey("process_resident_memory_bytes"));
+        assertTrue(values.containsKey("jvm_gc_collections"));
+        assertTrue(values.containsKey("jvm_gc_time_ms"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.hpadventure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class JsonLayoutTest {
+    @Test
+    void eventIsOneJsonLine_withMdcFieldsAndEscapedMessage() throws Exception {
+        LoggerContext context = new LoggerContext();
+        LoggingEvent event = new LoggingEvent(
+            JsonLayoutTest.class.getName(),
+            context.getLogger("com.example.hpadventure.providers.OpenRouterTextProvider"),
+            Level.WARN,
+            "OpenRouter text error: status={} body={}",
+            null,
+            new Object[] {502, "{\"error\":\"bad\"}\n<html>\t</html>"}
+        );
+        event.setMDCPropertyMap(Map.of("requestId", "req-12345678"));
+
+        String line = new JsonLayout().doLayout(event);
+
+        assertTrue(line.endsWith("}\n"));
+        assertEquals(line.length() - 1, line.indexOf('\n'));
+        JsonNode json = new ObjectMapper().readTree(line);
+        assertEquals("WARN", json.get("level").asText());
+        assertEquals("com.example.hpadventure.providers.OpenRouterTextProvider", json.get("logger").asText());
+        assertEquals("OpenRouter text error: status=502 body={\"error\":\"bad\"}\n<html>\t</html>", json.get("msg").asText());
+        assertEquals("req-12345678", json.get("requestId").asText());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.hpadventure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+final class SamplingTurboFilterTest {
+    private final LoggerContext context = new LoggerContext();
+
+    @Test
+    void parseRates_clampsValues_andSkipsMalformedEntries() {
+        Map<String, Double> rates = SamplingTurboFilter.parseRates(" a.b = 0.25 ,broken, c=2, d=x,=0.5");
+
+        assertEquals(Map.of("a.b", 0.25, "c", 1.0), rates);
+    }
+
+    @Test
+    void sampledCategoryDropsInfo_butNeverWarnings_orEnabledChecks() {
+        SamplingTurboFilter filter = new SamplingTurboFilter(Map.of("com.example.hpadventure.api.AuthRoutes", 0.0));
+        Logger auth = context.getLogger("com.example.hpadventure.api.AuthRoutes");
+        Logger story = context.getLogger("com.example.hpadventure.api.StoryRoutes");
+
+        assertEquals(FilterReply.DENY, filter.decide(null, auth, Level.INFO, "[AUTH] {}", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, auth, Level.WARN, "[AUTH] {}", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, auth, Level.INFO, null, null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, story, Level.INFO, "Story {}", null, null));
+    }
+
+    @Test
+    void defaultRates_sampleOnlyTheAuthAccessLine() {
+        SamplingTurboFilter filter = new SamplingTurboFilter(
+            SamplingTurboFilter.parseRates(LoggingConfigurator.DEFAULT_SAMPLE_RATES.replace("0.1", "0")));
+
+        assertEquals(FilterReply.DENY, filter.decide(null,
+            context.getLogger("com.example.hpadventure.api.AuthRoutes.access"), Level.INFO, "[AUTH] {}", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null,
+            context.getLogger("com.example.hpadventure.api.AuthRoutes"), Level.INFO, "[AUTH] {}", null, null));
+    }
+
+    @Test
+    void longestMatchingPrefixWins() {
+        SamplingTurboFilter filter = new SamplingTurboFilter(Map.of(
+            "com.example.hpadventure.providers", 0.0,
+            "com.example.hpadventure.providers.OpenRouterTextProvider", 1.0
+        ));
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null,
+            context.getLogger("com.example.hpadventure.providers.OpenRouterTextProvider"), Level.INFO, "x", null, null));
+        assertEquals(FilterReply.DENY, filter.decide(null,
+            context.getLogger("com.example.hpadventure.providers.OpenAiImageProvider"), Level.INFO, "x", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null,
+            context.getLogger("com.example.hpadventure.providersX"), Level.INFO, "x", null, null));
+    }
+}
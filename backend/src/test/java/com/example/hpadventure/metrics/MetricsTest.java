@@ -0,0 +1,42 @@
+package com.example.hpadventure.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class MetricsTest {
+    @Test
+    void scrape_rendersCountersAndGauges_inPrometheusTextFormat() {
+        Metrics metrics = new Metrics();
+        LongAdder openrouter = metrics.counter("upstream_calls_total", "Upstream calls", "provider", "openrouter");
+        openrouter.add(3);
+        metrics.counter("upstream_calls_total", "Upstream calls", "provider", "anthropic").increment();
+        metrics.gauge("queue_depth", "Queued jobs", () -> 7);
+
+        assertSame(openrouter, metrics.counter("upstream_calls_total", "Upstream calls", "provider", "openrouter"));
+        assertEquals(String.join("\n",
+            "# HELP queue_depth Queued jobs",
+            "# TYPE queue_depth gauge",
+            "queue_depth 7",
+            "# HELP upstream_calls_total Upstream calls",
+            "# TYPE upstream_calls_total counter",
+            "upstream_calls_total{provider=\"anthropic\"} 1",
+            "upstream_calls_total{provider=\"openrouter\"} 3",
+            ""
+        ), metrics.scrape());
+    }
+
+    @Test
+    void labelValuesAreEscaped_andTypeConflictsRejected() {
+        Metrics metrics = new Metrics();
+        metrics.counter("calls_total", "Calls", "user", "a\"b").increment();
+
+        assertTrue(metrics.scrape().contains("calls_total{user=\"a\\\"b\"} 1"));
+        assertThrows(IllegalArgumentException.class, () -> metrics.gauge("calls_total", "Calls", () -> 1));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.hpadventure.parsing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ItemParserTest {
+    @Test
+    void parsesItemsWithAndWithoutDescription() {
+        ItemParser parser = new ItemParser();
+
+        String text = "Text.\n[NEUER GEGENSTAND: Tarnumhang | Ein silbrig schimmernder Umhang]\n"
+            + "[NEUER GEGENSTAND: Schokofrosch]";
+        List<ItemParser.Item> items = parser.parse(text);
+
+        assertEquals(List.of(
+            new ItemParser.Item("Tarnumhang", "Ein silbrig schimmernder Umhang"),
+            new ItemParser.Item("Schokofrosch", null)
+        ), items);
+    }
+
+    @Test
+    void normalisesAndDeduplicatesNames() {
+        ItemParser parser = new ItemParser();
+
+        List<ItemParser.Item> items = parser.parse(
+            "[NEUER GEGENSTAND:  \"alte   Karte.\" | Zeigt Wege]\n[NEUER GEGENSTAND: Alte Karte]");
+
+        assertEquals(List.of(new ItemParser.Item("Alte Karte", "Zeigt Wege")), items);
+    }
+
+    @Test
+    void internsNamesAcrossTurns() {
+        ItemParser parser = new ItemParser();
+
+        ItemParser.Item first = parser.parse("[NEUER GEGENSTAND: Alte Karte]").get(0);
+        ItemParser.Item second = parser.parseMarker(" NEUER GEGENSTAND: alte karte! | Zeigt Wege");
+
+        assertEquals("Alte Karte", second.name());
+        assertSame(first.name(), second.name());
+        assertNull(parser.parseMarker("OPTION: Alte Karte"));
+    }
+
+    @Test
+    void ignoresMissingItems() {
+        ItemParser parser = new ItemParser();
+
+        assertEquals(List.of(), parser.parse("Keine Gegenstände. [NEUER GEGENSTAND: | leer]"));
+    }
+}
@@ -2,6 +2,9 @@ package com.example.hpadventure.parsing;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class StreamMarkerFilterTest {
@@ -44,4 +47,15 @@ class StreamMarkerFilterTest {
         assertEquals("Text ", first);
         assertEquals("", second);
     }
+
+    @Test
+    void reportsCompleteMarkers() {
+        List<String> markers = new ArrayList<>();
+        StreamMarkerFilter filter = new StreamMarkerFilter(markers::add);
+
+        filter.apply("Text [NEUER GEGENSTAND: Besen");
+        filter.apply(" | Alt] und [kein Marker] [OPTION: A]");
+
+        assertEquals(List.of("NEUER GEGENSTAND: Besen | Alt", "OPTION: A"), markers);
+    }
 }
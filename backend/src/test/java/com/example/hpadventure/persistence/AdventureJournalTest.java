@@ -0,0 +1,189 @@
+package com.example.hpadventure.persistence;
+
+import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.services.TurnJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class AdventureJournalTest {
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+    private static final int SEGMENT_BYTES = 4096;
+
+    @Test
+    void recordedTurns_areIndexedByPlayerAndAdventure(@TempDir Path dir) throws IOException {
+        try (AdventureJournal journal = open(dir)) {
+            journal.record(turn("hermine|Gryffindor", "a1", 1, "start", false));
+            journal.record(turn("hermine|Gryffindor", "a1", 2, "weiter", false));
+            journal.record(turn("ron|Gryffindor", "a2", 1, "start", false));
+
+            List<JournalRecord.Turn> turns = journal.turns("hermine|Gryffindor", "a1");
+
+            assertEquals(2, turns.size());
+            assertEquals("weiter", turns.get(1).action());
+            assertEquals(List.of("Weiter", "Zurück"), turns.get(1).options());
+            assertEquals(1, journal.turns("ron|Gryffindor", "a2").size());
+        }
+    }
+
+    @Test
+    void reopen_recoversRecordsAndDropsTornTail(@TempDir Path dir) throws IOException {
+        try (AdventureJournal journal = open(dir)) {
+            journal.record(turn("hermine|Gryffindor", "a1", 1, "start", false));
+            journal.record(turn("hermine|Gryffindor", "a1", 2, "weiter", false));
+        }
+        Path segment = segments(dir).get(0);
+        int tail = tailOffset(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Length written but payload missing, as if the process died mid-append.
+            channel.write(ByteBuffer.allocate(4).putInt(0, 64), tail);
+        }
+
+        try (AdventureJournal journal = open(dir)) {
+            assertEquals(2, journal.turns("hermine|Gryffindor", "a1").size());
+            journal.record(turn("hermine|Gryffindor", "a1", 3, "noch weiter", false));
+        }
+        try (AdventureJournal journal = open(dir)) {
+            assertEquals("noch weiter", journal.turns("hermine|Gryffindor", "a1").get(2).action());
+        }
+    }
+
+    @Test
+    void compaction_dropsTurnsOfCompletedAdventures(@TempDir Path dir) throws IOException {
+        try (AdventureJournal journal = open(dir)) {
+            for (int turn = 1; turn < 15; turn++) {
+                journal.record(turn("hermine|Gryffindor", "done", turn, "weiter", false));
+            }
+            journal.record(turn("hermine|Gryffindor", "done", 15, "ende", true));
+            journal.record(turn("hermine|Gryffindor", "open", 1, "start", false));
+            for (int i = 0; i < 20; i++) {
+                journal.record(turn("ron|Gryffindor", "filler", i + 1, "weiter", false));
+            }
+            Path firstSegment = segments(dir).get(0);
+
+            int reclaimed = journal.compact();
+
+            assertTrue(reclaimed > 0);
+            assertFalse(Files.exists(firstSegment));
+            assertEquals(List.of(), journal.turns("hermine|Gryffindor", "done"));
+            assertEquals(1, journal.turns("hermine|Gryffindor", "open").size());
+            assertEquals(20, journal.turns("ron|Gryffindor", "filler").size());
+            List<JournalRecord.Completed> completed = journal.completedAdventures("hermine|Gryffindor");
+            assertEquals(1, completed.size());
+            assertEquals("Der Nordturm", completed.get(0).title());
+            assertEquals(15, completed.get(0).turns());
+        }
+        try (AdventureJournal journal = open(dir)) {
+            assertEquals(1, journal.completedAdventures("hermine|Gryffindor").size());
+            assertEquals(20, journal.turns("ron|Gryffindor", "filler").size());
+        }
+    }
+
+    @Test
+    void compaction_keepsTurnOrderAcrossReopen(@TempDir Path dir) throws IOException {
+        try (AdventureJournal journal = open(dir)) {
+            for (int turn = 1; turn <= 3; turn++) {
+                journal.record(turn("hermine|Gryffindor", "open", turn, "zug " + turn, false));
+            }
+            for (int turn = 1; turn < 15; turn++) {
+                journal.record(turn("hermine|Gryffindor", "done", turn, "weiter", false));
+            }
+            journal.record(turn("hermine|Gryffindor", "done", 15, "ende", true));
+            for (int turn = 4; turn <= 30; turn++) {
+                journal.record(turn("hermine|Gryffindor", "open", turn, "zug " + turn, false));
+            }
+
+            assertTrue(journal.compact() > 0);
+            assertEquals(actions(1, 30), journal.turns("hermine|Gryffindor", "open").stream()
+                .map(JournalRecord.Turn::action).toList());
+        }
+        try (AdventureJournal journal = open(dir)) {
+            assertEquals(actions(1, 30), journal.turns("hermine|Gryffindor", "open").stream()
+                .map(JournalRecord.Turn::action).toList());
+            assertEquals(List.of(), journal.turns("hermine|Gryffindor", "done"));
+            assertEquals(1, journal.completedAdventures("hermine|Gryffindor").size());
+        }
+    }
+
+    @Test
+    void turnsRecordedWhileCompacting_areKept(@TempDir Path dir) throws Exception {
+        try (AdventureJournal journal = open(dir)) {
+            AtomicBoolean recording = new AtomicBoolean(true);
+            Thread compactor = new Thread(() -> {
+                while (recording.get()) {
+                    try {
+                        journal.compact();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            compactor.start();
+            for (int adventure = 0; adventure < 20; adventure++) {
+                for (int turn = 1; turn <= 5; turn++) {
+                    journal.record(turn("hermine|Gryffindor", "done-" + adventure, turn, "weiter", turn == 5));
+                }
+                journal.record(turn("hermine|Gryffindor", "open", adventure + 1, "zug " + (adventure + 1), false));
+            }
+            recording.set(false);
+            compactor.join();
+            journal.compact();
+
+            assertEquals(actions(1, 20), journal.turns("hermine|Gryffindor", "open").stream()
+                .map(JournalRecord.Turn::action).toList());
+        }
+        try (AdventureJournal journal = open(dir)) {
+            assertEquals(actions(1, 20), journal.turns("hermine|Gryffindor", "open").stream()
+                .map(JournalRecord.Turn::action).toList());
+            assertEquals(20, journal.completedAdventures("hermine|Gryffindor").size());
+        }
+    }
+
+    private static List<String> actions(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(turn -> "zug " + turn).toList();
+    }
+
+    private static AdventureJournal open(Path dir) throws IOException {
+        return AdventureJournal.open(dir, SEGMENT_BYTES, Duration.ofMinutes(1), null);
+    }
+
+    private static TurnJournal.TurnEntry turn(String playerId, String adventureId, int turn, String action, boolean completed) {
+        Dtos.Adventure adventure = new Dtos.Adventure("Der Nordturm", completed,
+            completed ? "Zusammenfassung." : null, completed ? NOW.toString() : null);
+        return new TurnJournal.TurnEntry(playerId, adventureId, turn, action,
+            "Du stehst vor dem Nordturm. Der Wind pfeift durch die Zinnen und irgendwo schlägt eine Tür.",
+            List.of("Weiter", "Zurück"), "Nordturm bei Nacht", "abc123", adventure, NOW);
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static int tailOffset(Path segment) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int offset = 0;
+        while (bytes.getInt(offset) != 0) {
+            offset += JournalSegment.HEADER_BYTES + bytes.getInt(offset);
+        }
+        return offset;
+    }
+}
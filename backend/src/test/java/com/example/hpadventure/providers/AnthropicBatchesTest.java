@@ -0,0 +1,111 @@
+package com.example.hpadventure.providers;
+
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.usage.Usage;
+import com.example.hpadventure.usage.UsageLedger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class AnthropicBatchesTest {
+    private static final List<TextProvider.Message> MESSAGES =
+        List.of(new TextProvider.Message("user", "Fasse zusammen."));
+
+    @Test
+    void pollsUntilTheBatchEnds_andReportsEveryRequest() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            String resultsUrl = server.url("/v1/messages/batches/b1/results").toString();
+            server.enqueue(json("{\"id\":\"b1\",\"processing_status\":\"in_progress\"}"));
+            server.enqueue(json("{\"id\":\"b1\",\"processing_status\":\"in_progress\"}"));
+            server.enqueue(json("{\"id\":\"b1\",\"processing_status\":\"ended\","
+                + "\"results_url\":\"" + resultsUrl + "\"}"));
+            server.enqueue(new MockResponse().setBody(String.join("\n",
+                "{\"custom_id\":\"0\",\"result\":{\"type\":\"succeeded\",\"message\":{\"content\":"
+                    + "[{\"type\":\"text\",\"text\":\"Harry fand den Stein.\"}],"
+                    + "\"usage\":{\"input_tokens\":1000000,\"output_tokens\":250000}}}}",
+                "{\"custom_id\":\"1\",\"result\":{\"type\":\"errored\",\"error\":{\"type\":\"error\","
+                    + "\"error\":{\"type\":\"invalid_request_error\",\"message\":\"zu lang\"}}}}",
+                "")));
+
+            UsageLedger ledger = new UsageLedger(new Metrics(),
+                UsageLedger.Price.parseTable("claude-test=0.8/4"), Clock.systemUTC());
+            Map<String, TextProvider.BatchResult> results = new ConcurrentHashMap<>();
+            try (Usage.Scope ignored = Usage.begin(ledger, "hermine")) {
+                provider(server, Duration.ofMillis(10)).createMessages(List.of(
+                    new TextProvider.BatchRequest("0", "System", MESSAGES, 200),
+                    new TextProvider.BatchRequest("1", "System", MESSAGES, 200),
+                    new TextProvider.BatchRequest("2", "System", MESSAGES, 200)
+                ), 4, result -> results.put(result.id(), result));
+            }
+
+            assertEquals("Harry fand den Stein.", results.get("0").text());
+            assertNull(results.get("0").error());
+            assertTrue(results.get("1").error().getMessage().contains("invalid_request_error zu lang"));
+            assertEquals("Batch returned no result", results.get("2").error().getMessage());
+            // 0.8 + 1.0 USD at the table price, billed at half
+            assertEquals(0.9, ledger.summary().total().costUsd(), 1e-9);
+
+            RecordedRequest create = server.takeRequest(5, TimeUnit.SECONDS);
+            assertEquals("POST", create.getMethod());
+            assertEquals("/v1/messages/batches", create.getPath());
+            assertEquals("key", create.getHeader("x-api-key"));
+            assertTrue(create.getBody().readUtf8().contains("\"custom_id\":\"2\""));
+            assertEquals("/v1/messages/batches/b1", server.takeRequest(5, TimeUnit.SECONDS).getPath());
+            assertEquals(4, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void interruptedWhilePolling_cancelsTheBatch_andKeepsTheInterrupt() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(json("{\"id\":\"b1\",\"processing_status\":\"in_progress\"}"));
+            server.enqueue(json("{\"id\":\"b1\",\"processing_status\":\"canceling\"}"));
+            server.start();
+
+            AtomicBoolean interruptedAfter = new AtomicBoolean();
+            Thread worker = new Thread(() -> {
+                provider(server, Duration.ofMinutes(1)).createMessages(
+                    List.of(new TextProvider.BatchRequest("0", "System", MESSAGES, 200)), 1, result -> {
+                    });
+                interruptedAfter.set(Thread.currentThread().isInterrupted());
+            });
+            worker.start();
+            assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+            worker.interrupt();
+            worker.join(5_000);
+
+            RecordedRequest cancel = server.takeRequest(5, TimeUnit.SECONDS);
+            assertNotNull(cancel);
+            assertEquals("POST", cancel.getMethod());
+            assertEquals("/v1/messages/batches/b1/cancel", cancel.getPath());
+            assertTrue(interruptedAfter.get());
+        }
+    }
+
+    private static AnthropicTextProvider provider(MockWebServer server, Duration pollInterval) {
+        String baseUrl = server.url("/").toString().replaceAll("/$", "");
+        return new AnthropicTextProvider(new OkHttpClient(), new ObjectMapper(), "key", "claude-test", baseUrl,
+            pollInterval);
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+}
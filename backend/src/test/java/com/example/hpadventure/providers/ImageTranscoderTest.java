@@ -0,0 +1,114 @@
+package com.example.hpadventure.providers;
+
+import com.example.hpadventure.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ImageTranscoderTest {
+    private final Metrics metrics = new Metrics();
+    private final ImageTranscoder transcoder = new ImageTranscoder(metrics, 1, 256, 40 * 1024, 64);
+
+    @AfterEach
+    void tearDown() {
+        transcoder.shutdown();
+    }
+
+    @Test
+    void largePngIsDownscaledToASmallerJpegWithAThumbnail() throws IOException {
+        byte[] png = png(1024, 768);
+        ImageProvider provider = transcoder.wrap(fixedProvider(true, Base64.getEncoder().encodeToString(png)));
+
+        ImageProvider.ImageResult result = provider.generateImage("Dunkler Korridor");
+
+        assertEquals("image/jpeg", result.mimeType());
+        BufferedImage display = decode(result.base64());
+        assertEquals(256, display.getWidth());
+        assertEquals(192, display.getHeight());
+        assertTrue(Base64.getDecoder().decode(result.base64()).length < png.length);
+        BufferedImage thumbnail = decode(result.thumbnailBase64());
+        assertEquals(64, thumbnail.getWidth());
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("image_transcode_total{result=\"transcoded\"} 1"));
+        assertTrue(scrape.contains("image_transcode_bytes_in_total " + png.length));
+    }
+
+    @Test
+    void undecodableImagesPassThroughUnchanged() {
+        String webp = Base64.getEncoder().encodeToString("RIFF....WEBPVP8 ".getBytes());
+        ImageProvider provider = transcoder.wrap(fixedProvider(true, webp));
+
+        ImageProvider.ImageResult result = provider.generateImage("Dunkler Korridor");
+
+        assertEquals("image/png", result.mimeType());
+        assertEquals(webp, result.base64());
+        assertNull(result.thumbnailBase64());
+        assertTrue(metrics.scrape().contains("image_transcode_total{result=\"unsupported\"} 1"));
+    }
+
+    @Test
+    void disabledProvidersAreNotTranscoded() throws IOException {
+        ImageProvider.ImageResult placeholder = new ImageProvider.ImageResult("image/png",
+            Base64.getEncoder().encodeToString(png(512, 512)));
+        ImageProvider provider = transcoder.wrap(new ImageProvider() {
+            @Override
+            public boolean isEnabled() {
+                return false;
+            }
+
+            @Override
+            public ImageResult generateImage(String prompt) {
+                return placeholder;
+            }
+        });
+
+        assertSame(placeholder, provider.generateImage("Dunkler Korridor"));
+    }
+
+    private static ImageProvider fixedProvider(boolean enabled, String base64) {
+        return new ImageProvider() {
+            @Override
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            @Override
+            public ImageResult generateImage(String prompt) {
+                return new ImageResult("image/png", base64);
+            }
+        };
+    }
+
+    /**
+     * A noisy PNG, so it compresses poorly like a real illustration.
+     */
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8 | random.nextInt(64));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage decode(String base64) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(base64)));
+    }
+}
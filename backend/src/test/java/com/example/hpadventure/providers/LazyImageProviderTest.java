@@ -0,0 +1,27 @@
+package com.example.hpadventure.providers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+final class LazyImageProviderTest {
+    @Test
+    void delegateIsCreatedOnFirstUseOnly() {
+        AtomicInteger created = new AtomicInteger();
+        LazyImageProvider provider = new LazyImageProvider(() -> {
+            created.incrementAndGet();
+            return new PlaceholderImageProvider(PlaceholderImageProvider.Variant.SMALL);
+        });
+
+        assertEquals(0, created.get());
+
+        assertFalse(provider.isEnabled());
+        provider.generateImage("prompt");
+        provider.generateImage("prompt");
+
+        assertEquals(1, created.get());
+    }
+}
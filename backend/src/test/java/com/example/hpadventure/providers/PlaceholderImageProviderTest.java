@@ -46,4 +46,26 @@ class PlaceholderImageProviderTest {
         // Same base64 should be returned regardless of prompt (cached)
         assertEquals(result1.base64(), result2.base64());
     }
+
+    @Test
+    void smallVariant_returnsDownscaledPng() throws Exception {
+        PlaceholderImageProvider provider = new PlaceholderImageProvider(PlaceholderImageProvider.Variant.SMALL);
+
+        ImageProvider.ImageResult result = provider.generateImage("any prompt");
+
+        assertEquals("image/png", result.mimeType());
+        byte[] imageBytes = Base64.getDecoder().decode(result.base64());
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
+        assertNotNull(image);
+        assertEquals(256, image.getWidth());
+        assertEquals(256, image.getHeight());
+        assertTrue(result.base64().length() < new PlaceholderImageProvider().generateImage("any").base64().length());
+    }
+
+    @Test
+    void variantFromName_defaultsToFull() {
+        assertEquals(PlaceholderImageProvider.Variant.SMALL, PlaceholderImageProvider.Variant.fromName(" Small "));
+        assertEquals(PlaceholderImageProvider.Variant.FULL, PlaceholderImageProvider.Variant.fromName(null));
+        assertEquals(PlaceholderImageProvider.Variant.FULL, PlaceholderImageProvider.Variant.fromName("webp"));
+    }
 }
@@ -0,0 +1,94 @@
+package com.example.hpadventure.providers;
+
+import com.example.hpadventure.metrics.Metrics;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class RetryPolicyTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-03-01T12:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void decorrelatedJitterStaysBetweenTheBaseAndTheCap() {
+        RetryPolicy policy = policy(new RetryBudget(0.1, 10), new Metrics());
+
+        Duration delay = Duration.ZERO;
+        for (int i = 0; i < 200; i++) {
+            Duration previous = delay;
+            delay = policy.nextDelay(previous);
+            assertTrue(delay.toMillis() >= 100, "delay " + delay);
+            assertTrue(delay.toMillis() <= Math.max(100, Math.min(1000, previous.toMillis() * 3)), "delay " + delay);
+        }
+    }
+
+    @Test
+    void postsAreOnlyRetriedWhenTheyCannotHaveBeenSent() {
+        Request post = new Request.Builder().url("https://api.example.com/v1/messages")
+            .post(RequestBody.create("{}", MediaType.get("application/json"))).build();
+        Request get = new Request.Builder().url("https://api.example.com/v1/messages/batches/b1").build();
+
+        assertTrue(RetryPolicy.isRetryableFailure(post, new ConnectException("refused")));
+        assertTrue(RetryPolicy.isRetryableFailure(post, new UnknownHostException("api.example.com")));
+        assertFalse(RetryPolicy.isRetryableFailure(post, new SocketTimeoutException("timeout")));
+        assertTrue(RetryPolicy.isRetryableFailure(get, new SocketTimeoutException("timeout")));
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndHttpDates() {
+        RetryPolicy policy = policy(new RetryBudget(0.1, 10), new Metrics());
+
+        assertEquals(Duration.ofSeconds(2), policy.retryAfter("2"));
+        assertEquals(Duration.ofSeconds(30), policy.retryAfter("Sun, 01 Mar 2026 12:00:30 GMT"));
+        assertEquals(Duration.ZERO, policy.retryAfter("Sun, 01 Mar 2026 11:00:00 GMT"));
+        assertNull(policy.retryAfter("soon"));
+        assertNull(policy.retryAfter(null));
+    }
+
+    @Test
+    void retryableStatusesAreTransientOnly() {
+        assertTrue(RetryPolicy.isRetryableStatus(429));
+        assertTrue(RetryPolicy.isRetryableStatus(503));
+        assertTrue(RetryPolicy.isRetryableStatus(529));
+        assertFalse(RetryPolicy.isRetryableStatus(400));
+        assertFalse(RetryPolicy.isRetryableStatus(501));
+    }
+
+    @Test
+    void budgetCapsRetriesToAShareOfTraffic() {
+        Metrics metrics = new Metrics();
+        RetryBudget budget = new RetryBudget(0.5, 2);
+        RetryPolicy policy = policy(budget, metrics);
+
+        assertTrue(policy.acquireRetry("openrouter", "503"));
+        assertTrue(policy.acquireRetry("openrouter", "503"));
+        assertFalse(policy.acquireRetry("openrouter", "503"));
+
+        policy.onRequest();
+        policy.onRequest();
+        assertEquals(1, budget.available());
+        assertTrue(policy.acquireRetry("anthropic", "io"));
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("upstream_retries_total{provider=\"openrouter\",reason=\"503\"} 2"));
+        assertTrue(scrape.contains("upstream_retries_denied_total{provider=\"openrouter\"} 1"));
+        assertTrue(scrape.contains("upstream_retry_budget_available 0"));
+    }
+
+    private static RetryPolicy policy(RetryBudget budget, Metrics metrics) {
+        return new RetryPolicy(2, Duration.ofMillis(100), Duration.ofSeconds(1), budget, metrics, CLOCK);
+    }
+}
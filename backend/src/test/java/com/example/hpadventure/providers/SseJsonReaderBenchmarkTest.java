@@ -0,0 +1,129 @@
+package com.example.hpadventure.providers;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okio.Buffer;
+import okio.BufferedSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares per-token CPU time and allocation of the previous line + data-binding SSE decoding
+ * against {@link SseJsonReader}. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+final class SseJsonReaderBenchmarkTest {
+    private static final int TOKENS = 2_000;
+    private static final int ROUNDS = 50;
+    private static final SseJsonReader.Path CONTENT = SseJsonReader.Path.of("choices", 0, "delta", "content");
+
+    private final ObjectMapper mapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    void streamingParserAllocatesLessPerToken() throws Exception {
+        byte[] stream = openRouterStream();
+        // Warm up both paths so JIT compilation is not measured.
+        for (int i = 0; i < ROUNDS; i++) {
+            assertEquals(TOKENS, dataBinding(new Buffer().write(stream)));
+            assertEquals(TOKENS, streaming(new Buffer().write(stream)));
+        }
+
+        Measurement dataBinding = measure(stream, true);
+        Measurement streaming = measure(stream, false);
+
+        System.out.printf("SSE decoding per token: data-binding %.0f ns / %.0f B, streaming %.0f ns / %.0f B%n",
+            dataBinding.nanosPerToken(), dataBinding.bytesPerToken(),
+            streaming.nanosPerToken(), streaming.bytesPerToken());
+    }
+
+    private Measurement measure(byte[] stream, boolean dataBinding) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            Buffer source = new Buffer().write(stream);
+            if (dataBinding) {
+                dataBinding(source);
+            } else {
+                streaming(source);
+            }
+        }
+        long tokens = (long) TOKENS * ROUNDS;
+        return new Measurement(
+            (threads.getCurrentThreadCpuTime() - cpuBefore) / (double) tokens,
+            (threads.getThreadAllocatedBytes(threadId) - bytesBefore) / (double) tokens
+        );
+    }
+
+    /** The decoding loop the providers used before {@link SseJsonReader}. */
+    private int dataBinding(BufferedSource source) throws IOException {
+        int tokens = 0;
+        while (true) {
+            String line = source.readUtf8Line();
+            if (line == null) {
+                return tokens;
+            }
+            if (line.isBlank() || !line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if (data.isEmpty() || "[DONE]".equals(data)) {
+                continue;
+            }
+            StreamChunk chunk = mapper.readValue(data, StreamChunk.class);
+            if (chunk.choices() != null && !chunk.choices().isEmpty() && chunk.choices().get(0).delta() != null
+                && chunk.choices().get(0).delta().content() != null) {
+                tokens++;
+            }
+        }
+    }
+
+    private int streaming(BufferedSource source) throws IOException {
+        int tokens = 0;
+        try (SseJsonReader reader = new SseJsonReader(mapper.getFactory(), source, CONTENT)) {
+            while (reader.next()) {
+                if (reader.value(CONTENT) != null) {
+                    tokens++;
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static byte[] openRouterStream() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < TOKENS; i++) {
+            builder.append("data: {\"id\":\"gen-1700000000-abc\",\"provider\":\"Xiaomi\",\"model\":\"xiaomi/mimo-v2-flash:free\",")
+                .append("\"object\":\"chat.completion.chunk\",\"created\":1700000000,\"choices\":[{\"index\":0,")
+                .append("\"delta\":{\"role\":\"assistant\",\"content\":\" Wort").append(i).append("\"},")
+                .append("\"finish_reason\":null,\"native_finish_reason\":null,\"logprobs\":null}]}\n\n");
+        }
+        builder.append("data: [DONE]\n\n");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Measurement(double nanosPerToken, double bytesPerToken) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record StreamChunk(List<StreamChoice> choices) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record StreamChoice(StreamDelta delta) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record StreamDelta(String content) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.hpadventure.providers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SseJsonReaderTest {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final SseJsonReader.Path CONTENT = SseJsonReader.Path.of("choices", 0, "delta", "content");
+
+    @Test
+    void extractsDeltaContent_andSkipsNonDataLines() throws Exception {
+        String stream = ": OPENROUTER PROCESSING\n\n"
+            + "data: {\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"Du \"}}]}\n\n"
+            + "event: ping\n"
+            + "data:{\"choices\":[{\"delta\":{\"content\":\"stehst\\n\"}}]}\r\n\r\n"
+            + "data: [DONE]\n\n";
+
+        assertEquals(List.of("Du ", "stehst\n"), readAll(stream, CONTENT));
+    }
+
+    @Test
+    void ignoresValuesOutsideRequestedPath() throws Exception {
+        String stream = "data: {\"choices\":[{\"delta\":{\"content\":null}},{\"delta\":{\"content\":\"zweite\"}}],"
+            + "\"content\":\"root\"}\n\n";
+
+        try (SseJsonReader reader = new SseJsonReader(FACTORY, source(stream), CONTENT)) {
+            assertTrue(reader.next());
+            assertNull(reader.value(CONTENT));
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void readsMultiplePathsPerEvent() throws Exception {
+        SseJsonReader.Path type = SseJsonReader.Path.of("type");
+        SseJsonReader.Path text = SseJsonReader.Path.of("delta", "text");
+        String stream = "event: content_block_delta\n"
+            + "data: {\"type\":\"content_block_delta\",\"index\":0,\"delta\":{\"type\":\"text_delta\",\"text\":\"Hallo\"}}\n\n"
+            + "data: {\"type\":\"message_stop\"}";
+
+        try (SseJsonReader reader = new SseJsonReader(FACTORY, source(stream), type, text)) {
+            assertTrue(reader.next());
+            assertEquals("content_block_delta", reader.value(type));
+            assertEquals("Hallo", reader.value(text));
+
+            assertTrue(reader.next());
+            assertEquals("message_stop", reader.value(type));
+            assertNull(reader.value(text));
+
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void rejectsTruncatedEvent() throws Exception {
+        try (SseJsonReader reader = new SseJsonReader(FACTORY, source("data: {\"choices\":[\n\n"), CONTENT)) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+
+    private static List<String> readAll(String stream, SseJsonReader.Path path) throws IOException {
+        List<String> values = new ArrayList<>();
+        try (SseJsonReader reader = new SseJsonReader(FACTORY, source(stream), path)) {
+            while (reader.next()) {
+                values.add(reader.value(path));
+            }
+        }
+        return values;
+    }
+
+    private static Buffer source(String stream) {
+        return new Buffer().writeUtf8(stream);
+    }
+}
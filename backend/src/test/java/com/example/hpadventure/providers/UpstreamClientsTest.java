@@ -0,0 +1,204 @@
+package com.example.hpadventure.providers;
+
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.tracing.FinishedTrace;
+import com.example.hpadventure.tracing.Span;
+import com.example.hpadventure.tracing.Tracer;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class UpstreamClientsTest {
+    private static final UpstreamClients.PoolSettings SETTINGS =
+        new UpstreamClients.PoolSettings(2, Duration.ofMinutes(1), 16, 4);
+
+    @Test
+    void providerClientsShareTheBaseConfiguration_butNotPoolsOrDispatchers() {
+        Metrics metrics = new Metrics();
+        OkHttpClient base = UpstreamClients.base();
+        OkHttpClient text = UpstreamClients.forProvider(base, "text", SETTINGS, metrics);
+        OkHttpClient image = UpstreamClients.forProvider(base, "image", SETTINGS, metrics);
+
+        assertNotSame(text.connectionPool(), image.connectionPool());
+        assertNotSame(text.dispatcher(), image.dispatcher());
+        assertEquals(4, text.dispatcher().getMaxRequestsPerHost());
+        assertEquals(16, text.dispatcher().getMaxRequests());
+        assertEquals(base.callTimeoutMillis(), text.callTimeoutMillis());
+        assertSame(base.socketFactory(), text.socketFactory());
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("upstream_pool_connections{client=\"image\"} 0"));
+        assertTrue(scrape.contains("upstream_dispatcher_running_calls{client=\"text\"} 0"));
+    }
+
+    @Test
+    void synchronousCallsWaitForARequestSlot_untilTheBodyIsClosed() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody("first"));
+            server.enqueue(new MockResponse().setBody("second"));
+            server.start();
+
+            UpstreamClients.PoolSettings oneAtATime = new UpstreamClients.PoolSettings(2, Duration.ofMinutes(1), 16, 1);
+            OkHttpClient client = UpstreamClients.forProvider(UpstreamClients.base(), "text", oneAtATime, new Metrics())
+                .newBuilder().callTimeout(Duration.ofMillis(200)).build();
+            Request request = new Request.Builder().url(server.url("/v1/chat/completions")).build();
+
+            Response first = client.newCall(request).execute();
+            assertThrows(InterruptedIOException.class, () -> client.newCall(request).execute());
+            assertEquals(1, server.getRequestCount());
+
+            assertEquals("first", first.body().string());
+            first.close();
+            try (Response second = client.newCall(request).execute()) {
+                assertEquals("second", second.body().string());
+            }
+            assertEquals(2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void prewarm_opensAPooledConnectionToTheOrigin() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setResponseCode(404));
+            server.start();
+
+            OkHttpClient client = UpstreamClients.forProvider(UpstreamClients.base(), "text", SETTINGS, new Metrics());
+            UpstreamClients.prewarm(client, "text", server.url("/api").toString());
+
+            RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+            assertNotNull(request);
+            assertEquals("HEAD", request.getMethod());
+            assertEquals("/", request.getPath());
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (client.connectionPool().idleConnectionCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, client.connectionPool().idleConnectionCount());
+        }
+    }
+
+    @Test
+    void upstreamCallsAreTracedAsChildSpans_untilTheBodyIsRead() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setResponseCode(503).setBody("overloaded"));
+            server.start();
+
+            List<FinishedTrace> exported = new ArrayList<>();
+            Tracer tracer = new Tracer(List.of(exported::add));
+            OkHttpClient client = UpstreamClients.forProvider(UpstreamClients.base(), "text", SETTINGS, new Metrics());
+            Request request = new Request.Builder()
+                .url(server.url("/v1/chat/completions"))
+                .tag(UpstreamCall.class, new UpstreamCall("openrouter", "test-model", 2))
+                .build();
+
+            try (Span ignored = tracer.startTrace("story.turn");
+                 Response response = client.newCall(request).execute()) {
+                assertEquals("overloaded", response.body().string());
+            }
+
+            Span.SpanData upstream = exported.get(0).spans().get(1);
+            assertEquals("upstream.openrouter", upstream.name());
+            assertEquals("test-model", upstream.attributes().get("model"));
+            assertEquals(2, upstream.attributes().get("attempt"));
+            assertEquals(503, upstream.attributes().get("http.status"));
+            assertEquals(10L, upstream.attributes().get("response.bytes"));
+            assertEquals("HTTP 503", upstream.error());
+            assertNull(upstream.attributes().get("unfinished"));
+        }
+    }
+
+    @Test
+    void retriesTransientStatuses_honouringRetryAfter() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "0"));
+            server.enqueue(new MockResponse().setResponseCode(503));
+            server.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+            server.start();
+
+            Metrics metrics = new Metrics();
+            RetryPolicy policy = new RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(50),
+                new RetryBudget(0.1, 10), metrics, Clock.systemUTC());
+            OkHttpClient client = UpstreamClients.forProvider(UpstreamClients.base(policy), "text", SETTINGS, metrics);
+            Request request = new Request.Builder()
+                .url(server.url("/v1/chat/completions"))
+                .tag(UpstreamCall.class, new UpstreamCall("openrouter", "test-model", 1))
+                .build();
+
+            try (Response response = client.newCall(request).execute()) {
+                assertEquals(200, response.code());
+                assertEquals("ok", response.body().string());
+            }
+            assertEquals(3, server.getRequestCount());
+            String scrape = metrics.scrape();
+            assertTrue(scrape.contains("upstream_retries_total{provider=\"openrouter\",reason=\"429\"} 1"));
+            assertTrue(scrape.contains("upstream_retries_total{provider=\"openrouter\",reason=\"503\"} 1"));
+        }
+    }
+
+    @Test
+    void givesUpWhenRetryAfterExceedsTheMaximumDelay() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "120"));
+            server.start();
+
+            RetryPolicy policy = new RetryPolicy(2, Duration.ofMillis(1), Duration.ofSeconds(1),
+                new RetryBudget(0.1, 10), new Metrics(), Clock.systemUTC());
+            OkHttpClient client = UpstreamClients.base(policy);
+
+            try (Response response = client.newCall(new Request.Builder().url(server.url("/")).build()).execute()) {
+                assertEquals(429, response.code());
+            }
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void doesNotResendAGenerationWhoseResponseWasLost() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+            server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+            server.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+            server.start();
+
+            RetryPolicy policy = new RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(50),
+                new RetryBudget(0.1, 10), new Metrics(), Clock.systemUTC());
+            OkHttpClient client = UpstreamClients.base(policy).newBuilder().retryOnConnectionFailure(false).build();
+            Request post = new Request.Builder()
+                .url(server.url("/v1/messages"))
+                .post(RequestBody.create("{}", MediaType.get("application/json")))
+                .build();
+
+            assertThrows(IOException.class, () -> client.newCall(post).execute());
+            assertEquals(1, server.getRequestCount());
+
+            try (Response response = client.newCall(new Request.Builder().url(server.url("/")).build()).execute()) {
+                assertEquals(200, response.code());
+            }
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+}
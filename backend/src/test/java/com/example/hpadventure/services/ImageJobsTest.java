@@ -0,0 +1,136 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ImageJobsTest {
+    private static final Dtos.Image IMAGE = new Dtos.Image("image/webp", "base64data", "Dunkler Korridor");
+
+    private final Metrics metrics = new Metrics();
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-01T12:00:00Z"));
+    private final ImageJobs jobs = new ImageJobs(metrics, clock, 2, 8, Duration.ofMinutes(10), 16);
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    @Test
+    void pendingJobIsReportedUntilItsImageIsDone() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ImageJobs.Job job = jobs.submit("Dunkler Korridor", prompt -> {
+            await(release);
+            return IMAGE;
+        });
+
+        assertEquals(ImageJobs.PENDING, jobs.await(job.id(), Duration.ofMillis(50)).status());
+
+        release.countDown();
+        Dtos.ImageJob done = jobs.await(job.id(), Duration.ofSeconds(5));
+        assertEquals(ImageJobs.DONE, done.status());
+        assertEquals(IMAGE, done.image());
+        assertTrue(metrics.scrape().contains("image_jobs_completed_total{result=\"done\"} 1"));
+    }
+
+    @Test
+    void samePromptJoinsTheExistingJob() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, Dtos.Image> renderer = prompt -> {
+            renders.incrementAndGet();
+            await(release);
+            return IMAGE;
+        };
+
+        ImageJobs.Job first = jobs.submit("Dunkler Korridor", renderer);
+        ImageJobs.Job second = jobs.submit("Dunkler Korridor", renderer);
+        ImageJobs.Job other = jobs.submit("Grosse Halle", renderer);
+        release.countDown();
+
+        assertEquals(first.id(), second.id());
+        assertNotEquals(first.id(), other.id());
+        assertEquals(ImageJobs.DONE, jobs.await(first.id(), Duration.ofSeconds(5)).status());
+        assertEquals(ImageJobs.DONE, jobs.await(other.id(), Duration.ofSeconds(5)).status());
+        assertEquals(2, renders.get());
+        assertTrue(metrics.scrape().contains("image_jobs_submitted_total{result=\"deduplicated\"} 1"));
+    }
+
+    @Test
+    void failedJobReportsTheUpstreamErrorAndIsRetriedOnTheNextSubmit() throws Exception {
+        ImageJobs.Job failed = jobs.submit("Dunkler Korridor", prompt -> {
+            throw new UpstreamException("IMAGE_UPSTREAM_ERROR", 502, "boom");
+        });
+
+        Dtos.ImageJob job = jobs.await(failed.id(), Duration.ofSeconds(5));
+        assertEquals(ImageJobs.FAILED, job.status());
+        assertEquals("IMAGE_UPSTREAM_ERROR", job.error().code());
+
+        ImageJobs.Job retried = jobs.submit("Dunkler Korridor", prompt -> IMAGE);
+        assertNotEquals(failed.id(), retried.id());
+        assertEquals(ImageJobs.DONE, jobs.await(retried.id(), Duration.ofSeconds(5)).status());
+    }
+
+    @Test
+    void finishedJobsExpireAfterTheTtl() throws Exception {
+        ImageJobs.Job job = jobs.submit("Dunkler Korridor", prompt -> IMAGE);
+        assertEquals(ImageJobs.DONE, jobs.await(job.id(), Duration.ofSeconds(5)).status());
+
+        clock.advance(Duration.ofMinutes(11));
+
+        assertNull(jobs.await(job.id(), Duration.ZERO));
+        assertNull(jobs.await("unknown", Duration.ZERO));
+        assertEquals(0, jobs.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
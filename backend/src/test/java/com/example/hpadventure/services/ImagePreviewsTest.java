@@ -0,0 +1,62 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ImagePreviewsTest {
+    private final Metrics metrics = new Metrics();
+    private final ImagePreviews previews = new ImagePreviews(metrics, true);
+    private final ImagePromptService prompts = new ImagePromptService();
+
+    @Test
+    void previewIsAnSvgColouredByTheSceneKeywords() {
+        Dtos.Image night = previews.render(prompts.buildPrompt("Dunkler Kerker im Mondlicht", null));
+        Dtos.Image fire = previews.render(prompts.buildPrompt("Flackernde Fackeln im Gemeinschaftsraum", null));
+
+        assertEquals("image/svg+xml", night.mimeType());
+        assertTrue(svg(night).startsWith("<svg"));
+        assertTrue(svg(night).contains("#0b1026"));
+        assertTrue(svg(fire).contains("#a23b0c"));
+        assertTrue(night.prompt().endsWith("Dunkler Kerker im Mondlicht"));
+    }
+
+    @Test
+    void keywordsOnlyMatchTheStartOfAWord() {
+        Dtos.Image journey = previews.render(prompts.buildPrompt("Eine Reise durch die Grosse Halle", null));
+
+        assertTrue(svg(journey).contains("#5b4a6e"));
+    }
+
+    @Test
+    void sameSceneGetsTheSamePreview() {
+        String prompt = prompts.buildPrompt("Verschneiter Innenhof", null);
+
+        assertEquals(previews.render(prompt).base64(), previews.render(prompt).base64());
+        assertNotEquals(previews.render(prompt).base64(),
+            previews.render(prompts.buildPrompt("Verschneiter Turm", null)).base64());
+    }
+
+    @Test
+    void firstPixelIsCountedBySource() {
+        previews.firstPixel(System.nanoTime(), "preview");
+        previews.firstPixel(System.nanoTime(), "image");
+        previews.firstPixel(System.nanoTime(), "preview");
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("image_first_pixel_total{source=\"preview\"} 2"));
+        assertTrue(scrape.contains("image_first_pixel_total{source=\"image\"} 1"));
+        assertTrue(scrape.contains("image_first_pixel_ms_total{source=\"preview\"} "));
+    }
+
+    private static String svg(Dtos.Image image) {
+        return new String(Base64.getDecoder().decode(image.base64()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class OpeningPoolTest {
+    private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @Test
+    void servesAPooledOpeningAndItsImageOnce() {
+        Metrics metrics = new Metrics();
+        OpeningPool pool = pool(metrics, CLOCK);
+        List<String> generatedFor = new ArrayList<>();
+        pool.refillOnce(house -> {
+            generatedFor.add(house);
+            return opening("Du stehst vor dem Portraet der fetten Dame.", NOW);
+        }, () -> true);
+
+        OpeningPool.Opening opening = pool.take(startRequest(" gryffindor ", List.of()));
+
+        assertNotNull(opening);
+        assertEquals(List.of("Gryffindor"), generatedFor);
+        assertNotNull(pool.takeImage("Portraet"));
+        assertNull(pool.takeImage("Portraet"));
+        assertNull(pool.take(startRequest("Gryffindor", List.of())));
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("opening_pool_requests_total{result=\"hit\"} 1"));
+        assertTrue(scrape.contains("opening_pool_requests_total{result=\"miss\"} 1"));
+    }
+
+    @Test
+    void neverServesReturningPlayersOrLaterTurns() {
+        OpeningPool pool = pool(new Metrics(), CLOCK);
+        pool.refillOnce(house -> opening("Eroeffnung", NOW), () -> true);
+
+        Dtos.CompletedAdventure past = new Dtos.CompletedAdventure("Der Basilisk", "Besiegt", "2026-01-01T00:00:00Z");
+        assertNull(pool.take(startRequest("Gryffindor", List.of(past))));
+        assertNull(pool.take(new Dtos.StoryRequest(player("Gryffindor", List.of()), null,
+            List.of(new Dtos.ChatMessage("assistant", "Vorher")), "start")));
+        assertNull(pool.take(startRequest("Durmstrang", List.of())));
+        assertNotNull(pool.take(startRequest("Gryffindor", List.of())));
+    }
+
+    @Test
+    void fillsOnlyWhileIdleAndUpToTheDepth() {
+        Metrics metrics = new Metrics();
+        OpeningPool pool = pool(metrics, CLOCK);
+
+        pool.refillOnce(house -> opening("Eroeffnung", NOW), () -> false);
+        assertTrue(metrics.scrape().contains("opening_pool_size{house=\"gryffindor\"} 0"));
+
+        for (int i = 0; i < 5; i++) {
+            pool.refillOnce(house -> opening("Eroeffnung", NOW), () -> true);
+        }
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("opening_pool_size{house=\"gryffindor\"} 2"));
+        assertTrue(scrape.contains("opening_pool_size{house=\"slytherin\"} 2"));
+        assertTrue(scrape.contains("opening_pool_generated_total 4"));
+    }
+
+    @Test
+    void dropsOpeningsOlderThanTheTtl() {
+        OpeningPool pool = pool(new Metrics(), CLOCK);
+        pool.refillOnce(house -> opening("Alt", NOW.minus(Duration.ofHours(7))), () -> true);
+
+        assertNull(pool.take(startRequest("Gryffindor", List.of())));
+    }
+
+    private static OpeningPool pool(Metrics metrics, Clock clock) {
+        return new OpeningPool(metrics, clock, List.of("Gryffindor", "Slytherin", "gryffindor"), 2,
+            Duration.ofSeconds(30), Duration.ofHours(6), null);
+    }
+
+    private static OpeningPool.Opening opening(String story, Instant createdAt) {
+        return new OpeningPool.Opening(story, "Portraet", new Dtos.Image("image/webp", "base64", "Portraet"), createdAt);
+    }
+
+    private static Dtos.StoryRequest startRequest(String house, List<Dtos.CompletedAdventure> completed) {
+        return new Dtos.StoryRequest(player(house, completed), null, List.of(), "start");
+    }
+
+    private static Dtos.Player player(String house, List<Dtos.CompletedAdventure> completed) {
+        return new Dtos.Player("Harry", house, completed, new Dtos.Stats(0, 0));
+    }
+}
@@ -25,6 +25,7 @@ class PromptBuilderTest {
         assertTrue(prompt.contains("Schritt: 3 von 15"));
         assertTrue(prompt.contains("[OPTION:"));
         assertTrue(prompt.contains("[SZENE:"));
+        assertTrue(prompt.contains("[NEUER GEGENSTAND:"));
     }
 
     @Test
@@ -0,0 +1,189 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.providers.TextProvider;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SpeculatorTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-03-01T12:00:00Z"), ZoneOffset.UTC);
+    private static final List<TextProvider.Message> HISTORY = List.of(
+        new TextProvider.Message("user", "Ich oeffne die Tuer."),
+        new TextProvider.Message("assistant", "Der Gang ist dunkel. Was tust du?")
+    );
+
+    @Test
+    void matchingActionTakesItsBranchAndCancelsTheOthers() throws Exception {
+        EchoTextProvider provider = new EchoTextProvider(2);
+        Metrics metrics = new Metrics();
+        Speculator speculator = new Speculator(provider, metrics, CLOCK, scheduler(metrics, 2),
+            Duration.ofMinutes(5), 100_000, 0);
+        String groupKey = Speculator.groupKey("system", HISTORY);
+
+        speculator.speculate(groupKey, branches("Leise umsehen", "Weitergehen"), 500);
+        assertTrue(provider.called.await(5, TimeUnit.SECONDS));
+
+        assertEquals("Story fuer Weitergehen", speculator.take(groupKey, " weitergehen "));
+        assertNull(speculator.take(groupKey, "Weitergehen"));
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("speculation_started_total 2"));
+        assertTrue(scrape.contains("speculation_turns_total{result=\"hit\"} 1"));
+        assertTrue(scrape.contains("speculation_wasted_tokens_total "));
+    }
+
+    @Test
+    void otherActionDiscardsTheWholeGroup() throws Exception {
+        EchoTextProvider provider = new EchoTextProvider(1);
+        Metrics metrics = new Metrics();
+        Speculator speculator = new Speculator(provider, metrics, CLOCK, scheduler(metrics, 1),
+            Duration.ofMinutes(5), 100_000, 0);
+        String groupKey = Speculator.groupKey("system", HISTORY);
+
+        speculator.speculate(groupKey, branches("Leise umsehen"), 500);
+        assertTrue(provider.called.await(5, TimeUnit.SECONDS));
+
+        assertNull(speculator.take(groupKey, "Ich zaubere Lumos."));
+        assertTrue(metrics.scrape().contains("speculation_turns_total{result=\"miss\"} 1"));
+    }
+
+    @Test
+    void branchesBeyondTheTokenBudgetAreSkipped() {
+        EchoTextProvider provider = new EchoTextProvider(1);
+        Metrics metrics = new Metrics();
+        Speculator speculator = new Speculator(provider, metrics, CLOCK, scheduler(metrics, 2),
+            Duration.ofMinutes(5), 600, 0);
+
+        speculator.speculate(Speculator.groupKey("system", HISTORY), branches("Leise umsehen", "Weitergehen"), 500);
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("speculation_started_total 1"));
+        assertTrue(scrape.contains("speculation_skipped_total{reason=\"budget\"} 1"));
+    }
+
+    @Test
+    void discardedBranchesThatNeverStartedGiveTheirBudgetBack() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TextProvider provider = new TextProvider() {
+            @Override
+            public String createMessage(String systemPrompt, List<Message> messages, int maxTokens) {
+                running.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "Story";
+            }
+
+            @Override
+            public void streamMessage(String systemPrompt, List<Message> messages, int maxTokens,
+                                      Consumer<String> onDelta) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        Metrics metrics = new Metrics();
+        // One background slot: the second branch stays queued behind the first
+        Speculator speculator = new Speculator(provider, metrics, CLOCK, scheduler(metrics, 1),
+            Duration.ofMinutes(5), 1_100, 0);
+        String groupKey = Speculator.groupKey("system", HISTORY);
+        try {
+            speculator.speculate(groupKey, branches("Leise umsehen", "Weitergehen"), 500);
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            assertNull(speculator.take(groupKey, "Ich zaubere Lumos."));
+            speculator.speculate(groupKey, branches("Umkehren"), 500);
+
+            String scrape = metrics.scrape();
+            assertTrue(scrape.contains("speculation_started_total 3"));
+            assertFalse(scrape.contains("speculation_skipped_total{reason=\"budget\"}"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void replaySendsTheWholeStoryInWordChunks() {
+        Metrics metrics = new Metrics();
+        Speculator speculator = new Speculator(new EchoTextProvider(0), metrics, CLOCK, scheduler(metrics, 1),
+            Duration.ofMinutes(5), 1_000, 0);
+        String story = "Du schleichst weiter.\n\n[OPTION: Umkehren]";
+
+        List<String> chunks = new ArrayList<>();
+        speculator.replay(story, chunks::add);
+
+        assertEquals(story, String.join("", chunks));
+        assertEquals(List.of("Du", " schleichst", " weiter.", "\n\n[OPTION:", " Umkehren]"), chunks);
+    }
+
+    @Test
+    void groupKeyIgnoresSurroundingWhitespaceButNotContent() {
+        List<TextProvider.Message> padded = List.of(
+            new TextProvider.Message("user", "Ich oeffne die Tuer. "),
+            new TextProvider.Message("assistant", "Der Gang ist dunkel. Was tust du?")
+        );
+        List<TextProvider.Message> other = List.of(
+            new TextProvider.Message("user", "Ich schliesse die Tuer."),
+            new TextProvider.Message("assistant", "Der Gang ist dunkel. Was tust du?")
+        );
+
+        assertEquals(Speculator.groupKey("system", HISTORY), Speculator.groupKey("system", padded));
+        assertNotEquals(Speculator.groupKey("system", HISTORY), Speculator.groupKey("system", other));
+    }
+
+    private static WorkScheduler scheduler(Metrics metrics, int backgroundSlots) {
+        WorkScheduler.Limits limits = new WorkScheduler.Limits(backgroundSlots, 8);
+        return new WorkScheduler(metrics, Map.of(
+            WorkScheduler.Priority.INTERACTIVE, limits,
+            WorkScheduler.Priority.NEAR_INTERACTIVE, limits,
+            WorkScheduler.Priority.BACKGROUND, limits
+        ), 4);
+    }
+
+    private static List<Speculator.Branch> branches(String... actions) {
+        List<Speculator.Branch> branches = new ArrayList<>();
+        for (String action : actions) {
+            List<TextProvider.Message> messages = new ArrayList<>(HISTORY);
+            messages.add(new TextProvider.Message("user", action));
+            branches.add(new Speculator.Branch(action, "system", messages));
+        }
+        return branches;
+    }
+
+    private static final class EchoTextProvider implements TextProvider {
+        private final CountDownLatch called;
+
+        private EchoTextProvider(int expectedCalls) {
+            this.called = new CountDownLatch(expectedCalls);
+        }
+
+        @Override
+        public String createMessage(String systemPrompt, List<Message> messages, int maxTokens) {
+            String story = "Story fuer " + messages.get(messages.size() - 1).content();
+            called.countDown();
+            return story;
+        }
+
+        @Override
+        public void streamMessage(String systemPrompt, List<Message> messages, int maxTokens, Consumer<String> onDelta) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -107,8 +108,68 @@ final class StoryServiceTest {
         assertEquals(1, imageProvider.generateCallCount());
     }
 
+    @Test
+    void nextTurn_recordsTurnInJournal() throws Exception {
+        String rawStory = String.join("\n",
+            "Die Tuer knarrt und ein kalter Luftzug streift dich.",
+            "",
+            "[OPTION: Eintreten]",
+            "[SZENE: Alte Holztuer im Kerkergang]"
+        );
+
+        FakeTextProvider textProvider = new FakeTextProvider(List.of(), List.of(rawStory));
+        FakeImageProvider imageProvider = new FakeImageProvider(true, "image/webp", "base64data");
+        Clock clock = Clock.fixed(Instant.parse("2026-01-01T10:00:00Z"), ZoneOffset.UTC);
+        List<TurnJournal.TurnEntry> entries = new ArrayList<>();
+        StoryService service = buildService(textProvider, imageProvider, clock, entries::add);
+
+        service.nextTurn(new Dtos.StoryRequest(
+            new Dtos.Player(" Hermine ", "Gryffindor", List.of(), new Dtos.Stats(0, 0)),
+            new Dtos.CurrentAdventure("Der Kerker", "2026-01-01T09:00:00Z"),
+            List.of(),
+            " Ich klopfe an. "
+        ));
+
+        assertEquals(1, entries.size());
+        TurnJournal.TurnEntry entry = entries.get(0);
+        assertEquals("hermine|Gryffindor", entry.playerId());
+        assertEquals("2026-01-01T09:00:00Z", entry.adventureId());
+        assertEquals(1, entry.turn());
+        assertEquals("Ich klopfe an.", entry.action());
+        assertEquals("Die Tuer knarrt und ein kalter Luftzug streift dich.", entry.story());
+        assertEquals(List.of("Eintreten"), entry.options());
+        assertEquals("Alte Holztuer im Kerkergang", entry.scene());
+        assertEquals(24, entry.imageId().length());
+    }
+
+    @Test
+    void nextTurn_keepsTheStory_whenTitleGenerationFails() {
+        // Only the story is queued, so the title call fails upstream
+        FakeTextProvider textProvider = new FakeTextProvider(
+            List.of(),
+            List.of("Die Tuer knarrt.\n\n[OPTION: Eintreten]\n[SZENE: Alte Holztuer im Kerkergang]")
+        );
+        FakeImageProvider imageProvider = new FakeImageProvider(true, "image/webp", "base64data");
+        Clock clock = Clock.fixed(Instant.parse("2026-01-01T10:00:00Z"), ZoneOffset.UTC);
+        StoryService service = buildService(textProvider, imageProvider, clock);
+
+        Dtos.Assistant assistant = service.nextTurn(new Dtos.StoryRequest(
+            new Dtos.Player("Hermine", "Gryffindor", List.of(), new Dtos.Stats(0, 0)),
+            new Dtos.CurrentAdventure(null, "2026-01-01T09:00:00Z"),
+            List.of(new Dtos.ChatMessage("assistant", "Vorherige Szene")),
+            "Ich oeffne die Tuer."
+        ));
+
+        assertEquals("Die Tuer knarrt.", assistant.storyText());
+        assertNull(assistant.adventure().title());
+        assertEquals(2, textProvider.createCallCount());
+    }
+
     private StoryService buildService(TextProvider textProvider, ImageProvider imageProvider, Clock clock) {
+        return buildService(textProvider, imageProvider, clock, TurnJournal.NOOP);
+    }
 
+    private StoryService buildService(TextProvider textProvider, ImageProvider imageProvider, Clock clock, TurnJournal journal) {
         return new StoryService(
             textProvider,
             new PromptBuilder(),
@@ -120,7 +181,8 @@ final class StoryServiceTest {
             new SummaryService(textProvider),
             new ImagePromptService(),
             imageProvider,
-            clock
+            clock,
+            StoryService.Options.DEFAULTS.withJournal(journal)
         );
     }
 }
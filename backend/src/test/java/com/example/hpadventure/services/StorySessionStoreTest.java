@@ -0,0 +1,224 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class StorySessionStoreTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T10:00:00Z"), ZoneOffset.UTC);
+    private static final Dtos.Player PLAYER = new Dtos.Player("Hermine", "Gryffindor", List.of(), new Dtos.Stats(0, 0));
+
+    @Test
+    void requestsWithoutSession_passThrough() {
+        StorySessionStore store = newStore(null);
+        Dtos.StoryRequest request = new Dtos.StoryRequest(PLAYER, null, List.of(), "start");
+
+        StorySessionStore.Resolved resolved = store.resolve(request);
+
+        assertNull(resolved.sessionId());
+        assertSame(request, resolved.request());
+        assertNull(store.record(resolved, assistant("Du stehst am Gleis.", false)));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void sessionOnlyRequest_isRehydratedFromRecordedTurns() {
+        StorySessionStore store = newStore(null);
+        Dtos.Session first = playTurn(store, new Dtos.StoryRequest(PLAYER, null, List.of(), "start",
+            new Dtos.Session(null, null)), "Du stehst am Gleis.");
+        assertEquals(1, first.turn());
+
+        StorySessionStore.Resolved resolved = store.resolve(
+            new Dtos.StoryRequest(null, null, null, "Ich steige ein.", new Dtos.Session(first.id(), 1)));
+
+        assertEquals(first.id(), resolved.sessionId());
+        assertEquals(PLAYER, resolved.request().player());
+        assertEquals(List.of(
+            new Dtos.ChatMessage("user", "start"),
+            new Dtos.ChatMessage("assistant", "Du stehst am Gleis.")
+        ), resolved.request().conversationHistory());
+        assertEquals("Ich steige ein.", resolved.request().action());
+    }
+
+    @Test
+    void unacknowledgedTurn_isRewound() {
+        StorySessionStore store = newStore(null);
+        Dtos.Session first = playTurn(store, new Dtos.StoryRequest(PLAYER, null, List.of(), "start",
+            new Dtos.Session(null, null)), "Szene eins.");
+        Dtos.Session second = playTurn(store, new Dtos.StoryRequest(null, null, null, "weiter",
+            new Dtos.Session(first.id(), 1)), "Szene zwei.");
+        assertEquals(2, second.turn());
+
+        // The client never saw turn 2 and retries from turn 1.
+        StorySessionStore.Resolved resolved = store.resolve(
+            new Dtos.StoryRequest(null, null, null, "weiter", new Dtos.Session(first.id(), 1)));
+
+        assertEquals(2, resolved.request().conversationHistory().size());
+        assertEquals("Szene eins.", resolved.request().conversationHistory().get(1).content());
+    }
+
+    @Test
+    void unknownSessionOrFutureTurn_isRejected() {
+        StorySessionStore store = newStore(null);
+        Dtos.Session first = playTurn(store, new Dtos.StoryRequest(PLAYER, null, List.of(), "start",
+            new Dtos.Session(null, null)), "Szene eins.");
+
+        StorySessionException unknown = assertThrows(StorySessionException.class, () -> store.resolve(
+            new Dtos.StoryRequest(null, null, null, "weiter", new Dtos.Session("missing", 1))));
+        assertEquals("SESSION_NOT_FOUND", unknown.code());
+
+        StorySessionException ahead = assertThrows(StorySessionException.class, () -> store.resolve(
+            new Dtos.StoryRequest(null, null, null, "weiter", new Dtos.Session(first.id(), 5))));
+        assertEquals("SESSION_OUT_OF_SYNC", ahead.code());
+    }
+
+    @Test
+    void completedAdventure_movesIntoPlayerHistory() {
+        StorySessionStore store = newStore(null);
+        StorySessionStore.Resolved resolved = store.resolve(new Dtos.StoryRequest(PLAYER, null, List.of(), "start",
+            new Dtos.Session(null, null)));
+        Dtos.Session session = store.record(resolved, assistant("Das Abenteuer endet.", true));
+
+        StorySessionStore.Resolved next = store.resolve(
+            new Dtos.StoryRequest(null, null, null, "start", new Dtos.Session(session.id(), session.turn())));
+
+        assertEquals(List.of(), next.request().conversationHistory());
+        assertEquals(1, next.request().player().completedAdventures().size());
+        assertEquals("Der Nordturm", next.request().player().completedAdventures().get(0).title());
+    }
+
+    @Test
+    void logIsReplayedOnRestart(@TempDir Path tempDir) {
+        Path log = tempDir.resolve("sessions.jsonl");
+        StorySessionStore store = newStore(log);
+        Dtos.Session first = playTurn(store, new Dtos.StoryRequest(PLAYER, null, List.of(), "start",
+            new Dtos.Session(null, null)), "Szene eins.");
+
+        StorySessionStore restarted = newStore(log);
+        StorySessionStore.Resolved resolved = restarted.resolve(
+            new Dtos.StoryRequest(null, null, null, "weiter", new Dtos.Session(first.id(), 1)));
+
+        assertEquals(2, resolved.request().conversationHistory().size());
+        assertEquals("Hermine", resolved.request().player().name());
+    }
+
+    @Test
+    void seedingWithAnotherClientsId_mintsAFreshSession() {
+        StorySessionStore store = newStore(null);
+        Dtos.Session victim = playTurn(store, new Dtos.StoryRequest(PLAYER, null, List.of(), "start",
+            new Dtos.Session(null, null)), "Szene eins.");
+
+        Dtos.StoryRequest hijack = new Dtos.StoryRequest(PLAYER, null,
+            List.of(new Dtos.ChatMessage("assistant", "Fremde Szene.")), "weiter", new Dtos.Session(victim.id(), 1));
+        StorySessionStore.Resolved resolved = store.resolve(hijack);
+
+        assertNotEquals(victim.id(), resolved.sessionId());
+        StorySessionStore.Resolved original = store.resolve(
+            new Dtos.StoryRequest(null, null, null, "weiter", new Dtos.Session(victim.id(), 1)));
+        assertEquals("Szene eins.", original.request().conversationHistory().get(1).content());
+    }
+
+    @Test
+    void concurrentTurnsOnTheSameTurn_recordOnlyTheFirst() {
+        StorySessionStore store = newStore(null);
+        Dtos.Session first = playTurn(store, new Dtos.StoryRequest(PLAYER, null, List.of(), "start",
+            new Dtos.Session(null, null)), "Szene eins.");
+        StorySessionStore.Resolved left = store.resolve(
+            new Dtos.StoryRequest(null, null, null, "links", new Dtos.Session(first.id(), 1)));
+        StorySessionStore.Resolved right = store.resolve(
+            new Dtos.StoryRequest(null, null, null, "rechts", new Dtos.Session(first.id(), 1)));
+
+        assertEquals(2, store.record(left, assistant("Du gehst links.", false)).turn());
+        StorySessionException stale = assertThrows(StorySessionException.class,
+            () -> store.record(right, assistant("Du gehst rechts.", false)));
+
+        assertEquals("SESSION_OUT_OF_SYNC", stale.code());
+        StorySessionStore.Resolved next = store.resolve(
+            new Dtos.StoryRequest(null, null, null, "weiter", new Dtos.Session(first.id(), 2)));
+        assertEquals(List.of("start", "Szene eins.", "links", "Du gehst links."),
+            next.request().conversationHistory().stream().map(Dtos.ChatMessage::content).toList());
+    }
+
+    @Test
+    void logIsCompactedOnTheSweep(@TempDir Path tempDir) throws IOException {
+        Path log = tempDir.resolve("sessions.jsonl");
+        MutableClock clock = new MutableClock();
+        StorySessionStore store = new StorySessionStore(clock, Duration.ofHours(1), 100, MAPPER, log);
+        Dtos.Session session = playTurn(store, new Dtos.StoryRequest(PLAYER, null, List.of(), "start",
+            new Dtos.Session(null, null)), "Szene eins.");
+        for (String action : List.of("weiter", "noch weiter")) {
+            session = playTurn(store, new Dtos.StoryRequest(null, null, null, action, session), "Szene.");
+        }
+        assertEquals(4, Files.readAllLines(log).size());
+
+        clock.advance(Duration.ofMinutes(2));
+        store.resolve(new Dtos.StoryRequest(null, null, null, "weiter", session));
+
+        assertEquals(1, Files.readAllLines(log).size());
+        StorySessionStore.Resolved restarted = new StorySessionStore(clock, Duration.ofHours(1), 100, MAPPER, log)
+            .resolve(new Dtos.StoryRequest(null, null, null, "weiter", session));
+        assertEquals(6, restarted.request().conversationHistory().size());
+    }
+
+    private static Dtos.Session playTurn(StorySessionStore store, Dtos.StoryRequest request, String story) {
+        StorySessionStore.Resolved resolved = store.resolve(request);
+        return store.record(resolved, assistant(story, false));
+    }
+
+    private static Dtos.Assistant assistant(String story, boolean completed) {
+        return new Dtos.Assistant(
+            story,
+            List.of("Weiter"),
+            new Dtos.Adventure("Der Nordturm", completed, completed ? "Zusammenfassung." : null,
+                completed ? "2026-01-01T10:00:00Z" : null),
+            null
+        );
+    }
+
+    private static StorySessionStore newStore(Path log) {
+        return new StorySessionStore(CLOCK, Duration.ofHours(1), 100, MAPPER, log);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
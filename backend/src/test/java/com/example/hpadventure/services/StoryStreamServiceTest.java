@@ -68,6 +68,37 @@ final class StoryStreamServiceTest {
         assertNotNull(image);
     }
 
+    @Test
+    void streamTurn_emitsItems_and_listsThemOnAssistant() throws Exception {
+        String partOne = "Hagrid drueckt dir etwas in die Hand. [NEUER GEGENSTAND: Silberner ";
+        String partTwo = String.join("\n",
+            "Schluessel | Oeffnet die Tuer zur Huette]",
+            "[NEUER GEGENSTAND: silberner schluessel.]",
+            "Was tust du?",
+            "[OPTION: Danke sagen]",
+            "[SZENE: Hagrids Huette]"
+        );
+
+        Clock clock = Clock.fixed(Instant.parse("2026-01-01T10:00:00Z"), ZoneOffset.UTC);
+        StoryService service = buildService(partOne, partTwo, clock);
+
+        Dtos.StoryRequest request = new Dtos.StoryRequest(
+            new Dtos.Player("Hermine", "Gryffindor", List.of(), new Dtos.Stats(0, 0)),
+            new Dtos.CurrentAdventure(null, "2026-01-01T09:00:00Z"),
+            List.of(new Dtos.ChatMessage("assistant", "Vorherige Szene")),
+            "Ich klopfe an."
+        );
+
+        List<String> deltas = new ArrayList<>();
+        List<Dtos.Item> items = new ArrayList<>();
+        StoryStreamHandler.StreamResult result = service.streamTurn(request, deltas::add, items::add);
+
+        Dtos.Item key = new Dtos.Item("Silberner Schluessel", "Oeffnet die Tuer zur Huette");
+        assertEquals(List.of(key), items);
+        assertEquals(List.of(key), result.assistant().items());
+        assertFalse(String.join("", deltas).contains("GEGENSTAND"));
+    }
+
     private StoryService buildService(String partOne, String partTwo, Clock clock) {
         TextProvider textProvider = new FakeTextProvider(
             List.of(List.of(partOne, partTwo)),
@@ -0,0 +1,214 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.api.Dtos;
+import com.example.hpadventure.metrics.Metrics;
+import com.example.hpadventure.providers.TextProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SummaryBatchesTest {
+    private final Metrics metrics = new Metrics();
+    private final List<SummaryBatches> batches = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        batches.forEach(SummaryBatches::shutdown);
+    }
+
+    @Test
+    void summarisesEveryHistoryAndReportsFailuresPerItem() throws Exception {
+        SummaryBatches summaries = batches(new ConcurrentTextProvider(prompt -> {
+            if (prompt.contains("Peeves")) {
+                throw new UpstreamException("UPSTREAM_ERROR", 502, "boom");
+            }
+            return "  Harry fand den Raum der Wünsche.  ";
+        }), 1, 2);
+
+        SummaryBatches.Job job = summaries.submit(List.of(
+            item("a", "Ich suche den Raum der Wünsche."),
+            item("b", "Ich ärgere Peeves."),
+            new Dtos.SummaryBatchItem(null, List.of(new Dtos.ChatMessage("user", "Ich gehe zum See.")))
+        ));
+
+        List<Dtos.SummaryBatchResult> results = collect(job);
+        assertEquals(List.of(1, 2, 3), results.stream().map(Dtos.SummaryBatchResult::seq).toList());
+        Dtos.SummaryBatchResult a = byId(results, "a");
+        assertEquals("Harry fand den Raum der Wünsche.", a.summary());
+        assertNull(a.error());
+        Dtos.SummaryBatchResult b = byId(results, "b");
+        assertNull(b.summary());
+        assertEquals("UPSTREAM_ERROR", b.error().code());
+        assertEquals("Harry fand den Raum der Wünsche.", byId(results, "2").summary());
+
+        Dtos.SummaryBatchJob done = job.snapshot();
+        assertEquals(SummaryBatches.DONE, done.status());
+        assertEquals(3, done.total());
+        assertEquals(2, done.succeeded());
+        assertEquals(1, done.failed());
+        assertTrue(metrics.scrape().contains("summary_batch_items_total{result=\"failed\"} 1"));
+    }
+
+    @Test
+    void unexpectedItemFailuresAreReportedAsInternalErrors() throws Exception {
+        SummaryBatches summaries = batches(new ConcurrentTextProvider(prompt -> {
+            if (prompt.contains("Peeves")) {
+                throw new IllegalStateException("kaputt");
+            }
+            return "Zusammenfassung";
+        }), 1, 1);
+
+        SummaryBatches.Job job = summaries.submit(List.of(item("a", "Ich ärgere Peeves."), item("b", "Ich gehe.")));
+
+        List<Dtos.SummaryBatchResult> results = collect(job);
+        assertEquals("INTERNAL_ERROR", byId(results, "a").error().code());
+        assertEquals("Zusammenfassung", byId(results, "b").summary());
+        assertEquals(1, job.snapshot().succeeded());
+    }
+
+    @Test
+    void generatesAtMostParallelismSummariesAtOnce() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        SummaryBatches summaries = batches(new ConcurrentTextProvider(prompt -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+            return "Zusammenfassung";
+        }), 1, 2);
+
+        List<Dtos.SummaryBatchItem> items = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            items.add(item("item-" + i, "Zug " + i));
+        }
+        SummaryBatches.Job job = summaries.submit(items);
+
+        assertEquals(8, collect(job).size());
+        assertTrue(maxRunning.get() <= 2, "max concurrent summaries: " + maxRunning.get());
+    }
+
+    @Test
+    void resultsCanBeResumedAfterTheLastSeenSeq() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SummaryBatches summaries = batches(new ConcurrentTextProvider(prompt -> {
+            if (prompt.contains("später")) {
+                await(release);
+            }
+            return "Zusammenfassung";
+        }), 1, 2);
+
+        SummaryBatches.Job job = summaries.submit(List.of(item("first", "jetzt"), item("second", "später")));
+
+        List<Dtos.SummaryBatchResult> first = job.resultsAfter(0, Duration.ofSeconds(5));
+        assertEquals(1, first.size());
+        assertEquals("first", first.get(0).id());
+        assertEquals(SummaryBatches.RUNNING, job.snapshot().status());
+        assertEquals(List.of(), job.resultsAfter(1, Duration.ofMillis(20)));
+
+        release.countDown();
+        List<Dtos.SummaryBatchResult> second = job.resultsAfter(1, Duration.ofSeconds(5));
+        assertEquals(1, second.size());
+        assertEquals(2, second.get(0).seq());
+        assertEquals("second", second.get(0).id());
+        assertSame(job, summaries.get(job.id()));
+        assertNull(summaries.get("unknown"));
+    }
+
+    @Test
+    void fullQueueIsRejectedAsOverloaded() {
+        CountDownLatch release = new CountDownLatch(1);
+        SummaryBatches summaries = batches(new ConcurrentTextProvider(prompt -> {
+            await(release);
+            return "Zusammenfassung";
+        }), 1, 1);
+        try {
+            summaries.submit(List.of(item("running", "Zug")));
+            summaries.submit(List.of(item("queued", "Zug")));
+
+            UpstreamException error = assertThrows(UpstreamException.class,
+                () -> summaries.submit(List.of(item("rejected", "Zug"))));
+            assertEquals("OVERLOADED", error.code());
+            assertEquals(503, error.status());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private SummaryBatches batches(TextProvider textProvider, int workers, int parallelism) {
+        SummaryBatches summaries = new SummaryBatches(new SummaryService(textProvider), metrics, Clock.systemUTC(),
+            workers, parallelism, 100, Duration.ofMinutes(10), 16);
+        batches.add(summaries);
+        return summaries;
+    }
+
+    private static List<Dtos.SummaryBatchResult> collect(SummaryBatches.Job job) throws InterruptedException {
+        List<Dtos.SummaryBatchResult> results = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isDone() && System.nanoTime() < deadline) {
+            results.addAll(job.resultsAfter(results.size(), Duration.ofMillis(100)));
+        }
+        results.addAll(job.resultsAfter(results.size(), Duration.ZERO));
+        return results;
+    }
+
+    private static Dtos.SummaryBatchResult byId(List<Dtos.SummaryBatchResult> results, String id) {
+        return results.stream().filter(result -> id.equals(result.id())).findFirst().orElseThrow();
+    }
+
+    private static Dtos.SummaryBatchItem item(String id, String content) {
+        return new Dtos.SummaryBatchItem(id, List.of(new Dtos.ChatMessage("user", content)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Answers each summary prompt from the history it summarises; safe to call from many threads.
+     */
+    private static final class ConcurrentTextProvider implements TextProvider {
+        private final Function<String, String> summarise;
+
+        private ConcurrentTextProvider(Function<String, String> summarise) {
+            this.summarise = summarise;
+        }
+
+        @Override
+        public String createMessage(String systemPrompt, List<Message> messages, int maxTokens) {
+            return summarise.apply(messages.get(messages.size() - 1).content());
+        }
+
+        @Override
+        public void streamMessage(String systemPrompt, List<Message> messages, int maxTokens,
+                                  Consumer<String> onDelta) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
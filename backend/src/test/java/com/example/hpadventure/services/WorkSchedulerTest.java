@@ -0,0 +1,136 @@
+package com.example.hpadventure.services;
+
+import com.example.hpadventure.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class WorkSchedulerTest {
+    private final Metrics metrics = new Metrics();
+    private WorkScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void backgroundWorkWaitsWhileInteractiveTurnsAreBusy() throws Exception {
+        scheduler = scheduler(1, 1, 1);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        WorkScheduler.Permit turn = scheduler.enter(
+            WorkScheduler.Priority.INTERACTIVE, "harry", Duration.ofSeconds(1));
+        scheduler.submit(WorkScheduler.Priority.BACKGROUND, "harry", ran::countDown);
+
+        assertTrue(scheduler.underPressure());
+        assertFalse(ran.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.queued(WorkScheduler.Priority.BACKGROUND));
+        assertTrue(metrics.scrape().contains("scheduler_background_deferred 1"));
+
+        turn.close();
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertFalse(scheduler.underPressure());
+    }
+
+    @Test
+    void waitingInteractiveWorkGetsTheNextFreeSlot() throws Exception {
+        scheduler = scheduler(4, 1, 2);
+        WorkScheduler.Permit first = scheduler.enter(
+            WorkScheduler.Priority.INTERACTIVE, "harry", Duration.ofSeconds(1));
+        CountDownLatch admitted = new CountDownLatch(1);
+
+        Thread waiter = new Thread(() -> {
+            try (WorkScheduler.Permit ignored = scheduler.enter(
+                WorkScheduler.Priority.INTERACTIVE, "ron", Duration.ofSeconds(5))) {
+                admitted.countDown();
+            }
+        });
+        waiter.start();
+        assertFalse(admitted.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.queued(WorkScheduler.Priority.INTERACTIVE));
+
+        first.close();
+        first.close();
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(0, scheduler.running(WorkScheduler.Priority.INTERACTIVE));
+    }
+
+    @Test
+    void waitingWorkIsGrantedRoundRobinAcrossUsers() throws Exception {
+        scheduler = scheduler(4, 1, 1);
+        WorkScheduler.Permit turn = scheduler.enter(
+            WorkScheduler.Priority.INTERACTIVE, "gate", Duration.ofSeconds(1));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(4);
+        for (String user : List.of("harry", "harry", "harry", "ron")) {
+            scheduler.submit(WorkScheduler.Priority.BACKGROUND, user, () -> {
+                order.add(user);
+                done.countDown();
+            });
+        }
+
+        turn.close();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("harry", "ron", "harry", "harry"), order);
+    }
+
+    @Test
+    void fullQueueRejectsWork() {
+        scheduler = scheduler(4, 1, 1);
+        WorkScheduler.Permit turn = scheduler.enter(
+            WorkScheduler.Priority.INTERACTIVE, "harry", Duration.ofSeconds(1));
+        scheduler.submit(WorkScheduler.Priority.BACKGROUND, "harry", () -> { });
+        scheduler.submit(WorkScheduler.Priority.BACKGROUND, "harry", () -> { });
+        scheduler.submit(WorkScheduler.Priority.BACKGROUND, "harry", () -> { });
+        scheduler.submit(WorkScheduler.Priority.BACKGROUND, "harry", () -> { });
+
+        assertThrows(RejectedExecutionException.class,
+            () -> scheduler.submit(WorkScheduler.Priority.BACKGROUND, "ron", () -> { }));
+        assertTrue(metrics.scrape().contains(
+            "scheduler_rejected_total{class=\"background\",reason=\"queue_full\"} 1"));
+        turn.close();
+    }
+
+    @Test
+    void waitingLongerThanAllowedIsRejected() {
+        scheduler = scheduler(4, 1, 1);
+        WorkScheduler.Permit turn = scheduler.enter(
+            WorkScheduler.Priority.INTERACTIVE, "harry", Duration.ofSeconds(1));
+
+        assertThrows(RejectedExecutionException.class,
+            () -> scheduler.enter(WorkScheduler.Priority.INTERACTIVE, "ron", Duration.ofMillis(50)));
+        assertEquals(0, scheduler.queued(WorkScheduler.Priority.INTERACTIVE));
+        assertTrue(metrics.scrape().contains(
+            "scheduler_rejected_total{class=\"interactive\",reason=\"timeout\"} 1"));
+        turn.close();
+    }
+
+    /**
+     * Every class gets {@code maxRunning} slots; interactive pressure starts at {@code deferAtInteractive}.
+     */
+    private WorkScheduler scheduler(int maxQueued, int maxRunning, int deferAtInteractive) {
+        WorkScheduler.Limits limits = new WorkScheduler.Limits(maxRunning, maxQueued);
+        return new WorkScheduler(metrics, Map.of(
+            WorkScheduler.Priority.INTERACTIVE, limits,
+            WorkScheduler.Priority.NEAR_INTERACTIVE, limits,
+            WorkScheduler.Priority.BACKGROUND, limits
+        ), deferAtInteractive);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.hpadventure.simulator;
+
+import com.example.hpadventure.providers.ImageProvider;
+import com.example.hpadventure.providers.ImageProviderFactory;
+import com.example.hpadventure.providers.SpeechProviderFactory;
+import com.example.hpadventure.providers.TextProvider;
+import com.example.hpadventure.providers.TextProviderFactory;
+import com.example.hpadventure.services.UpstreamException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class UpstreamSimulatorTest {
+    private static final List<TextProvider.Message> MESSAGES = List.of(new TextProvider.Message("user", "Start"));
+
+    private final OkHttpClient httpClient = new OkHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private UpstreamSimulator simulator;
+
+    @AfterEach
+    void tearDown() {
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
+    @Test
+    void openRouterStreamWaitsForTheFirstTokenAndEndsWithMarkers() throws IOException {
+        SimulatorProfile profile = new SimulatorProfile(2000, 40, Duration.ofMillis(200), Duration.ofMillis(200),
+            Duration.ZERO, Duration.ZERO, 1024, 1_000_000, 0, 0);
+        simulator = UpstreamSimulator.start(0, profile);
+        TextProvider provider = TextProviderFactory.create(httpClient, mapper,
+            "sim", "sim/model", simulator.baseUrl(), null, null, null);
+
+        StringBuilder text = new StringBuilder();
+        AtomicInteger deltas = new AtomicInteger();
+        long startedAt = System.nanoTime();
+        provider.streamMessage("System", MESSAGES, 500, delta -> {
+            deltas.incrementAndGet();
+            text.append(delta);
+        });
+
+        assertTrue(System.nanoTime() - startedAt >= Duration.ofMillis(200).toNanos());
+        assertEquals(40, deltas.get());
+        assertTrue(text.toString().contains("[OPTION: Umkehren]"));
+        assertTrue(text.toString().endsWith("[SZENE: Dunkler Korridor mit flackernder Fackel]"));
+        assertEquals(1, simulator.requestCount("openrouter"));
+    }
+
+    @Test
+    void anthropicSpeaksBothMessageAndStream() throws IOException {
+        simulator = UpstreamSimulator.start(0, SimulatorProfile.instant());
+        TextProvider provider = TextProviderFactory.create(httpClient, mapper,
+            null, null, null, "sim", "claude-sim", simulator.baseUrl());
+
+        String message = provider.createMessage("System", MESSAGES, 500);
+        StringBuilder streamed = new StringBuilder();
+        provider.streamMessage("System", MESSAGES, 500, streamed::append);
+
+        assertTrue(message.contains("[OPTION: Lumos wirken]"));
+        assertTrue(streamed.toString().contains("[SZENE: "));
+        assertEquals(2, simulator.requestCount("anthropic"));
+    }
+
+    @Test
+    void anthropicMessageBatchesArePolledUntilTheyEnd() throws IOException {
+        SimulatorProfile profile = new SimulatorProfile(20, 5, Duration.ofMillis(100), Duration.ofMillis(100),
+            Duration.ZERO, Duration.ZERO, 1024, 1_000_000, 0, 0);
+        simulator = UpstreamSimulator.start(0, profile);
+        TextProvider provider = TextProviderFactory.create(httpClient, mapper,
+            null, null, null, "sim", "claude-sim", simulator.baseUrl(), Duration.ofMillis(20));
+
+        List<TextProvider.BatchResult> results = new CopyOnWriteArrayList<>();
+        provider.createMessages(List.of(
+            new TextProvider.BatchRequest("0", "System", MESSAGES, 200),
+            new TextProvider.BatchRequest("1", "System", MESSAGES, 200)
+        ), 4, results::add);
+
+        assertEquals(List.of("0", "1"), results.stream().map(TextProvider.BatchResult::id).sorted().toList());
+        results.forEach(result -> assertNotNull(result.text()));
+        assertTrue(simulator.requestCount("anthropic") >= 3);
+    }
+
+    @Test
+    void imageProvidersGetADecodablePng() throws IOException {
+        simulator = UpstreamSimulator.start(0, SimulatorProfile.instant());
+        ImageProvider openAi = ImageProviderFactory.create(httpClient, mapper, "openai", null, null, null,
+            "sim", "gpt-image-1", simulator.baseUrl(), "png", null, "low", "1024x1024");
+        ImageProvider openRouter = ImageProviderFactory.create(httpClient, mapper, "openrouter",
+            "sim", "sim/image", simulator.baseUrl(), null, null, null, null, null, null, null);
+
+        for (ImageProvider provider : List.of(openAi, openRouter)) {
+            ImageProvider.ImageResult image = provider.generateImage("Dunkler Korridor");
+            assertEquals("image/png", image.mimeType());
+            assertNotNull(ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(image.base64()))));
+        }
+    }
+
+    @Test
+    void speechStreamsMp3FramesForTheText() throws IOException {
+        simulator = UpstreamSimulator.start(0, SimulatorProfile.instant());
+        ByteArrayOutputStream audio = new ByteArrayOutputStream();
+
+        SpeechProviderFactory.create(httpClient, mapper, "sim", "voice", "eleven_flash_v2_5",
+            simulator.baseUrl(), "mp3_44100_128", null).streamSpeech("Hallo Welt, wie geht es dir heute?", audio);
+
+        byte[] bytes = audio.toByteArray();
+        assertTrue(bytes.length > 417);
+        assertEquals((byte) 0xFF, bytes[0]);
+        assertEquals((byte) 0xFB, bytes[1]);
+    }
+
+    @Test
+    void injectedRateLimitsReachTheProviderAsUpstreamErrors() throws IOException {
+        simulator = UpstreamSimulator.start(0, SimulatorProfile.instant().withFailures(1, 0));
+        TextProvider provider = TextProviderFactory.create(httpClient, mapper,
+            null, null, null, "sim", "claude-sim", simulator.baseUrl());
+
+        UpstreamException error = assertThrows(UpstreamException.class,
+            () -> provider.createMessage("System", MESSAGES, 500));
+
+        assertEquals(429, error.status());
+        assertTrue(error.getMessage().contains("rate_limit_error"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.hpadventure.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class RecentTracesTest {
+    @Test
+    void keepsTheLastTraces_andReturnsTheSlowestFirst() {
+        RecentTraces recent = new RecentTraces(3);
+        recent.export(trace("a", 10));
+        recent.export(trace("b", 50));
+        recent.export(trace("c", 30));
+        recent.export(trace("d", 20));
+
+        List<FinishedTrace> slowest = recent.slowest(10);
+
+        assertEquals(List.of("b", "c", "d"), slowest.stream().map(FinishedTrace::traceId).toList());
+        assertEquals(1, recent.slowest(1).size());
+    }
+
+    @Test
+    void waterfallIndentsChildren_andScalesBarsToTheRoot() {
+        long start = 1_000_000_000L;
+        FinishedTrace trace = new FinishedTrace("t1", List.of(
+            new Span.SpanData("r", null, "story.turn", start, 100_000_000L, Map.of("requestId", "abc12345"), null),
+            new Span.SpanData("u", "r", "upstream.openrouter", start + 50_000_000L, 50_000_000L, Map.of(), "HTTP 503")
+        ), 0);
+
+        String[] lines = RecentTraces.waterfall(trace).split("\n");
+
+        assertEquals("trace t1 story.turn 100.0 ms", lines[0]);
+        assertTrue(lines[1].contains("|" + "#".repeat(RecentTraces.BAR_WIDTH) + "| story.turn requestId=abc12345"));
+        int half = RecentTraces.BAR_WIDTH / 2;
+        assertTrue(lines[2].contains("|" + " ".repeat(half) + "#".repeat(half) + "|   upstream.openrouter"));
+        assertTrue(lines[2].contains("50.0 ms"));
+        assertTrue(lines[2].endsWith("error=\"HTTP 503\""));
+    }
+
+    private static FinishedTrace trace(String id, long durationMillis) {
+        return new FinishedTrace(id, List.of(
+            new Span.SpanData("s" + id, null, "story.turn", 0, durationMillis * 1_000_000L, Map.of(), null)
+        ), 0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.hpadventure.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TracingTest {
+    @Test
+    void childSpansNestUnderTheCurrentSpan_andTheRootExportsTheTrace() {
+        List<FinishedTrace> exported = new ArrayList<>();
+        Tracer tracer = new Tracer(List.of(exported::add));
+
+        try (Span root = tracer.startTrace("story.turn")) {
+            root.attribute("requestId", "abc12345");
+            try (Span context = Tracing.start("story.context")) {
+                assertSame(context, Tracing.current());
+            }
+            try (Span parse = Tracing.start("story.parse")) {
+                parse.error("boom");
+            }
+            assertSame(root, Tracing.current());
+        }
+
+        assertFalse(Tracing.current().isRecording());
+        assertEquals(1, exported.size());
+        FinishedTrace trace = exported.get(0);
+        assertEquals(3, trace.spans().size());
+        Span.SpanData root = trace.root();
+        assertEquals("story.turn", root.name());
+        assertNull(root.parentSpanId());
+        assertEquals("abc12345", root.attributes().get("requestId"));
+        assertEquals(root.spanId(), trace.spans().get(1).parentSpanId());
+        assertEquals("story.context", trace.spans().get(1).name());
+        assertEquals("boom", trace.spans().get(2).error());
+        assertEquals(32, trace.traceId().length());
+    }
+
+    @Test
+    void detachedSpansAreNotCurrent_andUnfinishedOnesAreMarked() {
+        List<FinishedTrace> exported = new ArrayList<>();
+        Tracer tracer = new Tracer(List.of(exported::add));
+
+        try (Span root = tracer.startTrace("tts.request")) {
+            Span upstream = Tracing.startDetached("upstream.elevenlabs");
+            assertTrue(upstream.isRecording());
+            assertSame(root, Tracing.current());
+        }
+
+        Span.SpanData upstream = exported.get(0).spans().get(1);
+        assertEquals(Boolean.TRUE, upstream.attributes().get("unfinished"));
+    }
+
+    @Test
+    void outsideATraceEverySpanIsANoop() {
+        Span span = Tracing.start("story.parse");
+        span.attribute("key", "value").close();
+
+        assertFalse(span.isRecording());
+        assertFalse(Tracer.NOOP.startTrace("story.turn").isRecording());
+        assertFalse(Tracing.current().isRecording());
+    }
+
+    @Test
+    void spansBeyondTheLimitAreCountedAsDropped() {
+        List<FinishedTrace> exported = new ArrayList<>();
+        Tracer tracer = new Tracer(List.of(exported::add));
+
+        try (Span ignored = tracer.startTrace("story.turn")) {
+            for (int i = 0; i < Trace.MAX_SPANS + 10; i++) {
+                try (Span flush = Tracing.start("sse.flush")) {
+                    flush.attribute("event", "delta");
+                }
+            }
+        }
+
+        FinishedTrace trace = exported.get(0);
+        assertEquals(Trace.MAX_SPANS, trace.spans().size());
+        assertEquals(11, trace.droppedSpans());
+    }
+}
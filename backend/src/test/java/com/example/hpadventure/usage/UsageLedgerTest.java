@@ -0,0 +1,85 @@
+package com.example.hpadventure.usage;
+
+import com.example.hpadventure.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class UsageLedgerTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void attributesCallsToTheScopedUserAndCallType() {
+        Metrics metrics = new Metrics();
+        UsageLedger ledger = new UsageLedger(metrics, Map.of(), CLOCK);
+
+        try (Usage.Scope ignored = Usage.begin(ledger, "hermine")) {
+            Usage.record("openrouter", "mimo", new TokenUsage(1000, 400, 200, 0.002));
+            try (Usage.Scope title = Usage.callType("title")) {
+                Usage.record("openrouter", "mimo", new TokenUsage(300, 10, 0, 0.0001));
+            }
+            Usage.record("openrouter", "mimo", new TokenUsage(1200, 380, 0, 0.002));
+        }
+        Usage.record("openrouter", "mimo", new TokenUsage(99, 99, 0, null));
+
+        UsageLedger.Summary summary = ledger.summary();
+        assertEquals(Instant.parse("2026-01-01T00:00:00Z"), summary.since());
+        assertEquals(3, summary.total().calls());
+        assertEquals(2500, summary.total().inputTokens());
+        assertEquals(0.0041, summary.total().costUsd(), 1e-9);
+
+        UsageLedger.Line story = summary.byCallType().get(0);
+        assertEquals("story", story.callType());
+        assertEquals(2, story.calls());
+        assertEquals(780, story.outputTokens());
+        assertEquals(200, story.cachedInputTokens());
+        assertEquals("hermine", summary.byUser().get(0).user());
+        assertNull(summary.byUser().get(0).callType());
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains(
+            "upstream_input_tokens_total{provider=\"openrouter\",model=\"mimo\",call=\"title\",user=\"hermine\"} 300"));
+    }
+
+    @Test
+    void pricesCallsFromTheTable_whenTheProviderReportsNoCost() {
+        UsageLedger ledger = new UsageLedger(new Metrics(),
+            UsageLedger.Price.parseTable("claude-3-5-haiku-latest=0.8/4, broken=x/1"), CLOCK);
+
+        try (Usage.Scope ignored = Usage.begin(ledger, null)) {
+            Usage.record("anthropic", "claude-3-5-haiku-latest", new TokenUsage(1_000_000, 250_000, 0, null));
+            Usage.record("anthropic", "unpriced", new TokenUsage(10, 10, 0, null));
+        }
+
+        UsageLedger.Summary summary = ledger.summary();
+        assertEquals(1.8, summary.total().costUsd(), 1e-9);
+        assertEquals(Usage.ANONYMOUS, summary.entries().get(0).user());
+        assertEquals(2, summary.total().calls());
+    }
+
+    @Test
+    void discountsTablePricesButNotReportedCosts() {
+        UsageLedger ledger = new UsageLedger(new Metrics(),
+            UsageLedger.Price.parseTable("claude-3-5-haiku-latest=0.8/4"), CLOCK);
+
+        try (Usage.Scope ignored = Usage.begin(ledger, null)) {
+            Usage.record("anthropic", "claude-3-5-haiku-latest", new TokenUsage(1_000_000, 250_000, 0, null), 0.5);
+            Usage.record("anthropic", "claude-3-5-haiku-latest", new TokenUsage(10, 10, 0, 0.25), 0.5);
+        }
+
+        assertEquals(0.9 + 0.25, ledger.summary().total().costUsd(), 1e-9);
+    }
+
+    @Test
+    void parsesStreamedCounts() {
+        assertNull(TokenUsage.parse(null, null, "5", "0.1"));
+        assertEquals(new TokenUsage(12, 0, 0, null), TokenUsage.parse("12", null, "x", "free"));
+    }
+}
@@ -11,6 +11,7 @@ BACKEND_PUBLIC="$ROOT_DIR/../backend/src/main/resources/public"
 )
 
 echo "Copying static assets into backend: $BACKEND_PUBLIC"
+rm -rf "$BACKEND_PUBLIC"
 mkdir -p "$BACKEND_PUBLIC"
 cp "$ROOT_DIR/public/index.html" \
    "$ROOT_DIR/public/styles.css" \
@@ -22,3 +23,6 @@ if [[ -f "$ROOT_DIR/public/sw.js" ]]; then
   echo "Copying service worker -> $BACKEND_PUBLIC/sw.js"
   cp "$ROOT_DIR/public/sw.js" "$BACKEND_PUBLIC/"
 fi
+
+echo "Fingerprinting and precompressing assets in $BACKEND_PUBLIC"
+node "$ROOT_DIR/fingerprint.mjs" "$BACKEND_PUBLIC"
@@ -0,0 +1,70 @@
+#!/usr/bin/env node
+// Fingerprints and precompresses the static assets in a public/ directory, in place:
+//   styles.css, app.js, elm.js  ->  name.<hash>.ext (+ .br / .gz), originals removed
+//   index.html, sw.js           ->  rewritten to reference the hashed names (+ .br / .gz)
+//   asset-manifest.json         ->  read by the backend to serve the files from memory
+//
+// Usage: node fingerprint.mjs <public-dir>
+import { createHash } from "node:crypto";
+import { readFileSync, writeFileSync, unlinkSync } from "node:fs";
+import { join } from "node:path";
+import { brotliCompressSync, gzipSync, constants } from "node:zlib";
+
+const HASHED = ["styles.css", "app.js", "elm.js"];
+const ENTRY_POINTS = ["index.html", "sw.js"];
+const HASH_LENGTH = 10;
+
+const dir = process.argv[2];
+if (!dir) {
+  console.error("Usage: node fingerprint.mjs <public-dir>");
+  process.exit(1);
+}
+
+const hash = (bytes) => createHash("sha256").update(bytes).digest("hex").slice(0, HASH_LENGTH);
+
+const aliases = {};
+const files = {};
+
+function emit(name, bytes, immutable) {
+  writeFileSync(join(dir, name), bytes);
+  const encodings = [];
+  const br = brotliCompressSync(bytes, {
+    params: { [constants.BROTLI_PARAM_QUALITY]: constants.BROTLI_MAX_QUALITY, [constants.BROTLI_PARAM_SIZE_HINT]: bytes.length },
+  });
+  if (br.length < bytes.length) {
+    writeFileSync(join(dir, `${name}.br`), br);
+    encodings.push("br");
+  }
+  const gz = gzipSync(bytes, { level: 9 });
+  if (gz.length < bytes.length) {
+    writeFileSync(join(dir, `${name}.gz`), gz);
+    encodings.push("gzip");
+  }
+  files[name] = { etag: `"${hash(bytes)}"`, immutable, encodings };
+  console.log(`${name}: ${bytes.length} B, br ${br.length} B, gzip ${gz.length} B`);
+}
+
+for (const name of HASHED) {
+  const bytes = readFileSync(join(dir, name));
+  const dot = name.lastIndexOf(".");
+  const hashed = `${name.slice(0, dot)}.${hash(bytes)}${name.slice(dot)}`;
+  aliases[name] = hashed;
+  emit(hashed, bytes, true);
+  unlinkSync(join(dir, name));
+}
+
+const buildId = hash(Object.values(aliases).join(","));
+
+for (const name of ENTRY_POINTS) {
+  let text = readFileSync(join(dir, name), "utf8");
+  for (const [original, hashed] of Object.entries(aliases)) {
+    text = text.replaceAll(`"${original}"`, `"${hashed}"`).replaceAll(`"/${original}"`, `"/${hashed}"`);
+  }
+  if (name === "sw.js") {
+    text = text.replace(/(const CACHE_NAME = "[^"]*)"/, `$1-${buildId}"`);
+  }
+  emit(name, Buffer.from(text, "utf8"), false);
+}
+
+writeFileSync(join(dir, "asset-manifest.json"), JSON.stringify({ aliases, files }, null, 2) + "\n");
+console.log(`Wrote asset-manifest.json (build ${buildId})`);
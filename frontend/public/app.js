@@ -280,6 +280,14 @@
     let activeController = null;
     let receivedFinal = false;
     let receivedImage = false;
+    // Resumable streams: the server tags events with "<streamId>:<seq>" ids
+    let lastEventId = null;
+    let streamComplete = false;
+    let resuming = false;
+    let resumeUnavailable = false;
+    const TERMINAL_EVENTS = ["image", "image_error", "error"];
+    const MAX_RESUME_ATTEMPTS = 3;
+    const MAX_IMAGE_JOB_POLLS = 8;
 
     const sendEvent = (event, data) => {
       // Deduplicate: only allow one final/final_text and one image per stream
@@ -287,8 +295,8 @@
         console.warn("Duplicate final event skipped:", event);
         return;
       }
-      if (event === "image" && receivedImage) {
-        console.warn("Duplicate image event skipped");
+      if ((event === "image" || event === "image_preview") && receivedImage) {
+        console.warn("Duplicate image event skipped:", event);
         return;
       }
 
@@ -323,6 +331,7 @@
       }
 
       let event = "message";
+      let id = null;
       const dataLines = [];
       const lines = chunk.split("\n");
       for (const line of lines) {
@@ -330,6 +339,8 @@
           event = line.slice(6).trim();
         } else if (line.startsWith("data:")) {
           dataLines.push(line.slice(5).trim());
+        } else if (line.startsWith("id:")) {
+          id = line.slice(3).trim();
         }
       }
 
@@ -338,7 +349,18 @@
         return;
       }
 
-      sendEvent(event, parseEventData(data));
+      const parsed = parseEventData(data);
+      if (resuming && event === "error" && parsed && parsed.error && parsed.error.code === "STREAM_NOT_FOUND") {
+        resumeUnavailable = true;
+        return;
+      }
+      if (id) {
+        lastEventId = id;
+      }
+      if (TERMINAL_EVENTS.includes(event)) {
+        streamComplete = true;
+      }
+      sendEvent(event, parsed);
     };
 
     const streamResponse = async (response) => {
@@ -396,12 +418,101 @@
           sendEvent("error", data);
           return;
         }
-        sendEvent("final", data);
+        const imageJobId = data.assistant && data.assistant.imageJobId;
+        if (!imageJobId) {
+          sendEvent("final", data);
+          return;
+        }
+        // The server answered before the illustration was rendered; it arrives through the image job
+        sendEvent("final_text", data);
+        await awaitImageJob(imageJobId);
       } catch (error) {
         sendError("Netzwerkfehler beim Laden der Geschichte.");
       }
     };
 
+    // Long-poll the image job until it is done or failed (each poll waits up to 25 s on the server)
+    const awaitImageJob = async (jobId) => {
+      for (let attempt = 1; attempt <= MAX_IMAGE_JOB_POLLS; attempt++) {
+        try {
+          const response = await fetch(`/api/images/jobs/${encodeURIComponent(jobId)}?wait=25`, {
+            headers: { "X-App-Password": getPassword() }
+          });
+          if (response.status === 202) {
+            continue;
+          }
+          const job = await response.json();
+          if (response.ok && job.status === "done") {
+            sendEvent("image", { image: job.image });
+          } else {
+            sendEvent("image_error", job.error ? { error: job.error } : job);
+          }
+          return;
+        } catch (error) {
+          console.warn("Image job poll failed", error);
+          await new Promise((resolve) => setTimeout(resolve, 1000 * attempt));
+        }
+      }
+      sendEvent("image_error", {
+        error: { code: "IMAGE_JOB_FAILED", message: "Illustration konnte nicht geladen werden.", requestId: null }
+      });
+    };
+
+    // Reattach to a dropped stream and replay what was missed; the turn keeps generating on the server
+    const resumeStream = async (controller) => {
+      for (let attempt = 1; attempt <= MAX_RESUME_ATTEMPTS; attempt++) {
+        await new Promise((resolve) => setTimeout(resolve, 500 * attempt));
+        if (controller.signal.aborted) {
+          return true;
+        }
+        resuming = true;
+        try {
+          const response = await fetch("/api/story/stream/resume", {
+            headers: {
+              Accept: "text/event-stream",
+              "Last-Event-ID": lastEventId,
+              "X-App-Password": getPassword()
+            },
+            signal: controller.signal
+          });
+          await streamResponse(response);
+        } catch (error) {
+          if (error && error.name === "AbortError") {
+            return true;
+          }
+          console.warn("Story stream resume failed", error);
+        } finally {
+          resuming = false;
+        }
+        if (streamComplete) {
+          return true;
+        }
+        if (resumeUnavailable) {
+          return false;
+        }
+      }
+      return false;
+    };
+
+    const recoverStream = async (payload, controller) => {
+      if (!lastEventId) {
+        // Server without stream resume: nothing was received that could be continued
+        await fallbackToJson(payload);
+        return;
+      }
+      if (await resumeStream(controller)) {
+        return;
+      }
+      if (receivedFinal) {
+        // The text arrived, only the illustration is lost
+        sendEvent("image_error", {
+          error: { code: "STREAM_INTERRUPTED", message: "Illustration konnte nicht geladen werden.", requestId: null }
+        });
+        return;
+      }
+      await fallbackToJson(payload);
+    };
+
     app.ports.startStoryStream.subscribe(async (payload) => {
       if (activeController) {
         activeController.abort();
@@ -410,6 +521,9 @@
       // Reset deduplication flags for new stream
       receivedFinal = false;
       receivedImage = false;
+      lastEventId = null;
+      streamComplete = false;
+      resumeUnavailable = false;
 
       stopTts();
 
@@ -431,12 +545,14 @@
         const streamed = await streamResponse(response);
         if (!streamed) {
           await fallbackToJson(payload);
+        } else if (!streamComplete && lastEventId) {
+          await recoverStream(payload, controller);
         }
       } catch (error) {
         if (error && error.name === "AbortError") {
           return;
         }
-        await fallbackToJson(payload);
+        await recoverStream(payload, controller);
       } finally {
         if (activeController === controller) {
           activeController = null;
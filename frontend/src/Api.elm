@@ -33,6 +33,7 @@ type StreamEvent
     = StreamDelta String
     | StreamFinal StoryResponse
     | StreamFinalText StoryResponse
+    | StreamImagePreview Model.ImageData
     | StreamImage Model.ImageData
     | StreamImageError String
     | StreamError String
@@ -64,6 +65,9 @@ decodeStreamEvent =
                     "final_text" ->
                         Decode.map StreamFinalText (Decode.field "data" decodeStoryResponse)
 
+                    "image_preview" ->
+                        Decode.map StreamImagePreview (Decode.field "data" (Decode.field "image" imageDecoder))
+
                     "image" ->
                         Decode.map StreamImage (Decode.field "data" (Decode.field "image" imageDecoder))
 
@@ -230,10 +234,11 @@ defaultAdventure =
 
 imageDecoder : Decoder Model.ImageData
 imageDecoder =
-    Decode.map3 Model.ImageData
+    Decode.map4 Model.ImageData
         (Decode.field "mimeType" Decode.string)
         (Decode.field "base64" Decode.string)
         (Decode.maybe (Decode.field "prompt" Decode.string))
+        (Decode.maybe (Decode.field "thumbnail" Decode.string))
 
 
 encodeCompletedAdventure : Model.CompletedAdventure -> Encode.Value
@@ -196,15 +196,17 @@ encodeImage image =
         [ ( "mimeType", Encode.string image.mimeType )
         , ( "base64", Encode.string image.base64 )
         , ( "prompt", encodeMaybe Encode.string image.prompt )
+        , ( "thumbnail", encodeMaybe Encode.string image.thumbnail )
         ]
 
 
 decodeImage : Decoder Model.ImageData
 decodeImage =
-    Decode.map3 Model.ImageData
+    Decode.map4 Model.ImageData
         (Decode.field "mimeType" Decode.string)
         (Decode.field "base64" Decode.string)
         (Decode.maybe (Decode.field "prompt" Decode.string))
+        (Decode.maybe (Decode.field "thumbnail" Decode.string))
 
 
 encodeCompletedAdventure : Model.CompletedAdventure -> Encode.Value
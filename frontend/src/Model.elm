@@ -44,6 +44,7 @@ type alias ImageData =
     { mimeType : String
     , base64 : String
     , prompt : Maybe String
+    , thumbnail : Maybe String
     }
 
 
@@ -371,6 +371,9 @@ handleStreamEvent save speakStory payload state =
                 Api.StreamFinalText response ->
                     applyStoryResponse save speakStory False response state
 
+                Api.StreamImagePreview image ->
+                    applyStoryImagePreview image state
+
                 Api.StreamImage image ->
                     applyStoryImage save image state
 
@@ -422,6 +425,16 @@ applyStoryImage save image state =
             ( next, save next )
 
 
+applyStoryImagePreview : Model.ImageData -> Model.GameState -> ( Model.GameState, Cmd Msg )
+applyStoryImagePreview image state =
+    case state.currentAdventure of
+        Nothing ->
+            ( state, Cmd.none )
+
+        Just adventure ->
+            ( { state | currentAdventure = Just (updateLastTurnWithImage image adventure) }, Cmd.none )
+
+
 applyImageError : (Model.GameState -> Cmd Msg) -> String -> Model.GameState -> ( Model.GameState, Cmd Msg )
 applyImageError save message state =
     let
@@ -522,7 +535,27 @@ updateLastTurnWithImage image adventure =
                 updatedTurn =
                     { lastTurn | assistant = updatedAssistant }
             in
-            { adventure | turns = List.reverse (updatedTurn :: rest) }
+            { adventure | turns = List.reverse (updatedTurn :: List.map compactTurnImage rest) }
+
+
+compactTurnImage : Model.Turn -> Model.Turn
+compactTurnImage turn =
+    case turn.assistant of
+        Nothing ->
+            turn
+
+        Just assistant ->
+            { turn | assistant = Just { assistant | image = Maybe.map toThumbnail assistant.image } }
+
+
+toThumbnail : Model.ImageData -> Model.ImageData
+toThumbnail image =
+    case image.thumbnail of
+        Nothing ->
+            image
+
+        Just thumbnail ->
+            { image | mimeType = "image/jpeg", base64 = thumbnail, thumbnail = Nothing }
 
 
 updateAdventureTitle : Maybe String -> Model.Adventure -> Model.Adventure